@@ -1,18 +1,54 @@
-
 package ca.yorku.eecs;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import ca.yorku.eecs.admission.AdaptiveLimiter;
+import ca.yorku.eecs.admission.Bulkhead;
+import ca.yorku.eecs.admission.CostClass;
+import ca.yorku.eecs.admission.LimitedDriver;
+import ca.yorku.eecs.compression.ResponseCompressor;
+import ca.yorku.eecs.config.AppConfig;
+import ca.yorku.eecs.graph.ActorMovieGraph;
+import ca.yorku.eecs.graph.BaconStatsCache;
+import ca.yorku.eecs.graph.CenterTableCache;
+import ca.yorku.eecs.graph.ClosenessCentralityJob;
+import ca.yorku.eecs.graph.CoStarRecommender;
 import ca.yorku.eecs.handler.RootHandler;
 import ca.yorku.eecs.handler.get.*;
 import ca.yorku.eecs.handler.put.AddActorHandler;
 import ca.yorku.eecs.handler.put.AddMovieHandler;
 import ca.yorku.eecs.handler.put.AddRelationshipHandler;
-import com.sun.net.httpserver.HttpServer;
+import ca.yorku.eecs.handler.put.BatchHandler;
+import ca.yorku.eecs.journal.WriteJournal;
+import ca.yorku.eecs.locking.StripedLocks;
+import ca.yorku.eecs.logging.AsyncLogHandler;
+import ca.yorku.eecs.membership.KnownIds;
+import ca.yorku.eecs.routing.StaticRoutersResolver;
+import ca.yorku.eecs.search.SearchIndex;
+import ca.yorku.eecs.server.JdkWebServer;
+import ca.yorku.eecs.server.NioWebServer;
+import ca.yorku.eecs.server.WebServer;
+import ca.yorku.eecs.tracing.SpanFileExporter;
+import ca.yorku.eecs.tracing.Tracer;
+import ca.yorku.eecs.versioning.EntityVersions;
+import ca.yorku.eecs.warmup.Warmup;
+import ca.yorku.eecs.warmup.WarmupReport;
+import com.sun.net.httpserver.HttpHandler;
+import org.neo4j.driver.internal.metrics.spi.Metrics;
 import org.neo4j.driver.v1.AuthTokens;
 import org.neo4j.driver.v1.Config;
 import org.neo4j.driver.v1.Driver;
@@ -25,9 +61,282 @@ import org.neo4j.driver.v1.GraphDatabase;
 public class App {
 
 	/**
-	 * Constant representing the server port.
+	 * Settings from config/app.properties, the environment and system properties. Every "Override with -Dkey" below
+	 * can equally be set as key in the file or as the KEY environment variable; see {@link AppConfig}.
+	 */
+	private static final AppConfig CONFIG = AppConfig.load();
+
+	/**
+	 * Address and port the HTTP server listens on. Override with -Dserver.host and -Dserver.port.
+	 */
+	private static final String HOST = CONFIG.get("server.host", "0.0.0.0");
+
+	private static final int PORT = CONFIG.getInt("server.port", 8080);
+
+	/**
+	 * Maximum number of connections waiting to be accepted; 0 uses the backend's default. Override with
+	 * -Dserver.backlog.
+	 */
+	private static final int SERVER_BACKLOG = CONFIG.getInt("server.backlog", 0);
+
+	/**
+	 * Number of threads running the handlers; 0 uses a cached pool that grows with demand.
+	 * Override with -Dserver.executor.threads.
+	 */
+	private static final int SERVER_EXECUTOR_THREADS = CONFIG.getInt("server.executor.threads", 0);
+
+	/**
+	 * Neo4j credentials. Override with -Dneo4j.username and -Dneo4j.password, or better NEO4J_PASSWORD in the
+	 * environment.
+	 */
+	private static final String NEO4J_USERNAME = CONFIG.get("neo4j.username", "neo4j");
+
+	private static final String NEO4J_PASSWORD = CONFIG.get("neo4j.password", "12345678");
+
+	/**
+	 * Maximum number of connections the driver keeps per server. Override with -Dneo4j.pool.maxSize.
+	 */
+	private static final int NEO4J_POOL_MAX_SIZE = CONFIG.getInt("neo4j.pool.maxSize", 100);
+
+	/**
+	 * Longest a session waits for a pooled connection before failing. Override with -Dneo4j.pool.acquisitionTimeoutMillis.
+	 */
+	private static final long NEO4J_POOL_ACQUISITION_TIMEOUT_MILLIS = CONFIG.getLong("neo4j.pool.acquisitionTimeoutMillis", 60_000);
+
+	/**
+	 * Pooled connections older than this are closed instead of reused. Override with -Dneo4j.pool.maxLifetimeMillis.
 	 */
-	private static final int PORT = 8080;
+	private static final long NEO4J_POOL_MAX_LIFETIME_MILLIS = CONFIG.getLong("neo4j.pool.maxLifetimeMillis", 3_600_000);
+
+	/**
+	 * Longest opening a new connection may take. Override with -Dneo4j.connectionTimeoutMillis.
+	 */
+	private static final long NEO4J_CONNECTION_TIMEOUT_MILLIS = CONFIG.getLong("neo4j.connectionTimeoutMillis", 5000);
+
+	/**
+	 * Whether the driver collects the connection pool statistics served at /debug/pool. Override with
+	 * -Dneo4j.metrics.enabled.
+	 */
+	private static final boolean NEO4J_METRICS_ENABLED = CONFIG.getBoolean("neo4j.metrics.enabled", true);
+
+	/**
+	 * The actorId of Kevin Bacon.
+	 */
+	private static final String KEVIN_BACON_ID = "nm0000102";
+
+	/**
+	 * Neo4j connection URI. Use a bolt+routing:// URI against a causal cluster, so GET handlers' READ sessions are spread
+	 * across read replicas and PUT handlers' WRITE sessions go to the leader. Override with -Dneo4j.uri.
+	 */
+	private static final String NEO4J_URI = CONFIG.get("neo4j.uri", "bolt://localhost:7687");
+
+	/**
+	 * Comma-separated host:port list of further cluster members to fetch routing tables from when the URI's host is
+	 * unreachable; only used with bolt+routing URIs. Override with -Dneo4j.routers.
+	 */
+	private static final String NEO4J_ROUTERS = CONFIG.get("neo4j.routers", "");
+
+	/**
+	 * Location of the append-only journal of successful writes. Override with -Djournal.path.
+	 */
+	private static final String JOURNAL_PATH = CONFIG.get("journal.path", "data/write-journal.log");
+
+	/**
+	 * Number of pooled Neo4j connections opened during warmup. Override with -Dwarmup.connections.
+	 */
+	private static final int WARMUP_CONNECTIONS = CONFIG.getInt("warmup.connections", 10);
+
+	/**
+	 * Number of times each synthetic warmup request is replayed. Override with -Dwarmup.iterations.
+	 */
+	private static final int WARMUP_ITERATIONS = CONFIG.getInt("warmup.iterations", 200);
+
+	/**
+	 * HTTP server implementation: "nio" for the event-loop server, or "jdk" to fall back to com.sun.net.httpserver.
+	 * Override with -Dserver.backend.
+	 */
+	private static final String SERVER_BACKEND = CONFIG.get("server.backend", "nio");
+
+	/**
+	 * Responses with a declared length below this many bytes are sent uncompressed. Override with -Dcompression.minBytes.
+	 */
+	private static final int COMPRESSION_MIN_BYTES = CONFIG.getInt("compression.minBytes", 1024);
+
+	/**
+	 * Deflate level used for gzip and deflate responses. Override with -Dcompression.level.
+	 */
+	private static final int COMPRESSION_LEVEL = CONFIG.getInt("compression.level", 6);
+
+	/**
+	 * Memory budget, in bytes, for compressed copies of cacheable responses. Override with -Dcompression.cacheMb.
+	 */
+	private static final long COMPRESSION_CACHE_MAX_BYTES = CONFIG.getLong("compression.cacheMb", 16) * 1024 * 1024;
+
+	/**
+	 * Longest a request waits for admission before getting a 503. Override with -Dadmission.maxWaitMillis.
+	 */
+	private static final long ADMISSION_MAX_WAIT_MILLIS = CONFIG.getLong("admission.maxWaitMillis", 1000);
+
+	/**
+	 * Starting, lowest and highest number of concurrent Neo4j sessions the handlers may hold; the limit moves between the
+	 * last two with the measured latency. The highest defaults to the driver's connection pool size.
+	 * Override with -Dneo4j.limit.initial, -Dneo4j.limit.min and -Dneo4j.limit.max.
+	 */
+	private static final int NEO4J_LIMIT_INITIAL = CONFIG.getInt("neo4j.limit.initial", 20);
+
+	private static final int NEO4J_LIMIT_MIN = CONFIG.getInt("neo4j.limit.min", 2);
+
+	private static final int NEO4J_LIMIT_MAX = CONFIG.getInt("neo4j.limit.max", NEO4J_POOL_MAX_SIZE);
+
+	/**
+	 * Longest a handler waits for the Neo4j limit before its request fails. Override with -Dneo4j.limit.maxWaitMillis.
+	 */
+	private static final long NEO4J_LIMIT_MAX_WAIT_MILLIS = CONFIG.getLong("neo4j.limit.maxWaitMillis", 1000);
+
+	/**
+	 * Threads, queue length and Neo4j session budget of each bulkhead, the isolated share of the server that a group of
+	 * routes runs on. Override with -Dbulkhead.NAME.threads, -Dbulkhead.NAME.queue and -Dbulkhead.NAME.sessions, where
+	 * NAME is lookups, writes, paths, analytics or export; 0 sessions leaves a group limited only by the global Neo4j
+	 * limit.
+	 */
+	private static final int[] LOOKUPS_BULKHEAD = bulkheadSettings("lookups", 32, 64, 24);
+
+	private static final int[] WRITES_BULKHEAD = bulkheadSettings("writes", 16, 32, 16);
+
+	private static final int[] PATHS_BULKHEAD = bulkheadSettings("paths", 8, 16, 8);
+
+	private static final int[] ANALYTICS_BULKHEAD = bulkheadSettings("analytics", 8, 32, 0);
+
+	private static final int[] EXPORT_BULKHEAD = bulkheadSettings("export", 2, 2, 2);
+
+	/**
+	 * Permits and queue length of each bulkhead's cost class, which weighs the group's routes against each other; in
+	 * the paths group computeBaconPath holds two permits and computeBaconNumber one. Both default to the bulkhead's
+	 * threads, so a class can never admit more than its bulkhead runs and a group's routes only compete with each
+	 * other: at most four path queries run at once in the default paths group, however many threads wait. Override
+	 * with -Dadmission.NAME.concurrency and -Dadmission.NAME.queue, with NAME as for the bulkheads.
+	 */
+	private static final int[] LOOKUPS_ADMISSION = admissionSettings("lookups", LOOKUPS_BULKHEAD);
+
+	private static final int[] WRITES_ADMISSION = admissionSettings("writes", WRITES_BULKHEAD);
+
+	private static final int[] PATHS_ADMISSION = admissionSettings("paths", PATHS_BULKHEAD);
+
+	private static final int[] ANALYTICS_ADMISSION = admissionSettings("analytics", ANALYTICS_BULKHEAD);
+
+	private static final int[] EXPORT_ADMISSION = admissionSettings("export", EXPORT_BULKHEAD);
+
+	/**
+	 * Longest the driver keeps retrying a write transaction function after transient errors such as deadlocks, with
+	 * jittered exponential backoff between attempts. Override with -Dneo4j.maxRetryMillis.
+	 */
+	private static final long NEO4J_MAX_RETRY_MILLIS = CONFIG.getLong("neo4j.maxRetryMillis", 5000);
+
+	/**
+	 * Number of stripes of the in-process locks serializing writes to the same actor or movie.
+	 * Override with -Dwrites.lockStripes.
+	 */
+	private static final int WRITE_LOCK_STRIPES = CONFIG.getInt("writes.lockStripes", 256);
+
+	/**
+	 * Whether the GET handlers answer requests for unknown actorIds and movieIds from Bloom filters instead of Neo4j.
+	 * Disable when nodes are created in Neo4j other than through this server. Override with -DknownIds.enabled.
+	 */
+	private static final boolean KNOWN_IDS_ENABLED = CONFIG.getBoolean("knownIds.enabled", true);
+
+	/**
+	 * Whether /api/v1/getActor and /api/v1/getMovie send ETags and answer If-None-Match with 304. The versions behind
+	 * them are kept in memory, so disable when more than one instance serves writes or nodes and relationships are
+	 * written to Neo4j other than through this server. Override with -Detags.enabled.
+	 */
+	private static final boolean ETAGS_ENABLED = CONFIG.getBoolean("etags.enabled", true);
+
+	/**
+	 * Whether /api/v1/hasRelationship answers from the in-memory graph's edge index instead of Neo4j once the graph is
+	 * loaded. Disable when relationships are created in Neo4j other than through this server. Override with
+	 * -DedgeIndex.enabled.
+	 */
+	private static final boolean EDGE_INDEX_ENABLED = CONFIG.getBoolean("edgeIndex.enabled", true);
+
+	/**
+	 * Ids of each kind the Bloom filters are first sized for, and the largest fraction of unknown ids they let through
+	 * to Neo4j. Override with -DknownIds.initialCapacity and -DknownIds.falsePositiveRate.
+	 */
+	private static final int KNOWN_IDS_INITIAL_CAPACITY = CONFIG.getInt("knownIds.initialCapacity", 1 << 16);
+
+	private static final double KNOWN_IDS_FALSE_POSITIVE_RATE = CONFIG.getDouble("knownIds.falsePositiveRate", 0.01);
+
+	/**
+	 * Largest number of operations accepted in one request to /api/v1/batch. Override with -Dbatch.maxOperations.
+	 */
+	private static final int BATCH_MAX_OPERATIONS = CONFIG.getInt("batch.maxOperations", BatchHandler.DEFAULT_MAX_OPERATIONS);
+
+	/**
+	 * Longest a Cypher Bacon number or path query may run before it is cancelled; requests can only shorten it.
+	 * Override with -Dbacon.queryTimeoutMillis.
+	 */
+	private static final long BACON_QUERY_TIMEOUT_MILLIS = CONFIG.getLong("bacon.queryTimeoutMillis", 5000);
+
+	/**
+	 * Longest the in-memory graph keeps serving a snapshot after a write, so the distance tables, statistics and
+	 * co-star counts built over it survive steady writes; the Bacon endpoints lag writes by at most this long.
+	 * Override with -Dgraph.snapshotMaxAgeMillis.
+	 */
+	private static final long GRAPH_SNAPSHOT_MAX_AGE_MILLIS = CONFIG.getLong("graph.snapshotMaxAgeMillis", 1000);
+
+	/**
+	 * Memory budget, in bytes, for the per-center distance tables behind the Bacon endpoints.
+	 * Override with -Dcenters.memoryBudgetMb.
+	 */
+	private static final long CENTER_TABLES_MAX_BYTES = CONFIG.getLong("centers.memoryBudgetMb", 256) * 1024 * 1024;
+
+	/**
+	 * Number of source actors sampled by the closeness-centrality job; 0 runs a BFS from every actor.
+	 * Override with -Dcentrality.samples.
+	 */
+	private static final int CENTRALITY_SAMPLES = CONFIG.getInt("centrality.samples", 1000);
+
+	/**
+	 * Number of most central actors kept, and the largest k accepted by /api/v1/topCenters.
+	 */
+	private static final int CENTRALITY_TOP_K = 100;
+
+	/**
+	 * Number of co-stars and two-hop actors kept per actor, and the largest k accepted by /api/v1/recommendCoStars.
+	 */
+	private static final int RECOMMENDATIONS_MAX_K = 50;
+
+	/**
+	 * Number of actors whose co-star recommendations are cached. Override with -Drecommendations.cacheSize.
+	 */
+	private static final int RECOMMENDATIONS_CACHE_SIZE = CONFIG.getInt("recommendations.cacheSize", 10000);
+
+	/**
+	 * How often the closeness-centrality job checks whether the graph changed. Override with -Dcentrality.intervalMinutes.
+	 */
+	private static final long CENTRALITY_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(CONFIG.getLong("centrality.intervalMinutes", 10));
+
+	/**
+	 * Worker threads of the closeness-centrality job's own pool, kept small so a re-ranking leaves the cores to the
+	 * request-path searches on the common pool. Override with -Dcentrality.parallelism.
+	 */
+	private static final int CENTRALITY_PARALLELISM = CONFIG.getInt("centrality.parallelism",
+			Math.max(1, Runtime.getRuntime().availableProcessors() / 4));
+
+	/**
+	 * Probability that a request is traced. Override with -Dtracing.sampleRate.
+	 */
+	private static final double TRACING_SAMPLE_RATE = CONFIG.getDouble("tracing.sampleRate", Tracer.DEFAULT_SAMPLE_RATE);
+
+	/**
+	 * Number of recent spans kept for /debug/traces. Override with -Dtracing.bufferSize.
+	 */
+	private static final int TRACING_BUFFER_SIZE = CONFIG.getInt("tracing.bufferSize", Tracer.DEFAULT_BUFFER_SIZE);
+
+	/**
+	 * How often sampled spans are appended to the file given by -Dtracing.exportFile.
+	 */
+	private static final long TRACE_EXPORT_INTERVAL_MILLIS = 1000;
 
 	/**
 	 * Logger for this class.
@@ -41,35 +350,279 @@ public class App {
 	 * @param args Command line arguments.
 	 */
 	public static void main(String[] args) {
+		// Move log formatting and console I/O off the request threads
+		if (CONFIG.getBoolean("logging.async", true)) {
+			AsyncLogHandler asyncLogHandler = AsyncLogHandler.install(
+					CONFIG.getInt("logging.queueSize", AsyncLogHandler.DEFAULT_CAPACITY),
+					AsyncLogHandler.OverflowPolicy.DROP_BELOW_WARNING);
+			Runtime.getRuntime().addShutdownHook(new Thread(asyncLogHandler::close));
+		}
+		Tracer.configure(TRACING_BUFFER_SIZE, TRACING_SAMPLE_RATE);
+
 		try {
+			// Initialize Neo4j driver
+			// The driver reads this switch when it is created
+			System.setProperty(Metrics.DRIVER_METRICS_ENABLED_KEY, Boolean.toString(NEO4J_METRICS_ENABLED));
+			Config.ConfigBuilder configBuilder = Config.build().withoutEncryption()
+					.withMaxConnectionPoolSize(NEO4J_POOL_MAX_SIZE)
+					.withConnectionAcquisitionTimeout(NEO4J_POOL_ACQUISITION_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)
+					.withMaxConnectionLifetime(NEO4J_POOL_MAX_LIFETIME_MILLIS, TimeUnit.MILLISECONDS)
+					.withConnectionTimeout(NEO4J_CONNECTION_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)
+					.withMaxTransactionRetryTime(NEO4J_MAX_RETRY_MILLIS, TimeUnit.MILLISECONDS);
+			if (!NEO4J_ROUTERS.trim().isEmpty()) {
+				configBuilder.withResolver(new StaticRoutersResolver(NEO4J_ROUTERS));
+			}
+			Config driverConfig = configBuilder.toConfig();
+			Driver driver = GraphDatabase.driver(NEO4J_URI, AuthTokens.basic(NEO4J_USERNAME, NEO4J_PASSWORD), driverConfig);
+
+			// Open the journal that the PUT handlers record successful writes in
+			WriteJournal journal = new WriteJournal(Paths.get(JOURNAL_PATH));
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+				try {
+					journal.close();
+				} catch (IOException e) {
+					logger.log(Level.WARNING, "Error closing the write journal: " + e.getMessage(), e);
+				}
+			}));
+
+			// Load the in-memory copy of the graph and keep it current from the journal
+			ActorMovieGraph graph = new ActorMovieGraph(GRAPH_SNAPSHOT_MAX_AGE_MILLIS);
+			journal.addListener(graph);
+			SearchIndex searchIndex = new SearchIndex();
+			journal.addListener(searchIndex);
+			try {
+				graph.load(driver);
+				searchIndex.load(graph);
+			} catch (Exception e) {
+				logger.log(Level.WARNING, "Could not load the in-memory graph: " + e.getMessage(), e);
+			}
+
+			// Filter requests for ids that do not exist before they reach Neo4j; until loaded, every id goes through.
+			// It is loaded after the warmup, whose probe ids it would otherwise answer without touching Neo4j.
+			KnownIds knownIds = null;
+			if (KNOWN_IDS_ENABLED) {
+				knownIds = new KnownIds(KNOWN_IDS_INITIAL_CAPACITY, KNOWN_IDS_FALSE_POSITIVE_RATE);
+				journal.addListener(knownIds);
+			}
+
+			// Rank actors by closeness centrality in the background, re-ranking after the graph changes. The job gets its
+			// own pool, since the common pool runs the BFS of the Bacon and stats requests
+			ForkJoinPool centralityPool = new ForkJoinPool(CENTRALITY_PARALLELISM, pool -> {
+				ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+				thread.setName("centrality-" + thread.getPoolIndex());
+				return thread;
+			}, null, false);
+			ClosenessCentralityJob centralityJob = new ClosenessCentralityJob(graph, centralityPool,
+					CENTRALITY_SAMPLES, CENTRALITY_TOP_K);
+			centralityJob.start(CENTRALITY_INTERVAL_MILLIS);
+
+			// The handlers open their sessions through an adaptive limiter that follows Neo4j's capacity from the observed
+			// latency. The export keeps the plain driver: its one statement streams the whole graph and would read as
+			// overload.
+			AdaptiveLimiter neo4jLimiter = new AdaptiveLimiter("neo4j", NEO4J_LIMIT_INITIAL, NEO4J_LIMIT_MIN, NEO4J_LIMIT_MAX,
+					NEO4J_LIMIT_MAX_WAIT_MILLIS);
+			Driver limitedDriver = new LimitedDriver(driver, neo4jLimiter);
+
+			// Give each group of routes its own threads and share of the Neo4j sessions, so a group whose queries stall
+			// cannot starve the others: a degraded computeBaconPath only exhausts the paths bulkhead.
+			Bulkhead lookups = createBulkhead("lookups", LOOKUPS_BULKHEAD);
+			Bulkhead writes = createBulkhead("writes", WRITES_BULKHEAD);
+			Bulkhead paths = createBulkhead("paths", PATHS_BULKHEAD);
+			Bulkhead analytics = createBulkhead("analytics", ANALYTICS_BULKHEAD);
+			Bulkhead export = createBulkhead("export", EXPORT_BULKHEAD);
+			Driver lookupsDriver = lookups.limit(limitedDriver);
+			Driver writesDriver = writes.limit(limitedDriver);
+			// Path queries count against the same limit, but their latency depends on the query, not on Neo4j's load
+			Driver pathsDriver = paths.limit(new LimitedDriver(driver, neo4jLimiter, false));
+
+			// Create the handlers for each API endpoint. The PUT handlers bump the versions the GET handlers' ETags are
+			// derived from, and share locks that serialize writes to the same actor or movie.
+			EntityVersions versions = ETAGS_ENABLED ? new EntityVersions() : null;
+			StripedLocks writeLocks = new StripedLocks(WRITE_LOCK_STRIPES);
+			RootHandler rootHandler = new RootHandler(lookupsDriver);
+			AddActorHandler addActorHandler = new AddActorHandler(writesDriver, journal, versions, writeLocks);
+			AddMovieHandler addMovieHandler = new AddMovieHandler(writesDriver, journal, versions, writeLocks);
+			AddRelationshipHandler addRelationshipHandler = new AddRelationshipHandler(writesDriver, journal, versions, writeLocks, graph);
+			BatchHandler batchHandler = new BatchHandler(writesDriver, journal, versions, writeLocks, BATCH_MAX_OPERATIONS);
+			GetActorHandler getActorHandler = new GetActorHandler(lookupsDriver, versions, knownIds);
+			GetMovieHandler getMovieHandler = new GetMovieHandler(lookupsDriver, versions, knownIds);
+			HasRelationshipHandler hasRelationshipHandler = new HasRelationshipHandler(lookupsDriver, knownIds, EDGE_INDEX_ENABLED ? graph : null);
+			CenterTableCache centerTables = new CenterTableCache(graph, CENTER_TABLES_MAX_BYTES);
+			ComputeBaconNumberHandler computeBaconNumberHandler = new ComputeBaconNumberHandler(pathsDriver, centerTables, BACON_QUERY_TIMEOUT_MILLIS, knownIds);
+			ComputeBaconPathHandler computeBaconPathHandler = new ComputeBaconPathHandler(pathsDriver, centerTables, BACON_QUERY_TIMEOUT_MILLIS, knownIds);
+			BaconStatsHandler baconStatsHandler = new BaconStatsHandler(new BaconStatsCache(graph, KEVIN_BACON_ID));
+			TopCentersHandler topCentersHandler = new TopCentersHandler(centralityJob);
+			RecommendCoStarsHandler recommendCoStarsHandler = new RecommendCoStarsHandler(
+					new CoStarRecommender(graph, RECOMMENDATIONS_MAX_K, RECOMMENDATIONS_CACHE_SIZE));
+			SearchHandler searchHandler = new SearchHandler(searchIndex);
+			ExportHandler exportHandler = new ExportHandler(export.limit(driver));
+
+			// Warm up the connection pool, Cypher plan cache and handler code paths before the port is opened.
+			// PUT handlers are only prepared, never replayed, so warmup has no side effects; neither is the export, which
+			// would stream the whole graph on every replay.
+			WarmupReport warmupReport = new Warmup(driver, WARMUP_CONNECTIONS, WARMUP_ITERATIONS)
+					.addStatements(
+							RootHandler.FIRST_TEN_ACTORS_QUERY,
+							RootHandler.FIRST_TEN_MOVIES_QUERY,
+							AddActorHandler.FIND_ACTOR_QUERY,
+							AddActorHandler.CREATE_ACTOR_QUERY,
+							AddMovieHandler.FIND_MOVIE_QUERY,
+							AddMovieHandler.CREATE_MOVIE_QUERY,
+							AddRelationshipHandler.FIND_RELATIONSHIP_QUERY,
+							AddRelationshipHandler.CREATE_RELATIONSHIP_QUERY,
+							BatchHandler.FIND_ACTORS_QUERY,
+							BatchHandler.FIND_MOVIES_QUERY,
+							BatchHandler.FIND_RELATIONSHIPS_QUERY,
+							BatchHandler.CREATE_ACTORS_QUERY,
+							BatchHandler.CREATE_MOVIES_QUERY,
+							BatchHandler.CREATE_RELATIONSHIPS_QUERY,
+							GetActorHandler.GET_ACTOR_QUERY,
+							GetMovieHandler.GET_MOVIE_QUERY,
+							HasRelationshipHandler.HAS_RELATIONSHIP_QUERY,
+							ComputeBaconNumberHandler.BACON_NUMBER_QUERY,
+							ComputeBaconPathHandler.BACON_PATH_QUERY,
+							ExportHandler.EXPORT_QUERY)
+					.addRequest(getActorHandler, "GET", "/api/v1/getActor?actorId=" + Warmup.PROBE_ID, null)
+					.addRequest(getActorHandler, "GET", "/api/v1/getActor", null)
+					.addRequest(getMovieHandler, "GET", "/api/v1/getMovie?movieId=" + Warmup.PROBE_ID, null)
+					.addRequest(hasRelationshipHandler, "GET", "/api/v1/hasRelationship?actorId=" + Warmup.PROBE_ID + "&movieId=" + Warmup.PROBE_ID, null)
+					.addRequest(computeBaconNumberHandler, "GET", "/api/v1/computeBaconNumber?actorId=" + Warmup.PROBE_ID, null)
+					.addRequest(computeBaconPathHandler, "GET", "/api/v1/computeBaconPath?actorId=" + Warmup.PROBE_ID, null)
+					.addRequest(baconStatsHandler, "GET", "/api/v1/baconStats", null)
+					.addRequest(topCentersHandler, "GET", "/api/v1/topCenters?k=10", null)
+					.addRequest(recommendCoStarsHandler, "GET", "/api/v1/recommendCoStars?actorId=" + KEVIN_BACON_ID + "&k=10", null)
+					.addRequest(searchHandler, "GET", "/api/v1/search?prefix=kevin&limit=10", null)
+					.run();
+			logger.info(warmupReport.toString());
+
+			if (knownIds != null) {
+				try {
+					knownIds.load(driver);
+				} catch (Exception e) {
+					logger.log(Level.WARNING, "Could not load the known ids: " + e.getMessage(), e);
+				}
+			}
+
 			// Create the HTTP server
-			HttpServer server = HttpServer.create(new InetSocketAddress("0.0.0.0", PORT), 0);
+			WebServer server = createServer(SERVER_BACKEND, new InetSocketAddress(HOST, PORT), SERVER_BACKLOG);
 
-			// Initialize Neo4j driver
-			Driver driver = GraphDatabase.driver("bolt://localhost:7687", AuthTokens.basic("neo4j", "12345678"), Config.build().withoutEncryption().toConfig());
-
-			// Create context for each API endpoint with corresponding handlers
-			server.createContext("/", new RootHandler(driver));
-			server.createContext("/api/v1/addActor", new AddActorHandler(driver));
-			server.createContext("/api/v1/addMovie", new AddMovieHandler(driver));
-			server.createContext("/api/v1/addRelationship", new AddRelationshipHandler(driver));
-			server.createContext("/api/v1/getActor", new GetActorHandler(driver));
-			server.createContext("/api/v1/getMovie", new GetMovieHandler(driver));
-			server.createContext("/api/v1/hasRelationship", new HasRelationshipHandler(driver));
-			server.createContext("/api/v1/computeBaconNumber", new ComputeBaconNumberHandler(driver));
-			server.createContext("/api/v1/computeBaconPath", new ComputeBaconPathHandler(driver));
-
-			// Use a thread pool executor for the server
-			server.setExecutor(Executors.newCachedThreadPool());
+			// Admit each group's routes through the group's own cost class, sized to its bulkhead, so the classes weigh
+			// routes within a group while the bulkheads keep the groups apart: an export cannot hold permits a path query
+			// needs, and no class is wider than the threads its routes run on.
+			CostClass lookupsAdmission = createCostClass("lookups", LOOKUPS_ADMISSION);
+			CostClass writesAdmission = createCostClass("writes", WRITES_ADMISSION);
+			CostClass pathsAdmission = createCostClass("paths", PATHS_ADMISSION);
+			CostClass analyticsAdmission = createCostClass("analytics", ANALYTICS_ADMISSION);
+			CostClass exportAdmission = createCostClass("export", EXPORT_ADMISSION);
+
+			// Create context for each API endpoint with corresponding handlers, each running on its group's bulkhead and
+			// compressing responses the client accepts compressed. Handlers whose responses repeat keep their compressed
+			// bytes.
+			ResponseCompressor compressor = new ResponseCompressor(COMPRESSION_MIN_BYTES, COMPRESSION_LEVEL, COMPRESSION_CACHE_MAX_BYTES);
+			Map<Bulkhead, List<String>> routes = new LinkedHashMap<>();
+			mount(server, routes, lookups, "/", lookupsAdmission.wrap(compressor.wrap(rootHandler, true), 1));
+			mount(server, routes, writes, "/api/v1/addActor", writesAdmission.wrap(compressor.wrap(addActorHandler, false), 1));
+			mount(server, routes, writes, "/api/v1/addMovie", writesAdmission.wrap(compressor.wrap(addMovieHandler, false), 1));
+			mount(server, routes, writes, "/api/v1/addRelationship", writesAdmission.wrap(compressor.wrap(addRelationshipHandler, false), 1));
+			mount(server, routes, writes, "/api/v1/batch", writesAdmission.wrap(compressor.wrap(batchHandler, false), 1));
+			mount(server, routes, lookups, "/api/v1/getActor", lookupsAdmission.wrap(compressor.wrap(getActorHandler, true), 1));
+			mount(server, routes, lookups, "/api/v1/getMovie", lookupsAdmission.wrap(compressor.wrap(getMovieHandler, true), 1));
+			mount(server, routes, lookups, "/api/v1/hasRelationship", lookupsAdmission.wrap(compressor.wrap(hasRelationshipHandler, false), 1));
+			mount(server, routes, paths, "/api/v1/computeBaconNumber", pathsAdmission.wrap(compressor.wrap(computeBaconNumberHandler, false), 1));
+			mount(server, routes, paths, "/api/v1/computeBaconPath", pathsAdmission.wrap(compressor.wrap(computeBaconPathHandler, false), 2));
+			mount(server, routes, analytics, "/api/v1/baconStats", analyticsAdmission.wrap(compressor.wrap(baconStatsHandler, true), 1));
+			mount(server, routes, analytics, "/api/v1/topCenters", analyticsAdmission.wrap(compressor.wrap(topCentersHandler, true), 1));
+			mount(server, routes, analytics, "/api/v1/recommendCoStars", analyticsAdmission.wrap(compressor.wrap(recommendCoStarsHandler, false), 1));
+			mount(server, routes, analytics, "/api/v1/search", analyticsAdmission.wrap(compressor.wrap(searchHandler, false), 1));
+			mount(server, routes, export, "/api/v1/export", exportAdmission.wrap(compressor.wrap(exportHandler, false), 1));
+
+			// Debug endpoints bypass admission and the bulkheads so they stay reachable under overload
+			server.createContext("/debug/admission", new DebugAdmissionHandler(Arrays.asList(lookupsAdmission, writesAdmission, pathsAdmission,
+					analyticsAdmission, exportAdmission),
+					Collections.singletonList(neo4jLimiter)));
+			server.createContext("/debug/bulkheads", new DebugBulkheadsHandler(routes));
+			server.createContext("/debug/pool", new DebugPoolHandler(driver, driverConfig));
+			server.createContext("/debug/traces", compressor.wrap(new DebugTracesHandler(Tracer.getBuffer()), false));
+
+			// Optionally export sampled spans to a local file as well
+			String traceExportFile = CONFIG.get("tracing.exportFile", null);
+			if (traceExportFile != null) {
+				new SpanFileExporter(Tracer.getBuffer(), Paths.get(traceExportFile), TRACE_EXPORT_INTERVAL_MILLIS);
+			}
+
+			// Use a thread pool executor for the debug endpoints and rejections, of a fixed size if configured
+			server.setExecutor(SERVER_EXECUTOR_THREADS > 0
+					? Executors.newFixedThreadPool(SERVER_EXECUTOR_THREADS)
+					: Executors.newCachedThreadPool());
 
 			// Start the server
 			server.start();
 
-			logger.info(String.format("Server started on port %d...\n", PORT));
+			logger.info(String.format("Server started on port %d with the %s backend...\n", PORT, SERVER_BACKEND));
 		} catch (IOException e) {
 			// Log the error and exit the application
 			logger.log(Level.SEVERE, "Error starting the server: " + e.getMessage(), e);
 			System.exit(1);
 		}
 	}
+
+	/**
+	 * Reads a bulkhead's settings.
+	 *
+	 * @return The threads, queue length and session budget.
+	 */
+	private static int[] bulkheadSettings(String name, int threads, int queue, int sessions) {
+		return new int[]{
+				CONFIG.getInt("bulkhead." + name + ".threads", threads),
+				CONFIG.getInt("bulkhead." + name + ".queue", queue),
+				CONFIG.getInt("bulkhead." + name + ".sessions", sessions)};
+	}
+
+	private static Bulkhead createBulkhead(String name, int[] settings) {
+		return new Bulkhead(name, settings[0], settings[1], settings[2], NEO4J_LIMIT_MAX_WAIT_MILLIS);
+	}
+
+	/**
+	 * Reads the settings of a bulkhead's cost class, which default to the bulkhead's threads.
+	 *
+	 * @return The permits and queue length.
+	 */
+	private static int[] admissionSettings(String name, int[] bulkhead) {
+		return new int[]{
+				CONFIG.getInt("admission." + name + ".concurrency", bulkhead[0]),
+				CONFIG.getInt("admission." + name + ".queue", bulkhead[0])};
+	}
+
+	private static CostClass createCostClass(String name, int[] settings) {
+		return new CostClass(name, settings[0], settings[1], ADMISSION_MAX_WAIT_MILLIS);
+	}
+
+	/**
+	 * Mounts a route on a bulkhead's executor and records it for /debug/bulkheads.
+	 */
+	private static void mount(WebServer server, Map<Bulkhead, List<String>> routes, Bulkhead bulkhead, String path,
+							  HttpHandler handler) {
+		server.createContext(path, handler, bulkhead.getExecutor());
+		routes.computeIfAbsent(bulkhead, b -> new ArrayList<>()).add(path);
+	}
+
+	/**
+	 * Creates the HTTP server for a backend name.
+	 *
+	 * @param backend "nio" for the event-loop server, "jdk" for com.sun.net.httpserver.
+	 * @param address The address to listen on.
+	 * @param backlog The accept backlog, or 0 for the backend's default.
+	 * @return The server, not yet started.
+	 * @throws IOException If the JDK server cannot bind the address.
+	 */
+	private static WebServer createServer(String backend, InetSocketAddress address, int backlog) throws IOException {
+		switch (backend) {
+			case "nio":
+				return new NioWebServer(address, backlog);
+			case "jdk":
+				return new JdkWebServer(address, backlog);
+			default:
+				throw new IllegalArgumentException("Unknown server backend: " + backend);
+		}
+	}
 }
@@ -0,0 +1,242 @@
+package ca.yorku.eecs.admission;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Concurrency limit that follows the downstream's capacity, measured from the latency of the calls it admits.
+ * <p>
+ * The limiter keeps two round-trip-time estimates: a long-term average standing in for the latency of an unloaded
+ * database, and the latest sample. Their ratio is the gradient; while the sample stays within a tolerance of the
+ * long-term average the gradient is 1 and the limit grows by a small queue allowance, and as the database starts
+ * queueing and samples rise, the gradient falls below 1 and the limit shrinks in proportion. A failed call that hints
+ * at overload, such as a timeout, cuts the limit multiplicatively. The limit only grows while callers actually use
+ * most of it, so a quiet night does not inflate it to the maximum. The long-term average slowly drifts down to recent
+ * samples after a sustained latency drop, so the baseline can recover after e.g. a compaction has finished.
+ * </p>
+ */
+public class AdaptiveLimiter {
+
+	private static final Logger logger = Logger.getLogger(AdaptiveLimiter.class.getName());
+
+	/**
+	 * Samples up to this many times the long-term RTT still count as unloaded.
+	 */
+	private static final double RTT_TOLERANCE = 1.5;
+
+	/**
+	 * Lowest gradient applied by one sample, so a single slow call cannot halve the limit at once.
+	 */
+	private static final double MIN_GRADIENT = 0.5;
+
+	/**
+	 * Weight of each new limit estimate in the smoothed limit.
+	 */
+	private static final double SMOOTHING = 0.2;
+
+	/**
+	 * Factor the limit is cut by when a call fails with an overload error.
+	 */
+	private static final double BACKOFF = 0.9;
+
+	/**
+	 * Number of samples the long-term RTT averages over, and the number averaged plainly before it decays.
+	 */
+	private static final int LONG_WINDOW = 600;
+
+	private static final int WARMUP_SAMPLES = 10;
+
+	private final String name;
+
+	private final int minLimit;
+
+	private final int maxLimit;
+
+	private final long maxWaitMillis;
+
+	/**
+	 * Fields below are guarded by {@code this}.
+	 */
+	private double limit;
+
+	private int inFlight;
+
+	private double longRttNanos;
+
+	private long lastRttNanos;
+
+	private long samples;
+
+	private long acquired;
+
+	private long rejected;
+
+	private long dropped;
+
+	/**
+	 * Creates a limiter.
+	 *
+	 * @param name          The name shown in metrics, e.g. "neo4j".
+	 * @param initialLimit  The limit before any latency has been measured.
+	 * @param minLimit      The lowest the limit can shrink to.
+	 * @param maxLimit      The highest the limit can grow to, e.g. the size of the connection pool.
+	 * @param maxWaitMillis Maximum time a call waits for the in-flight count to drop below the limit.
+	 */
+	public AdaptiveLimiter(String name, int initialLimit, int minLimit, int maxLimit, long maxWaitMillis) {
+		this.name = name;
+		this.minLimit = Math.max(1, minLimit);
+		this.maxLimit = Math.max(this.minLimit, maxLimit);
+		this.maxWaitMillis = maxWaitMillis;
+		this.limit = Math.max(this.minLimit, Math.min(initialLimit, this.maxLimit));
+	}
+
+	/**
+	 * Waits until a call may start, for at most the limiter's maximum wait. Every successful call must be followed by
+	 * one of the {@code release} methods.
+	 *
+	 * @return Whether the call was admitted.
+	 * @throws InterruptedException If interrupted while waiting.
+	 */
+	public synchronized boolean acquire() throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+		while (inFlight >= (int) limit) {
+			long remaining = deadline - System.nanoTime();
+			if (remaining <= 0) {
+				rejected++;
+				return false;
+			}
+			TimeUnit.NANOSECONDS.timedWait(this, remaining);
+		}
+		inFlight++;
+		acquired++;
+		return true;
+	}
+
+	/**
+	 * Ends an admitted call that made a single request and adjusts the limit from how it went.
+	 *
+	 * @param rttNanos How long the call took.
+	 * @param didDrop  Whether the call failed in a way that suggests overload, e.g. a timeout.
+	 */
+	public synchronized void release(long rttNanos, boolean didDrop) {
+		observe(rttNanos, didDrop);
+		release();
+	}
+
+	/**
+	 * Ends an admitted call whose requests were already passed to {@link #observe}, or that made none.
+	 */
+	public synchronized void release() {
+		inFlight--;
+		notifyAll();
+	}
+
+	/**
+	 * Adjusts the limit from one request made by an admitted call, which may make several before it is released.
+	 *
+	 * @param rttNanos How long the request took in the downstream.
+	 * @param didDrop  Whether the request failed in a way that suggests overload, e.g. a timeout.
+	 */
+	public synchronized void observe(long rttNanos, boolean didDrop) {
+		// Whether the limit was the bottleneck while this request ran; only then is growing it meaningful
+		boolean saturated = inFlight * 2 >= limit;
+
+		double previous = limit;
+		if (didDrop) {
+			dropped++;
+			limit = Math.max(minLimit, limit * BACKOFF);
+		} else {
+			sample(rttNanos, saturated);
+		}
+		if ((int) limit != (int) previous) {
+			logger.fine(String.format("Limit of %s changed from %d to %d (rtt %.1f ms, long-term %.1f ms)",
+					name, (int) previous, (int) limit, lastRttNanos / 1e6, longRttNanos / 1e6));
+		}
+		if ((int) limit > (int) previous) {
+			notifyAll();
+		}
+	}
+
+	private void sample(long rttNanos, boolean saturated) {
+		samples++;
+		lastRttNanos = rttNanos;
+		if (samples <= WARMUP_SAMPLES) {
+			longRttNanos += (rttNanos - longRttNanos) / samples;
+			return;
+		}
+		longRttNanos += (rttNanos - longRttNanos) * 2 / (LONG_WINDOW + 1);
+		if (longRttNanos > 2 * rttNanos) {
+			// Latency has dropped well below the baseline; let the baseline catch up faster than the window allows
+			longRttNanos *= 0.95;
+		}
+
+		double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, RTT_TOLERANCE * longRttNanos / rttNanos));
+		double estimate = limit * gradient + Math.sqrt(limit);
+		if (estimate > limit && !saturated) {
+			return;
+		}
+		limit = Math.max(minLimit, Math.min(maxLimit, limit * (1 - SMOOTHING) + estimate * SMOOTHING));
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public int getMinLimit() {
+		return minLimit;
+	}
+
+	public int getMaxLimit() {
+		return maxLimit;
+	}
+
+	public long getMaxWaitMillis() {
+		return maxWaitMillis;
+	}
+
+	/**
+	 * @return The current concurrency limit.
+	 */
+	public synchronized int getLimit() {
+		return (int) limit;
+	}
+
+	/**
+	 * @return Calls admitted and not yet released.
+	 */
+	public synchronized int getInFlight() {
+		return inFlight;
+	}
+
+	/**
+	 * @return The latest measured round-trip time.
+	 */
+	public synchronized double getRttMillis() {
+		return lastRttNanos / 1e6;
+	}
+
+	/**
+	 * @return The long-term average round-trip time the latest samples are compared with.
+	 */
+	public synchronized double getLongTermRttMillis() {
+		return longRttNanos / 1e6;
+	}
+
+	public synchronized long getAcquired() {
+		return acquired;
+	}
+
+	/**
+	 * @return Calls that gave up waiting for the limit.
+	 */
+	public synchronized long getRejected() {
+		return rejected;
+	}
+
+	/**
+	 * @return Calls that failed with an overload error.
+	 */
+	public synchronized long getDropped() {
+		return dropped;
+	}
+}
@@ -0,0 +1,142 @@
+package ca.yorku.eecs.admission;
+
+import org.neo4j.driver.v1.Driver;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An isolated share of the server's threads and Neo4j sessions for a group of routes, such as the point lookups or the
+ * path queries.
+ * <p>
+ * A bulkhead owns a fixed number of threads and a bounded queue; the server runs the group's handlers on them, so a
+ * group whose handlers stall can only tie up its own threads. Requests arriving when every thread is busy and the queue
+ * is full are rejected by the executor, which the server answers with 503. The group's handlers may also be limited to
+ * a budget of concurrent Neo4j sessions, so they cannot exhaust the driver's pool for everyone else either.
+ * </p>
+ */
+public class Bulkhead {
+
+	private final String name;
+
+	private final int threads;
+
+	private final int maxQueued;
+
+	private final ThreadPoolExecutor executor;
+
+	/**
+	 * Session budget, or null if the group's handlers do not use Neo4j.
+	 */
+	private final AdaptiveLimiter sessions;
+
+	private final AtomicLong rejected = new AtomicLong();
+
+	/**
+	 * Creates a bulkhead.
+	 *
+	 * @param name                  The name shown in metrics and thread names, e.g. "paths".
+	 * @param threads               Number of threads running the group's handlers.
+	 * @param maxQueued             Maximum number of requests waiting for a thread.
+	 * @param sessions              Maximum number of concurrent Neo4j sessions, or 0 for no budget.
+	 * @param sessionMaxWaitMillis  Longest a handler waits for the session budget.
+	 */
+	public Bulkhead(String name, int threads, int maxQueued, int sessions, long sessionMaxWaitMillis) {
+		this.name = name;
+		this.threads = Math.max(1, threads);
+		this.maxQueued = Math.max(1, maxQueued);
+		this.sessions = sessions > 0
+				? new AdaptiveLimiter("bulkhead-" + name, sessions, sessions, sessions, sessionMaxWaitMillis)
+				: null;
+		AtomicInteger threadNumber = new AtomicInteger();
+		ThreadFactory threadFactory = runnable -> {
+			Thread thread = new Thread(runnable, "bulkhead-" + name + "-" + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+		this.executor = new ThreadPoolExecutor(this.threads, this.threads, 60, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<>(this.maxQueued), threadFactory, (runnable, pool) -> {
+			rejected.incrementAndGet();
+			throw new RejectedExecutionException("Bulkhead " + name + " is saturated");
+		});
+		this.executor.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * @return The executor to mount the group's routes on.
+	 */
+	public Executor getExecutor() {
+		return executor;
+	}
+
+	/**
+	 * Limits a driver to this bulkhead's session budget. Sessions still go through any limit of the driver itself.
+	 *
+	 * @param driver The driver the group's handlers would use.
+	 * @return The limited driver, or the driver itself if the bulkhead has no budget.
+	 */
+	public Driver limit(Driver driver) {
+		return sessions == null ? driver : new LimitedDriver(driver, sessions);
+	}
+
+	/**
+	 * Stops accepting requests; those already queued still run.
+	 */
+	public void shutdown() {
+		executor.shutdown();
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	public int getMaxQueued() {
+		return maxQueued;
+	}
+
+	/**
+	 * @return Number of threads running a handler right now.
+	 */
+	public int getActive() {
+		return executor.getActiveCount();
+	}
+
+	/**
+	 * @return Number of requests waiting for a thread.
+	 */
+	public int getQueued() {
+		return executor.getQueue().size();
+	}
+
+	/**
+	 * @return Fraction of threads and queue slots in use, from 0 to 1; 1 means new requests are rejected.
+	 */
+	public double getSaturation() {
+		return (double) (getActive() + getQueued()) / (threads + maxQueued);
+	}
+
+	public long getCompleted() {
+		return executor.getCompletedTaskCount();
+	}
+
+	public long getRejected() {
+		return rejected.get();
+	}
+
+	/**
+	 * @return The session budget, or null if there is none.
+	 */
+	public AdaptiveLimiter getSessions() {
+		return sessions;
+	}
+}
@@ -0,0 +1,206 @@
+package ca.yorku.eecs.admission;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.logging.Logger;
+
+/**
+ * Admission control for one class of endpoints with a similar cost, such as point lookups or path queries.
+ * <p>
+ * A class has a capacity of permits, and each endpoint admitted through it holds a weight of them while it runs, so
+ * within the class an expensive endpoint counts for more than a cheap one. Requests that find no free permits wait in
+ * a bounded first-come-first-served queue. A request arriving to a full queue is rejected at once with 429, and one
+ * that waits longer than the class's maximum wait gets 503; both carry a Retry-After. Since every class has its own
+ * permits and queue, a flood of expensive requests can only fill its own class and never delays the others.
+ * </p>
+ */
+public class CostClass {
+
+	private static final Logger logger = Logger.getLogger(CostClass.class.getName());
+
+	/**
+	 * Seconds a rejected client is asked to wait before retrying.
+	 */
+	private static final String RETRY_AFTER_SECONDS = "1";
+
+	private final String name;
+
+	private final int capacity;
+
+	private final int maxQueued;
+
+	private final long maxWaitMillis;
+
+	/**
+	 * Fair, so queued requests are admitted in arrival order and a heavy request is not overtaken forever.
+	 */
+	private final Semaphore permits;
+
+	private final AtomicInteger queued = new AtomicInteger();
+
+	private final AtomicLong admitted = new AtomicLong();
+
+	private final AtomicLong rejectedQueueFull = new AtomicLong();
+
+	private final AtomicLong rejectedTimeout = new AtomicLong();
+
+	/**
+	 * Total and longest time admitted requests spent queued.
+	 */
+	private final AtomicLong queueWaitNanos = new AtomicLong();
+
+	private final LongAccumulator maxQueueWaitNanos = new LongAccumulator(Math::max, 0);
+
+	/**
+	 * Creates a cost class.
+	 *
+	 * @param name          The name shown in metrics, e.g. "cheap".
+	 * @param capacity      Number of permits, i.e. the concurrency limit for weight-1 endpoints.
+	 * @param maxQueued     Maximum number of requests waiting for permits.
+	 * @param maxWaitMillis Maximum time a request waits for permits.
+	 */
+	public CostClass(String name, int capacity, int maxQueued, long maxWaitMillis) {
+		this.name = name;
+		this.capacity = capacity;
+		this.maxQueued = maxQueued;
+		this.maxWaitMillis = maxWaitMillis;
+		this.permits = new Semaphore(capacity, true);
+	}
+
+	/**
+	 * Wraps a handler so it only runs once admitted to this class.
+	 *
+	 * @param handler The handler.
+	 * @param weight  Permits the handler holds while it runs; capped at the capacity.
+	 * @return The wrapping handler.
+	 */
+	public HttpHandler wrap(HttpHandler handler, int weight) {
+		int cost = Math.max(1, Math.min(weight, capacity));
+		return exchange -> {
+			if (!admit(exchange, cost)) {
+				return;
+			}
+			try {
+				handler.handle(exchange);
+			} finally {
+				permits.release(cost);
+			}
+		};
+	}
+
+	/**
+	 * Takes the permits for a request, waiting in the queue if needed, or sends the rejection.
+	 *
+	 * @return Whether the request was admitted.
+	 */
+	private boolean admit(HttpExchange exchange, int cost) throws IOException {
+		// Fast path: the class has room and nobody is queued ahead of us. A bare tryAcquire() would barge past the queue.
+		if (!permits.hasQueuedThreads() && permits.tryAcquire(cost)) {
+			admitted.incrementAndGet();
+			return true;
+		}
+		if (queued.incrementAndGet() > maxQueued) {
+			queued.decrementAndGet();
+			rejectedQueueFull.incrementAndGet();
+			reject(exchange, 429, "Too many requests.");
+			return false;
+		}
+		long start = System.nanoTime();
+		boolean acquired;
+		try {
+			acquired = permits.tryAcquire(cost, maxWaitMillis, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			acquired = false;
+		} finally {
+			queued.decrementAndGet();
+		}
+		long waited = System.nanoTime() - start;
+		if (!acquired) {
+			rejectedTimeout.incrementAndGet();
+			reject(exchange, 503, "Server busy, retry later.");
+			return false;
+		}
+		admitted.incrementAndGet();
+		queueWaitNanos.addAndGet(waited);
+		maxQueueWaitNanos.accumulate(waited);
+		return true;
+	}
+
+	private void reject(HttpExchange exchange, int code, String response) throws IOException {
+		logger.fine(String.format("Rejected %s request with %d", name, code));
+		if (exchange.getResponseHeaders() != null) {
+			exchange.getResponseHeaders().set("Retry-After", RETRY_AFTER_SECONDS);
+		}
+		exchange.sendResponseHeaders(code, response.length());
+		exchange.getResponseBody().write(response.getBytes());
+		exchange.getResponseBody().close();
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	public int getMaxQueued() {
+		return maxQueued;
+	}
+
+	public long getMaxWaitMillis() {
+		return maxWaitMillis;
+	}
+
+	/**
+	 * @return Permits held by running requests.
+	 */
+	public int getInUse() {
+		return capacity - permits.availablePermits();
+	}
+
+	/**
+	 * @return Requests currently waiting for permits.
+	 */
+	public int getQueued() {
+		return queued.get();
+	}
+
+	public long getAdmitted() {
+		return admitted.get();
+	}
+
+	/**
+	 * @return Requests rejected with 429 because the queue was full.
+	 */
+	public long getRejectedQueueFull() {
+		return rejectedQueueFull.get();
+	}
+
+	/**
+	 * @return Requests rejected with 503 because they waited too long.
+	 */
+	public long getRejectedTimeout() {
+		return rejectedTimeout.get();
+	}
+
+	/**
+	 * @return Mean time admitted requests spent queued, counting those admitted without waiting.
+	 */
+	public double getAverageQueueWaitMillis() {
+		long count = admitted.get();
+		return count == 0 ? 0 : queueWaitNanos.get() / 1e6 / count;
+	}
+
+	public double getMaxQueueWaitMillis() {
+		return maxQueueWaitNanos.get() / 1e6;
+	}
+}
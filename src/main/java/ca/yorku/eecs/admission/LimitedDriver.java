@@ -0,0 +1,128 @@
+package ca.yorku.eecs.admission;
+
+import org.neo4j.driver.v1.AccessMode;
+import org.neo4j.driver.v1.Driver;
+import org.neo4j.driver.v1.Session;
+import org.neo4j.driver.v1.exceptions.ServiceUnavailableException;
+
+import java.util.concurrent.CompletionStage;
+import java.util.function.Supplier;
+
+/**
+ * Driver that admits every session it opens through an {@link AdaptiveLimiter}.
+ * <p>
+ * Handlers use it in place of the real driver, so their {@code try (Session session = driver.session())} blocks are
+ * limited without changes. Opening a session waits for the limiter; a session that cannot be admitted in time fails
+ * with a {@link ServiceUnavailableException}, which the handlers report like any other database error. The limiter
+ * learns from the time each statement or transaction function spends in the database, and closing the session releases
+ * it.
+ * </p>
+ */
+public class LimitedDriver implements Driver {
+
+	private final Driver driver;
+
+	private final AdaptiveLimiter limiter;
+
+	private final boolean sampled;
+
+	/**
+	 * Creates a limited driver whose calls' latency moves the limit.
+	 *
+	 * @param driver  The driver sessions are opened on.
+	 * @param limiter The limiter every session is admitted through.
+	 */
+	public LimitedDriver(Driver driver, AdaptiveLimiter limiter) {
+		this(driver, limiter, true);
+	}
+
+	/**
+	 * Creates a limited driver.
+	 *
+	 * @param driver  The driver sessions are opened on.
+	 * @param limiter The limiter every session is admitted through.
+	 * @param sampled Whether the calls' latency moves the limit; false for calls whose latency varies with the request
+	 *                rather than the database's load, such as path queries, which then only count against the limit
+	 *                and report overload errors.
+	 */
+	public LimitedDriver(Driver driver, AdaptiveLimiter limiter, boolean sampled) {
+		this.driver = driver;
+		this.limiter = limiter;
+		this.sampled = sampled;
+	}
+
+	public AdaptiveLimiter getLimiter() {
+		return limiter;
+	}
+
+	@Override
+	public Session session() {
+		return open(driver::session);
+	}
+
+	@Override
+	public Session session(AccessMode mode) {
+		return open(() -> driver.session(mode));
+	}
+
+	@Override
+	public Session session(String bookmark) {
+		return open(() -> driver.session(bookmark));
+	}
+
+	@Override
+	public Session session(AccessMode mode, String bookmark) {
+		return open(() -> driver.session(mode, bookmark));
+	}
+
+	@Override
+	public Session session(Iterable<String> bookmarks) {
+		return open(() -> driver.session(bookmarks));
+	}
+
+	@Override
+	public Session session(AccessMode mode, Iterable<String> bookmarks) {
+		return open(() -> driver.session(mode, bookmarks));
+	}
+
+	/**
+	 * Waits for the limiter and opens a session that releases it when closed.
+	 */
+	private Session open(Supplier<Session> opener) {
+		boolean admitted;
+		try {
+			admitted = limiter.acquire();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ServiceUnavailableException("Interrupted while waiting for the " + limiter.getName() + " concurrency limit.");
+		}
+		if (!admitted) {
+			throw new ServiceUnavailableException(String.format("The %s concurrency limit of %d was not available within %d ms.",
+					limiter.getName(), limiter.getLimit(), limiter.getMaxWaitMillis()));
+		}
+		try {
+			return new LimitedSession(opener.get(), limiter, sampled);
+		} catch (RuntimeException e) {
+			if (LimitedSession.isOverload(e)) {
+				limiter.observe(0, true);
+			}
+			limiter.release();
+			throw e;
+		}
+	}
+
+	@Override
+	public boolean isEncrypted() {
+		return driver.isEncrypted();
+	}
+
+	@Override
+	public void close() {
+		driver.close();
+	}
+
+	@Override
+	public CompletionStage<Void> closeAsync() {
+		return driver.closeAsync();
+	}
+}
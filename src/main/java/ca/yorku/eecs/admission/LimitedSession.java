@@ -0,0 +1,271 @@
+package ca.yorku.eecs.admission;
+
+import org.neo4j.driver.v1.Record;
+import org.neo4j.driver.v1.Session;
+import org.neo4j.driver.v1.Statement;
+import org.neo4j.driver.v1.StatementResult;
+import org.neo4j.driver.v1.StatementResultCursor;
+import org.neo4j.driver.v1.Transaction;
+import org.neo4j.driver.v1.TransactionConfig;
+import org.neo4j.driver.v1.TransactionWork;
+import org.neo4j.driver.v1.Value;
+import org.neo4j.driver.v1.exceptions.Neo4jException;
+import org.neo4j.driver.v1.exceptions.ServiceUnavailableException;
+import org.neo4j.driver.v1.exceptions.SessionExpiredException;
+import org.neo4j.driver.v1.exceptions.TransientException;
+import org.neo4j.driver.v1.types.TypeSystem;
+
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Session opened by a {@link LimitedDriver}. It delegates to the real session and holds its slot in the limiter until
+ * closed. Each blocking statement or transaction function is timed, and only that time is passed to the limiter as a
+ * round-trip time, so waiting for locks, encoding and sending the response do not read as database latency; a call
+ * failing with an overload error is reported as a drop. The asynchronous calls are passed through as they are.
+ */
+class LimitedSession implements Session {
+
+	private final Session session;
+
+	private final AdaptiveLimiter limiter;
+
+	/**
+	 * Whether the limiter learns from the latency of this session's calls, rather than only from their overload errors.
+	 */
+	private final boolean sampled;
+
+	private final AtomicBoolean released = new AtomicBoolean();
+
+	LimitedSession(Session session, AdaptiveLimiter limiter, boolean sampled) {
+		this.session = session;
+		this.limiter = limiter;
+		this.sampled = sampled;
+	}
+
+	/**
+	 * Tells whether a failure suggests the database is overloaded rather than that the request was wrong.
+	 *
+	 * @param e The failure.
+	 * @return True for transient errors, unavailable or expired connections and transaction timeouts.
+	 */
+	static boolean isOverload(Throwable e) {
+		if (e instanceof TransientException || e instanceof ServiceUnavailableException || e instanceof SessionExpiredException) {
+			return true;
+		}
+		return e instanceof Neo4jException && ((Neo4jException) e).code() != null
+				&& ((Neo4jException) e).code().endsWith("TransactionTimedOut");
+	}
+
+	/**
+	 * Runs a blocking call and passes its time, or its overload failure, to the limiter.
+	 */
+	private <T> T observe(Supplier<T> call) {
+		long start = System.nanoTime();
+		T result;
+		try {
+			result = call.get();
+		} catch (RuntimeException e) {
+			if (isOverload(e)) {
+				limiter.observe(System.nanoTime() - start, true);
+			}
+			throw e;
+		}
+		if (sampled) {
+			limiter.observe(System.nanoTime() - start, false);
+		}
+		return result;
+	}
+
+	@Override
+	public void close() {
+		try {
+			session.close();
+		} finally {
+			if (released.compareAndSet(false, true)) {
+				limiter.release();
+			}
+		}
+	}
+
+	@Override
+	public CompletionStage<Void> closeAsync() {
+		return session.closeAsync().whenComplete((ignored, e) -> {
+			if (released.compareAndSet(false, true)) {
+				if (e != null && isOverload(e)) {
+					limiter.observe(0, true);
+				}
+				limiter.release();
+			}
+		});
+	}
+
+	@Override
+	public boolean isOpen() {
+		return session.isOpen();
+	}
+
+	@Override
+	public Transaction beginTransaction() {
+		return observe(() -> session.beginTransaction());
+	}
+
+	@Override
+	public Transaction beginTransaction(TransactionConfig config) {
+		return observe(() -> session.beginTransaction(config));
+	}
+
+	@Override
+	@SuppressWarnings("deprecation")
+	public Transaction beginTransaction(String bookmark) {
+		return observe(() -> session.beginTransaction(bookmark));
+	}
+
+	@Override
+	public CompletionStage<Transaction> beginTransactionAsync() {
+		return session.beginTransactionAsync();
+	}
+
+	@Override
+	public CompletionStage<Transaction> beginTransactionAsync(TransactionConfig config) {
+		return session.beginTransactionAsync(config);
+	}
+
+	@Override
+	public <T> T readTransaction(TransactionWork<T> work) {
+		return observe(() -> session.readTransaction(work));
+	}
+
+	@Override
+	public <T> T readTransaction(TransactionWork<T> work, TransactionConfig config) {
+		return observe(() -> session.readTransaction(work, config));
+	}
+
+	@Override
+	public <T> CompletionStage<T> readTransactionAsync(TransactionWork<CompletionStage<T>> work) {
+		return session.readTransactionAsync(work);
+	}
+
+	@Override
+	public <T> CompletionStage<T> readTransactionAsync(TransactionWork<CompletionStage<T>> work, TransactionConfig config) {
+		return session.readTransactionAsync(work, config);
+	}
+
+	@Override
+	public <T> T writeTransaction(TransactionWork<T> work) {
+		return observe(() -> session.writeTransaction(work));
+	}
+
+	@Override
+	public <T> T writeTransaction(TransactionWork<T> work, TransactionConfig config) {
+		return observe(() -> session.writeTransaction(work, config));
+	}
+
+	@Override
+	public <T> CompletionStage<T> writeTransactionAsync(TransactionWork<CompletionStage<T>> work) {
+		return session.writeTransactionAsync(work);
+	}
+
+	@Override
+	public <T> CompletionStage<T> writeTransactionAsync(TransactionWork<CompletionStage<T>> work, TransactionConfig config) {
+		return session.writeTransactionAsync(work, config);
+	}
+
+	@Override
+	public StatementResult run(String statement, TransactionConfig config) {
+		return observe(() -> session.run(statement, config));
+	}
+
+	@Override
+	public StatementResult run(String statement, Map<String, Object> parameters, TransactionConfig config) {
+		return observe(() -> session.run(statement, parameters, config));
+	}
+
+	@Override
+	public StatementResult run(Statement statement, TransactionConfig config) {
+		return observe(() -> session.run(statement, config));
+	}
+
+	@Override
+	public CompletionStage<StatementResultCursor> runAsync(String statement, TransactionConfig config) {
+		return session.runAsync(statement, config);
+	}
+
+	@Override
+	public CompletionStage<StatementResultCursor> runAsync(String statement, Map<String, Object> parameters, TransactionConfig config) {
+		return session.runAsync(statement, parameters, config);
+	}
+
+	@Override
+	public CompletionStage<StatementResultCursor> runAsync(Statement statement, TransactionConfig config) {
+		return session.runAsync(statement, config);
+	}
+
+	@Override
+	public StatementResult run(String statement, Value parameters) {
+		return observe(() -> session.run(statement, parameters));
+	}
+
+	@Override
+	public CompletionStage<StatementResultCursor> runAsync(String statement, Value parameters) {
+		return session.runAsync(statement, parameters);
+	}
+
+	@Override
+	public StatementResult run(String statement, Map<String, Object> parameters) {
+		return observe(() -> session.run(statement, parameters));
+	}
+
+	@Override
+	public CompletionStage<StatementResultCursor> runAsync(String statement, Map<String, Object> parameters) {
+		return session.runAsync(statement, parameters);
+	}
+
+	@Override
+	public StatementResult run(String statement, Record parameters) {
+		return observe(() -> session.run(statement, parameters));
+	}
+
+	@Override
+	public CompletionStage<StatementResultCursor> runAsync(String statement, Record parameters) {
+		return session.runAsync(statement, parameters);
+	}
+
+	@Override
+	public StatementResult run(String statement) {
+		return observe(() -> session.run(statement));
+	}
+
+	@Override
+	public CompletionStage<StatementResultCursor> runAsync(String statement) {
+		return session.runAsync(statement);
+	}
+
+	@Override
+	public StatementResult run(Statement statement) {
+		return observe(() -> session.run(statement));
+	}
+
+	@Override
+	public CompletionStage<StatementResultCursor> runAsync(Statement statement) {
+		return session.runAsync(statement);
+	}
+
+	@Override
+	public String lastBookmark() {
+		return session.lastBookmark();
+	}
+
+	@Override
+	@SuppressWarnings("deprecation")
+	public void reset() {
+		session.reset();
+	}
+
+	@Override
+	public TypeSystem typeSystem() {
+		return session.typeSystem();
+	}
+}
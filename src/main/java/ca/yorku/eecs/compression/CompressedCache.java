@@ -0,0 +1,145 @@
+package ca.yorku.eecs.compression;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Least-recently-used cache of compressed response bodies, keyed by content coding and the uncompressed bytes, and
+ * bounded by a memory budget.
+ * <p>
+ * Keying on the content rather than the URL means an entry can never be stale: a response that changed after a write
+ * simply misses. A lookup costs a hash and a compare of the body, which is far cheaper than deflating it again.
+ * Bodies larger than an eighth of the budget are not cached.
+ * </p>
+ */
+final class CompressedCache {
+
+	private final long maxBytes;
+
+	/**
+	 * Compressed bodies in access order. Guarded by {@code this}.
+	 */
+	private final LinkedHashMap<Key, byte[]> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+	private long bytesUsed;
+
+	private long hits;
+
+	private long misses;
+
+	/**
+	 * @param maxBytes The memory budget, counting uncompressed and compressed bytes.
+	 */
+	CompressedCache(long maxBytes) {
+		this.maxBytes = maxBytes;
+	}
+
+	/**
+	 * @param coding The content coding.
+	 * @param body   Buffer holding the uncompressed body.
+	 * @param length Length of the body in the buffer.
+	 * @return The cached compressed body, or null.
+	 */
+	synchronized byte[] get(String coding, byte[] body, int length) {
+		byte[] compressed = entries.get(new Key(coding, body, length));
+		if (compressed != null) {
+			hits++;
+		} else {
+			misses++;
+		}
+		return compressed;
+	}
+
+	/**
+	 * Caches a compressed body, evicting the least recently used entries to stay within the budget.
+	 *
+	 * @param coding     The content coding.
+	 * @param body       Buffer holding the uncompressed body; it is copied.
+	 * @param length     Length of the body in the buffer.
+	 * @param compressed The compressed body.
+	 */
+	synchronized void put(String coding, byte[] body, int length, byte[] compressed) {
+		long size = sizeOf(length, compressed);
+		if (size > maxBytes / 8) {
+			return;
+		}
+		byte[] copy = new byte[length];
+		System.arraycopy(body, 0, copy, 0, length);
+		byte[] previous = entries.put(new Key(coding, copy, length), compressed);
+		if (previous != null) {
+			bytesUsed -= sizeOf(length, previous);
+		}
+		bytesUsed += size;
+
+		Iterator<Map.Entry<Key, byte[]>> eldest = entries.entrySet().iterator();
+		while (bytesUsed > maxBytes && eldest.hasNext()) {
+			Map.Entry<Key, byte[]> entry = eldest.next();
+			bytesUsed -= sizeOf(entry.getKey().length, entry.getValue());
+			eldest.remove();
+		}
+	}
+
+	private static long sizeOf(int length, byte[] compressed) {
+		return 64L + length + compressed.length;
+	}
+
+	synchronized int size() {
+		return entries.size();
+	}
+
+	synchronized long getBytesUsed() {
+		return bytesUsed;
+	}
+
+	synchronized long getHits() {
+		return hits;
+	}
+
+	synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * A content coding and a body, compared by content.
+	 */
+	private static final class Key {
+		private final String coding;
+		private final byte[] body;
+		private final int length;
+		private final int hash;
+
+		Key(String coding, byte[] body, int length) {
+			this.coding = coding;
+			this.body = body;
+			this.length = length;
+			int hash = coding.hashCode();
+			for (int i = 0; i < length; i++) {
+				hash = 31 * hash + body[i];
+			}
+			this.hash = hash;
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) o;
+			if (hash != other.hash || length != other.length || !coding.equals(other.coding)) {
+				return false;
+			}
+			for (int i = 0; i < length; i++) {
+				if (body[i] != other.body[i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+}
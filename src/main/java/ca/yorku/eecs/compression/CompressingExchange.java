@@ -0,0 +1,237 @@
+package ca.yorku.eecs.compression;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpPrincipal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+
+/**
+ * An HttpExchange that compresses the response body of the exchange it wraps.
+ * <p>
+ * Everything but the response goes straight to the wrapped exchange. {@link #sendResponseHeaders} decides how the
+ * body is sent: as is, buffered and compressed as a whole when the handler closes it, or compressed on the fly for a
+ * streamed response. Either way the response carries {@code Vary: Accept-Encoding} whenever its size made it eligible,
+ * so caches keep the encodings apart.
+ * </p>
+ */
+final class CompressingExchange extends HttpExchange {
+
+	private final HttpExchange exchange;
+
+	private final ResponseCompressor compressor;
+
+	private final boolean cacheable;
+
+	private final ResponseStream responseBody = new ResponseStream();
+
+	private int responseCode = -1;
+
+	CompressingExchange(HttpExchange exchange, ResponseCompressor compressor, boolean cacheable) {
+		this.exchange = exchange;
+		this.compressor = compressor;
+		this.cacheable = cacheable;
+	}
+
+	@Override
+	public void sendResponseHeaders(int rCode, long responseLength) throws IOException {
+		if (responseCode != -1) {
+			throw new IOException("headers already sent");
+		}
+		responseCode = rCode;
+		Headers headers = exchange.getResponseHeaders();
+		boolean eligible = headers != null && rCode >= 200 && rCode != 204 && rCode != 304
+				&& !"HEAD".equals(exchange.getRequestMethod())
+				&& !headers.containsKey("Content-Encoding")
+				&& (responseLength == 0 || responseLength >= compressor.getMinBytes());
+		if (!eligible) {
+			exchange.sendResponseHeaders(rCode, responseLength);
+			responseBody.target = exchange.getResponseBody();
+			return;
+		}
+
+		headers.add("Vary", "Accept-Encoding");
+		Headers requestHeaders = exchange.getRequestHeaders();
+		String coding = ResponseCompressor.negotiate(requestHeaders == null ? null : requestHeaders.getFirst("Accept-Encoding"));
+		if (coding == null) {
+			exchange.sendResponseHeaders(rCode, responseLength);
+			responseBody.target = exchange.getResponseBody();
+		} else if (responseLength == 0) {
+			headers.set("Content-Encoding", coding);
+			exchange.sendResponseHeaders(rCode, 0);
+			responseBody.target = compressor.compressingStream(coding, exchange.getResponseBody());
+		} else if (responseLength > Integer.MAX_VALUE - 8) {
+			throw new IOException("Response too large to compress: " + responseLength);
+		} else {
+			responseBody.coding = coding;
+			responseBody.buffer = new byte[(int) responseLength];
+		}
+	}
+
+	@Override
+	public OutputStream getResponseBody() {
+		return responseBody;
+	}
+
+	@Override
+	public int getResponseCode() {
+		return responseCode;
+	}
+
+	@Override
+	public void close() {
+		try {
+			responseBody.close();
+		} catch (IOException e) {
+			exchange.close();
+		}
+	}
+
+	@Override
+	public Headers getRequestHeaders() {
+		return exchange.getRequestHeaders();
+	}
+
+	@Override
+	public Headers getResponseHeaders() {
+		return exchange.getResponseHeaders();
+	}
+
+	@Override
+	public URI getRequestURI() {
+		return exchange.getRequestURI();
+	}
+
+	@Override
+	public String getRequestMethod() {
+		return exchange.getRequestMethod();
+	}
+
+	@Override
+	public HttpContext getHttpContext() {
+		return exchange.getHttpContext();
+	}
+
+	@Override
+	public InputStream getRequestBody() {
+		return exchange.getRequestBody();
+	}
+
+	@Override
+	public InetSocketAddress getRemoteAddress() {
+		return exchange.getRemoteAddress();
+	}
+
+	@Override
+	public InetSocketAddress getLocalAddress() {
+		return exchange.getLocalAddress();
+	}
+
+	@Override
+	public String getProtocol() {
+		return exchange.getProtocol();
+	}
+
+	@Override
+	public Object getAttribute(String name) {
+		return exchange.getAttribute(name);
+	}
+
+	@Override
+	public void setAttribute(String name, Object value) {
+		exchange.setAttribute(name, value);
+	}
+
+	@Override
+	public void setStreams(InputStream i, OutputStream o) {
+		exchange.setStreams(i, null);
+		if (o != null) {
+			responseBody.target = o;
+		}
+	}
+
+	@Override
+	public HttpPrincipal getPrincipal() {
+		return exchange.getPrincipal();
+	}
+
+	/**
+	 * The body handed to the handler: either a pass-through to the stream chosen by sendResponseHeaders, or a buffer
+	 * of the declared length that is compressed and sent on close.
+	 */
+	private final class ResponseStream extends OutputStream {
+
+		private OutputStream target;
+
+		private String coding;
+
+		private byte[] buffer;
+
+		private int count;
+
+		private boolean closed;
+
+		@Override
+		public void write(int b) throws IOException {
+			write(new byte[]{(byte) b}, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			if (closed) {
+				throw new IOException("Stream closed");
+			}
+			if (buffer != null) {
+				if (len > buffer.length - count) {
+					throw new IOException("too many bytes to write to stream");
+				}
+				System.arraycopy(b, off, buffer, count, len);
+				count += len;
+			} else if (target != null) {
+				target.write(b, off, len);
+			} else {
+				throw new IOException("sendResponseHeaders has not been called");
+			}
+		}
+
+		@Override
+		public void flush() throws IOException {
+			if (target != null) {
+				target.flush();
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			if (buffer != null) {
+				byte[] compressed = compressor.compress(coding, buffer, count, cacheable);
+				OutputStream out;
+				if (compressed != null) {
+					exchange.getResponseHeaders().set("Content-Encoding", coding);
+					exchange.sendResponseHeaders(responseCode, compressed.length);
+					out = exchange.getResponseBody();
+					out.write(compressed);
+				} else {
+					exchange.sendResponseHeaders(responseCode, count);
+					out = exchange.getResponseBody();
+					out.write(buffer, 0, count);
+				}
+				buffer = null;
+				out.close();
+			} else if (target != null) {
+				target.close();
+			} else {
+				exchange.close();
+			}
+		}
+	}
+}
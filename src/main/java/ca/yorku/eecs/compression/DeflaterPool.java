@@ -0,0 +1,66 @@
+package ca.yorku.eecs.compression;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+
+/**
+ * Bounded pool of {@link Deflater}s of one compression level and wrapping mode.
+ * <p>
+ * A Deflater holds a native zlib stream of a few hundred kilobytes that is only freed by {@link Deflater#end()} or
+ * finalization, so creating one per response churns native memory. Released deflaters are reset and kept for the next
+ * response; when the pool is full they are ended right away.
+ * </p>
+ */
+final class DeflaterPool {
+
+	private final int level;
+
+	private final boolean nowrap;
+
+	private final ArrayBlockingQueue<Deflater> idle;
+
+	private final AtomicLong created = new AtomicLong();
+
+	/**
+	 * @param level     The compression level, 0-9.
+	 * @param nowrap    Whether to produce raw deflate data instead of the zlib format.
+	 * @param maxPooled Maximum number of idle deflaters kept.
+	 */
+	DeflaterPool(int level, boolean nowrap, int maxPooled) {
+		this.level = level;
+		this.nowrap = nowrap;
+		this.idle = new ArrayBlockingQueue<>(maxPooled);
+	}
+
+	/**
+	 * @return An idle deflater, or a new one if none is idle.
+	 */
+	Deflater acquire() {
+		Deflater deflater = idle.poll();
+		if (deflater == null) {
+			created.incrementAndGet();
+			deflater = new Deflater(level, nowrap);
+		}
+		return deflater;
+	}
+
+	/**
+	 * Returns a deflater to the pool. It must not be used by the caller afterwards.
+	 *
+	 * @param deflater A deflater obtained from {@link #acquire()}.
+	 */
+	void release(Deflater deflater) {
+		deflater.reset();
+		if (!idle.offer(deflater)) {
+			deflater.end();
+		}
+	}
+
+	/**
+	 * @return Number of deflaters created so far.
+	 */
+	long getCreated() {
+		return created.get();
+	}
+}
@@ -0,0 +1,331 @@
+package ca.yorku.eecs.compression;
+
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Compresses response bodies with gzip or deflate, negotiated from the request's {@code Accept-Encoding} header.
+ * <p>
+ * Handlers are wrapped with {@link #wrap} and need no changes. A response whose length is declared up front is
+ * compressed as a whole once the handler closes the body, and is sent uncompressed if it is shorter than the minimum
+ * size or does not get smaller. A streamed response (declared length 0) is compressed on the fly. Deflaters come from
+ * a pool, and for handlers marked cacheable the compressed bytes are cached by content, so a repeated response is
+ * compressed only once.
+ * </p>
+ */
+public class ResponseCompressor {
+
+	public static final String GZIP = "gzip";
+
+	public static final String DEFLATE = "deflate";
+
+	/**
+	 * Fixed gzip member header: magic, deflate method, no flags, no mtime, no extra flags, unknown OS.
+	 */
+	private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+	/**
+	 * Number of idle deflaters kept per coding.
+	 */
+	private static final int MAX_POOLED_DEFLATERS = 64;
+
+	private final int minBytes;
+
+	private final DeflaterPool gzipDeflaters;
+
+	private final DeflaterPool deflateDeflaters;
+
+	private final CompressedCache cache;
+
+	private final AtomicLong responsesCompressed = new AtomicLong();
+
+	private final AtomicLong bytesIn = new AtomicLong();
+
+	private final AtomicLong bytesOut = new AtomicLong();
+
+	/**
+	 * Creates a compressor.
+	 *
+	 * @param minBytes      Responses with a declared length below this are sent uncompressed.
+	 * @param level         The compression level, 1-9.
+	 * @param cacheMaxBytes Memory budget for cached compressed responses.
+	 */
+	public ResponseCompressor(int minBytes, int level, long cacheMaxBytes) {
+		this.minBytes = minBytes;
+		this.gzipDeflaters = new DeflaterPool(level, true, MAX_POOLED_DEFLATERS);
+		this.deflateDeflaters = new DeflaterPool(level, false, MAX_POOLED_DEFLATERS);
+		this.cache = new CompressedCache(cacheMaxBytes);
+	}
+
+	/**
+	 * Wraps a handler so its responses are compressed.
+	 *
+	 * @param handler   The handler.
+	 * @param cacheable Whether the handler's responses repeat often enough to keep their compressed bytes.
+	 * @return The wrapping handler.
+	 */
+	public HttpHandler wrap(HttpHandler handler, boolean cacheable) {
+		return exchange -> handler.handle(new CompressingExchange(exchange, this, cacheable));
+	}
+
+	/**
+	 * Picks a content coding from an Accept-Encoding header, preferring gzip. Codings listed with {@code q=0} are
+	 * refused, and {@code *} stands for any coding not listed.
+	 *
+	 * @param acceptEncoding The header value, or null.
+	 * @return {@link #GZIP}, {@link #DEFLATE}, or null to send the body as is.
+	 */
+	public static String negotiate(String acceptEncoding) {
+		if (acceptEncoding == null) {
+			return null;
+		}
+		double gzip = -1;
+		double deflate = -1;
+		double any = -1;
+		for (String element : acceptEncoding.split(",")) {
+			String[] parts = element.split(";");
+			String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+			double quality = 1;
+			for (int i = 1; i < parts.length; i++) {
+				String parameter = parts[i].trim();
+				if (parameter.startsWith("q=")) {
+					try {
+						quality = Double.parseDouble(parameter.substring(2));
+					} catch (NumberFormatException e) {
+						quality = 0;
+					}
+				}
+			}
+			if (coding.equals(GZIP) || coding.equals("x-gzip")) {
+				gzip = quality;
+			} else if (coding.equals(DEFLATE)) {
+				deflate = quality;
+			} else if (coding.equals("*")) {
+				any = quality;
+			}
+		}
+		gzip = gzip < 0 ? any : gzip;
+		deflate = deflate < 0 ? any : deflate;
+		if (gzip > 0 && gzip >= deflate) {
+			return GZIP;
+		}
+		return deflate > 0 ? DEFLATE : null;
+	}
+
+	/**
+	 * Compresses a whole body.
+	 *
+	 * @param coding    {@link #GZIP} or {@link #DEFLATE}.
+	 * @param body      Buffer holding the body.
+	 * @param length    Length of the body in the buffer.
+	 * @param cacheable Whether to look up and store the result in the cache.
+	 * @return The compressed body, or null if compressing does not make it smaller.
+	 */
+	byte[] compress(String coding, byte[] body, int length, boolean cacheable) {
+		byte[] compressed = cacheable ? cache.get(coding, body, length) : null;
+		if (compressed == null) {
+			compressed = deflate(coding, body, length);
+			if (cacheable) {
+				cache.put(coding, body, length, compressed);
+			}
+		}
+		if (compressed.length >= length) {
+			return null;
+		}
+		responsesCompressed.incrementAndGet();
+		bytesIn.addAndGet(length);
+		bytesOut.addAndGet(compressed.length);
+		return compressed;
+	}
+
+	private byte[] deflate(String coding, byte[] body, int length) {
+		boolean gzip = GZIP.equals(coding);
+		DeflaterPool pool = gzip ? gzipDeflaters : deflateDeflaters;
+		Deflater deflater = pool.acquire();
+		try {
+			deflater.setInput(body, 0, length);
+			deflater.finish();
+			int header = gzip ? GZIP_HEADER.length : 0;
+			byte[] out = new byte[header + length / 2 + 64];
+			int size = header;
+			while (!deflater.finished()) {
+				if (size == out.length) {
+					out = Arrays.copyOf(out, out.length * 2);
+				}
+				size += deflater.deflate(out, size, out.length - size);
+			}
+			if (!gzip) {
+				return Arrays.copyOf(out, size);
+			}
+			System.arraycopy(GZIP_HEADER, 0, out, 0, header);
+			CRC32 crc = new CRC32();
+			crc.update(body, 0, length);
+			byte[] result = Arrays.copyOf(out, size + 8);
+			writeIntLE(result, size, (int) crc.getValue());
+			writeIntLE(result, size + 4, length);
+			return result;
+		} finally {
+			pool.release(deflater);
+		}
+	}
+
+	/**
+	 * Opens a stream compressing everything written to it onto another stream, for responses of unknown length.
+	 *
+	 * @param coding {@link #GZIP} or {@link #DEFLATE}.
+	 * @param out    The stream the compressed bytes go to; closed when the returned stream is closed.
+	 * @return The compressing stream.
+	 * @throws IOException If the gzip header cannot be written.
+	 */
+	OutputStream compressingStream(String coding, OutputStream out) throws IOException {
+		boolean gzip = GZIP.equals(coding);
+		if (gzip) {
+			out.write(GZIP_HEADER);
+		}
+		return new DeflatingStream(out, gzip ? gzipDeflaters : deflateDeflaters, gzip);
+	}
+
+	private static void writeIntLE(byte[] out, int offset, int value) {
+		out[offset] = (byte) value;
+		out[offset + 1] = (byte) (value >>> 8);
+		out[offset + 2] = (byte) (value >>> 16);
+		out[offset + 3] = (byte) (value >>> 24);
+	}
+
+	/**
+	 * @return Responses below this declared length are sent uncompressed.
+	 */
+	public int getMinBytes() {
+		return minBytes;
+	}
+
+	/**
+	 * @return Number of whole responses sent compressed.
+	 */
+	public long getResponsesCompressed() {
+		return responsesCompressed.get();
+	}
+
+	/**
+	 * @return Uncompressed bytes of the whole responses sent compressed.
+	 */
+	public long getBytesIn() {
+		return bytesIn.get();
+	}
+
+	/**
+	 * @return Compressed bytes of the whole responses sent compressed.
+	 */
+	public long getBytesOut() {
+		return bytesOut.get();
+	}
+
+	public long getCacheHits() {
+		return cache.getHits();
+	}
+
+	public long getCacheMisses() {
+		return cache.getMisses();
+	}
+
+	/**
+	 * @return Number of deflaters created, which stays flat once the pools are warm.
+	 */
+	public long getDeflatersCreated() {
+		return gzipDeflaters.getCreated() + deflateDeflaters.getCreated();
+	}
+
+	/**
+	 * Compresses a streamed body with a pooled deflater, released when the stream is closed.
+	 */
+	private static final class DeflatingStream extends OutputStream {
+
+		private final OutputStream out;
+
+		private final DeflaterPool pool;
+
+		private final CRC32 crc;
+
+		private final byte[] buffer = new byte[8192];
+
+		private Deflater deflater;
+
+		DeflatingStream(OutputStream out, DeflaterPool pool, boolean gzip) {
+			this.out = out;
+			this.pool = pool;
+			this.crc = gzip ? new CRC32() : null;
+			this.deflater = pool.acquire();
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			write(new byte[]{(byte) b}, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			if (deflater == null) {
+				throw new IOException("Stream closed");
+			}
+			if (crc != null) {
+				crc.update(b, off, len);
+			}
+			deflater.setInput(b, off, len);
+			while (!deflater.needsInput()) {
+				drain();
+			}
+		}
+
+		/**
+		 * Flushes what has been compressed so far, so a slow stream still reaches the client incrementally.
+		 */
+		@Override
+		public void flush() throws IOException {
+			if (deflater == null) {
+				return;
+			}
+			int n;
+			while ((n = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH)) > 0) {
+				out.write(buffer, 0, n);
+			}
+			out.flush();
+		}
+
+		private void drain() throws IOException {
+			int n = deflater.deflate(buffer, 0, buffer.length);
+			if (n > 0) {
+				out.write(buffer, 0, n);
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (deflater == null) {
+				return;
+			}
+			try {
+				deflater.finish();
+				while (!deflater.finished()) {
+					drain();
+				}
+				if (crc != null) {
+					byte[] trailer = new byte[8];
+					writeIntLE(trailer, 0, (int) crc.getValue());
+					writeIntLE(trailer, 4, (int) deflater.getBytesRead());
+					out.write(trailer);
+				}
+			} finally {
+				pool.release(deflater);
+				deflater = null;
+				out.close();
+			}
+		}
+	}
+}
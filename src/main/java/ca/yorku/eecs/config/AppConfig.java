@@ -0,0 +1,180 @@
+package ca.yorku.eecs.config;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+/**
+ * Application settings, read from a properties file and overridden by environment variables and system properties.
+ * <p>
+ * A setting such as {@code neo4j.pool.maxSize} is looked up, in order of precedence, as the system property
+ * {@code -Dneo4j.pool.maxSize}, the environment variable {@code NEO4J_POOL_MAX_SIZE}, and the key in the properties
+ * file; if none is set, the caller's default applies. The file is {@value #DEFAULT_FILE} unless {@code -Dconfig.file}
+ * or {@code CONFIG_FILE} names another, and a missing file is the same as an empty one. A value that does not parse
+ * as the requested type fails at startup rather than falling back silently.
+ * </p>
+ */
+public class AppConfig {
+
+	private static final Logger logger = Logger.getLogger(AppConfig.class.getName());
+
+	/**
+	 * Properties file read when none is named.
+	 */
+	public static final String DEFAULT_FILE = "config/app.properties";
+
+	/**
+	 * Setting naming the properties file; it can only come from a system property or the environment.
+	 */
+	public static final String FILE_KEY = "config.file";
+
+	private final Properties file;
+
+	private final Map<String, String> environment;
+
+	private final Properties system;
+
+	/**
+	 * Creates a configuration from already loaded sources.
+	 *
+	 * @param file        The properties file's settings.
+	 * @param environment The environment variables.
+	 * @param system      The system properties.
+	 */
+	public AppConfig(Properties file, Map<String, String> environment, Properties system) {
+		this.file = file;
+		this.environment = environment;
+		this.system = system;
+	}
+
+	/**
+	 * Loads the process's configuration.
+	 *
+	 * @return The configuration.
+	 * @throws IllegalStateException If the properties file exists but cannot be read.
+	 */
+	public static AppConfig load() {
+		AppConfig overrides = new AppConfig(new Properties(), System.getenv(), System.getProperties());
+		Path path = Paths.get(overrides.get(FILE_KEY, DEFAULT_FILE));
+		Properties file = new Properties();
+		if (Files.isRegularFile(path)) {
+			try (InputStream in = Files.newInputStream(path)) {
+				file.load(in);
+			} catch (IOException e) {
+				throw new IllegalStateException("Could not read configuration file " + path + ": " + e.getMessage(), e);
+			}
+			logger.info("Loaded configuration from " + path.toAbsolutePath());
+		}
+		return new AppConfig(file, System.getenv(), System.getProperties());
+	}
+
+	/**
+	 * @param key          The setting, e.g. "server.port".
+	 * @param defaultValue The value if the setting is not set.
+	 * @return The setting's value.
+	 */
+	public String get(String key, String defaultValue) {
+		String value = system.getProperty(key);
+		if (value == null) {
+			value = environment.get(environmentName(key));
+		}
+		if (value == null) {
+			value = file.getProperty(key);
+		}
+		return value == null ? defaultValue : value.trim();
+	}
+
+	/**
+	 * @param key          The setting.
+	 * @param defaultValue The value if the setting is not set.
+	 * @return The setting's value.
+	 * @throws IllegalArgumentException If the value is not an integer.
+	 */
+	public int getInt(String key, int defaultValue) {
+		String value = get(key, null);
+		try {
+			return value == null ? defaultValue : Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			throw invalid(key, value, "an integer");
+		}
+	}
+
+	/**
+	 * @param key          The setting.
+	 * @param defaultValue The value if the setting is not set.
+	 * @return The setting's value.
+	 * @throws IllegalArgumentException If the value is not an integer.
+	 */
+	public long getLong(String key, long defaultValue) {
+		String value = get(key, null);
+		try {
+			return value == null ? defaultValue : Long.parseLong(value);
+		} catch (NumberFormatException e) {
+			throw invalid(key, value, "an integer");
+		}
+	}
+
+	/**
+	 * @param key          The setting.
+	 * @param defaultValue The value if the setting is not set.
+	 * @return The setting's value.
+	 * @throws IllegalArgumentException If the value is not a number.
+	 */
+	public double getDouble(String key, double defaultValue) {
+		String value = get(key, null);
+		try {
+			return value == null ? defaultValue : Double.parseDouble(value);
+		} catch (NumberFormatException e) {
+			throw invalid(key, value, "a number");
+		}
+	}
+
+	/**
+	 * @param key          The setting.
+	 * @param defaultValue The value if the setting is not set.
+	 * @return The setting's value.
+	 * @throws IllegalArgumentException If the value is neither "true" nor "false".
+	 */
+	public boolean getBoolean(String key, boolean defaultValue) {
+		String value = get(key, null);
+		if (value == null) {
+			return defaultValue;
+		}
+		if (value.equalsIgnoreCase("true") || value.equalsIgnoreCase("false")) {
+			return Boolean.parseBoolean(value);
+		}
+		throw invalid(key, value, "true or false");
+	}
+
+	private static IllegalArgumentException invalid(String key, String value, String expected) {
+		return new IllegalArgumentException(String.format("Setting %s must be %s, not \"%s\".", key, expected, value));
+	}
+
+	/**
+	 * Maps a setting to its environment variable: dots and dashes become underscores, a capital letter starts a new
+	 * word, and everything is upper-cased, so "neo4j.pool.maxSize" becomes "NEO4J_POOL_MAX_SIZE".
+	 *
+	 * @param key The setting.
+	 * @return The environment variable's name.
+	 */
+	public static String environmentName(String key) {
+		StringBuilder name = new StringBuilder(key.length() + 4);
+		for (int i = 0; i < key.length(); i++) {
+			char c = key.charAt(i);
+			if (c == '.' || c == '-') {
+				name.append('_');
+			} else if (Character.isUpperCase(c) && i > 0 && Character.isLetterOrDigit(key.charAt(i - 1))
+					&& !Character.isUpperCase(key.charAt(i - 1))) {
+				name.append('_').append(c);
+			} else {
+				name.append(Character.toUpperCase(c));
+			}
+		}
+		return name.toString();
+	}
+}
@@ -0,0 +1,176 @@
+package ca.yorku.eecs.encoding;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Encodes responses as CBOR (RFC 8949), a binary form of the JSON data model.
+ * <p>
+ * Containers use definite lengths, integers use the shortest encoding and doubles that are exact as floats are
+ * written in four bytes, so small ids and counts cost one or two bytes and strings carry no quoting or escaping.
+ * </p>
+ */
+public class CborEncoder extends ResponseEncoder {
+
+	private static final int UNSIGNED = 0;
+
+	private static final int NEGATIVE = 1 << 5;
+
+	private static final int TEXT = 3 << 5;
+
+	private static final int ARRAY = 4 << 5;
+
+	private static final int MAP = 5 << 5;
+
+	private static final int FALSE = 0xF4;
+
+	private static final int TRUE = 0xF5;
+
+	private static final int NULL = 0xF6;
+
+	private static final int FLOAT32 = 0xFA;
+
+	private static final int FLOAT64 = 0xFB;
+
+	private byte[] out = new byte[64];
+
+	private int size;
+
+	@Override
+	public String getContentType() {
+		return CBOR;
+	}
+
+	@Override
+	public ResponseEncoder beginObject(int size) {
+		header(MAP, size);
+		return this;
+	}
+
+	@Override
+	public ResponseEncoder endObject() {
+		return this;
+	}
+
+	@Override
+	public ResponseEncoder beginArray(int size) {
+		header(ARRAY, size);
+		return this;
+	}
+
+	@Override
+	public ResponseEncoder endArray() {
+		return this;
+	}
+
+	@Override
+	public ResponseEncoder key(String key) {
+		return value(key);
+	}
+
+	@Override
+	public ResponseEncoder value(String value) {
+		if (value == null) {
+			write(NULL);
+			return this;
+		}
+		// ASCII strings, i.e. every id, are copied without going through an encoder
+		int length = value.length();
+		boolean ascii = true;
+		for (int i = 0; i < length && ascii; i++) {
+			ascii = value.charAt(i) < 0x80;
+		}
+		if (ascii) {
+			header(TEXT, length);
+			ensure(length);
+			for (int i = 0; i < length; i++) {
+				out[size++] = (byte) value.charAt(i);
+			}
+		} else {
+			byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			header(TEXT, bytes.length);
+			ensure(bytes.length);
+			System.arraycopy(bytes, 0, out, size, bytes.length);
+			size += bytes.length;
+		}
+		return this;
+	}
+
+	@Override
+	public ResponseEncoder value(long value) {
+		if (value >= 0) {
+			header(UNSIGNED, value);
+		} else {
+			header(NEGATIVE, -1 - value);
+		}
+		return this;
+	}
+
+	@Override
+	public ResponseEncoder value(double value) {
+		if (value == (long) value && Math.abs(value) < 1L << 53) {
+			return value((long) value);
+		}
+		if ((float) value == value || Double.isNaN(value)) {
+			write(FLOAT32);
+			writeBytes(Float.floatToIntBits((float) value), 4);
+		} else {
+			write(FLOAT64);
+			writeBytes(Double.doubleToLongBits(value), 8);
+		}
+		return this;
+	}
+
+	@Override
+	public ResponseEncoder value(boolean value) {
+		write(value ? TRUE : FALSE);
+		return this;
+	}
+
+	@Override
+	public byte[] toByteArray() {
+		return Arrays.copyOf(out, size);
+	}
+
+	/**
+	 * Writes a major type with its argument in the shortest form.
+	 */
+	private void header(int majorType, long argument) {
+		if (argument < 24) {
+			write(majorType | (int) argument);
+		} else if (argument < 1 << 8) {
+			write(majorType | 24);
+			writeBytes(argument, 1);
+		} else if (argument < 1 << 16) {
+			write(majorType | 25);
+			writeBytes(argument, 2);
+		} else if (argument < 1L << 32) {
+			write(majorType | 26);
+			writeBytes(argument, 4);
+		} else {
+			write(majorType | 27);
+			writeBytes(argument, 8);
+		}
+	}
+
+	private void write(int b) {
+		ensure(1);
+		out[size++] = (byte) b;
+	}
+
+	/**
+	 * Writes the low {@code count} bytes of a value, big-endian.
+	 */
+	private void writeBytes(long value, int count) {
+		ensure(count);
+		for (int shift = (count - 1) * 8; shift >= 0; shift -= 8) {
+			out[size++] = (byte) (value >>> shift);
+		}
+	}
+
+	private void ensure(int extra) {
+		if (size + extra > out.length) {
+			out = Arrays.copyOf(out, Math.max(out.length * 2, size + extra));
+		}
+	}
+}
@@ -0,0 +1,173 @@
+package ca.yorku.eecs.encoding;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Encodes responses as compact JSON text, keeping keys in the order they were written.
+ */
+public class JsonEncoder extends ResponseEncoder {
+
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	private final StringBuilder out = new StringBuilder(64);
+
+	/**
+	 * Whether the current object or array has no entries yet, one flag per nesting level.
+	 */
+	private boolean[] empty = new boolean[8];
+
+	private int depth;
+
+	/**
+	 * Set after a key, so the value that follows is not preceded by a comma.
+	 */
+	private boolean afterKey;
+
+	@Override
+	public String getContentType() {
+		return "application/json; charset=utf-8";
+	}
+
+	@Override
+	public ResponseEncoder beginObject(int size) {
+		separate();
+		out.append('{');
+		push();
+		return this;
+	}
+
+	@Override
+	public ResponseEncoder endObject() {
+		depth--;
+		out.append('}');
+		return this;
+	}
+
+	@Override
+	public ResponseEncoder beginArray(int size) {
+		separate();
+		out.append('[');
+		push();
+		return this;
+	}
+
+	@Override
+	public ResponseEncoder endArray() {
+		depth--;
+		out.append(']');
+		return this;
+	}
+
+	@Override
+	public ResponseEncoder key(String key) {
+		separate();
+		string(key);
+		out.append(':');
+		afterKey = true;
+		return this;
+	}
+
+	@Override
+	public ResponseEncoder value(String value) {
+		separate();
+		if (value == null) {
+			out.append("null");
+		} else {
+			string(value);
+		}
+		return this;
+	}
+
+	@Override
+	public ResponseEncoder value(long value) {
+		separate();
+		out.append(value);
+		return this;
+	}
+
+	@Override
+	public ResponseEncoder value(double value) {
+		separate();
+		if (Double.isNaN(value) || Double.isInfinite(value)) {
+			out.append("null");
+		} else if (value == (long) value) {
+			out.append((long) value);
+		} else {
+			out.append(value);
+		}
+		return this;
+	}
+
+	@Override
+	public ResponseEncoder value(boolean value) {
+		separate();
+		out.append(value);
+		return this;
+	}
+
+	@Override
+	public byte[] toByteArray() {
+		return out.toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Override
+	public String toString() {
+		return out.toString();
+	}
+
+	private void push() {
+		if (depth == empty.length) {
+			empty = Arrays.copyOf(empty, depth * 2);
+		}
+		empty[depth++] = true;
+	}
+
+	/**
+	 * Writes the comma before an entry unless it is the first one in its container or follows a key.
+	 */
+	private void separate() {
+		if (afterKey) {
+			afterKey = false;
+			return;
+		}
+		if (depth > 0) {
+			if (!empty[depth - 1]) {
+				out.append(',');
+			}
+			empty[depth - 1] = false;
+		}
+	}
+
+	private void string(String value) {
+		out.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+				case '"':
+					out.append("\\\"");
+					break;
+				case '\\':
+					out.append("\\\\");
+					break;
+				case '\n':
+					out.append("\\n");
+					break;
+				case '\r':
+					out.append("\\r");
+					break;
+				case '\t':
+					out.append("\\t");
+					break;
+				default:
+					if (c < 0x20 || c == 0x2028 || c == 0x2029) {
+						out.append("\\u").append(HEX[c >> 12 & 0xF]).append(HEX[c >> 8 & 0xF])
+								.append(HEX[c >> 4 & 0xF]).append(HEX[c & 0xF]);
+					} else {
+						out.append(c);
+					}
+			}
+		}
+		out.append('"');
+	}
+}
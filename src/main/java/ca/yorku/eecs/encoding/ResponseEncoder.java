@@ -0,0 +1,128 @@
+package ca.yorku.eecs.encoding;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * Writes a response body as a stream of structure events, so handlers describe a response once and the encoding is
+ * chosen per request.
+ * <p>
+ * Objects and arrays are opened with their number of entries, which lets binary encodings write definite lengths
+ * without buffering. Inside an object every value is preceded by {@link #key(String)}. Use {@link #negotiate} to pick
+ * an encoder from the request's {@code Accept} header and {@link #send} to write the result.
+ * </p>
+ */
+public abstract class ResponseEncoder {
+
+	/**
+	 * Media type of the compact binary encoding.
+	 */
+	public static final String CBOR = "application/cbor";
+
+	/**
+	 * Picks an encoder from the request's Accept header: CBOR if the client accepts {@code application/cbor},
+	 * otherwise JSON.
+	 *
+	 * @param exchange The HTTP exchange.
+	 * @return A new, empty encoder.
+	 */
+	public static ResponseEncoder negotiate(HttpExchange exchange) {
+		Headers headers = exchange.getRequestHeaders();
+		String accept = headers == null ? null : headers.getFirst("Accept");
+		return accepts(accept, CBOR) ? new CborEncoder() : new JsonEncoder();
+	}
+
+	/**
+	 * @param accept    An Accept header value, or null.
+	 * @param mediaType The media type to look for.
+	 * @return Whether the header lists the media type with a non-zero quality.
+	 */
+	static boolean accepts(String accept, String mediaType) {
+		if (accept == null) {
+			return false;
+		}
+		for (String range : accept.split(",")) {
+			String[] parts = range.split(";");
+			if (!parts[0].trim().toLowerCase(Locale.ROOT).equals(mediaType)) {
+				continue;
+			}
+			for (int i = 1; i < parts.length; i++) {
+				String parameter = parts[i].trim();
+				if (parameter.startsWith("q=")) {
+					try {
+						return Double.parseDouble(parameter.substring(2)) > 0;
+					} catch (NumberFormatException e) {
+						return false;
+					}
+				}
+			}
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Sends the encoded body with the encoder's content type.
+	 *
+	 * @param exchange The HTTP exchange.
+	 * @param code     The status code.
+	 * @throws IOException If an I/O error occurs.
+	 */
+	public void send(HttpExchange exchange, int code) throws IOException {
+		byte[] body = toByteArray();
+		Headers headers = exchange.getResponseHeaders();
+		if (headers != null) {
+			headers.set("Content-Type", getContentType());
+			headers.set("Vary", "Accept");
+		}
+		exchange.sendResponseHeaders(code, body.length);
+		exchange.getResponseBody().write(body);
+	}
+
+	/**
+	 * @return The Content-Type of the encoded body.
+	 */
+	public abstract String getContentType();
+
+	/**
+	 * Opens an object.
+	 *
+	 * @param size Number of key-value pairs that will follow.
+	 * @return This encoder.
+	 */
+	public abstract ResponseEncoder beginObject(int size);
+
+	public abstract ResponseEncoder endObject();
+
+	/**
+	 * Opens an array.
+	 *
+	 * @param size Number of values that will follow.
+	 * @return This encoder.
+	 */
+	public abstract ResponseEncoder beginArray(int size);
+
+	public abstract ResponseEncoder endArray();
+
+	public abstract ResponseEncoder key(String key);
+
+	/**
+	 * @param value A string, or null.
+	 * @return This encoder.
+	 */
+	public abstract ResponseEncoder value(String value);
+
+	public abstract ResponseEncoder value(long value);
+
+	public abstract ResponseEncoder value(double value);
+
+	public abstract ResponseEncoder value(boolean value);
+
+	/**
+	 * @return The encoded body.
+	 */
+	public abstract byte[] toByteArray();
+}
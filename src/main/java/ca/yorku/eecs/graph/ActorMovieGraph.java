@@ -0,0 +1,429 @@
+package ca.yorku.eecs.graph;
+
+import ca.yorku.eecs.journal.JournalEvent;
+import ca.yorku.eecs.journal.JournalListener;
+import org.neo4j.driver.v1.AccessMode;
+import org.neo4j.driver.v1.Driver;
+import org.neo4j.driver.v1.Record;
+import org.neo4j.driver.v1.Session;
+import org.neo4j.driver.v1.StatementResult;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Logger;
+
+/**
+ * In-memory copy of the actor-movie graph used for whole-graph computations that are too expensive in Cypher.
+ * <p>
+ * Actors and movies are assigned dense, never-reused indexes in the order they are added. The graph is loaded once
+ * from Neo4j with {@link #load(Driver)} and then kept current by registering it as a {@link JournalListener} on the
+ * write journal. All mutations are idempotent, so replaying an event that the initial load already saw is harmless.
+ * Readers take immutable {@link GraphSnapshot}s, which are rebuilt lazily after a change.
+ * </p>
+ * <p>
+ * A rebuild copies the whole graph, and the caches built over snapshots start again with each new one, so under a
+ * steady stream of writes rebuilding after every change would leave nothing cached. Once the graph is loaded, a
+ * snapshot is therefore kept for up to {@code snapshotMaxAgeMillis} even if the graph changed: snapshot readers see a
+ * write at most that long after it was applied. Lookups such as {@link #hasRelationship} read the live graph and
+ * are never stale.
+ * </p>
+ */
+public class ActorMovieGraph implements JournalListener {
+
+	private static final Logger logger = Logger.getLogger(ActorMovieGraph.class.getName());
+
+	/**
+	 * Cypher statements used to stream the graph into memory.
+	 */
+	public static final String LOAD_ACTORS_QUERY = "MATCH (a:Actor) RETURN a.actorId AS actorId, a.name AS name";
+
+	public static final String LOAD_MOVIES_QUERY = "MATCH (m:Movie) RETURN m.movieId AS movieId, m.name AS name";
+
+	public static final String LOAD_RELATIONSHIPS_QUERY = "MATCH (a:Actor)-[:ACTED_IN]->(m:Movie) RETURN a.actorId AS actorId, m.movieId AS movieId";
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private final Map<String, Integer> actorIndex = new HashMap<>();
+
+	private final Map<String, Integer> movieIndex = new HashMap<>();
+
+	private final List<String> actorIds = new ArrayList<>();
+
+	private final List<String> actorNames = new ArrayList<>();
+
+	private final List<String> movieIds = new ArrayList<>();
+
+	private final List<String> movieNames = new ArrayList<>();
+
+	private final List<IntArrayList> actorMovies = new ArrayList<>();
+
+	private final List<IntArrayList> movieActors = new ArrayList<>();
+
+	/**
+	 * Every edge, packed by {@link #edgeKey}, so membership tests take one probe however many movies an actor has.
+	 */
+	private final LongHashSet edges = new LongHashSet(1024);
+
+	private int edgeCount;
+
+	/**
+	 * Incremented on every successful mutation.
+	 */
+	private volatile long version;
+
+	/**
+	 * Most recent snapshot; rebuilt when its version falls behind.
+	 */
+	private volatile GraphSnapshot snapshot;
+
+	/**
+	 * Set once {@link #load(Driver)} completed, i.e. once the graph mirrors the database.
+	 */
+	private volatile boolean loaded;
+
+	/**
+	 * Longest an outdated snapshot is served before the next call rebuilds it.
+	 */
+	private final long snapshotMaxAgeNanos;
+
+	/**
+	 * Creates an empty graph whose snapshots are rebuilt after every change.
+	 */
+	public ActorMovieGraph() {
+		this(0);
+	}
+
+	/**
+	 * Creates an empty graph.
+	 *
+	 * @param snapshotMaxAgeMillis Longest a snapshot is served after the graph changed, once it is loaded.
+	 */
+	public ActorMovieGraph(long snapshotMaxAgeMillis) {
+		this.snapshotMaxAgeNanos = TimeUnit.MILLISECONDS.toNanos(snapshotMaxAgeMillis);
+	}
+
+	/**
+	 * Streams every actor, movie and ACTED_IN relationship from Neo4j into this graph.
+	 *
+	 * @param driver The Neo4j driver.
+	 */
+	public void load(Driver driver) {
+		long start = System.currentTimeMillis();
+		try (Session session = driver.session(AccessMode.READ)) {
+			StatementResult actors = session.run(LOAD_ACTORS_QUERY);
+			while (actors.hasNext()) {
+				Record record = actors.next();
+				addActor(record.get("actorId").asString(), record.get("name").asString(null));
+			}
+
+			StatementResult movies = session.run(LOAD_MOVIES_QUERY);
+			while (movies.hasNext()) {
+				Record record = movies.next();
+				addMovie(record.get("movieId").asString(), record.get("name").asString(null));
+			}
+
+			StatementResult relationships = session.run(LOAD_RELATIONSHIPS_QUERY);
+			while (relationships.hasNext()) {
+				Record record = relationships.next();
+				addRelationship(record.get("actorId").asString(), record.get("movieId").asString());
+			}
+		}
+		// Drop any snapshot of the partial graph; no rebuild can be running while the write lock is held
+		lock.writeLock().lock();
+		try {
+			snapshot = null;
+			loaded = true;
+		} finally {
+			lock.writeLock().unlock();
+		}
+		logger.info(String.format("Loaded graph with %d actors, %d movies and %d relationships in %d ms",
+				getActorCount(), getMovieCount(), getEdgeCount(), System.currentTimeMillis() - start));
+	}
+
+	/**
+	 * Applies a journal event to the graph.
+	 *
+	 * @param event The event.
+	 */
+	@Override
+	public void onEvent(JournalEvent event) {
+		switch (event.getType()) {
+			case ADD_ACTOR:
+				addActor(event.getActorId(), event.getName());
+				break;
+			case ADD_MOVIE:
+				addMovie(event.getMovieId(), event.getName());
+				break;
+			case ADD_RELATIONSHIP:
+				addRelationship(event.getActorId(), event.getMovieId());
+				break;
+			default:
+				break;
+		}
+	}
+
+	/**
+	 * Adds an actor if it is not present yet.
+	 *
+	 * @param actorId The actor id.
+	 * @param name    The actor's name.
+	 * @return The actor's index.
+	 */
+	public int addActor(String actorId, String name) {
+		lock.writeLock().lock();
+		try {
+			Integer existing = actorIndex.get(actorId);
+			if (existing != null) {
+				return existing;
+			}
+			int index = actorIds.size();
+			actorIndex.put(actorId, index);
+			actorIds.add(actorId);
+			actorNames.add(name);
+			actorMovies.add(new IntArrayList(2));
+			version++;
+			return index;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Adds a movie if it is not present yet.
+	 *
+	 * @param movieId The movie id.
+	 * @param name    The movie's name.
+	 * @return The movie's index.
+	 */
+	public int addMovie(String movieId, String name) {
+		lock.writeLock().lock();
+		try {
+			Integer existing = movieIndex.get(movieId);
+			if (existing != null) {
+				return existing;
+			}
+			int index = movieIds.size();
+			movieIndex.put(movieId, index);
+			movieIds.add(movieId);
+			movieNames.add(name);
+			movieActors.add(new IntArrayList(4));
+			version++;
+			return index;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Adds an ACTED_IN edge between an existing actor and movie.
+	 *
+	 * @param actorId The actor id.
+	 * @param movieId The movie id.
+	 * @return false if either endpoint is unknown or the edge already exists.
+	 */
+	public boolean addRelationship(String actorId, String movieId) {
+		lock.writeLock().lock();
+		try {
+			Integer actor = actorIndex.get(actorId);
+			Integer movie = movieIndex.get(movieId);
+			if (actor == null || movie == null) {
+				logger.warning("Ignoring relationship with unknown endpoint: " + actorId + " -> " + movieId);
+				return false;
+			}
+			if (!edges.add(edgeKey(actor, movie))) {
+				return false;
+			}
+			actorMovies.get(actor).add(movie);
+			movieActors.get(movie).add(actor);
+			edgeCount++;
+			version++;
+			return true;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * @param actorId The actor id.
+	 * @param movieId The movie id.
+	 * @return Whether the actor acted in the movie; false if either is unknown.
+	 */
+	public boolean hasRelationship(String actorId, String movieId) {
+		lock.readLock().lock();
+		try {
+			Integer actor = actorIndex.get(actorId);
+			Integer movie = movieIndex.get(movieId);
+			return actor != null && movie != null && edges.contains(edgeKey(actor, movie));
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Packs an edge into a long: the actor's index in the high half, the movie's in the low half.
+	 */
+	private static long edgeKey(int actor, int movie) {
+		return (long) actor << 32 | movie;
+	}
+
+	/**
+	 * @param actorId The actor id.
+	 * @return The actor's index, or -1 if unknown.
+	 */
+	public int actorIndexOf(String actorId) {
+		lock.readLock().lock();
+		try {
+			Integer index = actorIndex.get(actorId);
+			return index == null ? -1 : index;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @param movieId The movie id.
+	 * @return The movie's index, or -1 if unknown.
+	 */
+	public int movieIndexOf(String movieId) {
+		lock.readLock().lock();
+		try {
+			Integer index = movieIndex.get(movieId);
+			return index == null ? -1 : index;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	public String actorId(int index) {
+		lock.readLock().lock();
+		try {
+			return actorIds.get(index);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	public String actorName(int index) {
+		lock.readLock().lock();
+		try {
+			return actorNames.get(index);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	public String movieId(int index) {
+		lock.readLock().lock();
+		try {
+			return movieIds.get(index);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	public String movieName(int index) {
+		lock.readLock().lock();
+		try {
+			return movieNames.get(index);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	public int getActorCount() {
+		lock.readLock().lock();
+		try {
+			return actorIds.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	public int getMovieCount() {
+		lock.readLock().lock();
+		try {
+			return movieIds.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	public int getEdgeCount() {
+		lock.readLock().lock();
+		try {
+			return edgeCount;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @return Whether the graph has been fully loaded from Neo4j and can answer queries in place of Cypher.
+	 */
+	public boolean isLoaded() {
+		return loaded;
+	}
+
+	/**
+	 * @return A counter that changes whenever the graph does.
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * Returns an immutable CSR snapshot of the graph, rebuilding it if the graph changed since it was taken and, once
+	 * the graph is loaded, it is older than the maximum age.
+	 *
+	 * @return The snapshot.
+	 */
+	public GraphSnapshot snapshot() {
+		GraphSnapshot current = snapshot;
+		if (current != null && isUsable(current)) {
+			return current;
+		}
+
+		lock.readLock().lock();
+		try {
+			current = snapshot;
+			if (current != null && isUsable(current)) {
+				return current;
+			}
+			current = new GraphSnapshot(version, System.nanoTime(), actorIds.size(), movieIds.size(),
+					offsets(actorMovies), flatten(actorMovies, edgeCount),
+					offsets(movieActors), flatten(movieActors, edgeCount));
+			snapshot = current;
+			return current;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private boolean isUsable(GraphSnapshot current) {
+		return current.getVersion() == version
+				|| (loaded && System.nanoTime() - current.getTakenNanos() < snapshotMaxAgeNanos);
+	}
+
+	private static int[] offsets(List<IntArrayList> adjacency) {
+		int[] offsets = new int[adjacency.size() + 1];
+		for (int i = 0; i < adjacency.size(); i++) {
+			offsets[i + 1] = offsets[i] + adjacency.get(i).size();
+		}
+		return offsets;
+	}
+
+	private static int[] flatten(List<IntArrayList> adjacency, int edges) {
+		int[] flat = new int[edges];
+		int offset = 0;
+		for (IntArrayList neighbours : adjacency) {
+			neighbours.copyTo(flat, offset);
+			offset += neighbours.size();
+		}
+		return flat;
+	}
+}
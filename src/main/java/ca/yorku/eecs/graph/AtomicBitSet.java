@@ -0,0 +1,69 @@
+package ca.yorku.eecs.graph;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-size bitset whose bits can be claimed concurrently.
+ * <p>
+ * Bits are packed 64 to a word. {@link #claim(int)} sets a bit with compare-and-set and reports whether the caller
+ * was the one that set it, which is how parallel traversals decide which thread owns a newly reached vertex.
+ * </p>
+ */
+final class AtomicBitSet {
+
+	private final AtomicLongArray words;
+
+	private final int size;
+
+	AtomicBitSet(int size) {
+		this.size = size;
+		this.words = new AtomicLongArray(wordCount(size));
+	}
+
+	/**
+	 * @param bits Number of bits.
+	 * @return Number of 64-bit words needed to hold them.
+	 */
+	static int wordCount(int bits) {
+		return (bits + 63) >>> 6;
+	}
+
+	boolean get(int index) {
+		return (words.get(index >>> 6) & (1L << index)) != 0;
+	}
+
+	/**
+	 * Sets a bit.
+	 *
+	 * @param index The bit.
+	 * @return true if this call set the bit, false if it was already set.
+	 */
+	boolean claim(int index) {
+		int word = index >>> 6;
+		long mask = 1L << index;
+		while (true) {
+			long current = words.get(word);
+			if ((current & mask) != 0) {
+				return false;
+			}
+			if (words.compareAndSet(word, current, current | mask)) {
+				return true;
+			}
+		}
+	}
+
+	long word(int word) {
+		return words.get(word);
+	}
+
+	/**
+	 * Replaces a whole word. Only safe when the caller is the sole writer of that word.
+	 */
+	void setWord(int word, long value) {
+		words.set(word, value);
+	}
+
+	int size() {
+		return size;
+	}
+}
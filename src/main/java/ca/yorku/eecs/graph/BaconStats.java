@@ -0,0 +1,68 @@
+package ca.yorku.eecs.graph;
+
+/**
+ * Distribution of Bacon numbers across all actors at one graph version.
+ */
+public class BaconStats {
+
+	private final long graphVersion;
+
+	private final int actorCount;
+
+	private final long[] histogram;
+
+	private final long unreachable;
+
+	private final double averageBaconNumber;
+
+	private final long computeMillis;
+
+	BaconStats(long graphVersion, int actorCount, long[] histogram, long unreachable, double averageBaconNumber,
+			   long computeMillis) {
+		this.graphVersion = graphVersion;
+		this.actorCount = actorCount;
+		this.histogram = histogram;
+		this.unreachable = unreachable;
+		this.averageBaconNumber = averageBaconNumber;
+		this.computeMillis = computeMillis;
+	}
+
+	/**
+	 * @return The graph version the statistics were computed at.
+	 */
+	public long getGraphVersion() {
+		return graphVersion;
+	}
+
+	public int getActorCount() {
+		return actorCount;
+	}
+
+	/**
+	 * @return Number of actors per Bacon number; index 0 is Kevin Bacon himself.
+	 */
+	public long[] getHistogram() {
+		return histogram.clone();
+	}
+
+	/**
+	 * @return Number of actors with no path to Kevin Bacon.
+	 */
+	public long getUnreachable() {
+		return unreachable;
+	}
+
+	/**
+	 * @return Average Bacon number over the reachable actors other than Kevin Bacon, or 0 if there are none.
+	 */
+	public double getAverageBaconNumber() {
+		return averageBaconNumber;
+	}
+
+	/**
+	 * @return Time taken to compute the statistics.
+	 */
+	public long getComputeMillis() {
+		return computeMillis;
+	}
+}
@@ -0,0 +1,94 @@
+package ca.yorku.eecs.graph;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.logging.Logger;
+
+/**
+ * Computes {@link BaconStats} with a parallel BFS over the in-memory graph and caches the result.
+ * <p>
+ * The cached statistics are tagged with the graph version they were computed at, so any write to the graph
+ * (in particular a new ACTED_IN relationship) invalidates them. Concurrent requests after an invalidation share a
+ * single recomputation.
+ * </p>
+ */
+public class BaconStatsCache {
+
+	private static final Logger logger = Logger.getLogger(BaconStatsCache.class.getName());
+
+	private final ActorMovieGraph graph;
+
+	private final String centerActorId;
+
+	private final DirectionOptimizingBfs bfs;
+
+	private volatile BaconStats cached;
+
+	/**
+	 * Creates a cache computing statistics on the common fork-join pool.
+	 *
+	 * @param graph         The in-memory graph.
+	 * @param centerActorId The actorId of Kevin Bacon.
+	 */
+	public BaconStatsCache(ActorMovieGraph graph, String centerActorId) {
+		this(graph, centerActorId, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Creates a cache computing statistics on the given pool.
+	 *
+	 * @param graph         The in-memory graph.
+	 * @param centerActorId The actorId of Kevin Bacon.
+	 * @param pool          The fork-join pool the BFS runs on.
+	 */
+	public BaconStatsCache(ActorMovieGraph graph, String centerActorId, ForkJoinPool pool) {
+		this.graph = graph;
+		this.centerActorId = centerActorId;
+		this.bfs = new DirectionOptimizingBfs(pool);
+	}
+
+	/**
+	 * Returns the statistics for the graph's snapshot, computing them if the snapshot changed.
+	 *
+	 * @return The statistics, or null if Kevin Bacon is not in the graph.
+	 */
+	public BaconStats get() {
+		BaconStats current = cached;
+		if (current != null && current.getGraphVersion() == graph.snapshot().getVersion()) {
+			return current;
+		}
+
+		synchronized (this) {
+			current = cached;
+			if (current != null && current.getGraphVersion() == graph.snapshot().getVersion()) {
+				return current;
+			}
+			current = compute();
+			cached = current;
+			return current;
+		}
+	}
+
+	private BaconStats compute() {
+		long start = System.currentTimeMillis();
+		int center = graph.actorIndexOf(centerActorId);
+		GraphSnapshot snapshot = graph.snapshot();
+		if (center < 0 || center >= snapshot.getActorCount()) {
+			return null;
+		}
+
+		long[] histogram = bfs.search(snapshot, center).histogram();
+
+		long reachable = 0;
+		long total = 0;
+		for (int distance = 1; distance < histogram.length; distance++) {
+			reachable += histogram[distance];
+			total += distance * histogram[distance];
+		}
+		long unreachable = snapshot.getActorCount() - reachable - 1;
+		double average = reachable == 0 ? 0 : (double) total / reachable;
+
+		long elapsed = System.currentTimeMillis() - start;
+		logger.info(String.format("Computed Bacon statistics for %d actors in %d ms", snapshot.getActorCount(), elapsed));
+		return new BaconStats(snapshot.getVersion(), snapshot.getActorCount(), histogram, unreachable, average, elapsed);
+	}
+}
@@ -0,0 +1,139 @@
+package ca.yorku.eecs.graph;
+
+/**
+ * Distances and BFS tree produced by {@link DirectionOptimizingBfs}.
+ * <p>
+ * Distances are measured in actor hops, so an actor's distance from the source is its Bacon number when the source is
+ * Kevin Bacon. Indexes are those of the {@link GraphSnapshot} that was searched.
+ * </p>
+ */
+public final class BfsResult {
+
+	private final int source;
+
+	/**
+	 * Bipartite depth of each actor (twice its distance), or -1 if not reached.
+	 */
+	private final int[] actorDepth;
+
+	/**
+	 * Movie through which each actor was reached, or -1.
+	 */
+	private final int[] actorParent;
+
+	/**
+	 * Actor through which each movie was reached, or -1.
+	 */
+	private final int[] movieParent;
+
+	private final int steps;
+
+	private final int bottomUpSteps;
+
+	BfsResult(int source, int[] actorDepth, int[] actorParent, int[] movieParent, int steps, int bottomUpSteps) {
+		this.source = source;
+		this.actorDepth = actorDepth;
+		this.actorParent = actorParent;
+		this.movieParent = movieParent;
+		this.steps = steps;
+		this.bottomUpSteps = bottomUpSteps;
+	}
+
+	/**
+	 * @return Index of the source actor.
+	 */
+	public int getSource() {
+		return source;
+	}
+
+	/**
+	 * @param actor Index of an actor.
+	 * @return The actor's distance from the source, or -1 if it was not reached.
+	 */
+	public int distance(int actor) {
+		int depth = actorDepth[actor];
+		return depth < 0 ? -1 : depth >>> 1;
+	}
+
+	/**
+	 * @return Distances indexed by actor; -1 for actors that were not reached.
+	 */
+	public int[] distances() {
+		int[] distances = new int[actorDepth.length];
+		for (int i = 0; i < distances.length; i++) {
+			distances[i] = distance(i);
+		}
+		return distances;
+	}
+
+	/**
+	 * Walks the BFS tree from an actor back to the source.
+	 *
+	 * @param actor Index of an actor.
+	 * @return Alternating actor and movie indexes, starting with {@code actor} and ending with the source, or null if
+	 * the actor was not reached.
+	 */
+	public int[] pathFrom(int actor) {
+		int distance = distance(actor);
+		if (distance < 0) {
+			return null;
+		}
+		int[] path = new int[2 * distance + 1];
+		int current = actor;
+		for (int i = 0; i < path.length; i += 2) {
+			path[i] = current;
+			if (i + 1 < path.length) {
+				int movie = actorParent[current];
+				path[i + 1] = movie;
+				current = movieParent[movie];
+			}
+		}
+		return path;
+	}
+
+	/**
+	 * @return Counts of reached actors indexed by distance.
+	 */
+	public long[] histogram() {
+		int max = -1;
+		for (int depth : actorDepth) {
+			max = Math.max(max, depth);
+		}
+		max = max < 0 ? -1 : max >>> 1;
+		long[] histogram = new long[max + 1];
+		for (int depth : actorDepth) {
+			if (depth >= 0) {
+				histogram[depth >>> 1]++;
+			}
+		}
+		return histogram;
+	}
+
+	/**
+	 * @return The movie through which each actor was reached, or -1.
+	 */
+	int[] actorParents() {
+		return actorParent;
+	}
+
+	/**
+	 * @return The actor through which each movie was reached, or -1.
+	 */
+	int[] movieParents() {
+		return movieParent;
+	}
+
+	/**
+	 * @return Number of frontier expansions performed.
+	 */
+	public int getSteps() {
+		return steps;
+	}
+
+	/**
+	 * @return Number of those expansions that ran bottom-up.
+	 */
+	public int getBottomUpSteps() {
+		return bottomUpSteps;
+	}
+}
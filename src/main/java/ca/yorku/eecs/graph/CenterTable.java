@@ -0,0 +1,105 @@
+package ca.yorku.eecs.graph;
+
+/**
+ * Precomputed BFS tree of one center actor: every actor's distance to the center and the parent pointers needed to
+ * rebuild a shortest path.
+ * <p>
+ * Distances are stored one byte per actor. Distances of {@link #FAR} or more are stored as {@code FAR} and recovered
+ * by walking the parent chain, which in practice never happens on a movie graph. A table stays valid until a
+ * relationship is added; new actors or movies without relationships cannot change any distance, and actors added after
+ * the table was built are simply unreachable from it.
+ * </p>
+ */
+public final class CenterTable {
+
+	/**
+	 * Stored in place of distances too large for a byte.
+	 */
+	private static final byte FAR = Byte.MAX_VALUE;
+
+	private final int center;
+
+	/**
+	 * Number of relationships in the graph the table was built from.
+	 */
+	private final int edgeCount;
+
+	private final byte[] distances;
+
+	private final int[] actorParent;
+
+	private final int[] movieParent;
+
+	CenterTable(int center, int edgeCount, BfsResult result) {
+		this.center = center;
+		this.edgeCount = edgeCount;
+		this.actorParent = result.actorParents();
+		this.movieParent = result.movieParents();
+		this.distances = new byte[actorParent.length];
+		for (int actor = 0; actor < distances.length; actor++) {
+			distances[actor] = (byte) Math.min(result.distance(actor), FAR);
+		}
+	}
+
+	/**
+	 * @return Index of the center actor.
+	 */
+	public int getCenter() {
+		return center;
+	}
+
+	int getEdgeCount() {
+		return edgeCount;
+	}
+
+	/**
+	 * @param actor Index of an actor.
+	 * @return The actor's distance to the center, or -1 if there is no path.
+	 */
+	public int distance(int actor) {
+		if (actor >= distances.length) {
+			return -1;
+		}
+		byte distance = distances[actor];
+		if (distance != FAR) {
+			return distance;
+		}
+		int hops = 0;
+		for (int current = actor; current != center; current = movieParent[actorParent[current]]) {
+			hops++;
+		}
+		return hops;
+	}
+
+	/**
+	 * Walks the BFS tree from an actor to the center.
+	 *
+	 * @param actor Index of an actor.
+	 * @return Alternating actor and movie indexes, starting with {@code actor} and ending with the center, or null if
+	 * there is no path.
+	 */
+	public int[] pathFrom(int actor) {
+		int distance = distance(actor);
+		if (distance < 0) {
+			return null;
+		}
+		int[] path = new int[2 * distance + 1];
+		int current = actor;
+		for (int i = 0; i < path.length; i += 2) {
+			path[i] = current;
+			if (i + 1 < path.length) {
+				int movie = actorParent[current];
+				path[i + 1] = movie;
+				current = movieParent[movie];
+			}
+		}
+		return path;
+	}
+
+	/**
+	 * @return Approximate heap footprint of the table.
+	 */
+	public long sizeInBytes() {
+		return 64L + distances.length + 4L * actorParent.length + 4L * movieParent.length;
+	}
+}
@@ -0,0 +1,169 @@
+package ca.yorku.eecs.graph;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.logging.Logger;
+
+/**
+ * Least-recently-used cache of {@link CenterTable}s, bounded by a memory budget rather than an entry count.
+ * <p>
+ * A lookup for a popular center is a hash-map hit followed by array reads. A missing or outdated table is built on
+ * demand with a parallel BFS; concurrent requests for the same center share one build. After each insert the least
+ * recently used tables are evicted until the total footprint fits the budget again, but the table just built is never
+ * evicted, so a single center larger than the budget still works (it is just not kept alongside others).
+ * </p>
+ */
+public class CenterTableCache {
+
+	private static final Logger logger = Logger.getLogger(CenterTableCache.class.getName());
+
+	private final ActorMovieGraph graph;
+
+	private final DirectionOptimizingBfs bfs;
+
+	private final long maxBytes;
+
+	/**
+	 * Tables keyed by center index, in access order. Guarded by {@code this}.
+	 */
+	private final LinkedHashMap<Integer, CenterTable> tables = new LinkedHashMap<>(16, 0.75f, true);
+
+	/**
+	 * Builds in progress, so concurrent misses on one center share a single BFS.
+	 */
+	private final ConcurrentHashMap<Integer, CompletableFuture<CenterTable>> building = new ConcurrentHashMap<>();
+
+	private long bytesUsed;
+
+	private long hits;
+
+	private long misses;
+
+	private long evictions;
+
+	/**
+	 * Creates a cache building tables on the common fork-join pool.
+	 *
+	 * @param graph    The in-memory graph.
+	 * @param maxBytes The memory budget for all cached tables.
+	 */
+	public CenterTableCache(ActorMovieGraph graph, long maxBytes) {
+		this(graph, ForkJoinPool.commonPool(), maxBytes);
+	}
+
+	/**
+	 * Creates a cache building tables on the given pool.
+	 *
+	 * @param graph    The in-memory graph.
+	 * @param pool     The fork-join pool the BFS runs on.
+	 * @param maxBytes The memory budget for all cached tables.
+	 */
+	public CenterTableCache(ActorMovieGraph graph, ForkJoinPool pool, long maxBytes) {
+		this.graph = graph;
+		this.bfs = new DirectionOptimizingBfs(pool);
+		this.maxBytes = maxBytes;
+	}
+
+	/**
+	 * Returns the table of a center, building it if it is not cached or the graph's snapshot has gained a relationship
+	 * since it was built.
+	 *
+	 * @param centerId The center's actorId.
+	 * @return The table, or null if the center is not in the graph's snapshot.
+	 */
+	public CenterTable get(String centerId) {
+		int center = graph.actorIndexOf(centerId);
+		GraphSnapshot snapshot = graph.snapshot();
+		if (center < 0 || center >= snapshot.getActorCount()) {
+			return null;
+		}
+		// Compared with the snapshot rather than the live graph, which runs ahead of it between rebuilds
+		int edgeCount = snapshot.getEdgeCount();
+		synchronized (this) {
+			CenterTable table = tables.get(center);
+			if (table != null && table.getEdgeCount() == edgeCount) {
+				hits++;
+				return table;
+			}
+			misses++;
+		}
+
+		CompletableFuture<CenterTable> build = new CompletableFuture<>();
+		CompletableFuture<CenterTable> existing = building.putIfAbsent(center, build);
+		if (existing != null) {
+			return existing.join();
+		}
+		try {
+			CenterTable table = build(snapshot, center);
+			build.complete(table);
+			return table;
+		} catch (RuntimeException e) {
+			build.completeExceptionally(e);
+			throw e;
+		} finally {
+			building.remove(center, build);
+		}
+	}
+
+	private CenterTable build(GraphSnapshot snapshot, int center) {
+		long start = System.currentTimeMillis();
+		CenterTable table = new CenterTable(center, snapshot.getEdgeCount(), bfs.search(snapshot, center));
+
+		synchronized (this) {
+			CenterTable previous = tables.put(center, table);
+			if (previous != null) {
+				bytesUsed -= previous.sizeInBytes();
+			}
+			bytesUsed += table.sizeInBytes();
+
+			Iterator<Map.Entry<Integer, CenterTable>> eldest = tables.entrySet().iterator();
+			while (bytesUsed > maxBytes && eldest.hasNext()) {
+				Map.Entry<Integer, CenterTable> entry = eldest.next();
+				if (entry.getValue() == table) {
+					continue;
+				}
+				bytesUsed -= entry.getValue().sizeInBytes();
+				eldest.remove();
+				evictions++;
+			}
+		}
+		logger.info(String.format("Built distance table for center %s (%d bytes) in %d ms",
+				graph.actorId(center), table.sizeInBytes(), System.currentTimeMillis() - start));
+		return table;
+	}
+
+	/**
+	 * @return The in-memory graph the tables are built from.
+	 */
+	public ActorMovieGraph getGraph() {
+		return graph;
+	}
+
+	public long getMaxBytes() {
+		return maxBytes;
+	}
+
+	public synchronized long getBytesUsed() {
+		return bytesUsed;
+	}
+
+	public synchronized int size() {
+		return tables.size();
+	}
+
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+}
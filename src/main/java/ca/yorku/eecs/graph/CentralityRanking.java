@@ -0,0 +1,57 @@
+package ca.yorku.eecs.graph;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The top actors by closeness centrality at one graph version, as computed by {@link ClosenessCentralityJob}.
+ */
+public class CentralityRanking {
+
+	private final long graphVersion;
+
+	private final int sources;
+
+	private final boolean exact;
+
+	private final long computeMillis;
+
+	private final List<CentralityScore> centers;
+
+	CentralityRanking(long graphVersion, int sources, boolean exact, long computeMillis, List<CentralityScore> centers) {
+		this.graphVersion = graphVersion;
+		this.sources = sources;
+		this.exact = exact;
+		this.computeMillis = computeMillis;
+		this.centers = Collections.unmodifiableList(centers);
+	}
+
+	public long getGraphVersion() {
+		return graphVersion;
+	}
+
+	/**
+	 * @return Number of actors a BFS was run from.
+	 */
+	public int getSources() {
+		return sources;
+	}
+
+	/**
+	 * @return Whether every actor was a source, as opposed to a random sample.
+	 */
+	public boolean isExact() {
+		return exact;
+	}
+
+	public long getComputeMillis() {
+		return computeMillis;
+	}
+
+	/**
+	 * @return The top actors, most central first.
+	 */
+	public List<CentralityScore> getCenters() {
+		return centers;
+	}
+}
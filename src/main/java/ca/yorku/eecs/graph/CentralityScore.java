@@ -0,0 +1,55 @@
+package ca.yorku.eecs.graph;
+
+/**
+ * Closeness of one actor to the rest of the graph.
+ */
+public class CentralityScore {
+
+	private final String actorId;
+
+	private final String name;
+
+	private final double closeness;
+
+	private final double averageDistance;
+
+	private final int reached;
+
+	CentralityScore(String actorId, String name, double closeness, double averageDistance, int reached) {
+		this.actorId = actorId;
+		this.name = name;
+		this.closeness = closeness;
+		this.averageDistance = averageDistance;
+		this.reached = reached;
+	}
+
+	public String getActorId() {
+		return actorId;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return Closeness scaled by the fraction of sources that reach the actor, so actors in small components do not
+	 * outrank well-connected ones.
+	 */
+	public double getCloseness() {
+		return closeness;
+	}
+
+	/**
+	 * @return Mean distance, in actor hops, from the sources that reach the actor.
+	 */
+	public double getAverageDistance() {
+		return averageDistance;
+	}
+
+	/**
+	 * @return Number of BFS sources that reached the actor.
+	 */
+	public int getReached() {
+		return reached;
+	}
+}
@@ -0,0 +1,282 @@
+package ca.yorku.eecs.graph;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Background job ranking actors by closeness centrality, i.e. by how short their average distance to every other
+ * actor is.
+ * <p>
+ * The job runs one single-threaded BFS per source actor and spreads the sources across the workers of a fork-join
+ * pool. Since the graph is undirected, a BFS from source {@code s} gives {@code d(s, v)} for every actor {@code v},
+ * so each worker accumulates per-actor distance sums and reach counts. When every actor is a source the result is
+ * exact; on large graphs a fixed-size random sample of sources is used instead, which estimates every actor's average
+ * distance from the same number of searches.
+ * </p>
+ * <p>
+ * Scores use the Wasserman-Faust form {@code (r / (S - 1)) * (r / sum)}, where {@code r} is the number of sources
+ * reaching the actor, so actors in small disconnected components are not ranked as central. Only the top-K are kept.
+ * Once started, the job recomputes whenever the graph version has changed since the last ranking.
+ * </p>
+ */
+public class ClosenessCentralityJob implements Closeable {
+
+	private static final Logger logger = Logger.getLogger(ClosenessCentralityJob.class.getName());
+
+	private final ActorMovieGraph graph;
+
+	private final ForkJoinPool pool;
+
+	private final int sampleSize;
+
+	private final int topK;
+
+	/**
+	 * Sequential kernel; the parallelism comes from running many searches at once.
+	 */
+	private final DirectionOptimizingBfs bfs = new DirectionOptimizingBfs(null);
+
+	private final AtomicInteger completedSources = new AtomicInteger();
+
+	private volatile int totalSources;
+
+	private volatile boolean running;
+
+	private volatile CentralityRanking ranking;
+
+	private volatile boolean closed;
+
+	private volatile Thread thread;
+
+	/**
+	 * Creates the job.
+	 *
+	 * @param graph      The in-memory graph.
+	 * @param pool       The pool the searches run on.
+	 * @param sampleSize Number of source actors to sample, or 0 to use every actor.
+	 * @param topK       Number of top actors to keep.
+	 */
+	public ClosenessCentralityJob(ActorMovieGraph graph, ForkJoinPool pool, int sampleSize, int topK) {
+		this.graph = graph;
+		this.pool = pool;
+		this.sampleSize = sampleSize;
+		this.topK = topK;
+	}
+
+	/**
+	 * Starts a daemon thread that recomputes the ranking whenever the loaded graph has changed, checking at most once
+	 * per interval.
+	 *
+	 * @param intervalMillis Time between checks.
+	 */
+	public synchronized void start(long intervalMillis) {
+		if (thread != null) {
+			return;
+		}
+		thread = new Thread(() -> {
+			while (!closed) {
+				try {
+					CentralityRanking current = ranking;
+					if (graph.isLoaded() && (current == null || current.getGraphVersion() != graph.snapshot().getVersion())) {
+						compute();
+					}
+				} catch (Exception e) {
+					logger.log(Level.SEVERE, "Error while ranking actors by closeness: " + e.getMessage(), e);
+				}
+				try {
+					Thread.sleep(intervalMillis);
+				} catch (InterruptedException e) {
+					return;
+				}
+			}
+		}, "closeness-centrality");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Computes and stores a ranking for the current graph. Concurrent calls run one after the other.
+	 *
+	 * @return The new ranking, or the previous one if the job was closed meanwhile.
+	 */
+	public synchronized CentralityRanking compute() {
+		long start = System.currentTimeMillis();
+		GraphSnapshot snapshot = graph.snapshot();
+		int actors = snapshot.getActorCount();
+		int[] sources = chooseSources(snapshot);
+		boolean exact = sources.length == actors;
+
+		completedSources.set(0);
+		totalSources = sources.length;
+		running = true;
+		long[] distanceSums = new long[actors];
+		int[] reachCounts = new int[actors];
+		try {
+			// One contiguous chunk of sources per worker; each search costs about the same, so static chunks balance
+			int chunks = Math.max(1, Math.min(sources.length, pool.getParallelism()));
+			List<ForkJoinTask<Accumulator>> tasks = new ArrayList<>();
+			for (int c = 0; c < chunks; c++) {
+				int from = (int) ((long) sources.length * c / chunks);
+				int to = (int) ((long) sources.length * (c + 1) / chunks);
+				tasks.add(pool.submit(() -> accumulate(snapshot, sources, from, to)));
+			}
+			for (ForkJoinTask<Accumulator> task : tasks) {
+				Accumulator accumulator = task.join();
+				for (int v = 0; v < actors; v++) {
+					distanceSums[v] += accumulator.distanceSums[v];
+					reachCounts[v] += accumulator.reachCounts[v];
+				}
+			}
+		} finally {
+			running = false;
+		}
+		if (closed) {
+			return ranking;
+		}
+
+		boolean[] isSource = new boolean[actors];
+		for (int source : sources) {
+			isSource[source] = true;
+		}
+		List<CentralityScore> centers = topCenters(snapshot, sources.length, isSource, distanceSums, reachCounts);
+
+		long elapsed = System.currentTimeMillis() - start;
+		CentralityRanking result = new CentralityRanking(snapshot.getVersion(), sources.length, exact, elapsed, centers);
+		ranking = result;
+		logger.info(String.format("Ranked %d actors by closeness from %d %s sources in %d ms",
+				actors, sources.length, exact ? "exact" : "sampled", elapsed));
+		return result;
+	}
+
+	/**
+	 * Every actor, or a random sample seeded by the graph version so a ranking is reproducible.
+	 */
+	private int[] chooseSources(GraphSnapshot snapshot) {
+		int actors = snapshot.getActorCount();
+		int[] all = new int[actors];
+		for (int i = 0; i < actors; i++) {
+			all[i] = i;
+		}
+		if (sampleSize <= 0 || sampleSize >= actors) {
+			return all;
+		}
+		// Partial Fisher-Yates shuffle
+		Random random = new Random(snapshot.getVersion());
+		for (int i = 0; i < sampleSize; i++) {
+			int j = i + random.nextInt(actors - i);
+			int swap = all[i];
+			all[i] = all[j];
+			all[j] = swap;
+		}
+		int[] sample = new int[sampleSize];
+		System.arraycopy(all, 0, sample, 0, sampleSize);
+		return sample;
+	}
+
+	private Accumulator accumulate(GraphSnapshot snapshot, int[] sources, int from, int to) {
+		Accumulator accumulator = new Accumulator(snapshot.getActorCount());
+		for (int i = from; i < to && !closed; i++) {
+			BfsResult result = bfs.search(snapshot, sources[i]);
+			for (int v = 0; v < accumulator.distanceSums.length; v++) {
+				int distance = result.distance(v);
+				if (distance > 0) {
+					accumulator.distanceSums[v] += distance;
+					accumulator.reachCounts[v]++;
+				}
+			}
+			completedSources.incrementAndGet();
+		}
+		return accumulator;
+	}
+
+	private List<CentralityScore> topCenters(GraphSnapshot snapshot, int sourceCount, boolean[] isSource,
+											  long[] distanceSums, int[] reachCounts) {
+		double[] scores = new double[snapshot.getActorCount()];
+		PriorityQueue<Integer> heap = new PriorityQueue<>((a, b) -> Double.compare(scores[a], scores[b]));
+		for (int v = 0; v < scores.length; v++) {
+			int possible = sourceCount - (isSource[v] ? 1 : 0);
+			if (reachCounts[v] == 0 || possible <= 0) {
+				continue;
+			}
+			scores[v] = ((double) reachCounts[v] / possible) * ((double) reachCounts[v] / distanceSums[v]);
+			if (heap.size() < topK) {
+				heap.add(v);
+			} else if (scores[v] > scores[heap.peek()]) {
+				heap.poll();
+				heap.add(v);
+			}
+		}
+
+		List<CentralityScore> centers = new ArrayList<>(heap.size());
+		while (!heap.isEmpty()) {
+			int v = heap.poll();
+			centers.add(new CentralityScore(graph.actorId(v), graph.actorName(v), scores[v],
+					(double) distanceSums[v] / reachCounts[v], reachCounts[v]));
+		}
+		Collections.reverse(centers);
+		return centers;
+	}
+
+	/**
+	 * @return The latest ranking, or null if none has been computed yet.
+	 */
+	public CentralityRanking getRanking() {
+		return ranking;
+	}
+
+	/**
+	 * @return Whether a computation is in progress.
+	 */
+	public boolean isRunning() {
+		return running;
+	}
+
+	/**
+	 * @return Fraction of the current (or last) computation's searches that have completed.
+	 */
+	public double getProgress() {
+		int total = totalSources;
+		return total == 0 ? 0 : (double) completedSources.get() / total;
+	}
+
+	/**
+	 * @return Number of actors kept in each ranking.
+	 */
+	public int getTopK() {
+		return topK;
+	}
+
+	/**
+	 * Stops the background thread, abandoning any computation in progress.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		Thread current = thread;
+		if (current != null) {
+			current.interrupt();
+		}
+	}
+
+	/**
+	 * Per-worker distance sums and reach counts.
+	 */
+	private static final class Accumulator {
+		private final long[] distanceSums;
+		private final int[] reachCounts;
+
+		Accumulator(int actors) {
+			this.distanceSums = new long[actors];
+			this.reachCounts = new int[actors];
+		}
+	}
+}
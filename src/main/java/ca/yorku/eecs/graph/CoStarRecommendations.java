@@ -0,0 +1,64 @@
+package ca.yorku.eecs.graph;
+
+/**
+ * Co-star recommendations for one actor, as actor indexes ranked best first.
+ * <p>
+ * {@link #getCoStars()} are the actors who share the most movies with the actor, with the shared counts in
+ * {@link #getSharedMovies()}. {@link #getTwoHop()} are actors the actor has never worked with, ranked by how many
+ * co-stars they have in common, with the counts in {@link #getCommonCoStars()}.
+ * </p>
+ */
+public final class CoStarRecommendations {
+
+	private final int actor;
+
+	/**
+	 * Number of relationships in the graph the recommendations were computed from.
+	 */
+	private final int edgeCount;
+
+	private final int[] coStars;
+
+	private final int[] sharedMovies;
+
+	private final int[] twoHop;
+
+	private final int[] commonCoStars;
+
+	CoStarRecommendations(int actor, int edgeCount, int[] coStars, int[] sharedMovies, int[] twoHop,
+						  int[] commonCoStars) {
+		this.actor = actor;
+		this.edgeCount = edgeCount;
+		this.coStars = coStars;
+		this.sharedMovies = sharedMovies;
+		this.twoHop = twoHop;
+		this.commonCoStars = commonCoStars;
+	}
+
+	/**
+	 * @return Index of the actor the recommendations are for.
+	 */
+	public int getActor() {
+		return actor;
+	}
+
+	int getEdgeCount() {
+		return edgeCount;
+	}
+
+	public int[] getCoStars() {
+		return coStars;
+	}
+
+	public int[] getSharedMovies() {
+		return sharedMovies;
+	}
+
+	public int[] getTwoHop() {
+		return twoHop;
+	}
+
+	public int[] getCommonCoStars() {
+		return commonCoStars;
+	}
+}
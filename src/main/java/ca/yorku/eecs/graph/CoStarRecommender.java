@@ -0,0 +1,183 @@
+package ca.yorku.eecs.graph;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Recommends co-stars for an actor from the in-memory graph, caching the results per actor.
+ * <p>
+ * One pass over the actor's movies tallies, in a primitive count map, how many movies each co-star shares with the
+ * actor. A second pass over every co-star's movies tallies, for each actor two hops away, how many distinct co-stars
+ * connect them. Only the best {@code maxK} of each are kept, using a bounded heap, so the work is linear in the size of
+ * the actor's two-hop neighbourhood and nothing else is sorted.
+ * </p>
+ * <p>
+ * Results are cached in a least-recently-used map. Like {@link CenterTableCache}, an entry is only reused while no
+ * relationship has been added since it was computed, since a new edge anywhere in the two-hop neighbourhood can
+ * change the counts; new actors and movies without relationships cannot.
+ * </p>
+ */
+public class CoStarRecommender {
+
+	private final ActorMovieGraph graph;
+
+	private final int maxK;
+
+	/**
+	 * Recommendations keyed by actor index, in access order. Guarded by {@code this}.
+	 */
+	private final LinkedHashMap<Integer, CoStarRecommendations> cache;
+
+	private long hits;
+
+	private long misses;
+
+	/**
+	 * Creates a recommender.
+	 *
+	 * @param graph      The in-memory graph.
+	 * @param maxK       Number of co-stars and two-hop actors computed and cached per actor.
+	 * @param maxEntries Number of actors whose recommendations are cached.
+	 */
+	public CoStarRecommender(ActorMovieGraph graph, int maxK, int maxEntries) {
+		this.graph = graph;
+		this.maxK = maxK;
+		this.cache = new LinkedHashMap<Integer, CoStarRecommendations>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Integer, CoStarRecommendations> eldest) {
+				return size() > maxEntries;
+			}
+		};
+	}
+
+	/**
+	 * Returns the recommendations of an actor, computing them if they are not cached or the graph's snapshot has
+	 * gained a relationship since they were computed.
+	 *
+	 * @param actorId The actor's actorId.
+	 * @return The recommendations, or null if the actor is not in the graph.
+	 */
+	public CoStarRecommendations get(String actorId) {
+		int actor = graph.actorIndexOf(actorId);
+		if (actor < 0) {
+			return null;
+		}
+		// Compared with the snapshot rather than the live graph, which runs ahead of it between rebuilds
+		GraphSnapshot snapshot = graph.snapshot();
+		int edgeCount = snapshot.getEdgeCount();
+		synchronized (this) {
+			CoStarRecommendations cached = cache.get(actor);
+			if (cached != null && cached.getEdgeCount() == edgeCount) {
+				hits++;
+				return cached;
+			}
+			misses++;
+		}
+
+		CoStarRecommendations recommendations = compute(snapshot, actor);
+		synchronized (this) {
+			CoStarRecommendations current = cache.get(actor);
+			if (current == null || current.getEdgeCount() <= recommendations.getEdgeCount()) {
+				cache.put(actor, recommendations);
+			}
+		}
+		return recommendations;
+	}
+
+	/**
+	 * Computes the recommendations of one actor.
+	 *
+	 * @param snapshot The graph.
+	 * @param actor    Index of the actor.
+	 * @return The recommendations.
+	 */
+	CoStarRecommendations compute(GraphSnapshot snapshot, int actor) {
+		if (actor >= snapshot.getActorCount()) {
+			return new CoStarRecommendations(actor, snapshot.getEdgeCount(), new int[0], new int[0], new int[0], new int[0]);
+		}
+		int[] actorOffsets = snapshot.actorOffsets;
+		int[] actorMovies = snapshot.actorMovies;
+		int[] movieOffsets = snapshot.movieOffsets;
+		int[] movieActors = snapshot.movieActors;
+
+		// Movies shared with each co-star
+		IntCountMap shared = new IntCountMap(16);
+		for (int i = actorOffsets[actor]; i < actorOffsets[actor + 1]; i++) {
+			int movie = actorMovies[i];
+			for (int j = movieOffsets[movie]; j < movieOffsets[movie + 1]; j++) {
+				if (movieActors[j] != actor) {
+					shared.increment(movieActors[j]);
+				}
+			}
+		}
+
+		// Distinct co-stars connecting each actor two hops away; lastCounted remembers which co-star (plus one) last
+		// counted an actor, so one pair of actors sharing several movies is only counted once
+		IntCountMap common = new IntCountMap(Math.max(16, shared.size() * 4));
+		IntCountMap lastCounted = new IntCountMap(Math.max(16, shared.size() * 4));
+		for (int slot = 0; slot < shared.capacity(); slot++) {
+			int coStar = shared.keyAt(slot);
+			if (coStar < 0) {
+				continue;
+			}
+			for (int i = actorOffsets[coStar]; i < actorOffsets[coStar + 1]; i++) {
+				int movie = actorMovies[i];
+				for (int j = movieOffsets[movie]; j < movieOffsets[movie + 1]; j++) {
+					int candidate = movieActors[j];
+					if (candidate == actor || candidate == coStar || shared.containsKey(candidate)
+							|| lastCounted.get(candidate) == coStar + 1) {
+						continue;
+					}
+					lastCounted.put(candidate, coStar + 1);
+					common.increment(candidate);
+				}
+			}
+		}
+
+		int[][] coStars = top(shared);
+		int[][] twoHop = top(common);
+		return new CoStarRecommendations(actor, snapshot.getEdgeCount(), coStars[0], coStars[1], twoHop[0], twoHop[1]);
+	}
+
+	/**
+	 * @return The best {@code maxK} keys and their counts, best first, ties broken by the smaller index.
+	 */
+	private int[][] top(IntCountMap counts) {
+		TopKHeap heap = new TopKHeap(maxK);
+		for (int slot = 0; slot < counts.capacity(); slot++) {
+			if (counts.keyAt(slot) >= 0) {
+				heap.offer(counts.keyAt(slot), counts.countAt(slot));
+			}
+		}
+		int[] ids = new int[heap.size()];
+		int[] scores = new int[heap.size()];
+		heap.drainDescending(ids, scores);
+		return new int[][]{ids, scores};
+	}
+
+	/**
+	 * @return The in-memory graph the recommendations are computed from.
+	 */
+	public ActorMovieGraph getGraph() {
+		return graph;
+	}
+
+	/**
+	 * @return Number of co-stars and two-hop actors kept per actor.
+	 */
+	public int getMaxK() {
+		return maxK;
+	}
+
+	public synchronized int size() {
+		return cache.size();
+	}
+
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	public synchronized long getMisses() {
+		return misses;
+	}
+}
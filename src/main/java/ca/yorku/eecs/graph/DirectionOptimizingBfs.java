@@ -0,0 +1,341 @@
+package ca.yorku.eecs.graph;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Parallel direction-optimizing breadth-first search over a {@link GraphSnapshot}.
+ * <p>
+ * The actor-movie graph is bipartite, so the search alternates between actor-to-movie and movie-to-actor steps. Each
+ * step expands the frontier in one of two directions:
+ * <ul>
+ *     <li><b>top-down</b>: every frontier vertex scans its neighbours and claims the unvisited ones. This is cheap
+ *     while the frontier is small.</li>
+ *     <li><b>bottom-up</b>: every unvisited vertex scans its neighbours until it finds one in the frontier. Once the
+ *     frontier covers a large part of the graph this examines far fewer edges, because a vertex stops at its first
+ *     frontier neighbour.</li>
+ * </ul>
+ * The direction is chosen per step with the usual heuristic: switch to bottom-up when the edges leaving the frontier
+ * exceed {@code 1/alpha} of the edges not yet explored, and back to top-down when the frontier shrinks below
+ * {@code 1/beta} of the vertices on the side being reached.
+ * </p>
+ * <p>
+ * Visited sets are bitsets. Top-down steps split the frontier into fork-join tasks that claim vertices with
+ * compare-and-set; bottom-up steps split the unvisited side into ranges of whole 64-bit words, so each task is the
+ * only writer of its words and needs no atomics. Without a pool the search runs entirely in the calling thread, which
+ * suits callers that already run many searches in parallel.
+ * </p>
+ */
+public final class DirectionOptimizingBfs {
+
+	/**
+	 * Default top-down to bottom-up switching factor.
+	 */
+	public static final int DEFAULT_ALPHA = 14;
+
+	/**
+	 * Default bottom-up to top-down switching factor.
+	 */
+	public static final int DEFAULT_BETA = 24;
+
+	/**
+	 * Top-down frontier chunks smaller than this are expanded without splitting further.
+	 */
+	private static final int TOP_DOWN_THRESHOLD = 256;
+
+	/**
+	 * Bottom-up word ranges smaller than this (in 64-vertex words) are scanned without splitting further.
+	 */
+	private static final int BOTTOM_UP_THRESHOLD = 64;
+
+	private final ForkJoinPool pool;
+
+	private final int alpha;
+
+	private final int beta;
+
+	/**
+	 * Splitting thresholds; effectively infinite when running without a pool.
+	 */
+	private final int topDownThreshold;
+
+	private final int bottomUpThreshold;
+
+	/**
+	 * Creates a kernel with the default switching factors.
+	 *
+	 * @param pool The pool the search runs on, or null to run in the calling thread.
+	 */
+	public DirectionOptimizingBfs(ForkJoinPool pool) {
+		this(pool, DEFAULT_ALPHA, DEFAULT_BETA);
+	}
+
+	/**
+	 * Creates a kernel with explicit switching factors. An alpha of 0 keeps the search top-down throughout; an alpha
+	 * and beta of {@link Integer#MAX_VALUE} switch to bottom-up immediately and stay there.
+	 *
+	 * @param pool  The pool the search runs on, or null to run in the calling thread.
+	 * @param alpha Switch to bottom-up when {@code frontierEdges * alpha > unexploredEdges}.
+	 * @param beta  Switch back to top-down when {@code frontierSize * beta < vertices}.
+	 */
+	public DirectionOptimizingBfs(ForkJoinPool pool, int alpha, int beta) {
+		this.pool = pool;
+		this.alpha = alpha;
+		this.beta = beta;
+		this.topDownThreshold = pool == null ? Integer.MAX_VALUE : TOP_DOWN_THRESHOLD;
+		this.bottomUpThreshold = pool == null ? Integer.MAX_VALUE : BOTTOM_UP_THRESHOLD;
+	}
+
+	/**
+	 * Searches the whole component of the source actor.
+	 *
+	 * @param graph  The snapshot to search.
+	 * @param source Index of the source actor.
+	 * @return The search result.
+	 */
+	public BfsResult search(GraphSnapshot graph, int source) {
+		return search(graph, source, -1);
+	}
+
+	/**
+	 * Searches from the source actor, stopping after the step that reaches the target actor. Distances of actors
+	 * further away than the target are not computed.
+	 *
+	 * @param graph  The snapshot to search.
+	 * @param source Index of the source actor.
+	 * @param target Index of the target actor, or -1 to search the whole component.
+	 * @return The search result.
+	 */
+	public BfsResult search(GraphSnapshot graph, int source, int target) {
+		Side actors = new Side(graph.getActorCount(), graph.actorOffsets, graph.actorMovies);
+		Side movies = new Side(graph.getMovieCount(), graph.movieOffsets, graph.movieActors);
+		actors.visited.claim(source);
+		actors.depth[source] = 0;
+		actors.unexploredEdges -= graph.actorDegree(source);
+
+		Side from = actors;
+		Side to = movies;
+		int[] frontierList = {source};
+		long[] frontierBits = null;
+		long frontierSize = 1;
+		long frontierEdges = graph.actorDegree(source);
+		boolean topDown = true;
+		int step = 0;
+		int bottomUpSteps = 0;
+
+		while (frontierSize > 0 && (target < 0 || actors.depth[target] < 0)) {
+			step++;
+			if (topDown) {
+				topDown = frontierEdges * alpha <= to.unexploredEdges;
+			} else {
+				topDown = frontierSize * beta < to.count;
+			}
+
+			if (topDown) {
+				if (frontierList == null) {
+					frontierList = toList(frontierBits, (int) frontierSize);
+				}
+				frontierList = invoke(new TopDownTask(from, to, frontierList, 0, frontierList.length, step, topDownThreshold)).toArray();
+				frontierBits = null;
+				frontierSize = frontierList.length;
+				frontierEdges = 0;
+				for (int vertex : frontierList) {
+					frontierEdges += to.offsets[vertex + 1] - to.offsets[vertex];
+				}
+			} else {
+				if (frontierBits == null) {
+					frontierBits = toBits(frontierList, from.count);
+				}
+				long[] next = new long[AtomicBitSet.wordCount(to.count)];
+				long[] counts = invoke(new BottomUpTask(to, frontierBits, next, 0, next.length, step, bottomUpThreshold));
+				frontierBits = next;
+				frontierList = null;
+				frontierSize = counts[0];
+				frontierEdges = counts[1];
+				bottomUpSteps++;
+			}
+
+			to.unexploredEdges -= frontierEdges;
+			Side swap = from;
+			from = to;
+			to = swap;
+		}
+
+		return new BfsResult(source, actors.depth, actors.parent, movies.parent, step, bottomUpSteps);
+	}
+
+	private <T> T invoke(RecursiveTask<T> task) {
+		return pool == null ? task.invoke() : pool.invoke(task);
+	}
+
+	private static long[] toBits(int[] list, int count) {
+		long[] bits = new long[AtomicBitSet.wordCount(count)];
+		for (int vertex : list) {
+			bits[vertex >>> 6] |= 1L << vertex;
+		}
+		return bits;
+	}
+
+	private static int[] toList(long[] bits, int size) {
+		int[] list = new int[size];
+		int n = 0;
+		for (int w = 0; w < bits.length; w++) {
+			long word = bits[w];
+			while (word != 0) {
+				list[n++] = (w << 6) + Long.numberOfTrailingZeros(word);
+				word &= word - 1;
+			}
+		}
+		return list;
+	}
+
+	/**
+	 * One side of the bipartite graph together with its search state.
+	 */
+	private static final class Side {
+		private final int count;
+		private final int[] offsets;
+		private final int[] adjacency;
+		private final AtomicBitSet visited;
+		private final int[] depth;
+		private final int[] parent;
+		private long unexploredEdges;
+
+		Side(int count, int[] offsets, int[] adjacency) {
+			this.count = count;
+			this.offsets = offsets;
+			this.adjacency = adjacency;
+			this.visited = new AtomicBitSet(count);
+			this.depth = new int[count];
+			this.parent = new int[count];
+			this.unexploredEdges = adjacency.length;
+			Arrays.fill(depth, -1);
+			Arrays.fill(parent, -1);
+		}
+	}
+
+	/**
+	 * Expands {@code frontier[from .. to)} top-down and returns the newly reached vertices.
+	 */
+	private static final class TopDownTask extends RecursiveTask<IntArrayList> {
+		private static final long serialVersionUID = 1L;
+		private final Side source;
+		private final Side target;
+		private final int[] frontier;
+		private final int from;
+		private final int to;
+		private final int step;
+		private final int threshold;
+
+		TopDownTask(Side source, Side target, int[] frontier, int from, int to, int step, int threshold) {
+			this.source = source;
+			this.target = target;
+			this.frontier = frontier;
+			this.from = from;
+			this.to = to;
+			this.step = step;
+			this.threshold = threshold;
+		}
+
+		@Override
+		protected IntArrayList compute() {
+			if (to - from > threshold) {
+				int mid = (from + to) >>> 1;
+				TopDownTask left = new TopDownTask(source, target, frontier, from, mid, step, threshold);
+				left.fork();
+				IntArrayList right = new TopDownTask(source, target, frontier, mid, to, step, threshold).compute();
+				IntArrayList next = left.join();
+				next.addAll(right);
+				return next;
+			}
+
+			IntArrayList next = new IntArrayList();
+			for (int i = from; i < to; i++) {
+				int vertex = frontier[i];
+				for (int e = source.offsets[vertex]; e < source.offsets[vertex + 1]; e++) {
+					int neighbour = source.adjacency[e];
+					if (!target.visited.get(neighbour) && target.visited.claim(neighbour)) {
+						target.parent[neighbour] = vertex;
+						target.depth[neighbour] = step;
+						next.add(neighbour);
+					}
+				}
+			}
+			return next;
+		}
+	}
+
+	/**
+	 * Scans the unvisited vertices in words {@code [from .. to)} bottom-up, marking the ones with a neighbour in the
+	 * frontier. Returns the number of vertices reached and the sum of their degrees.
+	 */
+	private static final class BottomUpTask extends RecursiveTask<long[]> {
+		private static final long serialVersionUID = 1L;
+		private final Side target;
+		private final long[] frontier;
+		private final long[] next;
+		private final int from;
+		private final int to;
+		private final int step;
+		private final int threshold;
+
+		BottomUpTask(Side target, long[] frontier, long[] next, int from, int to, int step, int threshold) {
+			this.target = target;
+			this.frontier = frontier;
+			this.next = next;
+			this.from = from;
+			this.to = to;
+			this.step = step;
+			this.threshold = threshold;
+		}
+
+		@Override
+		protected long[] compute() {
+			if (to - from > threshold) {
+				int mid = (from + to) >>> 1;
+				BottomUpTask left = new BottomUpTask(target, frontier, next, from, mid, step, threshold);
+				left.fork();
+				long[] right = new BottomUpTask(target, frontier, next, mid, to, step, threshold).compute();
+				long[] counts = left.join();
+				counts[0] += right[0];
+				counts[1] += right[1];
+				return counts;
+			}
+
+			long reached = 0;
+			long edges = 0;
+			for (int w = from; w < to; w++) {
+				long visited = target.visited.word(w);
+				long unvisited = ~visited;
+				int base = w << 6;
+				if (target.count - base < 64) {
+					unvisited &= (1L << (target.count - base)) - 1;
+				}
+				long claimed = 0;
+				while (unvisited != 0) {
+					int bit = Long.numberOfTrailingZeros(unvisited);
+					unvisited &= unvisited - 1;
+					int vertex = base + bit;
+					int end = target.offsets[vertex + 1];
+					for (int e = target.offsets[vertex]; e < end; e++) {
+						int neighbour = target.adjacency[e];
+						if ((frontier[neighbour >>> 6] & (1L << neighbour)) != 0) {
+							target.parent[vertex] = neighbour;
+							target.depth[vertex] = step;
+							claimed |= 1L << bit;
+							reached++;
+							edges += end - target.offsets[vertex];
+							break;
+						}
+					}
+				}
+				if (claimed != 0) {
+					target.visited.setWord(w, visited | claimed);
+					next[w] = claimed;
+				}
+			}
+			return new long[]{reached, edges};
+		}
+	}
+}
@@ -0,0 +1,77 @@
+package ca.yorku.eecs.graph;
+
+/**
+ * Immutable compressed-sparse-row view of the actor-movie graph at one version.
+ * <p>
+ * Actors and movies keep the dense indexes assigned by {@link ActorMovieGraph}, so an index taken from a snapshot
+ * can be turned back into an id with the graph. The adjacency of actor {@code a} is
+ * {@code actorMovies[actorOffsets[a] .. actorOffsets[a + 1])}, and likewise for movies.
+ * </p>
+ */
+public final class GraphSnapshot {
+
+	private final long version;
+
+	private final long takenNanos;
+
+	private final int actorCount;
+
+	private final int movieCount;
+
+	final int[] actorOffsets;
+
+	final int[] actorMovies;
+
+	final int[] movieOffsets;
+
+	final int[] movieActors;
+
+	GraphSnapshot(long version, long takenNanos, int actorCount, int movieCount, int[] actorOffsets,
+				  int[] actorMovies, int[] movieOffsets, int[] movieActors) {
+		this.version = version;
+		this.takenNanos = takenNanos;
+		this.actorCount = actorCount;
+		this.movieCount = movieCount;
+		this.actorOffsets = actorOffsets;
+		this.actorMovies = actorMovies;
+		this.movieOffsets = movieOffsets;
+		this.movieActors = movieActors;
+	}
+
+	/**
+	 * @return The graph version this snapshot was taken at.
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * @return When this snapshot was taken, by {@link System#nanoTime()}.
+	 */
+	public long getTakenNanos() {
+		return takenNanos;
+	}
+
+	public int getActorCount() {
+		return actorCount;
+	}
+
+	public int getMovieCount() {
+		return movieCount;
+	}
+
+	/**
+	 * @return Number of ACTED_IN edges.
+	 */
+	public int getEdgeCount() {
+		return actorMovies.length;
+	}
+
+	public int actorDegree(int actor) {
+		return actorOffsets[actor + 1] - actorOffsets[actor];
+	}
+
+	public int movieDegree(int movie) {
+		return movieOffsets[movie + 1] - movieOffsets[movie];
+	}
+}
@@ -0,0 +1,75 @@
+package ca.yorku.eecs.graph;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of primitive ints, used for adjacency lists and BFS frontiers without boxing.
+ */
+public class IntArrayList {
+
+	private int[] values;
+
+	private int size;
+
+	public IntArrayList() {
+		this(4);
+	}
+
+	public IntArrayList(int initialCapacity) {
+		this.values = new int[Math.max(1, initialCapacity)];
+	}
+
+	public void add(int value) {
+		if (size == values.length) {
+			values = Arrays.copyOf(values, size << 1);
+		}
+		values[size++] = value;
+	}
+
+	public void addAll(IntArrayList other) {
+		if (size + other.size > values.length) {
+			values = Arrays.copyOf(values, Math.max(size + other.size, size << 1));
+		}
+		System.arraycopy(other.values, 0, values, size, other.size);
+		size += other.size;
+	}
+
+	public int get(int index) {
+		return values[index];
+	}
+
+	public boolean contains(int value) {
+		for (int i = 0; i < size; i++) {
+			if (values[i] == value) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * @return A copy of the values.
+	 */
+	public int[] toArray() {
+		return Arrays.copyOf(values, size);
+	}
+
+	/**
+	 * Copies the values into {@code target} starting at {@code offset}.
+	 */
+	public void copyTo(int[] target, int offset) {
+		System.arraycopy(values, 0, target, offset, size);
+	}
+}
@@ -0,0 +1,111 @@
+package ca.yorku.eecs.graph;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from non-negative int keys to int counts, used to tally neighbours without boxing.
+ * <p>
+ * Entries are read back by slot: iterate {@code slot} from 0 to {@link #capacity()} and skip slots whose
+ * {@link #keyAt(int)} is -1.
+ * </p>
+ */
+final class IntCountMap {
+
+	private static final int EMPTY = -1;
+
+	private int[] keys;
+
+	private int[] counts;
+
+	private int size;
+
+	IntCountMap(int expectedSize) {
+		int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+		keys = new int[capacity];
+		counts = new int[capacity];
+		Arrays.fill(keys, EMPTY);
+	}
+
+	/**
+	 * Adds one to a key's count.
+	 *
+	 * @param key A non-negative key.
+	 * @return The new count.
+	 */
+	int increment(int key) {
+		int slot = slotOf(key);
+		if (keys[slot] == EMPTY) {
+			keys[slot] = key;
+			if (++size * 2 > keys.length) {
+				grow();
+				slot = slotOf(key);
+			}
+		}
+		return ++counts[slot];
+	}
+
+	/**
+	 * Stores a value for a key.
+	 *
+	 * @param key   A non-negative key.
+	 * @param value The value.
+	 */
+	void put(int key, int value) {
+		increment(key);
+		counts[slotOf(key)] = value;
+	}
+
+	/**
+	 * @param key A non-negative key.
+	 * @return The key's count, or 0 if absent.
+	 */
+	int get(int key) {
+		int slot = slotOf(key);
+		return keys[slot] == EMPTY ? 0 : counts[slot];
+	}
+
+	boolean containsKey(int key) {
+		return keys[slotOf(key)] != EMPTY;
+	}
+
+	int size() {
+		return size;
+	}
+
+	int capacity() {
+		return keys.length;
+	}
+
+	int keyAt(int slot) {
+		return keys[slot];
+	}
+
+	int countAt(int slot) {
+		return counts[slot];
+	}
+
+	private int slotOf(int key) {
+		int mask = keys.length - 1;
+		int hash = key * 0x9E3779B9;
+		int slot = (hash ^ hash >>> 16) & mask;
+		while (keys[slot] != EMPTY && keys[slot] != key) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	private void grow() {
+		int[] oldKeys = keys;
+		int[] oldCounts = counts;
+		keys = new int[oldKeys.length << 1];
+		counts = new int[oldKeys.length << 1];
+		Arrays.fill(keys, EMPTY);
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != EMPTY) {
+				int slot = slotOf(oldKeys[i]);
+				keys[slot] = oldKeys[i];
+				counts[slot] = oldCounts[i];
+			}
+		}
+	}
+}
@@ -0,0 +1,72 @@
+package ca.yorku.eecs.graph;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash set of non-negative longs, used to test ACTED_IN edges for membership without boxing.
+ */
+final class LongHashSet {
+
+	private static final long EMPTY = -1;
+
+	private long[] keys;
+
+	private int size;
+
+	LongHashSet(int expectedSize) {
+		int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+		keys = new long[capacity];
+		Arrays.fill(keys, EMPTY);
+	}
+
+	/**
+	 * Adds a key.
+	 *
+	 * @param key A non-negative key.
+	 * @return false if the key was already present.
+	 */
+	boolean add(long key) {
+		int slot = slotOf(key);
+		if (keys[slot] != EMPTY) {
+			return false;
+		}
+		keys[slot] = key;
+		if (++size * 2 > keys.length) {
+			grow();
+		}
+		return true;
+	}
+
+	boolean contains(long key) {
+		return keys[slotOf(key)] != EMPTY;
+	}
+
+	int size() {
+		return size;
+	}
+
+	int capacity() {
+		return keys.length;
+	}
+
+	private int slotOf(long key) {
+		int mask = keys.length - 1;
+		long hash = key * 0x9E3779B97F4A7C15L;
+		int slot = (int) (hash ^ hash >>> 32) & mask;
+		while (keys[slot] != EMPTY && keys[slot] != key) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	private void grow() {
+		long[] oldKeys = keys;
+		keys = new long[oldKeys.length << 1];
+		Arrays.fill(keys, EMPTY);
+		for (long key : oldKeys) {
+			if (key != EMPTY) {
+				keys[slotOf(key)] = key;
+			}
+		}
+	}
+}
@@ -0,0 +1,93 @@
+package ca.yorku.eecs.graph;
+
+/**
+ * Bounded min-heap keeping the {@code k} highest-scoring ids seen, without boxing.
+ * <p>
+ * Each entry is packed into a long with the score in the high half and the inverted id in the low half, so a single
+ * comparison orders by score and then prefers the smaller id on ties.
+ * </p>
+ */
+final class TopKHeap {
+
+	private final long[] heap;
+
+	private int size;
+
+	TopKHeap(int k) {
+		this.heap = new long[k];
+	}
+
+	/**
+	 * Offers an id; it is kept if the heap is not full or it beats the current minimum.
+	 *
+	 * @param id    A non-negative id.
+	 * @param score A non-negative score.
+	 */
+	void offer(int id, int score) {
+		if (heap.length == 0) {
+			return;
+		}
+		long entry = ((long) score << 32) | (Integer.MAX_VALUE - id);
+		if (size < heap.length) {
+			heap[size] = entry;
+			siftUp(size++);
+		} else if (entry > heap[0]) {
+			heap[0] = entry;
+			siftDown(0);
+		}
+	}
+
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Empties the heap.
+	 *
+	 * @param ids    Receives the ids, best first; must hold {@link #size()} entries.
+	 * @param scores Receives the matching scores.
+	 */
+	void drainDescending(int[] ids, int[] scores) {
+		for (int i = size - 1; i >= 0; i--) {
+			long entry = heap[0];
+			ids[i] = Integer.MAX_VALUE - (int) entry;
+			scores[i] = (int) (entry >>> 32);
+			heap[0] = heap[--size];
+			siftDown(0);
+		}
+	}
+
+	private void siftUp(int i) {
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+			if (heap[parent] <= heap[i]) {
+				return;
+			}
+			swap(parent, i);
+			i = parent;
+		}
+	}
+
+	private void siftDown(int i) {
+		while (true) {
+			int child = 2 * i + 1;
+			if (child >= size) {
+				return;
+			}
+			if (child + 1 < size && heap[child + 1] < heap[child]) {
+				child++;
+			}
+			if (heap[i] <= heap[child]) {
+				return;
+			}
+			swap(i, child);
+			i = child;
+		}
+	}
+
+	private void swap(int a, int b) {
+		long tmp = heap[a];
+		heap[a] = heap[b];
+		heap[b] = tmp;
+	}
+}
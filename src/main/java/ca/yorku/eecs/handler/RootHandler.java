@@ -1,5 +1,7 @@
 package ca.yorku.eecs.handler;
 
+import ca.yorku.eecs.tracing.Trace;
+import ca.yorku.eecs.tracing.Tracer;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import org.neo4j.driver.v1.*;
@@ -20,6 +22,16 @@ public class RootHandler implements HttpHandler {
 	 */
 	private final Driver driver;
 
+	/**
+	 * Cypher statement fetching the first 10 actors and their movies.
+	 */
+	public static final String FIRST_TEN_ACTORS_QUERY = "MATCH (a:Actor) OPTIONAL MATCH (a)<-[:ACTED_IN]-(m:Movie) RETURN a.name AS name, a.actorId AS actorId, collect(m.name) AS movies LIMIT 10";
+
+	/**
+	 * Cypher statement fetching the first 10 movies and their actors.
+	 */
+	public static final String FIRST_TEN_MOVIES_QUERY = "MATCH (m:Movie) OPTIONAL MATCH (m)<-[:ACTED_IN]-(a:Actor) RETURN m.name AS title, m.movieId AS movieId, collect(a.name) AS actors LIMIT 10";
+
 	/**
 	 * Constructs a new RootHandler instance with the provided Neo4j driver.
 	 *
@@ -38,10 +50,28 @@ public class RootHandler implements HttpHandler {
 	 */
 	@Override
 	public void handle(HttpExchange exchange) throws IOException {
+		Trace trace = Tracer.start("root", exchange);
+		try {
+			handle(exchange, trace);
+		} finally {
+			trace.finish();
+		}
+	}
+
+	/**
+	 * Handles the request, marking each stage on the given trace.
+	 *
+	 * @param exchange The HTTP exchange object containing request and response details.
+	 * @param trace    The request's trace.
+	 * @throws IOException If an I/O error occurs.
+	 */
+	private void handle(HttpExchange exchange, Trace trace) throws IOException {
+		trace.stage("cypher");
 		// Fetch the first 10 actors and movies from the database.
 		List<String> actors = fetchFirstTenActors();
 		List<String> movies = fetchFirstTenMovies();
 
+		trace.stage("encode");
 		// Construct HTML table content for actors.
 		StringBuilder actorTableContent = new StringBuilder();
 		for (String actor : actors) {
@@ -74,8 +104,13 @@ public class RootHandler implements HttpHandler {
 				"<li><a href='/api/v1/getActor'>/api/v1/getActor</a>: Retrieves an actor and their list of movies from the database.</li>" +
 				"<li><a href='/api/v1/getMovie'>/api/v1/getMovie</a>: Retrieves a movie and its list of actors from the database.</li>" +
 				"<li><a href='/api/v1/hasRelationship'>/api/v1/hasRelationship</a>: Checks if an ACTED_IN relationship exists between an actor and a movie.</li>" +
-				"<li><a href='/api/v1/computeBaconNumber'>/api/v1/computeBaconNumber</a>: Computes the Bacon number for a given actor.</li>" +
-				"<li><a href='/api/v1/computeBaconPath'>/api/v1/computeBaconPath</a>: Computes the Bacon path for a given actor.</li>" +
+				"<li><a href='/api/v1/computeBaconNumber'>/api/v1/computeBaconNumber</a>: Computes the Bacon number for a given actor (optional centerId, default Kevin Bacon; optional maxHops and timeoutMillis).</li>" +
+				"<li><a href='/api/v1/computeBaconPath'>/api/v1/computeBaconPath</a>: Computes the Bacon path for a given actor (optional centerId, default Kevin Bacon; optional maxHops and timeoutMillis).</li>" +
+				"<li><a href='/api/v1/baconStats'>/api/v1/baconStats</a>: Computes the distribution of Bacon numbers across all actors.</li>" +
+				"<li><a href='/api/v1/topCenters?k=10'>/api/v1/topCenters?k=10</a>: Lists the actors with the highest closeness centrality.</li>" +
+				"<li><a href='/api/v1/recommendCoStars'>/api/v1/recommendCoStars</a>: Recommends frequent and two-hop co-stars for a given actor (optional k, default 10).</li>" +
+				"<li><a href='/api/v1/search?prefix=kevin'>/api/v1/search?prefix=kevin</a>: Searches actor and movie names by prefix (optional type and limit).</li>" +
+				"<li><a href='/api/v1/export?format=ndjson'>/api/v1/export?format=ndjson</a>: Streams every actor, movie and relationship as NDJSON or CSV.</li>" +
 				"</ul>" +
 				"<h2>First 10 Actors:</h2>" +
 				"<table><tr><th>Name</th><th>ActorId</th><th>Movies Acted In</th></tr>" +
@@ -88,6 +123,7 @@ public class RootHandler implements HttpHandler {
 				"</body>" +
 				"</html>";
 
+		trace.stage("write");
 		// Send the HTTP response.
 		exchange.sendResponseHeaders(200, htmlResponse.length());
 		OutputStream os = exchange.getResponseBody();
@@ -104,9 +140,9 @@ public class RootHandler implements HttpHandler {
 	 */
 	private List<String> fetchFirstTenActors() {
 		// Open a new session with the Neo4j database.
-		try (Session session = driver.session()) {
+		try (Session session = driver.session(AccessMode.READ)) {
 			// Run a Cypher query to fetch the first 10 actors and their movies.
-			StatementResult result = session.run("MATCH (a:Actor) OPTIONAL MATCH (a)<-[:ACTED_IN]-(m:Movie) RETURN a.name AS name, a.actorId AS actorId, collect(m.name) AS movies LIMIT 10");
+			StatementResult result = session.run(FIRST_TEN_ACTORS_QUERY);
 
 			// Convert the result into a list of HTML table rows.
 			return result.list(record -> {
@@ -130,9 +166,9 @@ public class RootHandler implements HttpHandler {
 	 */
 	private List<String> fetchFirstTenMovies() {
 		// Open a new session with the Neo4j database.
-		try (Session session = driver.session()) {
+		try (Session session = driver.session(AccessMode.READ)) {
 			// Run a Cypher query to fetch the first 10 movies and their actors.
-			StatementResult result = session.run("MATCH (m:Movie) OPTIONAL MATCH (m)<-[:ACTED_IN]-(a:Actor) RETURN m.name AS title, m.movieId AS movieId, collect(a.name) AS actors LIMIT 10");
+			StatementResult result = session.run(FIRST_TEN_MOVIES_QUERY);
 
 			// Convert the result into a list of HTML table rows.
 			return result.list(record -> {
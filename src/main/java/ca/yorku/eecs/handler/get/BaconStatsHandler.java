@@ -0,0 +1,98 @@
+package ca.yorku.eecs.handler.get;
+
+import ca.yorku.eecs.graph.BaconStats;
+import ca.yorku.eecs.graph.BaconStatsCache;
+import ca.yorku.eecs.tracing.Trace;
+import ca.yorku.eecs.tracing.Tracer;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Handles the computation of Bacon-number statistics over every actor in the graph via HTTP requests.
+ * <p>
+ * The response contains the histogram of Bacon numbers (index 0 is Kevin Bacon himself), the number of actors with
+ * no path to Kevin Bacon and the average Bacon number of the reachable actors. The statistics are computed with a
+ * parallel BFS over the in-memory graph and cached until the graph changes.
+ * </p>
+ */
+public class BaconStatsHandler implements HttpHandler {
+
+	private static final Logger logger = Logger.getLogger(BaconStatsHandler.class.getName());
+
+	/**
+	 * The cache the statistics are served from.
+	 */
+	private final BaconStatsCache statsCache;
+
+	/**
+	 * Constructs a new BaconStatsHandler serving from the given cache.
+	 *
+	 * @param statsCache The Bacon statistics cache.
+	 */
+	public BaconStatsHandler(BaconStatsCache statsCache) {
+		this.statsCache = statsCache;
+	}
+
+	/**
+	 * Handles the HTTP request to get the Bacon-number statistics.
+	 *
+	 * @param exchange The HTTP exchange object containing request and response details.
+	 * @throws IOException If an I/O error occurs.
+	 */
+	@Override
+	public void handle(HttpExchange exchange) throws IOException {
+		Trace trace = Tracer.start("baconStats", exchange);
+		try {
+			handle(exchange, trace);
+		} finally {
+			trace.finish();
+		}
+	}
+
+	/**
+	 * Handles the request, marking each stage on the given trace.
+	 *
+	 * @param exchange The HTTP exchange object containing request and response details.
+	 * @param trace    The request's trace.
+	 * @throws IOException If an I/O error occurs.
+	 */
+	private void handle(HttpExchange exchange, Trace trace) throws IOException {
+		logger.log(Level.INFO, "Received request to compute Bacon statistics.");
+
+		try {
+			trace.stage("compute");
+			BaconStats stats = statsCache.get();
+
+			if (stats != null) {
+				trace.stage("encode");
+				JSONObject responseJson = new JSONObject();
+				responseJson.put("actorCount", stats.getActorCount());
+				responseJson.put("histogram", new JSONArray(stats.getHistogram()));
+				responseJson.put("unreachable", stats.getUnreachable());
+				responseJson.put("averageBaconNumber", stats.getAverageBaconNumber());
+
+				trace.stage("write");
+				String response = responseJson.toString();
+				exchange.sendResponseHeaders(200, response.length());
+				exchange.getResponseBody().write(response.getBytes());
+			} else {
+				String response = "Kevin Bacon not found.";
+				exchange.sendResponseHeaders(404, response.length());
+				exchange.getResponseBody().write(response.getBytes());
+			}
+		} catch (Exception e) {
+			logger.log(Level.SEVERE, "Error while computing Bacon statistics: " + e.getMessage(), e);
+			String response = "Internal server error.";
+			exchange.sendResponseHeaders(500, response.length());
+			exchange.getResponseBody().write(response.getBytes());
+		}
+
+		exchange.getResponseBody().close();
+	}
+}
@@ -1,26 +1,43 @@
 package ca.yorku.eecs.handler.get;
 
+import ca.yorku.eecs.encoding.ResponseEncoder;
+import ca.yorku.eecs.graph.ActorMovieGraph;
+import ca.yorku.eecs.graph.CenterTable;
+import ca.yorku.eecs.graph.CenterTableCache;
+import ca.yorku.eecs.membership.KnownIds;
+import ca.yorku.eecs.query.QueryDeadline;
+import ca.yorku.eecs.routing.Bookmarks;
+import ca.yorku.eecs.server.ConnectionMonitor;
+import ca.yorku.eecs.tracing.Trace;
+import ca.yorku.eecs.tracing.Tracer;
 import ca.yorku.eecs.utils.Utils;
 import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpExchange;
-import org.json.JSONException;
 import org.neo4j.driver.v1.*;
+import org.neo4j.driver.v1.exceptions.Neo4jException;
 
 import java.io.IOException;
-import java.util.Map;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import org.json.JSONArray;
-import org.json.JSONObject;
 import org.neo4j.driver.v1.types.Node;
 
 /**
  * Handles the computation of the Bacon path for a given actor from the Neo4j database via HTTP requests.
  * <p>
- * This handler computes the shortest path of alternating actors and movies between the provided actor and Kevin Bacon.
- * Kevin Bacon is always assumed to have an actorId of nm0000102.
+ * This handler computes the shortest path of alternating actors and movies between the provided actor and a center
+ * actor. The center is Kevin Bacon (actorId nm0000102) unless the optional centerId query parameter names another
+ * actor. When the in-memory graph is loaded the path is read from the center's cached BFS tree; otherwise the handler
+ * falls back to Cypher's shortestPath.
+ * </p>
+ * <p>
+ * The optional {@code maxHops} parameter, at most {@value #MAX_HOPS}, bounds the path length in actor hops; an actor
+ * further away than that gets 422 rather than the 404 of an actor with no path at all. A Cypher query is also bounded
+ * by a deadline, at most the handler's maximum and optionally shortened by {@code timeoutMillis}: it is passed to Neo4j
+ * as the transaction timeout, and the query is cancelled when it passes (504) or when the client disconnects.
  * </p>
  *
  * @since 2023-08-07
@@ -35,17 +52,74 @@ public class ComputeBaconPathHandler implements HttpHandler {
 	private final Driver driver;
 
 	/**
-	 * The constant actorId for Kevin Bacon.
+	 * Per-center distance tables over the in-memory graph, or null to always use Cypher.
+	 */
+	private final CenterTableCache centerTables;
+
+	/**
+	 * Longest a Cypher query may run, and the default deadline.
+	 */
+	private final long maxTimeoutMillis;
+
+	/**
+	 * Negative cache answering requests for unknown actorIds without a query, or null to query for every id.
+	 */
+	private final KnownIds knownIds;
+
+	/**
+	 * Cypher statement returning the nodes on the shortest path to Kevin Bacon.
+	 */
+	public static final String BACON_PATH_QUERY = "MATCH p=shortestPath((a:Actor {actorId: $actorId})-[:ACTED_IN*]-(b:Actor {actorId: $kevinBaconId})) RETURN nodes(p) AS nodes";
+
+	/**
+	 * {@link #BACON_PATH_QUERY} with the path length bounded; formatted with the maximum number of relationships.
+	 */
+	private static final String BOUNDED_BACON_PATH_QUERY = "MATCH p=shortestPath((a:Actor {actorId: $actorId})-[:ACTED_IN*..%d]-(b:Actor {actorId: $kevinBaconId})) RETURN nodes(p) AS nodes";
+
+	/**
+	 * Cypher statement answering for the center itself, which shortestPath rejects: the actor alone if it exists.
+	 */
+	private static final String CENTER_BACON_PATH_QUERY = "MATCH (a:Actor {actorId: $actorId}) RETURN [a] AS nodes";
+
+	/**
+	 * Deadline of Cypher queries when no maximum is given.
+	 */
+	public static final long DEFAULT_TIMEOUT_MILLIS = 5000;
+
+	/**
+	 * The actorId of Kevin Bacon, the center used when no centerId is given.
 	 */
 	private static final String KEVIN_BACON_ID = "nm0000102";
 
+	/**
+	 * Largest accepted {@code maxHops}, as for Bacon numbers.
+	 */
+	private static final int MAX_HOPS = ComputeBaconNumberHandler.MAX_HOPS;
+
 	/**
 	 * Constructs a new ComputeBaconPathHandler with the provided Neo4j driver.
 	 *
 	 * @param driver The Neo4j driver instance.
 	 */
 	public ComputeBaconPathHandler(Driver driver) {
+		this(driver, null, DEFAULT_TIMEOUT_MILLIS, null);
+	}
+
+	/**
+	 * Constructs a new ComputeBaconPathHandler that answers from per-center BFS trees once the in-memory graph is
+	 * loaded and otherwise bounds each Cypher query by a deadline, and that answers 404 without any search when the
+	 * actor or the center is known not to exist.
+	 *
+	 * @param driver           The Neo4j driver instance.
+	 * @param centerTables     The per-center distance tables, or null.
+	 * @param maxTimeoutMillis Longest a Cypher query may run.
+	 * @param knownIds         The filters over existing ids, or null.
+	 */
+	public ComputeBaconPathHandler(Driver driver, CenterTableCache centerTables, long maxTimeoutMillis, KnownIds knownIds) {
 		this.driver = driver;
+		this.centerTables = centerTables;
+		this.maxTimeoutMillis = maxTimeoutMillis;
+		this.knownIds = knownIds;
 	}
 
 	/**
@@ -59,65 +133,142 @@ public class ComputeBaconPathHandler implements HttpHandler {
 	 */
 	@Override
 	public void handle(HttpExchange exchange) throws IOException {
+		Trace trace = Tracer.start("computeBaconPath", exchange);
+		try {
+			handle(exchange, trace);
+		} finally {
+			trace.finish();
+		}
+	}
+
+	/**
+	 * Handles the request, marking each stage on the given trace.
+	 *
+	 * @param exchange The HTTP exchange object containing request and response details.
+	 * @param trace    The request's trace.
+	 * @throws IOException If an I/O error occurs.
+	 */
+	private void handle(HttpExchange exchange, Trace trace) throws IOException {
 		logger.log(Level.INFO, "Received request to compute Bacon path.");
 
+		trace.stage("parse");
 		// Extracting the query parameters
 		String query = exchange.getRequestURI().getQuery();
 		Map<String, String> queryParams = Utils.splitQuery(query);
 
 		if (queryParams.containsKey("actorId")) {
 			String actorId = queryParams.get("actorId");
+			String centerId = queryParams.containsKey("centerId") ? queryParams.get("centerId") : KEVIN_BACON_ID;
 
-			if (KEVIN_BACON_ID.equals(actorId)) {
-				JSONObject responseJson = new JSONObject();
-				JSONArray baconPath = new JSONArray();
-				baconPath.put(KEVIN_BACON_ID);
-				try {
-					responseJson.put("baconPath", baconPath);
-				} catch (JSONException e) {
-					throw new RuntimeException(e);
+			int maxHops;
+			long timeoutMillis;
+			try {
+				maxHops = queryParams.containsKey("maxHops") ? Integer.parseInt(queryParams.get("maxHops")) : 0;
+				timeoutMillis = queryParams.containsKey("timeoutMillis") ? Long.parseLong(queryParams.get("timeoutMillis")) : maxTimeoutMillis;
+				if ((queryParams.containsKey("maxHops") && (maxHops < 1 || maxHops > MAX_HOPS)) || timeoutMillis < 1) {
+					throw new NumberFormatException();
 				}
+				timeoutMillis = Math.min(timeoutMillis, maxTimeoutMillis);
+			} catch (NumberFormatException e) {
+				String response = "maxHops must be an integer from 1 to " + MAX_HOPS + " and timeoutMillis a positive integer.";
+				exchange.sendResponseHeaders(400, response.length());
+				exchange.getResponseBody().write(response.getBytes());
+				exchange.getResponseBody().close();
+				return;
+			}
 
-				String response = responseJson.toString();
-				exchange.sendResponseHeaders(200, response.length());
+			if (knownIds != null && (!knownIds.mightContainActor(actorId) || !knownIds.mightContainActor(centerId))) {
+				// An actor that was never created has no path to anyone
+				String response = noPathMessage(centerId);
+				exchange.sendResponseHeaders(404, response.length());
 				exchange.getResponseBody().write(response.getBytes());
+				exchange.getResponseBody().close();
 				return;
 			}
 
-			try (Session session = driver.session()) {
-				StatementResult result = session.run("MATCH p=shortestPath((a:Actor {actorId: $actorId})-[:ACTED_IN*]-(b:Actor {actorId: $kevinBaconId})) RETURN nodes(p) AS nodes", Values.parameters("actorId", actorId, "kevinBaconId", KEVIN_BACON_ID));
+			if (centerTables != null && centerTables.getGraph().isLoaded()) {
+				try {
+					trace.stage("traverse");
+					List<String> baconPath = baconPathFromGraph(actorId, centerId);
 
-				if (result.hasNext()) {
-					List<Object> nodesList = result.single().get("nodes").asList();
-					JSONArray baconPath = new JSONArray();
-					for (Object nodeValue : nodesList) {
-						if (nodeValue instanceof Value) {
-							Node node = ((Value) nodeValue).asNode();
+					if (baconPath != null && (maxHops == 0 || baconPath.size() / 2 <= maxHops)) {
+						trace.stage("encode");
+						ResponseEncoder encoder = encodePath(exchange, baconPath);
 
-							if (node.hasLabel("Actor")) {
-								baconPath.put(node.get("actorId").asString());
-							} else if (node.hasLabel("Movie")) {
-								baconPath.put(node.get("movieId").asString());
-							}
+						trace.stage("write");
+						encoder.send(exchange, 200);
+					} else if (baconPath != null) {
+						String response = notWithinMessage(centerId, maxHops);
+						exchange.sendResponseHeaders(422, response.length());
+						exchange.getResponseBody().write(response.getBytes());
+					} else {
+						String response = noPathMessage(centerId);
+						exchange.sendResponseHeaders(404, response.length());
+						exchange.getResponseBody().write(response.getBytes());
+					}
+				} catch (Exception e) {
+					logger.log(Level.SEVERE, "Error while computing Bacon path: " + e.getMessage(), e);
+					String response = "Internal server error.";
+					exchange.sendResponseHeaders(500, response.length());
+					exchange.getResponseBody().write(response.getBytes());
+				}
+			} else {
+				trace.stage("session");
+				try (Session session = Bookmarks.readSession(driver, exchange);
+					 QueryDeadline deadline = new QueryDeadline(session, timeoutMillis, ConnectionMonitor.of(exchange))) {
+					trace.stage("cypher");
+					boolean bounded = maxHops != 0 && !centerId.equals(actorId);
+					String statement = centerId.equals(actorId) ? CENTER_BACON_PATH_QUERY
+							: bounded ? String.format(BOUNDED_BACON_PATH_QUERY, 2 * maxHops) : BACON_PATH_QUERY;
+					List<Object> nodesList = null;
+					QueryDeadline.Cancellation cancellation = null;
+					try {
+						StatementResult result = session.run(new Statement(statement, Values.parameters("actorId", actorId, "kevinBaconId", centerId)),
+								deadline.transactionConfig());
+						if (result.hasNext()) {
+							nodesList = result.single().get("nodes").asList();
+						}
+					} catch (Neo4jException e) {
+						cancellation = deadline.cancellationOf(e);
+						if (cancellation == null) {
+							throw e;
 						}
 					}
 
-					JSONObject responseJson = new JSONObject();
-					responseJson.put("baconPath", baconPath);
+					if (cancellation != null) {
+						logger.warning("Bacon path query cancelled: " + cancellation);
+						String response = deadline.describe(cancellation);
+						exchange.sendResponseHeaders(cancellation.getStatus(), response.length());
+						exchange.getResponseBody().write(response.getBytes());
+					} else if (nodesList != null) {
+						trace.stage("encode");
+						List<String> baconPath = new ArrayList<>(nodesList.size());
+						for (Object nodeValue : nodesList) {
+							if (nodeValue instanceof Value) {
+								Node node = ((Value) nodeValue).asNode();
 
-					String response = responseJson.toString();
-					exchange.sendResponseHeaders(200, response.length());
-					exchange.getResponseBody().write(response.getBytes());
-				} else {
-					String response = "No path to Kevin Bacon found.";
-					exchange.sendResponseHeaders(404, response.length());
+								if (node.hasLabel("Actor")) {
+									baconPath.add(node.get("actorId").asString());
+								} else if (node.hasLabel("Movie")) {
+									baconPath.add(node.get("movieId").asString());
+								}
+							}
+						}
+						ResponseEncoder encoder = encodePath(exchange, baconPath);
+
+						trace.stage("write");
+						encoder.send(exchange, 200);
+					} else {
+						String response = bounded ? notWithinMessage(centerId, maxHops) : noPathMessage(centerId);
+						exchange.sendResponseHeaders(bounded ? 422 : 404, response.length());
+						exchange.getResponseBody().write(response.getBytes());
+					}
+				} catch (Exception e) {
+					logger.log(Level.SEVERE, "Error while computing Bacon path: " + e.getMessage(), e);
+					String response = "Internal server error.";
+					exchange.sendResponseHeaders(500, response.length());
 					exchange.getResponseBody().write(response.getBytes());
 				}
-			} catch (Exception e) {
-				logger.log(Level.SEVERE, "Error while computing Bacon path: " + e.getMessage(), e);
-				String response = "Internal server error.";
-				exchange.sendResponseHeaders(500, response.length());
-				exchange.getResponseBody().write(response.getBytes());
 			}
 		} else {
 			String response = "actorId is required.";
@@ -127,4 +278,64 @@ public class ComputeBaconPathHandler implements HttpHandler {
 
 		exchange.getResponseBody().close();
 	}
+
+	/**
+	 * Reads the Bacon path from the center's BFS tree, building the tree if needed.
+	 *
+	 * @param actorId  The actor's id.
+	 * @param centerId The center actor's id.
+	 * @return Alternating actor and movie ids from the actor to the center, or null if either actor is unknown or
+	 * there is no path.
+	 */
+	private List<String> baconPathFromGraph(String actorId, String centerId) {
+		ActorMovieGraph graph = centerTables.getGraph();
+		int actor = graph.actorIndexOf(actorId);
+		CenterTable table = centerTables.get(centerId);
+		if (actor < 0 || table == null) {
+			return null;
+		}
+		int[] path = table.pathFrom(actor);
+		if (path == null) {
+			return null;
+		}
+		List<String> baconPath = new ArrayList<>(path.length);
+		for (int i = 0; i < path.length; i++) {
+			baconPath.add(i % 2 == 0 ? graph.actorId(path[i]) : graph.movieId(path[i]));
+		}
+		return baconPath;
+	}
+
+	/**
+	 * Encodes a Bacon path in the encoding the client asked for.
+	 *
+	 * @param exchange  The HTTP exchange, whose Accept header selects the encoding.
+	 * @param baconPath Alternating actor and movie ids from the actor to the center.
+	 * @return The encoder holding the response.
+	 */
+	private static ResponseEncoder encodePath(HttpExchange exchange, List<String> baconPath) {
+		ResponseEncoder encoder = ResponseEncoder.negotiate(exchange);
+		encoder.beginObject(1).key("baconPath").beginArray(baconPath.size());
+		for (String id : baconPath) {
+			encoder.value(id);
+		}
+		return encoder.endArray().endObject();
+	}
+
+	/**
+	 * @param centerId The center actor's id.
+	 * @return The 404 message for an actor with no path to the center.
+	 */
+	private static String noPathMessage(String centerId) {
+		return KEVIN_BACON_ID.equals(centerId) ? "No path to Kevin Bacon found." : "No path to " + centerId + " found.";
+	}
+
+	/**
+	 * @param centerId The center actor's id.
+	 * @param maxHops  The hop limit.
+	 * @return The 422 message for an actor further than the hop limit from the center, or with no path at all when only
+	 * a bounded search was run.
+	 */
+	private static String notWithinMessage(String centerId, int maxHops) {
+		return (KEVIN_BACON_ID.equals(centerId) ? "No path to Kevin Bacon" : "No path to " + centerId) + " within " + maxHops + " hops.";
+	}
 }
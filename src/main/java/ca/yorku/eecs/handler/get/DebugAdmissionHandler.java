@@ -0,0 +1,116 @@
+package ca.yorku.eecs.handler.get;
+
+import ca.yorku.eecs.admission.AdaptiveLimiter;
+import ca.yorku.eecs.admission.CostClass;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Serves the limits, current load, rejections and queue waits of every admission cost class, and the current limit and
+ * measured round-trip times of every adaptive limiter.
+ */
+public class DebugAdmissionHandler implements HttpHandler {
+
+	/**
+	 * Logger for this class
+	 */
+	private static final Logger logger = Logger.getLogger(DebugAdmissionHandler.class.getName());
+
+	/**
+	 * The cost classes reported on.
+	 */
+	private final List<CostClass> costClasses;
+
+	/**
+	 * The adaptive limiters reported on.
+	 */
+	private final List<AdaptiveLimiter> limiters;
+
+	/**
+	 * Constructs a new DebugAdmissionHandler reporting on the given cost classes.
+	 *
+	 * @param costClasses The cost classes, in display order.
+	 */
+	public DebugAdmissionHandler(List<CostClass> costClasses) {
+		this(costClasses, Collections.emptyList());
+	}
+
+	/**
+	 * Constructs a new DebugAdmissionHandler reporting on the given cost classes and adaptive limiters.
+	 *
+	 * @param costClasses The cost classes, in display order.
+	 * @param limiters    The adaptive limiters, in display order.
+	 */
+	public DebugAdmissionHandler(List<CostClass> costClasses, List<AdaptiveLimiter> limiters) {
+		this.costClasses = costClasses;
+		this.limiters = limiters;
+	}
+
+	/**
+	 * Handles the HTTP request to list admission metrics.
+	 *
+	 * @param exchange The HTTP exchange object containing request and response details.
+	 * @throws IOException If an I/O error occurs.
+	 */
+	@Override
+	public void handle(HttpExchange exchange) throws IOException {
+		try {
+			JSONArray classesJson = new JSONArray();
+			for (CostClass costClass : costClasses) {
+				JSONObject classJson = new JSONObject();
+				classJson.put("name", costClass.getName());
+				classJson.put("capacity", costClass.getCapacity());
+				classJson.put("maxQueued", costClass.getMaxQueued());
+				classJson.put("maxWaitMillis", costClass.getMaxWaitMillis());
+				classJson.put("inUse", costClass.getInUse());
+				classJson.put("queued", costClass.getQueued());
+				classJson.put("admitted", costClass.getAdmitted());
+				classJson.put("rejectedQueueFull", costClass.getRejectedQueueFull());
+				classJson.put("rejectedTimeout", costClass.getRejectedTimeout());
+				classJson.put("averageQueueWaitMillis", costClass.getAverageQueueWaitMillis());
+				classJson.put("maxQueueWaitMillis", costClass.getMaxQueueWaitMillis());
+				classesJson.put(classJson);
+			}
+
+			JSONArray limitersJson = new JSONArray();
+			for (AdaptiveLimiter limiter : limiters) {
+				JSONObject limiterJson = new JSONObject();
+				limiterJson.put("name", limiter.getName());
+				limiterJson.put("limit", limiter.getLimit());
+				limiterJson.put("minLimit", limiter.getMinLimit());
+				limiterJson.put("maxLimit", limiter.getMaxLimit());
+				limiterJson.put("maxWaitMillis", limiter.getMaxWaitMillis());
+				limiterJson.put("inFlight", limiter.getInFlight());
+				limiterJson.put("rttMillis", limiter.getRttMillis());
+				limiterJson.put("longTermRttMillis", limiter.getLongTermRttMillis());
+				limiterJson.put("acquired", limiter.getAcquired());
+				limiterJson.put("rejected", limiter.getRejected());
+				limiterJson.put("dropped", limiter.getDropped());
+				limitersJson.put(limiterJson);
+			}
+
+			JSONObject responseJson = new JSONObject();
+			responseJson.put("classes", classesJson);
+			responseJson.put("limiters", limitersJson);
+
+			String response = responseJson.toString();
+			exchange.sendResponseHeaders(200, response.length());
+			exchange.getResponseBody().write(response.getBytes());
+		} catch (Exception e) {
+			logger.log(Level.SEVERE, "Error while listing admission metrics: " + e.getMessage(), e);
+			String response = "Internal server error.";
+			exchange.sendResponseHeaders(500, response.length());
+			exchange.getResponseBody().write(response.getBytes());
+		}
+
+		exchange.getResponseBody().close();
+	}
+}
@@ -0,0 +1,89 @@
+package ca.yorku.eecs.handler.get;
+
+import ca.yorku.eecs.admission.AdaptiveLimiter;
+import ca.yorku.eecs.admission.Bulkhead;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Serves the size, saturation and rejections of every bulkhead, with the routes it runs and its Neo4j session budget.
+ */
+public class DebugBulkheadsHandler implements HttpHandler {
+
+	/**
+	 * Logger for this class
+	 */
+	private static final Logger logger = Logger.getLogger(DebugBulkheadsHandler.class.getName());
+
+	/**
+	 * The bulkheads reported on, with the routes mounted on each.
+	 */
+	private final Map<Bulkhead, List<String>> bulkheads;
+
+	/**
+	 * Constructs a new DebugBulkheadsHandler.
+	 *
+	 * @param bulkheads The bulkheads, in display order, with the routes mounted on each.
+	 */
+	public DebugBulkheadsHandler(Map<Bulkhead, List<String>> bulkheads) {
+		this.bulkheads = bulkheads;
+	}
+
+	/**
+	 * Handles the HTTP request to list bulkhead metrics.
+	 *
+	 * @param exchange The HTTP exchange object containing request and response details.
+	 * @throws IOException If an I/O error occurs.
+	 */
+	@Override
+	public void handle(HttpExchange exchange) throws IOException {
+		try {
+			JSONArray bulkheadsJson = new JSONArray();
+			for (Map.Entry<Bulkhead, List<String>> entry : bulkheads.entrySet()) {
+				Bulkhead bulkhead = entry.getKey();
+				JSONObject bulkheadJson = new JSONObject();
+				bulkheadJson.put("name", bulkhead.getName());
+				bulkheadJson.put("routes", new JSONArray(entry.getValue()));
+				bulkheadJson.put("threads", bulkhead.getThreads());
+				bulkheadJson.put("maxQueued", bulkhead.getMaxQueued());
+				bulkheadJson.put("active", bulkhead.getActive());
+				bulkheadJson.put("queued", bulkhead.getQueued());
+				bulkheadJson.put("saturation", bulkhead.getSaturation());
+				bulkheadJson.put("completed", bulkhead.getCompleted());
+				bulkheadJson.put("rejected", bulkhead.getRejected());
+				AdaptiveLimiter sessions = bulkhead.getSessions();
+				if (sessions != null) {
+					JSONObject sessionsJson = new JSONObject();
+					sessionsJson.put("limit", sessions.getLimit());
+					sessionsJson.put("inFlight", sessions.getInFlight());
+					sessionsJson.put("acquired", sessions.getAcquired());
+					sessionsJson.put("rejected", sessions.getRejected());
+					bulkheadJson.put("sessions", sessionsJson);
+				}
+				bulkheadsJson.put(bulkheadJson);
+			}
+
+			JSONObject responseJson = new JSONObject();
+			responseJson.put("bulkheads", bulkheadsJson);
+
+			String response = responseJson.toString();
+			exchange.sendResponseHeaders(200, response.length());
+			exchange.getResponseBody().write(response.getBytes());
+		} catch (Exception e) {
+			logger.log(Level.SEVERE, "Error while listing bulkhead metrics: " + e.getMessage(), e);
+			String response = "Internal server error.";
+			exchange.sendResponseHeaders(500, response.length());
+			exchange.getResponseBody().write(response.getBytes());
+		}
+
+		exchange.getResponseBody().close();
+	}
+}
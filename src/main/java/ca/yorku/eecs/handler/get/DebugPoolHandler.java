@@ -0,0 +1,119 @@
+package ca.yorku.eecs.handler.get;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.neo4j.driver.internal.InternalDriver;
+import org.neo4j.driver.internal.metrics.spi.ConnectionPoolMetrics;
+import org.neo4j.driver.internal.metrics.spi.Histogram;
+import org.neo4j.driver.v1.Config;
+import org.neo4j.driver.v1.Driver;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Serves the Neo4j driver's connection pool settings and live per-server pool statistics: connections in use, idle
+ * and being created, callers waiting to acquire one, and how long acquisition took.
+ * <p>
+ * The statistics come from the driver's internal metrics, which are only collected when the system property
+ * {@code driver.metrics.enabled} was true when the driver was created; otherwise the list of pools is empty.
+ * </p>
+ */
+public class DebugPoolHandler implements HttpHandler {
+
+	/**
+	 * Logger for this class
+	 */
+	private static final Logger logger = Logger.getLogger(DebugPoolHandler.class.getName());
+
+	/**
+	 * The driver whose pools are reported on; must be the driver itself, not a wrapper.
+	 */
+	private final Driver driver;
+
+	/**
+	 * The configuration the driver was created with.
+	 */
+	private final Config config;
+
+	/**
+	 * Constructs a new DebugPoolHandler.
+	 *
+	 * @param driver The driver as returned by GraphDatabase.driver.
+	 * @param config The configuration the driver was created with.
+	 */
+	public DebugPoolHandler(Driver driver, Config config) {
+		this.driver = driver;
+		this.config = config;
+	}
+
+	/**
+	 * Handles the HTTP request to list connection pool statistics.
+	 *
+	 * @param exchange The HTTP exchange object containing request and response details.
+	 * @throws IOException If an I/O error occurs.
+	 */
+	@Override
+	public void handle(HttpExchange exchange) throws IOException {
+		try {
+			JSONObject settingsJson = new JSONObject();
+			settingsJson.put("maxConnectionPoolSize", config.maxConnectionPoolSize());
+			settingsJson.put("connectionAcquisitionTimeoutMillis", config.connectionAcquisitionTimeoutMillis());
+			settingsJson.put("maxConnectionLifetimeMillis", config.maxConnectionLifetimeMillis());
+			settingsJson.put("connectionTimeoutMillis", config.connectionTimeoutMillis());
+
+			JSONArray poolsJson = new JSONArray();
+			for (Map.Entry<String, ConnectionPoolMetrics> entry : poolMetrics().entrySet()) {
+				ConnectionPoolMetrics pool = entry.getValue();
+				JSONObject poolJson = new JSONObject();
+				poolJson.put("server", entry.getKey());
+				poolJson.put("status", String.valueOf(pool.poolStatus()));
+				poolJson.put("inUse", pool.inUse());
+				poolJson.put("idle", pool.idle());
+				poolJson.put("creating", pool.creating());
+				poolJson.put("acquiring", pool.acquiring());
+				poolJson.put("created", pool.created());
+				poolJson.put("failedToCreate", pool.failedToCreate());
+				poolJson.put("closed", pool.closed());
+				poolJson.put("acquired", pool.acquired());
+				poolJson.put("timedOutToAcquire", pool.timedOutToAcquire());
+				Histogram acquisition = pool.acquisitionTimeHistogram();
+				if (acquisition != null && acquisition.totalCount() > 0) {
+					// The driver records acquisition times in nanoseconds
+					poolJson.put("acquisitionMeanMillis", acquisition.mean() / 1e6);
+					poolJson.put("acquisitionP99Millis", acquisition.valueAtPercentile(99) / 1e6);
+					poolJson.put("acquisitionMaxMillis", acquisition.max() / 1e6);
+				}
+				poolsJson.put(poolJson);
+			}
+
+			JSONObject responseJson = new JSONObject();
+			responseJson.put("settings", settingsJson);
+			responseJson.put("pools", poolsJson);
+
+			String response = responseJson.toString();
+			exchange.sendResponseHeaders(200, response.length());
+			exchange.getResponseBody().write(response.getBytes());
+		} catch (Exception e) {
+			logger.log(Level.SEVERE, "Error while listing connection pool metrics: " + e.getMessage(), e);
+			String response = "Internal server error.";
+			exchange.sendResponseHeaders(500, response.length());
+			exchange.getResponseBody().write(response.getBytes());
+		}
+
+		exchange.getResponseBody().close();
+	}
+
+	private Map<String, ConnectionPoolMetrics> poolMetrics() {
+		if (!(driver instanceof InternalDriver)) {
+			return Collections.emptyMap();
+		}
+		Map<String, ConnectionPoolMetrics> pools = ((InternalDriver) driver).metrics().connectionPoolMetrics();
+		return pools == null ? Collections.emptyMap() : pools;
+	}
+}
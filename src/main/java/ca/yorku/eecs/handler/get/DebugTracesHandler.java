@@ -0,0 +1,114 @@
+package ca.yorku.eecs.handler.get;
+
+import ca.yorku.eecs.tracing.SpanRecord;
+import ca.yorku.eecs.tracing.SpanRingBuffer;
+import ca.yorku.eecs.tracing.Tracer;
+import ca.yorku.eecs.utils.Utils;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Serves the most recent sampled request traces from the in-process span ring buffer.
+ * <p>
+ * Spans are grouped by trace id. The optional {@code limit} query parameter bounds the number of spans read
+ * (default 500) and {@code traceId} restricts the output to a single trace.
+ * </p>
+ */
+public class DebugTracesHandler implements HttpHandler {
+
+	/**
+	 * Logger for this class
+	 */
+	private static final Logger logger = Logger.getLogger(DebugTracesHandler.class.getName());
+
+	/**
+	 * Number of spans read when no limit is given.
+	 */
+	private static final int DEFAULT_LIMIT = 500;
+
+	/**
+	 * The ring buffer the spans are read from.
+	 */
+	private final SpanRingBuffer buffer;
+
+	/**
+	 * Constructs a new DebugTracesHandler reading from the given ring buffer.
+	 *
+	 * @param buffer The span ring buffer.
+	 */
+	public DebugTracesHandler(SpanRingBuffer buffer) {
+		this.buffer = buffer;
+	}
+
+	/**
+	 * Handles the HTTP request to list recent traces.
+	 *
+	 * @param exchange The HTTP exchange object containing request and response details.
+	 * @throws IOException If an I/O error occurs.
+	 */
+	@Override
+	public void handle(HttpExchange exchange) throws IOException {
+		Map<String, String> queryParams = Utils.splitQuery(exchange.getRequestURI().getQuery());
+
+		try {
+			int limit = queryParams.containsKey("limit") ? Integer.parseInt(queryParams.get("limit")) : DEFAULT_LIMIT;
+			String traceId = queryParams.get("traceId");
+
+			// Group the spans by trace, keeping the order in which the traces were seen
+			Map<String, JSONObject> traces = new LinkedHashMap<>();
+			List<SpanRecord> records = buffer.snapshot(limit);
+			for (SpanRecord record : records) {
+				if (traceId != null && !traceId.equals(record.getTraceId())) {
+					continue;
+				}
+				JSONObject trace = traces.get(record.getTraceId());
+				if (trace == null) {
+					trace = new JSONObject();
+					trace.put("traceId", record.getTraceId());
+					trace.put("operation", record.getOperation());
+					trace.put("start", record.getTraceStartMillis());
+					trace.put("spans", new JSONArray());
+					traces.put(record.getTraceId(), trace);
+				}
+				if (record.isRoot()) {
+					trace.put("durationMicros", record.getDurationNanos() / 1000);
+				} else {
+					JSONObject span = new JSONObject();
+					span.put("name", record.getName());
+					span.put("offsetMicros", record.getOffsetNanos() / 1000);
+					span.put("durationMicros", record.getDurationNanos() / 1000);
+					trace.getJSONArray("spans").put(span);
+				}
+			}
+
+			JSONObject responseJson = new JSONObject();
+			responseJson.put("sampleRate", Tracer.getSampleRate());
+			responseJson.put("spansWritten", buffer.getWritten());
+			responseJson.put("traces", new JSONArray(traces.values()));
+
+			String response = responseJson.toString();
+			exchange.sendResponseHeaders(200, response.length());
+			exchange.getResponseBody().write(response.getBytes());
+		} catch (NumberFormatException e) {
+			String response = "limit must be an integer.";
+			exchange.sendResponseHeaders(400, response.length());
+			exchange.getResponseBody().write(response.getBytes());
+		} catch (Exception e) {
+			logger.log(Level.SEVERE, "Error while listing traces: " + e.getMessage(), e);
+			String response = "Internal server error.";
+			exchange.sendResponseHeaders(500, response.length());
+			exchange.getResponseBody().write(response.getBytes());
+		}
+
+		exchange.getResponseBody().close();
+	}
+}
@@ -0,0 +1,225 @@
+package ca.yorku.eecs.handler.get;
+
+import ca.yorku.eecs.routing.Bookmarks;
+import ca.yorku.eecs.tracing.Trace;
+import ca.yorku.eecs.tracing.Tracer;
+import ca.yorku.eecs.utils.Utils;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.json.JSONObject;
+import org.neo4j.driver.v1.Driver;
+import org.neo4j.driver.v1.Record;
+import org.neo4j.driver.v1.Session;
+import org.neo4j.driver.v1.StatementResult;
+import org.neo4j.driver.v1.Value;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Streams every actor, movie and ACTED_IN relationship to the client via HTTP requests.
+ * <p>
+ * The {@code format} query parameter selects newline-delimited JSON ({@code ndjson}, the default) or {@code csv}.
+ * All rows come from a single Cypher result cursor and are written as they arrive, with chunked transfer encoding and
+ * a fixed-size output buffer, so the export never holds the graph in memory. The driver stops reading from the
+ * socket while its record queue is full, so a slow client slows the database stream down rather than filling the
+ * heap. Once the response has started, an error ends the output with an {@code error} row, in the same shape as the
+ * others, and the body is left unfinished so that the server drops the connection rather than completing the response:
+ * a truncated export never looks like a complete one.
+ * </p>
+ */
+public class ExportHandler implements HttpHandler {
+
+	private static final Logger logger = Logger.getLogger(ExportHandler.class.getName());
+
+	/**
+	 * Cypher statement returning actors, then movies, then relationships, as rows of one shape.
+	 */
+	public static final String EXPORT_QUERY =
+			"MATCH (a:Actor) RETURN 'actor' AS type, a.actorId AS actorId, null AS movieId, a.name AS name " +
+			"UNION ALL MATCH (m:Movie) RETURN 'movie' AS type, null AS actorId, m.movieId AS movieId, m.name AS name " +
+			"UNION ALL MATCH (a:Actor)-[:ACTED_IN]->(m:Movie) RETURN 'actedIn' AS type, a.actorId AS actorId, m.movieId AS movieId, null AS name";
+
+	/**
+	 * Header row of the CSV format.
+	 */
+	static final String CSV_HEADER = "type,actorId,movieId,name\n";
+
+	/**
+	 * Size of the buffer between the writer and the chunked response body.
+	 */
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * The Neo4j database driver instance used for database operations.
+	 */
+	private final Driver driver;
+
+	/**
+	 * Constructs a new ExportHandler with the provided Neo4j driver.
+	 *
+	 * @param driver The Neo4j driver instance.
+	 */
+	public ExportHandler(Driver driver) {
+		this.driver = driver;
+	}
+
+	/**
+	 * Handles the HTTP request to export the graph.
+	 *
+	 * @param exchange The HTTP exchange object containing request and response details.
+	 * @throws IOException If an I/O error occurs.
+	 */
+	@Override
+	public void handle(HttpExchange exchange) throws IOException {
+		Trace trace = Tracer.start("export", exchange);
+		try {
+			handle(exchange, trace);
+		} finally {
+			trace.finish();
+		}
+	}
+
+	/**
+	 * Handles the request, marking each stage on the given trace.
+	 *
+	 * @param exchange The HTTP exchange object containing request and response details.
+	 * @param trace    The request's trace.
+	 * @throws IOException If an I/O error occurs.
+	 */
+	private void handle(HttpExchange exchange, Trace trace) throws IOException {
+		logger.log(Level.INFO, "Received request to export the graph.");
+
+		trace.stage("parse");
+		Map<String, String> queryParams = Utils.splitQuery(exchange.getRequestURI().getQuery());
+		String format = queryParams.getOrDefault("format", "ndjson");
+
+		if (!format.equals("ndjson") && !format.equals("csv")) {
+			String response = "format must be ndjson or csv.";
+			exchange.sendResponseHeaders(400, response.length());
+			exchange.getResponseBody().write(response.getBytes());
+			exchange.getResponseBody().close();
+			return;
+		}
+
+		boolean csv = format.equals("csv");
+		Writer writer = null;
+		long start = System.currentTimeMillis();
+		long rows = 0;
+		trace.stage("session");
+		try (Session session = Bookmarks.readSession(driver, exchange)) {
+			trace.stage("cypher");
+			StatementResult result = session.run(EXPORT_QUERY);
+			// Surfaces query errors while a 500 can still be sent
+			result.hasNext();
+
+			trace.stage("write");
+			exchange.getResponseHeaders().set("Content-Type", csv ? "text/csv; charset=utf-8" : "application/x-ndjson");
+			exchange.sendResponseHeaders(200, 0);
+			writer = new OutputStreamWriter(new BufferedOutputStream(exchange.getResponseBody(), BUFFER_SIZE), StandardCharsets.UTF_8);
+			if (csv) {
+				writer.write(CSV_HEADER);
+			}
+			while (result.hasNext()) {
+				Record record = result.next();
+				if (csv) {
+					writeCsv(writer, record);
+				} else {
+					writeJson(writer, record);
+				}
+				rows++;
+			}
+			writer.flush();
+		} catch (Exception e) {
+			if (writer != null) {
+				String message = "Export aborted after " + rows + " rows.";
+				try {
+					writeError(writer, csv, message);
+					writer.flush();
+				} catch (IOException ignored) {
+					// The client is gone, so there is nobody left to tell
+				}
+				// Propagate without closing the body, so the server aborts the response instead of completing it
+				throw new IOException(message + " " + e.getMessage(), e);
+			}
+			logger.log(Level.SEVERE, "Error while exporting the graph: " + e.getMessage(), e);
+			String response = "Internal server error.";
+			exchange.sendResponseHeaders(500, response.length());
+			exchange.getResponseBody().write(response.getBytes());
+			exchange.getResponseBody().close();
+			return;
+		}
+
+		exchange.getResponseBody().close();
+		long elapsed = System.currentTimeMillis() - start;
+		logger.info(String.format("Exported %d rows as %s in %d ms (%.0f rows/s)",
+				rows, format, elapsed, rows * 1000.0 / Math.max(1, elapsed)));
+	}
+
+	/**
+	 * Writes one row as a JSON object followed by a newline, omitting null fields.
+	 */
+	private static void writeJson(Writer writer, Record record) throws Exception {
+		JSONObject row = new JSONObject();
+		row.put("type", record.get("type").asString());
+		putIfPresent(row, "actorId", record.get("actorId"));
+		putIfPresent(row, "movieId", record.get("movieId"));
+		putIfPresent(row, "name", record.get("name"));
+		writer.write(row.toString());
+		writer.write('\n');
+	}
+
+	private static void putIfPresent(JSONObject row, String key, Value value) throws Exception {
+		if (!value.isNull()) {
+			row.put(key, value.asString());
+		}
+	}
+
+	/**
+	 * Writes the row marking a failed export: type {@code error} with the message as its name.
+	 */
+	private static void writeError(Writer writer, boolean csv, String message) throws IOException {
+		if (csv) {
+			writer.write("error,,," + csvField(message) + "\n");
+		} else {
+			writer.write("{\"type\":\"error\",\"name\":" + JSONObject.quote(message) + "}\n");
+		}
+	}
+
+	/**
+	 * Writes one row in CSV, leaving null fields empty.
+	 */
+	private static void writeCsv(Writer writer, Record record) throws IOException {
+		writer.write(record.get("type").asString());
+		for (String key : new String[]{"actorId", "movieId", "name"}) {
+			writer.write(',');
+			Value value = record.get(key);
+			if (!value.isNull()) {
+				writer.write(csvField(value.asString()));
+			}
+		}
+		writer.write('\n');
+	}
+
+	/**
+	 * Quotes a field if it contains a comma, quote or line break, doubling any quotes.
+	 *
+	 * @param field The field.
+	 * @return The field as written to CSV.
+	 */
+	static String csvField(String field) {
+		for (int i = 0; i < field.length(); i++) {
+			char c = field.charAt(i);
+			if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+				return '"' + field.replace("\"", "\"\"") + '"';
+			}
+		}
+		return field;
+	}
+}
@@ -1,15 +1,21 @@
 package ca.yorku.eecs.handler.get;
 
+import ca.yorku.eecs.encoding.ResponseEncoder;
+import ca.yorku.eecs.membership.KnownIds;
+import ca.yorku.eecs.routing.Bookmarks;
+import ca.yorku.eecs.tracing.Trace;
+import ca.yorku.eecs.tracing.Tracer;
 import ca.yorku.eecs.utils.Utils;
+import ca.yorku.eecs.versioning.EntityVersions;
 import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpExchange;
 import org.neo4j.driver.v1.*;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import org.json.JSONArray;
-import org.json.JSONObject;
 import org.neo4j.driver.v1.Record;
 
 /**
@@ -28,18 +34,48 @@ public class GetActorHandler implements HttpHandler {
      */
     private final Driver driver;
 
+    /**
+     * Version counters the ETags are derived from, or null to send no ETags.
+     */
+    private final EntityVersions versions;
+
+    /**
+     * Negative cache answering requests for unknown actorIds without a query, or null to query for every id.
+     */
+    private final KnownIds knownIds;
+
+    /**
+     * Cypher statement fetching an actor and the movieIds they acted in.
+     */
+    public static final String GET_ACTOR_QUERY = "MATCH (a:Actor {actorId: $actorId}) OPTIONAL MATCH (a)-[:ACTED_IN]->(m:Movie) RETURN a.name as name, a.actorId as actorId, collect(m.movieId) as movies";
+
     /**
      * Logger for this class
      */
     private static final Logger logger = Logger.getLogger(GetActorHandler.class.getName());
 
     /**
-     * Constructs a new GetActorHandler with the provided Neo4j driver.
+     * Constructs a new GetActorHandler with the provided Neo4j driver and no ETags.
      *
      * @param driver The Neo4j driver instance.
      */
     public GetActorHandler(Driver driver) {
+        this(driver, null, null);
+    }
+
+    /**
+     * Constructs a new GetActorHandler that tags responses with the actor's version, answering matching If-None-Match
+     * requests with 304 without querying the database, and that answers 404 without querying it for actorIds known not
+     * to exist.
+     *
+     * @param driver   The Neo4j driver instance.
+     * @param versions The version counters bumped by the PUT handlers, or null to send no ETags.
+     * @param knownIds The filters over existing ids, or null.
+     */
+    public GetActorHandler(Driver driver, EntityVersions versions, KnownIds knownIds) {
         this.driver = driver;
+        this.versions = versions;
+        this.knownIds = knownIds;
     }
 
     /**
@@ -54,8 +90,25 @@ public class GetActorHandler implements HttpHandler {
      */
     @Override
     public void handle(HttpExchange exchange) throws IOException {
+        Trace trace = Tracer.start("getActor", exchange);
+        try {
+            handle(exchange, trace);
+        } finally {
+            trace.finish();
+        }
+    }
+
+    /**
+     * Handles the request, marking each stage on the given trace.
+     *
+     * @param exchange The HTTP exchange object containing request and response details.
+     * @param trace    The request's trace.
+     * @throws IOException If an I/O error occurs.
+     */
+    private void handle(HttpExchange exchange, Trace trace) throws IOException {
         logger.log(Level.INFO, "Received request to get actor details.");
 
+        trace.stage("parse");
         // Extracting the query parameters
         String query = exchange.getRequestURI().getQuery();
         Map<String, String> queryParams = Utils.splitQuery(query);
@@ -64,28 +117,63 @@ public class GetActorHandler implements HttpHandler {
         if (queryParams.containsKey("actorId")) {
             String actorId = queryParams.get("actorId");
 
-            try (Session session = driver.session()) {
+            if (knownIds != null && !knownIds.mightContainActor(actorId)) {
+                // No actor with this id was ever created, so the query could only come back empty
+                String response = "Actor not found.";
+                exchange.sendResponseHeaders(404, response.length());
+                exchange.getResponseBody().write(response.getBytes());
+                exchange.getResponseBody().close();
+                return;
+            }
+
+            // The version is read before the query, so the tag is never newer than the data
+            ResponseEncoder encoder = ResponseEncoder.negotiate(exchange);
+            String etag = versions == null ? null : versions.actorTag(actorId, encoder.getContentType());
+            if (etag != null && EntityVersions.matches(exchange.getRequestHeaders().getFirst("If-None-Match"), etag)) {
+                // The client's copy is current
+                exchange.getResponseHeaders().set("ETag", etag);
+                exchange.sendResponseHeaders(304, -1);
+                exchange.getResponseBody().close();
+                return;
+            }
+
+            trace.stage("session");
+            // A replica may not have applied the write the tag counts yet, so the session waits for its bookmark
+            try (Session session = etag == null ? Bookmarks.readSession(driver, exchange) : Bookmarks.taggedReadSession(driver, exchange, versions.actorBookmark(actorId))) {
+                trace.stage("cypher");
                 // Run query to fetch actor and movies
-                StatementResult result = session.run("MATCH (a:Actor {actorId: $actorId}) OPTIONAL MATCH (a)-[:ACTED_IN]->(m:Movie) RETURN a.name as name, a.actorId as actorId, collect(m.movieId) as movies", Values.parameters("actorId", actorId));
+                StatementResult result = session.run(GET_ACTOR_QUERY, Values.parameters("actorId", actorId));
 
-                if (result.hasNext()) {
+                if (result.hasNext() && etag != null && EntityVersions.matchesAny(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                    // A "*" matches any current representation, and only now is one known to exist
+                    trace.stage("write");
+                    exchange.getResponseHeaders().set("ETag", etag);
+                    exchange.sendResponseHeaders(304, -1);
+                } else if (result.hasNext()) {
                     Record record = result.single();
-                    JSONObject responseJson = new JSONObject();
-                    responseJson.put("name", record.get("name").asString());
-                    responseJson.put("actorId", record.get("actorId").asString());
-
-                    // Adding movies
-                    JSONArray moviesArray = new JSONArray();
+                    trace.stage("encode");
+                    // Collecting movies, skipping null values in case the actor has not acted in any movies
+                    List<String> movies = new ArrayList<>();
                     for (Value movieId : record.get("movies").values()) {
-                        if (movieId != null && !movieId.isNull()) { // Checking for null values in case the actor has not acted in any movies
-                            moviesArray.put(movieId.asString());
+                        if (movieId != null && !movieId.isNull()) {
+                            movies.add(movieId.asString());
                         }
                     }
-                    responseJson.put("movies", moviesArray);
 
-                    String response = responseJson.toString();
-                    exchange.sendResponseHeaders(200, response.length());
-                    exchange.getResponseBody().write(response.getBytes());
+                    encoder.beginObject(3)
+                            .key("name").value(record.get("name").asString())
+                            .key("actorId").value(record.get("actorId").asString())
+                            .key("movies").beginArray(movies.size());
+                    for (String id : movies) {
+                        encoder.value(id);
+                    }
+                    encoder.endArray().endObject();
+
+                    trace.stage("write");
+                    if (etag != null) {
+                        exchange.getResponseHeaders().set("ETag", etag);
+                    }
+                    encoder.send(exchange, 200);
                 } else {
                     // Actor not found
                     String response = "Actor not found.";
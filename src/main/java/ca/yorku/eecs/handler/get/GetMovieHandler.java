@@ -1,15 +1,21 @@
 package ca.yorku.eecs.handler.get;
 
+import ca.yorku.eecs.encoding.ResponseEncoder;
+import ca.yorku.eecs.membership.KnownIds;
+import ca.yorku.eecs.routing.Bookmarks;
+import ca.yorku.eecs.tracing.Trace;
+import ca.yorku.eecs.tracing.Tracer;
 import ca.yorku.eecs.utils.Utils;
+import ca.yorku.eecs.versioning.EntityVersions;
 import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpExchange;
 import org.neo4j.driver.v1.*;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import org.json.JSONArray;
-import org.json.JSONObject;
 import org.neo4j.driver.v1.Record;
 
 /**
@@ -28,18 +34,48 @@ public class GetMovieHandler implements HttpHandler {
      */
     private final Driver driver;
 
+    /**
+     * Version counters the ETags are derived from, or null to send no ETags.
+     */
+    private final EntityVersions versions;
+
+    /**
+     * Negative cache answering requests for unknown movieIds without a query, or null to query for every id.
+     */
+    private final KnownIds knownIds;
+
+    /**
+     * Cypher statement fetching a movie and the actorIds that acted in it.
+     */
+    public static final String GET_MOVIE_QUERY = "MATCH (m:Movie {movieId: $movieId}) OPTIONAL MATCH (m)<-[:ACTED_IN]-(a:Actor) RETURN m.name as name, m.movieId as movieId, collect(a.actorId) as actors";
+
     /**
      * Logger for this class
      */
     private static final Logger logger = Logger.getLogger(GetMovieHandler.class.getName());
 
     /**
-     * Constructs a new GetMovieHandler with the provided Neo4j driver.
+     * Constructs a new GetMovieHandler with the provided Neo4j driver and no ETags.
      *
      * @param driver The Neo4j driver instance.
      */
     public GetMovieHandler(Driver driver) {
+        this(driver, null, null);
+    }
+
+    /**
+     * Constructs a new GetMovieHandler that tags responses with the movie's version, answering matching If-None-Match
+     * requests with 304 without querying the database, and that answers 404 without querying it for movieIds known not
+     * to exist.
+     *
+     * @param driver   The Neo4j driver instance.
+     * @param versions The version counters bumped by the PUT handlers, or null to send no ETags.
+     * @param knownIds The filters over existing ids, or null.
+     */
+    public GetMovieHandler(Driver driver, EntityVersions versions, KnownIds knownIds) {
         this.driver = driver;
+        this.versions = versions;
+        this.knownIds = knownIds;
     }
 
     /**
@@ -54,8 +90,25 @@ public class GetMovieHandler implements HttpHandler {
      */
     @Override
     public void handle(HttpExchange exchange) throws IOException {
+        Trace trace = Tracer.start("getMovie", exchange);
+        try {
+            handle(exchange, trace);
+        } finally {
+            trace.finish();
+        }
+    }
+
+    /**
+     * Handles the request, marking each stage on the given trace.
+     *
+     * @param exchange The HTTP exchange object containing request and response details.
+     * @param trace    The request's trace.
+     * @throws IOException If an I/O error occurs.
+     */
+    private void handle(HttpExchange exchange, Trace trace) throws IOException {
         logger.log(Level.INFO, "Received request to get movie details.");
 
+        trace.stage("parse");
         // Extracting the query parameters
         String query = exchange.getRequestURI().getQuery();
         Map<String, String> queryParams = Utils.splitQuery(query);
@@ -64,28 +117,63 @@ public class GetMovieHandler implements HttpHandler {
         if (queryParams.containsKey("movieId")) {
             String movieId = queryParams.get("movieId");
 
-            try (Session session = driver.session()) {
+            if (knownIds != null && !knownIds.mightContainMovie(movieId)) {
+                // No movie with this id was ever created, so the query could only come back empty
+                String response = "Movie not found.";
+                exchange.sendResponseHeaders(404, response.length());
+                exchange.getResponseBody().write(response.getBytes());
+                exchange.getResponseBody().close();
+                return;
+            }
+
+            // The version is read before the query, so the tag is never newer than the data
+            ResponseEncoder encoder = ResponseEncoder.negotiate(exchange);
+            String etag = versions == null ? null : versions.movieTag(movieId, encoder.getContentType());
+            if (etag != null && EntityVersions.matches(exchange.getRequestHeaders().getFirst("If-None-Match"), etag)) {
+                // The client's copy is current
+                exchange.getResponseHeaders().set("ETag", etag);
+                exchange.sendResponseHeaders(304, -1);
+                exchange.getResponseBody().close();
+                return;
+            }
+
+            trace.stage("session");
+            // A replica may not have applied the write the tag counts yet, so the session waits for its bookmark
+            try (Session session = etag == null ? Bookmarks.readSession(driver, exchange) : Bookmarks.taggedReadSession(driver, exchange, versions.movieBookmark(movieId))) {
+                trace.stage("cypher");
                 // Run query to fetch movie and actors
-                StatementResult result = session.run("MATCH (m:Movie {movieId: $movieId}) OPTIONAL MATCH (m)<-[:ACTED_IN]-(a:Actor) RETURN m.name as name, m.movieId as movieId, collect(a.actorId) as actors", Values.parameters("movieId", movieId));
+                StatementResult result = session.run(GET_MOVIE_QUERY, Values.parameters("movieId", movieId));
 
-                if (result.hasNext()) {
+                if (result.hasNext() && etag != null && EntityVersions.matchesAny(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                    // A "*" matches any current representation, and only now is one known to exist
+                    trace.stage("write");
+                    exchange.getResponseHeaders().set("ETag", etag);
+                    exchange.sendResponseHeaders(304, -1);
+                } else if (result.hasNext()) {
                     Record record = result.single();
-                    JSONObject responseJson = new JSONObject();
-                    responseJson.put("name", record.get("name").asString());
-                    responseJson.put("movieId", record.get("movieId").asString());
-
-                    // Adding actors
-                    JSONArray actorsArray = new JSONArray();
+                    trace.stage("encode");
+                    // Collecting actors, skipping null values in case no actors acted in the movie
+                    List<String> actors = new ArrayList<>();
                     for (Value actorId : record.get("actors").values()) {
-                        if (actorId != null && !actorId.isNull()) { // Checking for null values in case no actors acted in the movie
-                            actorsArray.put(actorId.asString());
+                        if (actorId != null && !actorId.isNull()) {
+                            actors.add(actorId.asString());
                         }
                     }
-                    responseJson.put("actors", actorsArray);
 
-                    String response = responseJson.toString();
-                    exchange.sendResponseHeaders(200, response.length());
-                    exchange.getResponseBody().write(response.getBytes());
+                    encoder.beginObject(3)
+                            .key("name").value(record.get("name").asString())
+                            .key("movieId").value(record.get("movieId").asString())
+                            .key("actors").beginArray(actors.size());
+                    for (String id : actors) {
+                        encoder.value(id);
+                    }
+                    encoder.endArray().endObject();
+
+                    trace.stage("write");
+                    if (etag != null) {
+                        exchange.getResponseHeaders().set("ETag", etag);
+                    }
+                    encoder.send(exchange, 200);
                 } else {
                     // Movie not found
                     String response = "Movie not found.";
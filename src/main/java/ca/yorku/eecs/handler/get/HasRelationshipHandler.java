@@ -1,5 +1,10 @@
 package ca.yorku.eecs.handler.get;
 
+import ca.yorku.eecs.graph.ActorMovieGraph;
+import ca.yorku.eecs.membership.KnownIds;
+import ca.yorku.eecs.routing.Bookmarks;
+import ca.yorku.eecs.tracing.Trace;
+import ca.yorku.eecs.tracing.Tracer;
 import ca.yorku.eecs.utils.Utils;
 import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpExchange;
@@ -24,6 +29,21 @@ public class HasRelationshipHandler implements HttpHandler {
 	 */
 	private final Driver driver;
 
+	/**
+	 * Negative cache answering requests for unknown ids without a query, or null to query for every pair.
+	 */
+	private final KnownIds knownIds;
+
+	/**
+	 * In-memory graph whose edge index answers in place of Cypher once loaded, or null to always use Cypher.
+	 */
+	private final ActorMovieGraph graph;
+
+	/**
+	 * Cypher statement matching the ACTED_IN relationship between an actor and a movie.
+	 */
+	public static final String HAS_RELATIONSHIP_QUERY = "MATCH (a:Actor {actorId: $actorId})-[r:ACTED_IN]->(m:Movie {movieId: $movieId}) RETURN r";
+
 	/**
 	 * Logger for this class
 	 */
@@ -35,7 +55,22 @@ public class HasRelationshipHandler implements HttpHandler {
 	 * @param driver The Neo4j driver instance.
 	 */
 	public HasRelationshipHandler(Driver driver) {
+		this(driver, null, null);
+	}
+
+	/**
+	 * Constructs a new HasRelationshipHandler that answers 404 without querying the database when the actor or the
+	 * movie is known not to exist, and answers from the in-memory graph's edge index once the graph is loaded.
+	 *
+	 * @param driver   The Neo4j driver instance.
+	 * @param knownIds The filters over existing ids, or null.
+	 * @param graph    The in-memory graph, kept current from the write journal, or null to always query Neo4j,
+	 *                 e.g. when relationships are also created other than through this server.
+	 */
+	public HasRelationshipHandler(Driver driver, KnownIds knownIds, ActorMovieGraph graph) {
 		this.driver = driver;
+		this.knownIds = knownIds;
+		this.graph = graph;
 	}
 
 	/**
@@ -49,8 +84,25 @@ public class HasRelationshipHandler implements HttpHandler {
 	 */
 	@Override
 	public void handle(HttpExchange exchange) throws IOException {
+		Trace trace = Tracer.start("hasRelationship", exchange);
+		try {
+			handle(exchange, trace);
+		} finally {
+			trace.finish();
+		}
+	}
+
+	/**
+	 * Handles the request, marking each stage on the given trace.
+	 *
+	 * @param exchange The HTTP exchange object containing request and response details.
+	 * @param trace    The request's trace.
+	 * @throws IOException If an I/O error occurs.
+	 */
+	private void handle(HttpExchange exchange, Trace trace) throws IOException {
 		logger.log(Level.INFO, "Received request to verify ACTED_IN relationship.");
 
+		trace.stage("parse");
 		// Extracting the query parameters
 		String query = exchange.getRequestURI().getQuery();
 		Map<String, String> queryParams = Utils.splitQuery(query);
@@ -59,13 +111,39 @@ public class HasRelationshipHandler implements HttpHandler {
 			String actorId = queryParams.get("actorId");
 			String movieId = queryParams.get("movieId");
 
-			try (Session session = driver.session()) {
+			if (knownIds != null && (!knownIds.mightContainActor(actorId) || !knownIds.mightContainMovie(movieId))) {
+				// No actor or no movie with this id was ever created, so neither was the relationship
+				String response = "Relationship does not exist.";
+				exchange.sendResponseHeaders(404, response.length());
+				exchange.getResponseBody().write(response.getBytes());
+				exchange.getResponseBody().close();
+				return;
+			}
+
+			if (graph != null && graph.isLoaded()) {
+				// The graph holds every relationship in the database at load and every one added through this server
+				// since, so a set lookup is as good as the query unless something else writes to Neo4j
+				trace.stage("lookup");
+				boolean exists = graph.hasRelationship(actorId, movieId);
+
+				trace.stage("write");
+				String response = exists ? "Relationship exists." : "Relationship does not exist.";
+				exchange.sendResponseHeaders(exists ? 200 : 404, response.length());
+				exchange.getResponseBody().write(response.getBytes());
+				exchange.getResponseBody().close();
+				return;
+			}
+
+			trace.stage("session");
+			try (Session session = Bookmarks.readSession(driver, exchange)) {
+				trace.stage("cypher");
 				StatementResult result = session.run(
-						"MATCH (a:Actor {actorId: $actorId})-[r:ACTED_IN]->(m:Movie {movieId: $movieId}) RETURN r",
+						HAS_RELATIONSHIP_QUERY,
 						Values.parameters("actorId", actorId, "movieId", movieId)
 				);
 
 				if (result.hasNext()) {
+					trace.stage("write");
 					String response = "Relationship exists.";
 					exchange.sendResponseHeaders(200, response.length());
 					exchange.getResponseBody().write(response.getBytes());
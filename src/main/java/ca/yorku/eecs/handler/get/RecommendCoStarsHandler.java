@@ -0,0 +1,157 @@
+package ca.yorku.eecs.handler.get;
+
+import ca.yorku.eecs.graph.ActorMovieGraph;
+import ca.yorku.eecs.graph.CoStarRecommendations;
+import ca.yorku.eecs.graph.CoStarRecommender;
+import ca.yorku.eecs.tracing.Trace;
+import ca.yorku.eecs.tracing.Tracer;
+import ca.yorku.eecs.utils.Utils;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Handles requests for co-star recommendations for an actor.
+ * <p>
+ * The response lists the actors who share the most movies with the given actor ({@code coStars}) and the actors two
+ * hops away, i.e. co-stars of co-stars the actor has never worked with, ranked by the number of co-stars they have in
+ * common ({@code twoHop}). The optional {@code k} query parameter selects how many of each to return (default 10).
+ * Recommendations are computed from the in-memory graph and cached per actor until a relationship is added; until the
+ * graph has loaded the handler responds with 503.
+ * </p>
+ */
+public class RecommendCoStarsHandler implements HttpHandler {
+
+	private static final Logger logger = Logger.getLogger(RecommendCoStarsHandler.class.getName());
+
+	/**
+	 * Number of actors returned in each list when no k is given.
+	 */
+	private static final int DEFAULT_K = 10;
+
+	/**
+	 * The recommender the results are served from.
+	 */
+	private final CoStarRecommender recommender;
+
+	/**
+	 * Constructs a new RecommendCoStarsHandler serving from the given recommender.
+	 *
+	 * @param recommender The co-star recommender.
+	 */
+	public RecommendCoStarsHandler(CoStarRecommender recommender) {
+		this.recommender = recommender;
+	}
+
+	/**
+	 * Handles the HTTP request to recommend co-stars for an actor.
+	 *
+	 * @param exchange The HTTP exchange object containing request and response details.
+	 * @throws IOException If an I/O error occurs.
+	 */
+	@Override
+	public void handle(HttpExchange exchange) throws IOException {
+		Trace trace = Tracer.start("recommendCoStars", exchange);
+		try {
+			handle(exchange, trace);
+		} finally {
+			trace.finish();
+		}
+	}
+
+	/**
+	 * Handles the request, marking each stage on the given trace.
+	 *
+	 * @param exchange The HTTP exchange object containing request and response details.
+	 * @param trace    The request's trace.
+	 * @throws IOException If an I/O error occurs.
+	 */
+	private void handle(HttpExchange exchange, Trace trace) throws IOException {
+		logger.log(Level.INFO, "Received request to recommend co-stars.");
+
+		trace.stage("parse");
+		Map<String, String> queryParams = Utils.splitQuery(exchange.getRequestURI().getQuery());
+
+		if (queryParams.containsKey("actorId")) {
+			String actorId = queryParams.get("actorId");
+			try {
+				int k = queryParams.containsKey("k") ? Integer.parseInt(queryParams.get("k")) : Math.min(DEFAULT_K, recommender.getMaxK());
+				if (k < 1 || k > recommender.getMaxK()) {
+					throw new NumberFormatException();
+				}
+
+				ActorMovieGraph graph = recommender.getGraph();
+				if (!graph.isLoaded()) {
+					String response = "Graph not loaded yet.";
+					exchange.sendResponseHeaders(503, response.length());
+					exchange.getResponseBody().write(response.getBytes());
+				} else {
+					trace.stage("compute");
+					CoStarRecommendations recommendations = recommender.get(actorId);
+
+					if (recommendations != null) {
+						trace.stage("encode");
+						JSONObject responseJson = new JSONObject();
+						responseJson.put("actorId", actorId);
+						responseJson.put("coStars", toJson(graph, recommendations.getCoStars(),
+								recommendations.getSharedMovies(), "sharedMovies", k));
+						responseJson.put("twoHop", toJson(graph, recommendations.getTwoHop(),
+								recommendations.getCommonCoStars(), "commonCoStars", k));
+
+						trace.stage("write");
+						String response = responseJson.toString();
+						exchange.sendResponseHeaders(200, response.length());
+						exchange.getResponseBody().write(response.getBytes());
+					} else {
+						String response = "Actor not found.";
+						exchange.sendResponseHeaders(404, response.length());
+						exchange.getResponseBody().write(response.getBytes());
+					}
+				}
+			} catch (NumberFormatException e) {
+				String response = "k must be an integer between 1 and " + recommender.getMaxK() + ".";
+				exchange.sendResponseHeaders(400, response.length());
+				exchange.getResponseBody().write(response.getBytes());
+			} catch (Exception e) {
+				logger.log(Level.SEVERE, "Error while recommending co-stars: " + e.getMessage(), e);
+				String response = "Internal server error.";
+				exchange.sendResponseHeaders(500, response.length());
+				exchange.getResponseBody().write(response.getBytes());
+			}
+		} else {
+			String response = "actorId is required.";
+			exchange.sendResponseHeaders(400, response.length());
+			exchange.getResponseBody().write(response.getBytes());
+		}
+
+		exchange.getResponseBody().close();
+	}
+
+	/**
+	 * Encodes the first k ranked actors.
+	 *
+	 * @param graph     The graph the actor indexes belong to.
+	 * @param actors    Actor indexes, best first.
+	 * @param counts    The count each actor was ranked by.
+	 * @param countName JSON field name of the count.
+	 * @param k         Maximum number of actors to encode.
+	 * @return The JSON array.
+	 */
+	private static JSONArray toJson(ActorMovieGraph graph, int[] actors, int[] counts, String countName, int k) throws Exception {
+		JSONArray array = new JSONArray();
+		for (int i = 0; i < Math.min(k, actors.length); i++) {
+			JSONObject actorJson = new JSONObject();
+			actorJson.put("actorId", graph.actorId(actors[i]));
+			actorJson.put("name", graph.actorName(actors[i]));
+			actorJson.put(countName, counts[i]);
+			array.put(actorJson);
+		}
+		return array;
+	}
+}
@@ -0,0 +1,155 @@
+package ca.yorku.eecs.handler.get;
+
+import ca.yorku.eecs.search.NameIndex;
+import ca.yorku.eecs.search.SearchIndex;
+import ca.yorku.eecs.tracing.Trace;
+import ca.yorku.eecs.tracing.Tracer;
+import ca.yorku.eecs.utils.Utils;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Handles prefix searches over actor and movie names via HTTP requests.
+ * <p>
+ * The {@code prefix} query parameter is matched case-insensitively against the start of every word of a name. The
+ * optional {@code type} parameter restricts the search to {@code actor} or {@code movie} (default both), and
+ * {@code limit} caps the number of matches of each type (default 10). Matches are served from an in-memory
+ * {@link SearchIndex}; until it has been built the handler responds with 503.
+ * </p>
+ */
+public class SearchHandler implements HttpHandler {
+
+	private static final Logger logger = Logger.getLogger(SearchHandler.class.getName());
+
+	/**
+	 * Number of matches of each type returned when no limit is given.
+	 */
+	private static final int DEFAULT_LIMIT = 10;
+
+	/**
+	 * Largest limit accepted.
+	 */
+	public static final int MAX_LIMIT = 100;
+
+	/**
+	 * The index the matches are served from.
+	 */
+	private final SearchIndex index;
+
+	/**
+	 * Constructs a new SearchHandler serving from the given index.
+	 *
+	 * @param index The name index.
+	 */
+	public SearchHandler(SearchIndex index) {
+		this.index = index;
+	}
+
+	/**
+	 * Handles the HTTP request to search actor and movie names.
+	 *
+	 * @param exchange The HTTP exchange object containing request and response details.
+	 * @throws IOException If an I/O error occurs.
+	 */
+	@Override
+	public void handle(HttpExchange exchange) throws IOException {
+		Trace trace = Tracer.start("search", exchange);
+		try {
+			handle(exchange, trace);
+		} finally {
+			trace.finish();
+		}
+	}
+
+	/**
+	 * Handles the request, marking each stage on the given trace.
+	 *
+	 * @param exchange The HTTP exchange object containing request and response details.
+	 * @param trace    The request's trace.
+	 * @throws IOException If an I/O error occurs.
+	 */
+	private void handle(HttpExchange exchange, Trace trace) throws IOException {
+		logger.log(Level.INFO, "Received request to search names.");
+
+		trace.stage("parse");
+		Map<String, String> queryParams = Utils.splitQuery(exchange.getRequestURI().getQuery());
+		String prefix = queryParams.get("prefix");
+		String type = queryParams.getOrDefault("type", "all");
+
+		if (prefix == null || prefix.trim().isEmpty()) {
+			String response = "prefix is required.";
+			exchange.sendResponseHeaders(400, response.length());
+			exchange.getResponseBody().write(response.getBytes());
+		} else if (!type.equals("all") && !type.equals("actor") && !type.equals("movie")) {
+			String response = "type must be actor, movie or all.";
+			exchange.sendResponseHeaders(400, response.length());
+			exchange.getResponseBody().write(response.getBytes());
+		} else {
+			try {
+				int limit = queryParams.containsKey("limit") ? Integer.parseInt(queryParams.get("limit")) : DEFAULT_LIMIT;
+				if (limit < 1 || limit > MAX_LIMIT) {
+					throw new NumberFormatException();
+				}
+
+				if (index.isLoaded()) {
+					trace.stage("compute");
+					JSONObject responseJson = new JSONObject();
+					responseJson.put("prefix", prefix);
+					if (!type.equals("movie")) {
+						responseJson.put("actors", toJson(index.getActors(), prefix, limit, "actorId"));
+					}
+					if (!type.equals("actor")) {
+						responseJson.put("movies", toJson(index.getMovies(), prefix, limit, "movieId"));
+					}
+
+					trace.stage("write");
+					String response = responseJson.toString();
+					exchange.sendResponseHeaders(200, response.length());
+					exchange.getResponseBody().write(response.getBytes());
+				} else {
+					String response = "Search index not loaded yet.";
+					exchange.sendResponseHeaders(503, response.length());
+					exchange.getResponseBody().write(response.getBytes());
+				}
+			} catch (NumberFormatException e) {
+				String response = "limit must be an integer between 1 and " + MAX_LIMIT + ".";
+				exchange.sendResponseHeaders(400, response.length());
+				exchange.getResponseBody().write(response.getBytes());
+			} catch (Exception e) {
+				logger.log(Level.SEVERE, "Error while searching names: " + e.getMessage(), e);
+				String response = "Internal server error.";
+				exchange.sendResponseHeaders(500, response.length());
+				exchange.getResponseBody().write(response.getBytes());
+			}
+		}
+
+		exchange.getResponseBody().close();
+	}
+
+	/**
+	 * Searches one index and encodes the matches.
+	 *
+	 * @param names  The index.
+	 * @param prefix The prefix.
+	 * @param limit  Maximum number of matches.
+	 * @param idName JSON field name of the id.
+	 * @return The JSON array.
+	 */
+	private static JSONArray toJson(NameIndex names, String prefix, int limit, String idName) throws Exception {
+		JSONArray array = new JSONArray();
+		for (NameIndex.Match match : names.search(prefix, limit)) {
+			JSONObject matchJson = new JSONObject();
+			matchJson.put(idName, match.getId());
+			matchJson.put("name", match.getName());
+			array.put(matchJson);
+		}
+		return array;
+	}
+}
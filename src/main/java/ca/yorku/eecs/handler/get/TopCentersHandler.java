@@ -0,0 +1,129 @@
+package ca.yorku.eecs.handler.get;
+
+import ca.yorku.eecs.graph.CentralityRanking;
+import ca.yorku.eecs.graph.CentralityScore;
+import ca.yorku.eecs.graph.ClosenessCentralityJob;
+import ca.yorku.eecs.tracing.Trace;
+import ca.yorku.eecs.tracing.Tracer;
+import ca.yorku.eecs.utils.Utils;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Handles requests for the actors with the highest closeness centrality, i.e. the best "centers of Hollywood".
+ * <p>
+ * The ranking is computed in the background by a {@link ClosenessCentralityJob}; this handler only serves the cached
+ * top-K. The optional {@code k} query parameter selects how many actors to return (default 10). While the first
+ * ranking is being computed the handler responds with 503 and the job's progress.
+ * </p>
+ */
+public class TopCentersHandler implements HttpHandler {
+
+	private static final Logger logger = Logger.getLogger(TopCentersHandler.class.getName());
+
+	/**
+	 * Number of actors returned when no k is given.
+	 */
+	private static final int DEFAULT_K = 10;
+
+	/**
+	 * The job the ranking is read from.
+	 */
+	private final ClosenessCentralityJob job;
+
+	/**
+	 * Constructs a new TopCentersHandler serving the given job's ranking.
+	 *
+	 * @param job The closeness-centrality job.
+	 */
+	public TopCentersHandler(ClosenessCentralityJob job) {
+		this.job = job;
+	}
+
+	/**
+	 * Handles the HTTP request to get the most central actors.
+	 *
+	 * @param exchange The HTTP exchange object containing request and response details.
+	 * @throws IOException If an I/O error occurs.
+	 */
+	@Override
+	public void handle(HttpExchange exchange) throws IOException {
+		Trace trace = Tracer.start("topCenters", exchange);
+		try {
+			handle(exchange, trace);
+		} finally {
+			trace.finish();
+		}
+	}
+
+	/**
+	 * Handles the request, marking each stage on the given trace.
+	 *
+	 * @param exchange The HTTP exchange object containing request and response details.
+	 * @param trace    The request's trace.
+	 * @throws IOException If an I/O error occurs.
+	 */
+	private void handle(HttpExchange exchange, Trace trace) throws IOException {
+		logger.log(Level.INFO, "Received request to get the top centers.");
+
+		trace.stage("parse");
+		Map<String, String> queryParams = Utils.splitQuery(exchange.getRequestURI().getQuery());
+
+		try {
+			int k = queryParams.containsKey("k") ? Integer.parseInt(queryParams.get("k")) : Math.min(DEFAULT_K, job.getTopK());
+			if (k < 1 || k > job.getTopK()) {
+				throw new NumberFormatException();
+			}
+
+			CentralityRanking ranking = job.getRanking();
+			if (ranking != null) {
+				trace.stage("encode");
+				List<CentralityScore> centers = ranking.getCenters();
+				JSONArray centersJson = new JSONArray();
+				for (CentralityScore score : centers.subList(0, Math.min(k, centers.size()))) {
+					JSONObject centerJson = new JSONObject();
+					centerJson.put("actorId", score.getActorId());
+					centerJson.put("name", score.getName());
+					centerJson.put("closeness", score.getCloseness());
+					centerJson.put("averageDistance", score.getAverageDistance());
+					centersJson.put(centerJson);
+				}
+
+				JSONObject responseJson = new JSONObject();
+				responseJson.put("centers", centersJson);
+				responseJson.put("sources", ranking.getSources());
+				responseJson.put("exact", ranking.isExact());
+				responseJson.put("recomputing", job.isRunning());
+				responseJson.put("progress", job.getProgress());
+
+				trace.stage("write");
+				String response = responseJson.toString();
+				exchange.sendResponseHeaders(200, response.length());
+				exchange.getResponseBody().write(response.getBytes());
+			} else {
+				String response = String.format("Centrality ranking not ready (%d%% done).", (int) (job.getProgress() * 100));
+				exchange.sendResponseHeaders(503, response.length());
+				exchange.getResponseBody().write(response.getBytes());
+			}
+		} catch (NumberFormatException e) {
+			String response = "k must be an integer between 1 and " + job.getTopK() + ".";
+			exchange.sendResponseHeaders(400, response.length());
+			exchange.getResponseBody().write(response.getBytes());
+		} catch (Exception e) {
+			logger.log(Level.SEVERE, "Error while getting the top centers: " + e.getMessage(), e);
+			String response = "Internal server error.";
+			exchange.sendResponseHeaders(500, response.length());
+			exchange.getResponseBody().write(response.getBytes());
+		}
+
+		exchange.getResponseBody().close();
+	}
+}
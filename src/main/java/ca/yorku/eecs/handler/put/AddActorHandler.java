@@ -1,7 +1,13 @@
-
 package ca.yorku.eecs.handler.put;
 
+import ca.yorku.eecs.journal.JournalEvent;
+import ca.yorku.eecs.journal.WriteJournal;
+import ca.yorku.eecs.locking.StripedLocks;
+import ca.yorku.eecs.routing.Bookmarks;
+import ca.yorku.eecs.tracing.Trace;
+import ca.yorku.eecs.tracing.Tracer;
 import ca.yorku.eecs.utils.Utils;
+import ca.yorku.eecs.versioning.EntityVersions;
 import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpExchange;
 import org.neo4j.driver.v1.*;
@@ -23,18 +29,60 @@ public class AddActorHandler implements HttpHandler {
 	 */
 	private final Driver driver;
 
+	/**
+	 * Cypher statement checking whether an actor already exists.
+	 */
+	public static final String FIND_ACTOR_QUERY = "MATCH (a:Actor {actorId: $actorId}) RETURN a";
+
+	/**
+	 * Cypher statement creating a new actor.
+	 */
+	public static final String CREATE_ACTOR_QUERY = "CREATE (a:Actor {name: $name, actorId: $actorId})";
+
 	/**
 	 * Logger for this class.
 	 */
 	private static final Logger logger = Logger.getLogger(AddActorHandler.class.getName());
 
 	/**
-	 * Constructs a new AddActorHandler with the provided Neo4j driver.
+	 * Journal that successful writes are recorded in, or null if journaling is disabled.
+	 */
+	private final WriteJournal journal;
+
+	/**
+	 * Version counters bumped after every committed write, or null if the GET handlers send no ETags.
+	 */
+	private final EntityVersions versions;
+
+	/**
+	 * Locks serializing writes to the same actor, or null to leave concurrent writes to Neo4j.
+	 */
+	private final StripedLocks locks;
+
+	/**
+	 * Constructs a new AddActorHandler with the provided Neo4j driver and no write journal.
 	 *
 	 * @param driver The Neo4j driver instance.
 	 */
 	public AddActorHandler(Driver driver) {
+		this(driver, null, null, null);
+	}
+
+	/**
+	 * Constructs a new AddActorHandler that records every added actor in the given journal, bumps the actor's version
+	 * and holds the actor's lock while it writes, so concurrent writes to the same actor wait in process rather than
+	 * contend in Neo4j.
+	 *
+	 * @param driver   The Neo4j driver instance.
+	 * @param journal  The write journal, or null to disable journaling.
+	 * @param versions The version counters behind the GET handlers' ETags, or null.
+	 * @param locks    The locks shared by the PUT handlers, or null.
+	 */
+	public AddActorHandler(Driver driver, WriteJournal journal, EntityVersions versions, StripedLocks locks) {
 		this.driver = driver;
+		this.journal = journal;
+		this.versions = versions;
+		this.locks = locks;
 	}
 
 	/**
@@ -46,39 +94,88 @@ public class AddActorHandler implements HttpHandler {
 	 */
 	@Override
 	public void handle(HttpExchange exchange) throws IOException {
+		Trace trace = Tracer.start("addActor", exchange);
+		try {
+			handle(exchange, trace);
+		} finally {
+			trace.finish();
+		}
+	}
+
+	/**
+	 * Handles the request, marking each stage on the given trace.
+	 *
+	 * @param exchange The HTTP exchange object containing request and response details.
+	 * @param trace    The request's trace.
+	 * @throws IOException If an I/O error occurs.
+	 */
+	private void handle(HttpExchange exchange, Trace trace) throws IOException {
 		logger.info("Received request to add actor");
 
+		trace.stage("parse");
 		// Read the request body
 		String body = Utils.getBody(exchange);
 
-		try (Session session = driver.session()) {
+		try {
 			// Parse the JSON body
 			JSONObject json = new JSONObject(body);
 			String name = json.getString("name");
 			String actorId = json.getString("actorId");
 
-			// Start a transaction
-			try (Transaction tx = session.beginTransaction()) {
-				// Check if the actorId already exists
-				StatementResult result = tx.run("MATCH (a:Actor {actorId: $actorId}) RETURN a", Values.parameters("actorId", actorId));
-
-				if (result.hasNext()) {
-					// Actor with given actorId already exists
-					logger.warning("Attempted to add actor with existing actorId");
-					String response = "Actor with given actorId already exists.";
-					exchange.sendResponseHeaders(400, response.length());
-					exchange.getResponseBody().write(response.getBytes());
-				} else {
-					// Create new actor
-					tx.run("CREATE (a:Actor {name: $name, actorId: $actorId})", Values.parameters("name", name, "actorId", actorId));
-					logger.info("Actor added successfully");
-					String response = "Actor added successfully.";
-					exchange.sendResponseHeaders(200, response.length());
-					exchange.getResponseBody().write(response.getBytes());
+			boolean created;
+			String bookmark;
+
+			// Take the actor's lock before opening the session, so writes waiting behind a busy actor hold neither a
+			// session permit nor a pooled connection, and hold it until the write is journaled, so the journal sees
+			// writes in commit order
+			StripedLocks.Held held = locks == null ? StripedLocks.Held.NONE : locks.lockActor(actorId);
+			try {
+				trace.stage("session");
+				try (Session session = Bookmarks.writeSession(driver, exchange)) {
+					trace.stage("cypher");
+					// Run the check and create as a transaction function, which the driver retries with jittered backoff
+					// on transient errors such as deadlocks; it must therefore not touch the exchange
+					created = session.writeTransaction(tx -> {
+						// Check if the actorId already exists
+						if (tx.run(FIND_ACTOR_QUERY, Values.parameters("actorId", actorId)).hasNext()) {
+							return false;
+						}
+						// Create new actor and mark the transaction for commit
+						tx.run(CREATE_ACTOR_QUERY, Values.parameters("name", name, "actorId", actorId));
+						tx.success();
+						return true;
+					});
+					bookmark = session.lastBookmark();
+				}
+
+				// The transaction function has committed by the time it returns, so only now record the write
+				trace.stage("commit");
+				if (created) {
+					if (versions != null) {
+						versions.bumpActor(actorId, bookmark);
+					}
+					if (journal != null) {
+						journal.append(JournalEvent.addActor(actorId, name));
+					}
 				}
+			} finally {
+				held.close();
+			}
 
-				// Commit the transaction
-				tx.success();
+			trace.stage("write");
+			// Lets the client's next requests read this write, even from a replica that has not applied it yet
+			Bookmarks.toResponse(exchange, bookmark);
+			if (created) {
+				logger.info("Actor added successfully");
+				String response = "Actor added successfully.";
+				exchange.sendResponseHeaders(200, response.length());
+				exchange.getResponseBody().write(response.getBytes());
+			} else {
+				// Actor with given actorId already exists
+				logger.warning("Attempted to add actor with existing actorId");
+				String response = "Actor with given actorId already exists.";
+				exchange.sendResponseHeaders(400, response.length());
+				exchange.getResponseBody().write(response.getBytes());
 			}
 		} catch (Exception e) {
 			// Exception occurred
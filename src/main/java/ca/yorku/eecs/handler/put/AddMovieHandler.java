@@ -1,6 +1,13 @@
 package ca.yorku.eecs.handler.put;
 
+import ca.yorku.eecs.journal.JournalEvent;
+import ca.yorku.eecs.journal.WriteJournal;
+import ca.yorku.eecs.locking.StripedLocks;
+import ca.yorku.eecs.routing.Bookmarks;
+import ca.yorku.eecs.tracing.Trace;
+import ca.yorku.eecs.tracing.Tracer;
 import ca.yorku.eecs.utils.Utils;
+import ca.yorku.eecs.versioning.EntityVersions;
 import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpExchange;
 import org.neo4j.driver.v1.*;
@@ -30,18 +37,60 @@ public class AddMovieHandler implements HttpHandler {
 	 */
 	private final Driver driver;
 
+	/**
+	 * Cypher statement checking whether a movie already exists.
+	 */
+	public static final String FIND_MOVIE_QUERY = "MATCH (m:Movie {movieId: $movieId}) RETURN m";
+
+	/**
+	 * Cypher statement creating a new movie.
+	 */
+	public static final String CREATE_MOVIE_QUERY = "CREATE (m:Movie {name: $name, movieId: $movieId})";
+
 	/**
 	 * Logger for this class.
 	 */
 	private static final Logger logger = Logger.getLogger(AddMovieHandler.class.getName());
 
 	/**
-	 * Constructs a new AddMovieHandler with the provided Neo4j driver.
+	 * Journal that successful writes are recorded in, or null if journaling is disabled.
+	 */
+	private final WriteJournal journal;
+
+	/**
+	 * Version counters bumped after every committed write, or null if the GET handlers send no ETags.
+	 */
+	private final EntityVersions versions;
+
+	/**
+	 * Locks serializing writes to the same movie, or null to leave concurrent writes to Neo4j.
+	 */
+	private final StripedLocks locks;
+
+	/**
+	 * Constructs a new AddMovieHandler with the provided Neo4j driver and no write journal.
 	 *
 	 * @param driver The Neo4j driver instance.
 	 */
 	public AddMovieHandler(Driver driver) {
+		this(driver, null, null, null);
+	}
+
+	/**
+	 * Constructs a new AddMovieHandler that records every added movie in the given journal, bumps the movie's version
+	 * and holds the movie's lock while it writes, so concurrent writes to the same movie wait in process rather than
+	 * contend in Neo4j.
+	 *
+	 * @param driver   The Neo4j driver instance.
+	 * @param journal  The write journal, or null to disable journaling.
+	 * @param versions The version counters behind the GET handlers' ETags, or null.
+	 * @param locks    The locks shared by the PUT handlers, or null.
+	 */
+	public AddMovieHandler(Driver driver, WriteJournal journal, EntityVersions versions, StripedLocks locks) {
 		this.driver = driver;
+		this.journal = journal;
+		this.versions = versions;
+		this.locks = locks;
 	}
 
 	/**
@@ -56,32 +105,81 @@ public class AddMovieHandler implements HttpHandler {
 	 */
 	@Override
 	public void handle(HttpExchange exchange) throws IOException {
+		Trace trace = Tracer.start("addMovie", exchange);
+		try {
+			handle(exchange, trace);
+		} finally {
+			trace.finish();
+		}
+	}
+
+	/**
+	 * Handles the request, marking each stage on the given trace.
+	 *
+	 * @param exchange The HTTP exchange object containing request and response details.
+	 * @param trace    The request's trace.
+	 * @throws IOException If an I/O error occurs.
+	 */
+	private void handle(HttpExchange exchange, Trace trace) throws IOException {
 		logger.info("Received request to add movie");
 
+		trace.stage("parse");
 		String body = Utils.getBody(exchange);
 
-		try (Session session = driver.session()) {
+		try {
 			JSONObject json = new JSONObject(body);
 			String name = json.getString("name");
 			String movieId = json.getString("movieId");
 
-			try (Transaction tx = session.beginTransaction()) {
-				StatementResult result = tx.run("MATCH (m:Movie {movieId: $movieId}) RETURN m", Values.parameters("movieId", movieId));
-
-				if (result.hasNext()) {
-					logger.warning("Attempted to add movie with existing movieId");
-					String response = "Movie with given movieId already exists.";
-					exchange.sendResponseHeaders(400, response.length());
-					exchange.getResponseBody().write(response.getBytes());
-				} else {
-					tx.run("CREATE (m:Movie {name: $name, movieId: $movieId})", Values.parameters("name", name, "movieId", movieId));
-					logger.info("Movie added successfully");
-					String response = "Movie added successfully.";
-					exchange.sendResponseHeaders(200, response.length());
-					exchange.getResponseBody().write(response.getBytes());
+			boolean created;
+			String bookmark;
+
+			// The movie's lock is taken before the session is opened, so writes waiting for it hold no session permit
+			// or connection, and held until the write is journaled, so the journal sees writes in commit order
+			StripedLocks.Held held = locks == null ? StripedLocks.Held.NONE : locks.lockMovie(movieId);
+			try {
+				trace.stage("session");
+				try (Session session = Bookmarks.writeSession(driver, exchange)) {
+					trace.stage("cypher");
+					// A transaction function: the driver retries it with jittered backoff on transient errors such as
+					// deadlocks, so it must not touch the exchange
+					created = session.writeTransaction(tx -> {
+						if (tx.run(FIND_MOVIE_QUERY, Values.parameters("movieId", movieId)).hasNext()) {
+							return false;
+						}
+						tx.run(CREATE_MOVIE_QUERY, Values.parameters("name", name, "movieId", movieId));
+						tx.success();
+						return true;
+					});
+					bookmark = session.lastBookmark();
+				}
+
+				trace.stage("commit");
+				if (created) {
+					if (versions != null) {
+						versions.bumpMovie(movieId, bookmark);
+					}
+					if (journal != null) {
+						journal.append(JournalEvent.addMovie(movieId, name));
+					}
 				}
+			} finally {
+				held.close();
+			}
 
-				tx.success();
+			trace.stage("write");
+			// Lets the client's next requests read this write, even from a replica that has not applied it yet
+			Bookmarks.toResponse(exchange, bookmark);
+			if (created) {
+				logger.info("Movie added successfully");
+				String response = "Movie added successfully.";
+				exchange.sendResponseHeaders(200, response.length());
+				exchange.getResponseBody().write(response.getBytes());
+			} else {
+				logger.warning("Attempted to add movie with existing movieId");
+				String response = "Movie with given movieId already exists.";
+				exchange.sendResponseHeaders(400, response.length());
+				exchange.getResponseBody().write(response.getBytes());
 			}
 		} catch (Exception e) {
 			logger.log(Level.SEVERE, "Internal server error: " + e.getMessage(), e);
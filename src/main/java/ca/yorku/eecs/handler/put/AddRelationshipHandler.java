@@ -1,6 +1,14 @@
 package ca.yorku.eecs.handler.put;
 
+import ca.yorku.eecs.graph.ActorMovieGraph;
+import ca.yorku.eecs.journal.JournalEvent;
+import ca.yorku.eecs.journal.WriteJournal;
+import ca.yorku.eecs.locking.StripedLocks;
+import ca.yorku.eecs.routing.Bookmarks;
+import ca.yorku.eecs.tracing.Trace;
+import ca.yorku.eecs.tracing.Tracer;
 import ca.yorku.eecs.utils.Utils;
+import ca.yorku.eecs.versioning.EntityVersions;
 import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpExchange;
 import org.neo4j.driver.v1.*;
@@ -31,18 +39,86 @@ public class AddRelationshipHandler implements HttpHandler {
 	 */
 	private final Driver driver;
 
+	/**
+	 * Cypher statement checking whether the actor exists.
+	 */
+	public static final String FIND_ACTOR_QUERY = "MATCH (a:Actor {actorId: $actorId}) RETURN a";
+
+	/**
+	 * Cypher statement checking whether the movie exists.
+	 */
+	public static final String FIND_MOVIE_QUERY = "MATCH (m:Movie {movieId: $movieId}) RETURN m";
+
+	/**
+	 * Cypher statement checking whether the relationship already exists.
+	 */
+	public static final String FIND_RELATIONSHIP_QUERY = "MATCH (a:Actor {actorId: $actorId})-[r:ACTED_IN]->(m:Movie {movieId: $movieId}) RETURN r";
+
+	/**
+	 * Cypher statement creating the ACTED_IN relationship.
+	 */
+	public static final String CREATE_RELATIONSHIP_QUERY = "MATCH (a:Actor {actorId: $actorId}), (m:Movie {movieId: $movieId}) CREATE (a)-[:ACTED_IN]->(m)";
+
 	/**
 	 * Logger for this class.
 	 */
 	private static final Logger logger = Logger.getLogger(AddRelationshipHandler.class.getName());
 
 	/**
-	 * Constructs a new AddRelationshipHandler with the provided Neo4j driver.
+	 * Journal that successful writes are recorded in, or null if journaling is disabled.
+	 */
+	private final WriteJournal journal;
+
+	/**
+	 * Version counters bumped after every committed write, or null if the GET handlers send no ETags.
+	 */
+	private final EntityVersions versions;
+
+	/**
+	 * Locks serializing writes to the same actor or movie, or null to leave concurrent writes to Neo4j.
+	 */
+	private final StripedLocks locks;
+
+	/**
+	 * In-memory graph whose edge index rules out duplicate relationships without a transaction, or null.
+	 */
+	private final ActorMovieGraph graph;
+
+	/**
+	 * What the write transaction found and did.
+	 */
+	private enum Outcome {
+		CREATED, NOT_FOUND, EXISTS
+	}
+
+	/**
+	 * Constructs a new AddRelationshipHandler with the provided Neo4j driver and no write journal.
 	 *
 	 * @param driver The Neo4j driver instance.
 	 */
 	public AddRelationshipHandler(Driver driver) {
+		this(driver, null, null, null, null);
+	}
+
+	/**
+	 * Constructs a new AddRelationshipHandler that records every added relationship in the given journal, bumps the
+	 * versions of the actor and movie it touches and holds their locks while it writes, so relationships added to a
+	 * popular actor or movie at the same time wait in process instead of deadlocking in Neo4j. With the in-memory graph
+	 * it answers 400 without a transaction when the relationship already exists.
+	 *
+	 * @param driver   The Neo4j driver instance.
+	 * @param journal  The write journal, or null to disable journaling.
+	 * @param versions The version counters behind the GET handlers' ETags, or null.
+	 * @param locks    The locks shared by the PUT handlers, or null.
+	 * @param graph    The in-memory graph, kept current from the write journal, or null.
+	 */
+	public AddRelationshipHandler(Driver driver, WriteJournal journal, EntityVersions versions, StripedLocks locks,
+								  ActorMovieGraph graph) {
 		this.driver = driver;
+		this.journal = journal;
+		this.versions = versions;
+		this.locks = locks;
+		this.graph = graph;
 	}
 
 	/**
@@ -57,43 +133,101 @@ public class AddRelationshipHandler implements HttpHandler {
 	 */
 	@Override
 	public void handle(HttpExchange exchange) throws IOException {
+		Trace trace = Tracer.start("addRelationship", exchange);
+		try {
+			handle(exchange, trace);
+		} finally {
+			trace.finish();
+		}
+	}
+
+	/**
+	 * Handles the request, marking each stage on the given trace.
+	 *
+	 * @param exchange The HTTP exchange object containing request and response details.
+	 * @param trace    The request's trace.
+	 * @throws IOException If an I/O error occurs.
+	 */
+	private void handle(HttpExchange exchange, Trace trace) throws IOException {
 		logger.info("Received request to add relationship");
 
+		trace.stage("parse");
 		String body = Utils.getBody(exchange);
 
-		try (Session session = driver.session()) {
+		try {
 			JSONObject json = new JSONObject(body);
 			String actorId = json.getString("actorId");
 			String movieId = json.getString("movieId");
 
-			try (Transaction tx = session.beginTransaction()) {
-				StatementResult actorResult = tx.run("MATCH (a:Actor {actorId: $actorId}) RETURN a", Values.parameters("actorId", actorId));
-				StatementResult movieResult = tx.run("MATCH (m:Movie {movieId: $movieId}) RETURN m", Values.parameters("movieId", movieId));
+			if (graph != null && graph.isLoaded() && graph.hasRelationship(actorId, movieId)) {
+				// Relationships are never removed, so one the graph has can only be rejected by the transaction too
+				trace.stage("write");
+				logger.warning("Attempted to add existing relationship");
+				String response = "Relationship already exists.";
+				exchange.sendResponseHeaders(400, response.length());
+				exchange.getResponseBody().write(response.getBytes());
+				return;
+			}
 
-				if (!actorResult.hasNext() || !movieResult.hasNext()) {
-					logger.warning("Attempted to add relationship with non-existent actor or movie");
-					String response = "Actor or Movie not found.";
-					exchange.sendResponseHeaders(404, response.length());
-					exchange.getResponseBody().write(response.getBytes());
-					return;
+			Outcome outcome;
+			String bookmark;
+
+			// Both locks are taken before the session is opened, so writes waiting for a popular actor or movie hold no
+			// session permit or connection
+			StripedLocks.Held held = locks == null ? StripedLocks.Held.NONE : locks.lockActorAndMovie(actorId, movieId);
+			try {
+				trace.stage("session");
+				try (Session session = Bookmarks.writeSession(driver, exchange)) {
+					trace.stage("cypher");
+					// Retried by the driver on transient errors, so the function only reports what it found
+					outcome = session.writeTransaction(tx -> {
+						StatementResult actorResult = tx.run(FIND_ACTOR_QUERY, Values.parameters("actorId", actorId));
+						StatementResult movieResult = tx.run(FIND_MOVIE_QUERY, Values.parameters("movieId", movieId));
+						if (!actorResult.hasNext() || !movieResult.hasNext()) {
+							return Outcome.NOT_FOUND;
+						}
+						if (tx.run(FIND_RELATIONSHIP_QUERY, Values.parameters("actorId", actorId, "movieId", movieId)).hasNext()) {
+							return Outcome.EXISTS;
+						}
+						tx.run(CREATE_RELATIONSHIP_QUERY, Values.parameters("actorId", actorId, "movieId", movieId));
+						tx.success();
+						return Outcome.CREATED;
+					});
+					bookmark = session.lastBookmark();
 				}
 
-				StatementResult relationResult = tx.run("MATCH (a:Actor {actorId: $actorId})-[r:ACTED_IN]->(m:Movie {movieId: $movieId}) RETURN r", Values.parameters("actorId", actorId, "movieId", movieId));
-
-				if (relationResult.hasNext()) {
-					logger.warning("Attempted to add existing relationship");
-					String response = "Relationship already exists.";
-					exchange.sendResponseHeaders(400, response.length());
-					exchange.getResponseBody().write(response.getBytes());
-				} else {
-					tx.run("MATCH (a:Actor {actorId: $actorId}), (m:Movie {movieId: $movieId}) CREATE (a)-[:ACTED_IN]->(m)", Values.parameters("actorId", actorId, "movieId", movieId));
-					logger.info("Relationship added successfully");
-					String response = "Relationship added successfully.";
-					exchange.sendResponseHeaders(200, response.length());
-					exchange.getResponseBody().write(response.getBytes());
+				trace.stage("commit");
+				if (outcome == Outcome.CREATED) {
+					if (versions != null) {
+						versions.bumpActor(actorId, bookmark);
+						versions.bumpMovie(movieId, bookmark);
+					}
+					if (journal != null) {
+						journal.append(JournalEvent.addRelationship(actorId, movieId));
+					}
 				}
+			} finally {
+				held.close();
+			}
 
-				tx.success();
+			trace.stage("write");
+			// Lets the client's next requests read this write, even from a replica that has not applied it yet
+			Bookmarks.toResponse(exchange, bookmark);
+			if (outcome == Outcome.NOT_FOUND) {
+				logger.warning("Attempted to add relationship with non-existent actor or movie");
+				String response = "Actor or Movie not found.";
+				exchange.sendResponseHeaders(404, response.length());
+				exchange.getResponseBody().write(response.getBytes());
+			} else if (outcome == Outcome.EXISTS) {
+				logger.warning("Attempted to add existing relationship");
+				String response = "Relationship already exists.";
+				exchange.sendResponseHeaders(400, response.length());
+				exchange.getResponseBody().write(response.getBytes());
+			} else {
+				logger.info("Relationship added successfully");
+				String response = "Relationship added successfully.";
+				exchange.sendResponseHeaders(200, response.length());
+				exchange.getResponseBody().write(response.getBytes());
 			}
 		} catch (Exception e) {
 			logger.log(Level.SEVERE, "Internal server error: " + e.getMessage(), e);
@@ -0,0 +1,496 @@
+package ca.yorku.eecs.handler.put;
+
+import ca.yorku.eecs.journal.JournalEvent;
+import ca.yorku.eecs.journal.WriteJournal;
+import ca.yorku.eecs.locking.StripedLocks;
+import ca.yorku.eecs.routing.Bookmarks;
+import ca.yorku.eecs.tracing.Trace;
+import ca.yorku.eecs.tracing.Tracer;
+import ca.yorku.eecs.utils.Utils;
+import ca.yorku.eecs.versioning.EntityVersions;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.neo4j.driver.v1.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Handles an ordered batch of actor, movie and relationship additions in a single Neo4j transaction via HTTP requests.
+ * <p>
+ * The request body is {@code {"operations": [...]}}, where each operation is an object shaped like the body of the
+ * matching single endpoint plus an {@code "op"} of "addActor", "addMovie" or "addRelationship". Operations apply in
+ * order, so a relationship may name an actor or movie added earlier in the same batch. Whatever the batch's size, the
+ * transaction runs at most six statements: one per kind to find the existing nodes and relationships, and one per kind
+ * to create the new ones, each taking all its ids as a list parameter.
+ * </p>
+ * <p>
+ * The response is 200 with one result per operation, in order, holding the status and message the single endpoint
+ * would have answered; an operation that fails, e.g. because its actor already exists, does not stop the others. All
+ * successful operations commit together or, on a database error, not at all, in which case the whole batch gets 500.
+ * A body that is not a valid batch gets 400 and writes nothing.
+ * </p>
+ */
+public class BatchHandler implements HttpHandler {
+
+	/**
+	 * Cypher statement returning which of the given actorIds exist.
+	 */
+	public static final String FIND_ACTORS_QUERY = "UNWIND $actorIds AS actorId MATCH (a:Actor {actorId: actorId}) RETURN a.actorId AS actorId";
+
+	/**
+	 * Cypher statement returning which of the given movieIds exist.
+	 */
+	public static final String FIND_MOVIES_QUERY = "UNWIND $movieIds AS movieId MATCH (m:Movie {movieId: movieId}) RETURN m.movieId AS movieId";
+
+	/**
+	 * Cypher statement returning which of the given actor and movie pairs are already related.
+	 */
+	public static final String FIND_RELATIONSHIPS_QUERY = "UNWIND $pairs AS pair MATCH (a:Actor {actorId: pair.actorId})-[:ACTED_IN]->(m:Movie {movieId: pair.movieId}) RETURN a.actorId AS actorId, m.movieId AS movieId";
+
+	/**
+	 * Cypher statement creating the given actors.
+	 */
+	public static final String CREATE_ACTORS_QUERY = "UNWIND $actors AS actor CREATE (:Actor {name: actor.name, actorId: actor.actorId})";
+
+	/**
+	 * Cypher statement creating the given movies.
+	 */
+	public static final String CREATE_MOVIES_QUERY = "UNWIND $movies AS movie CREATE (:Movie {name: movie.name, movieId: movie.movieId})";
+
+	/**
+	 * Cypher statement creating ACTED_IN relationships between the given pairs.
+	 */
+	public static final String CREATE_RELATIONSHIPS_QUERY = "UNWIND $pairs AS pair MATCH (a:Actor {actorId: pair.actorId}), (m:Movie {movieId: pair.movieId}) CREATE (a)-[:ACTED_IN]->(m)";
+
+	/**
+	 * Largest batch accepted unless the constructor says otherwise.
+	 */
+	public static final int DEFAULT_MAX_OPERATIONS = 1000;
+
+	/**
+	 * Logger for this class.
+	 */
+	private static final Logger logger = Logger.getLogger(BatchHandler.class.getName());
+
+	/**
+	 * The Neo4j database driver instance used for database operations.
+	 */
+	private final Driver driver;
+
+	/**
+	 * Journal that successful writes are recorded in, or null if journaling is disabled.
+	 */
+	private final WriteJournal journal;
+
+	/**
+	 * Version counters bumped after every committed write, or null if the GET handlers send no ETags.
+	 */
+	private final EntityVersions versions;
+
+	/**
+	 * Locks serializing writes to the same actor or movie, or null to leave concurrent writes to Neo4j.
+	 */
+	private final StripedLocks locks;
+
+	/**
+	 * Largest number of operations in one batch.
+	 */
+	private final int maxOperations;
+
+	/**
+	 * Kinds of operation, named as in the request.
+	 */
+	private enum Type {
+		ADD_ACTOR("addActor"), ADD_MOVIE("addMovie"), ADD_RELATIONSHIP("addRelationship");
+
+		private final String op;
+
+		Type(String op) {
+			this.op = op;
+		}
+
+		static Type of(String op) {
+			for (Type type : values()) {
+				if (type.op.equals(op)) {
+					return type;
+				}
+			}
+			throw new IllegalArgumentException("unknown op \"" + op + "\"");
+		}
+	}
+
+	/**
+	 * What the transaction found and did for one operation.
+	 */
+	private enum Outcome {
+		CREATED, NOT_FOUND, EXISTS
+	}
+
+	/**
+	 * One parsed operation.
+	 */
+	private static final class Operation {
+
+		private final Type type;
+
+		private final String actorId;
+
+		private final String movieId;
+
+		private final String name;
+
+		private Operation(Type type, String actorId, String movieId, String name) {
+			this.type = type;
+			this.actorId = actorId;
+			this.movieId = movieId;
+			this.name = name;
+		}
+	}
+
+	/**
+	 * Constructs a new BatchHandler with the provided Neo4j driver, no write journal and the default batch limit.
+	 *
+	 * @param driver The Neo4j driver instance.
+	 */
+	public BatchHandler(Driver driver) {
+		this(driver, null, null, null, DEFAULT_MAX_OPERATIONS);
+	}
+
+	/**
+	 * Constructs a new BatchHandler that, like the single PUT handlers, records every write in the given journal, bumps
+	 * the versions of the nodes it touches and holds their locks while it writes.
+	 *
+	 * @param driver        The Neo4j driver instance.
+	 * @param journal       The write journal, or null to disable journaling.
+	 * @param versions      The version counters behind the GET handlers' ETags, or null.
+	 * @param locks         The locks shared by the PUT handlers, or null.
+	 * @param maxOperations Largest number of operations in one batch.
+	 */
+	public BatchHandler(Driver driver, WriteJournal journal, EntityVersions versions, StripedLocks locks, int maxOperations) {
+		this.driver = driver;
+		this.journal = journal;
+		this.versions = versions;
+		this.locks = locks;
+		this.maxOperations = maxOperations;
+	}
+
+	/**
+	 * Handles the HTTP request to apply a batch of additions.
+	 *
+	 * @param exchange The HTTP exchange object containing request and response details.
+	 * @throws IOException If an I/O error occurs.
+	 */
+	@Override
+	public void handle(HttpExchange exchange) throws IOException {
+		Trace trace = Tracer.start("batch", exchange);
+		try {
+			handle(exchange, trace);
+		} finally {
+			trace.finish();
+		}
+	}
+
+	/**
+	 * Handles the request, marking each stage on the given trace.
+	 *
+	 * @param exchange The HTTP exchange object containing request and response details.
+	 * @param trace    The request's trace.
+	 * @throws IOException If an I/O error occurs.
+	 */
+	private void handle(HttpExchange exchange, Trace trace) throws IOException {
+		logger.info("Received request to apply a batch");
+
+		trace.stage("parse");
+		List<Operation> operations;
+		try {
+			operations = parse(Utils.getBody(exchange));
+		} catch (JSONException | IllegalArgumentException e) {
+			logger.warning("Rejected invalid batch: " + e.getMessage());
+			String response = "Invalid batch: " + e.getMessage();
+			exchange.sendResponseHeaders(400, response.length());
+			exchange.getResponseBody().write(response.getBytes());
+			exchange.getResponseBody().close();
+			return;
+		}
+
+		Set<String> actorIds = new LinkedHashSet<>();
+		Set<String> movieIds = new LinkedHashSet<>();
+		for (Operation operation : operations) {
+			if (operation.actorId != null) {
+				actorIds.add(operation.actorId);
+			}
+			if (operation.movieId != null) {
+				movieIds.add(operation.movieId);
+			}
+		}
+
+		try {
+			Outcome[] outcomes;
+			String bookmark;
+
+			// Hold every touched node's lock until the writes are journaled, as the single PUT handlers do, taking them
+			// before the session is opened so a batch waiting for them holds no session permit or connection
+			StripedLocks.Held held = locks == null ? StripedLocks.Held.NONE : locks.lockAll(actorIds, movieIds);
+			try {
+				trace.stage("session");
+				try (Session session = Bookmarks.writeSession(driver, exchange)) {
+					trace.stage("cypher");
+					// Retried by the driver on transient errors, so the function reads afresh and only reports what it did
+					outcomes = session.writeTransaction(tx -> apply(tx, operations, actorIds, movieIds));
+					bookmark = session.lastBookmark();
+				}
+
+				trace.stage("commit");
+				for (int i = 0; i < operations.size(); i++) {
+					if (outcomes[i] == Outcome.CREATED) {
+						record(operations.get(i), bookmark);
+					}
+				}
+			} finally {
+				held.close();
+			}
+
+			trace.stage("write");
+			// Lets the client's next requests read this batch, even from a replica that has not applied it yet
+			Bookmarks.toResponse(exchange, bookmark);
+			JSONArray resultsJson = new JSONArray();
+			int created = 0;
+			for (int i = 0; i < operations.size(); i++) {
+				resultsJson.put(result(operations.get(i), outcomes[i]));
+				if (outcomes[i] == Outcome.CREATED) {
+					created++;
+				}
+			}
+			JSONObject responseJson = new JSONObject();
+			responseJson.put("results", resultsJson);
+
+			logger.info(String.format("Batch applied: %d of %d operations succeeded", created, operations.size()));
+			String response = responseJson.toString();
+			exchange.sendResponseHeaders(200, response.length());
+			exchange.getResponseBody().write(response.getBytes());
+		} catch (Exception e) {
+			logger.log(Level.SEVERE, "Internal server error: " + e.getMessage(), e);
+			String response = "Internal server error.";
+			exchange.sendResponseHeaders(500, response.length());
+			exchange.getResponseBody().write(response.getBytes());
+		} finally {
+			exchange.getResponseBody().close();
+		}
+	}
+
+	/**
+	 * Parses and validates the batch.
+	 *
+	 * @throws JSONException            If the body is not a JSON object with an operations array.
+	 * @throws IllegalArgumentException If the batch is empty, too large, or an operation is malformed.
+	 */
+	private List<Operation> parse(String body) throws JSONException {
+		JSONArray operationsJson = new JSONObject(body).getJSONArray("operations");
+		if (operationsJson.length() == 0) {
+			throw new IllegalArgumentException("no operations");
+		}
+		if (operationsJson.length() > maxOperations) {
+			throw new IllegalArgumentException("more than " + maxOperations + " operations");
+		}
+		List<Operation> operations = new ArrayList<>(operationsJson.length());
+		for (int i = 0; i < operationsJson.length(); i++) {
+			try {
+				JSONObject json = operationsJson.getJSONObject(i);
+				Type type = Type.of(json.getString("op"));
+				switch (type) {
+					case ADD_ACTOR:
+						operations.add(new Operation(type, json.getString("actorId"), null, json.getString("name")));
+						break;
+					case ADD_MOVIE:
+						operations.add(new Operation(type, null, json.getString("movieId"), json.getString("name")));
+						break;
+					default:
+						operations.add(new Operation(type, json.getString("actorId"), json.getString("movieId"), null));
+						break;
+				}
+			} catch (JSONException | IllegalArgumentException e) {
+				throw new IllegalArgumentException("operation " + i + ": " + e.getMessage(), e);
+			}
+		}
+		return operations;
+	}
+
+	/**
+	 * Decides every operation's outcome from what exists and what earlier operations create, then creates the new
+	 * nodes and relationships with one statement per kind.
+	 *
+	 * @return The outcome of each operation, in order.
+	 */
+	private static Outcome[] apply(Transaction tx, List<Operation> operations, Set<String> actorIds, Set<String> movieIds) {
+		Set<String> actors = actorIds.isEmpty() ? new HashSet<>()
+				: column(tx.run(FIND_ACTORS_QUERY, Values.parameters("actorIds", new ArrayList<>(actorIds))), "actorId");
+		Set<String> movies = movieIds.isEmpty() ? new HashSet<>()
+				: column(tx.run(FIND_MOVIES_QUERY, Values.parameters("movieIds", new ArrayList<>(movieIds))), "movieId");
+		List<Map<String, Object>> pairs = new ArrayList<>();
+		for (Operation operation : operations) {
+			if (operation.type == Type.ADD_RELATIONSHIP) {
+				pairs.add(pair(operation.actorId, operation.movieId));
+			}
+		}
+		Set<String> relationships = new HashSet<>();
+		if (!pairs.isEmpty()) {
+			for (Record record : tx.run(FIND_RELATIONSHIPS_QUERY, Values.parameters("pairs", pairs)).list()) {
+				relationships.add(key(record.get("actorId").asString(), record.get("movieId").asString()));
+			}
+		}
+
+		Outcome[] outcomes = new Outcome[operations.size()];
+		List<Map<String, Object>> newActors = new ArrayList<>();
+		List<Map<String, Object>> newMovies = new ArrayList<>();
+		List<Map<String, Object>> newPairs = new ArrayList<>();
+		for (int i = 0; i < operations.size(); i++) {
+			Operation operation = operations.get(i);
+			switch (operation.type) {
+				case ADD_ACTOR:
+					if (actors.add(operation.actorId)) {
+						newActors.add(node("actorId", operation.actorId, operation.name));
+						outcomes[i] = Outcome.CREATED;
+					} else {
+						outcomes[i] = Outcome.EXISTS;
+					}
+					break;
+				case ADD_MOVIE:
+					if (movies.add(operation.movieId)) {
+						newMovies.add(node("movieId", operation.movieId, operation.name));
+						outcomes[i] = Outcome.CREATED;
+					} else {
+						outcomes[i] = Outcome.EXISTS;
+					}
+					break;
+				default:
+					if (!actors.contains(operation.actorId) || !movies.contains(operation.movieId)) {
+						outcomes[i] = Outcome.NOT_FOUND;
+					} else if (relationships.add(key(operation.actorId, operation.movieId))) {
+						newPairs.add(pair(operation.actorId, operation.movieId));
+						outcomes[i] = Outcome.CREATED;
+					} else {
+						outcomes[i] = Outcome.EXISTS;
+					}
+					break;
+			}
+		}
+
+		// Nodes first, so the relationships can match the nodes created in this batch
+		if (!newActors.isEmpty()) {
+			tx.run(CREATE_ACTORS_QUERY, Values.parameters("actors", newActors));
+		}
+		if (!newMovies.isEmpty()) {
+			tx.run(CREATE_MOVIES_QUERY, Values.parameters("movies", newMovies));
+		}
+		if (!newPairs.isEmpty()) {
+			tx.run(CREATE_RELATIONSHIPS_QUERY, Values.parameters("pairs", newPairs));
+		}
+		tx.success();
+		return outcomes;
+	}
+
+	/**
+	 * Bumps the versions of the nodes a committed operation touched, recording the bookmark of the transaction that
+	 * committed it, and journals it.
+	 */
+	private void record(Operation operation, String bookmark) {
+		switch (operation.type) {
+			case ADD_ACTOR:
+				if (versions != null) {
+					versions.bumpActor(operation.actorId, bookmark);
+				}
+				if (journal != null) {
+					journal.append(JournalEvent.addActor(operation.actorId, operation.name));
+				}
+				break;
+			case ADD_MOVIE:
+				if (versions != null) {
+					versions.bumpMovie(operation.movieId, bookmark);
+				}
+				if (journal != null) {
+					journal.append(JournalEvent.addMovie(operation.movieId, operation.name));
+				}
+				break;
+			default:
+				if (versions != null) {
+					versions.bumpActor(operation.actorId, bookmark);
+					versions.bumpMovie(operation.movieId, bookmark);
+				}
+				if (journal != null) {
+					journal.append(JournalEvent.addRelationship(operation.actorId, operation.movieId));
+				}
+				break;
+		}
+	}
+
+	/**
+	 * @return The operation's result, with the status and message of the matching single endpoint.
+	 */
+	private static JSONObject result(Operation operation, Outcome outcome) throws JSONException {
+		JSONObject json = new JSONObject();
+		json.put("op", operation.type.op);
+		if (operation.actorId != null) {
+			json.put("actorId", operation.actorId);
+		}
+		if (operation.movieId != null) {
+			json.put("movieId", operation.movieId);
+		}
+		int status;
+		String message;
+		if (outcome == Outcome.CREATED) {
+			status = 200;
+			message = operation.type == Type.ADD_ACTOR ? "Actor added successfully."
+					: operation.type == Type.ADD_MOVIE ? "Movie added successfully."
+					: "Relationship added successfully.";
+		} else if (outcome == Outcome.NOT_FOUND) {
+			status = 404;
+			message = "Actor or Movie not found.";
+		} else {
+			status = 400;
+			message = operation.type == Type.ADD_ACTOR ? "Actor with given actorId already exists."
+					: operation.type == Type.ADD_MOVIE ? "Movie with given movieId already exists."
+					: "Relationship already exists.";
+		}
+		json.put("status", status);
+		json.put("message", message);
+		return json;
+	}
+
+	private static Set<String> column(StatementResult result, String key) {
+		Set<String> values = new HashSet<>();
+		for (Record record : result.list()) {
+			values.add(record.get(key).asString());
+		}
+		return values;
+	}
+
+	private static Map<String, Object> node(String idKey, String id, String name) {
+		Map<String, Object> node = new HashMap<>();
+		node.put(idKey, id);
+		node.put("name", name);
+		return node;
+	}
+
+	private static Map<String, Object> pair(String actorId, String movieId) {
+		Map<String, Object> pair = new HashMap<>();
+		pair.put("actorId", actorId);
+		pair.put("movieId", movieId);
+		return pair;
+	}
+
+	private static String key(String actorId, String movieId) {
+		return actorId + '\u0000' + movieId;
+	}
+}
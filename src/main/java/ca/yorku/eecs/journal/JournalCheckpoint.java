@@ -0,0 +1,53 @@
+package ca.yorku.eecs.journal;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Persists a journal consumer's last processed sequence number so it can resume a {@link JournalReader} after a
+ * restart.
+ */
+public final class JournalCheckpoint {
+
+	private JournalCheckpoint() {
+	}
+
+	/**
+	 * Loads a checkpoint.
+	 *
+	 * @param file The checkpoint file.
+	 * @return The stored sequence number, or 0 if no checkpoint has been stored yet.
+	 * @throws IOException If the file exists but cannot be read or parsed.
+	 */
+	public static long load(Path file) throws IOException {
+		if (!Files.exists(file)) {
+			return 0;
+		}
+		String content = new String(Files.readAllBytes(file), StandardCharsets.UTF_8).trim();
+		try {
+			return content.isEmpty() ? 0 : Long.parseLong(content);
+		} catch (NumberFormatException e) {
+			throw new IOException("Malformed journal checkpoint " + file, e);
+		}
+	}
+
+	/**
+	 * Atomically replaces the checkpoint with the given sequence number.
+	 *
+	 * @param file     The checkpoint file.
+	 * @param sequence The last processed sequence number.
+	 * @throws IOException If the checkpoint cannot be written.
+	 */
+	public static void store(Path file, long sequence) throws IOException {
+		Path parent = file.toAbsolutePath().getParent();
+		if (parent != null) {
+			Files.createDirectories(parent);
+		}
+		Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+		Files.write(tmp, Long.toString(sequence).getBytes(StandardCharsets.UTF_8));
+		Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+}
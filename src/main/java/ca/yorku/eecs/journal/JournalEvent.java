@@ -0,0 +1,175 @@
+package ca.yorku.eecs.journal;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * A single successful write recorded in the {@link WriteJournal}.
+ * <p>
+ * Each event carries the sequence number assigned by the journal, the kind of write and the ids (and name,
+ * for node writes) it touched. Events are serialized as one JSON object per line.
+ * </p>
+ */
+public class JournalEvent {
+
+	/**
+	 * The kinds of writes recorded by the journal, one per PUT endpoint.
+	 */
+	public enum Type {
+		ADD_ACTOR,
+		ADD_MOVIE,
+		ADD_RELATIONSHIP
+	}
+
+	/**
+	 * Sequence number assigned by the journal, or 0 if the event has not been appended yet.
+	 */
+	private final long sequence;
+
+	/**
+	 * The kind of write.
+	 */
+	private final Type type;
+
+	/**
+	 * The actorId touched by the write, or null for ADD_MOVIE.
+	 */
+	private final String actorId;
+
+	/**
+	 * The movieId touched by the write, or null for ADD_ACTOR.
+	 */
+	private final String movieId;
+
+	/**
+	 * The name of the added node, or null for ADD_RELATIONSHIP.
+	 */
+	private final String name;
+
+	/**
+	 * Wall-clock time in milliseconds at which the event was appended.
+	 */
+	private final long timestamp;
+
+	private JournalEvent(long sequence, Type type, String actorId, String movieId, String name, long timestamp) {
+		this.sequence = sequence;
+		this.type = type;
+		this.actorId = actorId;
+		this.movieId = movieId;
+		this.name = name;
+		this.timestamp = timestamp;
+	}
+
+	/**
+	 * Creates an event for a successful addActor.
+	 *
+	 * @param actorId The id of the new actor.
+	 * @param name    The name of the new actor.
+	 * @return The unsequenced event.
+	 */
+	public static JournalEvent addActor(String actorId, String name) {
+		return new JournalEvent(0, Type.ADD_ACTOR, actorId, null, name, 0);
+	}
+
+	/**
+	 * Creates an event for a successful addMovie.
+	 *
+	 * @param movieId The id of the new movie.
+	 * @param name    The name of the new movie.
+	 * @return The unsequenced event.
+	 */
+	public static JournalEvent addMovie(String movieId, String name) {
+		return new JournalEvent(0, Type.ADD_MOVIE, null, movieId, name, 0);
+	}
+
+	/**
+	 * Creates an event for a successful addRelationship.
+	 *
+	 * @param actorId The id of the actor.
+	 * @param movieId The id of the movie.
+	 * @return The unsequenced event.
+	 */
+	public static JournalEvent addRelationship(String actorId, String movieId) {
+		return new JournalEvent(0, Type.ADD_RELATIONSHIP, actorId, movieId, null, 0);
+	}
+
+	/**
+	 * Returns a copy of this event stamped with the given sequence number and timestamp.
+	 */
+	JournalEvent sequenced(long sequence, long timestamp) {
+		return new JournalEvent(sequence, type, actorId, movieId, name, timestamp);
+	}
+
+	public long getSequence() {
+		return sequence;
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	public String getActorId() {
+		return actorId;
+	}
+
+	public String getMovieId() {
+		return movieId;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	/**
+	 * Encodes this event as a single JSON line, without the trailing newline.
+	 *
+	 * @return The encoded event.
+	 */
+	String encode() {
+		JSONObject json = new JSONObject();
+		try {
+			json.put("seq", sequence);
+			json.put("type", type.name());
+			json.put("ts", timestamp);
+			if (actorId != null) {
+				json.put("actorId", actorId);
+			}
+			if (movieId != null) {
+				json.put("movieId", movieId);
+			}
+			if (name != null) {
+				json.put("name", name);
+			}
+		} catch (JSONException e) {
+			throw new IllegalStateException(e);
+		}
+		return json.toString();
+	}
+
+	/**
+	 * Decodes an event previously written by {@link #encode()}.
+	 *
+	 * @param line A single journal line.
+	 * @return The decoded event.
+	 * @throws JSONException If the line is not a valid journal record.
+	 */
+	static JournalEvent decode(String line) throws JSONException {
+		JSONObject json = new JSONObject(line);
+		return new JournalEvent(
+				json.getLong("seq"),
+				Type.valueOf(json.getString("type")),
+				json.has("actorId") ? json.getString("actorId") : null,
+				json.has("movieId") ? json.getString("movieId") : null,
+				json.has("name") ? json.getString("name") : null,
+				json.getLong("ts"));
+	}
+
+	@Override
+	public String toString() {
+		return encode();
+	}
+}
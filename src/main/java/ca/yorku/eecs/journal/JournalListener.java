@@ -0,0 +1,20 @@
+package ca.yorku.eecs.journal;
+
+/**
+ * Receives journal events in sequence order as soon as they are appended.
+ * <p>
+ * Listeners are called on the appending request thread after the event is sequenced, one event at a time and in
+ * sequence order. They do not hold up other appends or the flusher, but a slow listener delays delivery to later
+ * appenders, so they must be quick and must not append to the journal themselves. Consumers that can fall behind
+ * should use a {@link JournalReader} instead.
+ * </p>
+ */
+public interface JournalListener {
+
+	/**
+	 * Called once for every appended event.
+	 *
+	 * @param event The sequenced event.
+	 */
+	void onEvent(JournalEvent event);
+}
@@ -0,0 +1,178 @@
+package ca.yorku.eecs.journal;
+
+import org.json.JSONException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Tails a {@link WriteJournal} file from a checkpoint.
+ * <p>
+ * The reader remembers its byte position, so each {@link #poll(int)} only reads what was appended since the previous
+ * call. Events at or below the starting sequence are skipped, which lets a consumer persist
+ * {@link #getLastSequence()} (see {@link JournalCheckpoint}) and resume from it after a restart.
+ * A trailing record without its newline is treated as not yet written. A complete record that cannot be decoded,
+ * such as one torn by a crash and then followed by the rewritten batch, is logged and skipped.
+ * </p>
+ */
+public class JournalReader implements Closeable {
+
+	private static final Logger logger = Logger.getLogger(JournalReader.class.getName());
+
+	private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+	private final Path path;
+
+	private FileChannel channel;
+
+	private ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+
+	/**
+	 * Byte offset just past the last complete record consumed.
+	 */
+	private long position;
+
+	/**
+	 * Sequence number of the last event returned, or the starting checkpoint.
+	 */
+	private long lastSequence;
+
+	/**
+	 * Number of malformed records skipped.
+	 */
+	private long skipped;
+
+	/**
+	 * Creates a reader that returns every event with a sequence number greater than {@code fromSequence}.
+	 *
+	 * @param path         The journal file. It does not have to exist yet.
+	 * @param fromSequence The consumer's checkpoint; 0 to read from the beginning.
+	 */
+	public JournalReader(Path path, long fromSequence) {
+		this.path = path;
+		this.lastSequence = fromSequence;
+	}
+
+	/**
+	 * Returns up to {@code maxEvents} events appended since the last call, without blocking.
+	 *
+	 * @param maxEvents Maximum number of events to return.
+	 * @return The events in sequence order; empty if nothing new has been written.
+	 * @throws IOException If the file cannot be read.
+	 */
+	public List<JournalEvent> poll(int maxEvents) throws IOException {
+		if (channel == null) {
+			if (!Files.exists(path)) {
+				return Collections.emptyList();
+			}
+			channel = FileChannel.open(path, StandardOpenOption.READ);
+		}
+
+		List<JournalEvent> events = new ArrayList<>();
+		while (events.size() < maxEvents) {
+			buffer.clear();
+			int read = channel.read(buffer, position);
+			if (read <= 0) {
+				break;
+			}
+			buffer.flip();
+
+			int lineStart = 0;
+			int consumed = 0;
+			byte[] bytes = buffer.array();
+			for (int i = 0; i < buffer.limit() && events.size() < maxEvents; i++) {
+				if (bytes[i] != '\n') {
+					continue;
+				}
+				long offset = position + lineStart;
+				String line = new String(bytes, lineStart, i - lineStart, StandardCharsets.UTF_8);
+				lineStart = i + 1;
+				consumed = lineStart;
+				if (line.isEmpty()) {
+					continue;
+				}
+				JournalEvent event;
+				try {
+					event = JournalEvent.decode(line);
+				} catch (JSONException | IllegalArgumentException e) {
+					skipped++;
+					logger.warning("Skipping malformed journal record at offset " + offset + " of " + path + ": " + e.getMessage());
+					continue;
+				}
+				if (event.getSequence() > lastSequence) {
+					events.add(event);
+					lastSequence = event.getSequence();
+				}
+			}
+
+			if (consumed == 0) {
+				if (read < buffer.capacity()) {
+					// Only a partial record is available
+					break;
+				}
+				// A single record larger than the buffer; grow and retry
+				buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+				continue;
+			}
+			position += consumed;
+		}
+		return events;
+	}
+
+	/**
+	 * Like {@link #poll(int)}, but waits up to {@code timeoutMillis} for at least one event to arrive.
+	 *
+	 * @param maxEvents     Maximum number of events to return.
+	 * @param timeoutMillis Maximum time to wait.
+	 * @return The events in sequence order; empty on timeout.
+	 * @throws IOException          If the file cannot be read.
+	 * @throws InterruptedException If interrupted while waiting.
+	 */
+	public List<JournalEvent> poll(int maxEvents, long timeoutMillis) throws IOException, InterruptedException {
+		long deadline = System.currentTimeMillis() + timeoutMillis;
+		List<JournalEvent> events = poll(maxEvents);
+		while (events.isEmpty() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(Math.min(10, Math.max(1, deadline - System.currentTimeMillis())));
+			events = poll(maxEvents);
+		}
+		return events;
+	}
+
+	/**
+	 * @return The sequence number of the last event returned, suitable for checkpointing.
+	 */
+	public long getLastSequence() {
+		return lastSequence;
+	}
+
+	/**
+	 * @return Number of malformed records skipped so far.
+	 */
+	public long getSkipped() {
+		return skipped;
+	}
+
+	/**
+	 * @return Byte offset just past the last complete record read.
+	 */
+	public long getPosition() {
+		return position;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (channel != null) {
+			channel.close();
+		}
+	}
+}
@@ -0,0 +1,405 @@
+package ca.yorku.eecs.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Sequential, append-only journal of successful writes made through the PUT handlers.
+ * <p>
+ * Appends assign a monotonically increasing sequence number and hand the event to a single flusher thread, which
+ * writes everything pending in one go and then calls {@link FileChannel#force(boolean)} once for the whole batch
+ * (group commit). Callers that need durability can wait with {@link #awaitDurable(long, long)}.
+ * </p>
+ * <p>
+ * In-process consumers either register a {@link JournalListener} to see events as they are appended, or tail the
+ * file with a {@link JournalReader} and resume from their own checkpoint after a restart.
+ * </p>
+ */
+public class WriteJournal implements Closeable {
+
+	private static final Logger logger = Logger.getLogger(WriteJournal.class.getName());
+
+	/**
+	 * Default maximum number of events written per fsync.
+	 */
+	public static final int DEFAULT_MAX_BATCH = 256;
+
+	/**
+	 * Default time the flusher lingers to let a batch fill up before syncing.
+	 */
+	public static final long DEFAULT_MAX_DELAY_MILLIS = 2;
+
+	/**
+	 * Number of records decoded at a time while recovering the sequence on open.
+	 */
+	private static final int RECOVERY_BATCH = 1024;
+
+	private final Path path;
+
+	private final FileChannel channel;
+
+	private final int maxBatch;
+
+	private final long maxDelayMillis;
+
+	private final List<JournalListener> listeners = new CopyOnWriteArrayList<>();
+
+	/**
+	 * Guards every field below.
+	 */
+	private final Object lock = new Object();
+
+	private List<JournalEvent> pending = new ArrayList<>();
+
+	private long lastSequence;
+
+	private long durableSequence;
+
+	private boolean closed;
+
+	private final Thread flusher;
+
+	/**
+	 * Orders listener delivery by sequence number, separately from {@link #lock} so listeners run without it.
+	 */
+	private final Object deliveryLock = new Object();
+
+	/**
+	 * Sequence number of the last event delivered to the listeners. Guarded by {@link #deliveryLock}.
+	 */
+	private long deliveredSequence;
+
+	/**
+	 * File length after the last batch that was written and synced. Only touched by the constructor and the flusher.
+	 */
+	private long durableLength;
+
+	/**
+	 * Set by the flusher after a failed write, which may have left part of the batch behind.
+	 */
+	private boolean torn;
+
+	/**
+	 * Set when the flusher stopped on an unexpected error. Events appended since are still delivered to the listeners
+	 * but never written, and waiting for them to become durable fails at once. Guarded by {@link #lock}.
+	 */
+	private RuntimeException failure;
+
+	/**
+	 * Opens (or creates) the journal at the given path using the default batching settings.
+	 *
+	 * @param path The journal file.
+	 * @throws IOException If the file cannot be opened or recovered.
+	 */
+	public WriteJournal(Path path) throws IOException {
+		this(path, DEFAULT_MAX_BATCH, DEFAULT_MAX_DELAY_MILLIS);
+	}
+
+	/**
+	 * Opens (or creates) the journal at the given path.
+	 * <p>
+	 * Existing records are scanned to continue the sequence, malformed records are skipped and a torn trailing record
+	 * left by a crash is truncated.
+	 * </p>
+	 *
+	 * @param path           The journal file.
+	 * @param maxBatch       Maximum number of events written per fsync.
+	 * @param maxDelayMillis Time the flusher waits for a batch to fill before syncing.
+	 * @throws IOException If the file cannot be opened or recovered.
+	 */
+	public WriteJournal(Path path, int maxBatch, long maxDelayMillis) throws IOException {
+		this.path = path;
+		this.maxBatch = maxBatch;
+		this.maxDelayMillis = maxDelayMillis;
+
+		Path parent = path.toAbsolutePath().getParent();
+		if (parent != null) {
+			Files.createDirectories(parent);
+		}
+
+		// Recover the last sequence number and the end of the last complete record
+		long validLength = 0;
+		if (Files.exists(path)) {
+			try (JournalReader reader = new JournalReader(path, 0)) {
+				while (!reader.poll(RECOVERY_BATCH).isEmpty()) {
+					// keep reading until the end of the file
+				}
+				lastSequence = reader.getLastSequence();
+				validLength = reader.getPosition();
+			}
+		}
+		durableSequence = lastSequence;
+		deliveredSequence = lastSequence;
+
+		channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+		if (channel.size() > validLength) {
+			logger.warning("Truncating torn record at the end of journal " + path);
+			channel.truncate(validLength);
+		}
+		channel.position(validLength);
+		durableLength = validLength;
+
+		flusher = new Thread(this::flushLoop, "write-journal-flusher");
+		flusher.setDaemon(true);
+		flusher.start();
+
+		logger.info(String.format("Write journal %s opened at sequence %d", path, lastSequence));
+	}
+
+	/**
+	 * Registers a listener that is called for every subsequently appended event.
+	 *
+	 * @param listener The listener.
+	 */
+	public void addListener(JournalListener listener) {
+		listeners.add(listener);
+	}
+
+	/**
+	 * Removes a previously registered listener.
+	 *
+	 * @param listener The listener.
+	 */
+	public void removeListener(JournalListener listener) {
+		listeners.remove(listener);
+	}
+
+	/**
+	 * Appends an event to the journal.
+	 * <p>
+	 * The event is sequenced and then delivered to listeners, after every earlier event and outside the append lock;
+	 * it becomes durable once the flusher has synced its batch.
+	 * </p>
+	 *
+	 * @param event The unsequenced event.
+	 * @return The sequence number assigned to the event.
+	 * @throws IllegalStateException If the journal has been closed.
+	 */
+	public long append(JournalEvent event) {
+		JournalEvent sequenced;
+		synchronized (lock) {
+			if (closed) {
+				throw new IllegalStateException("Write journal is closed");
+			}
+
+			sequenced = event.sequenced(++lastSequence, System.currentTimeMillis());
+			if (failure == null) {
+				pending.add(sequenced);
+				if (pending.size() == 1 || pending.size() >= maxBatch) {
+					lock.notifyAll();
+				}
+			}
+		}
+		deliver(sequenced);
+		return sequenced.getSequence();
+	}
+
+	/**
+	 * Calls the listeners once every earlier event has been delivered, so they see events in sequence order.
+	 */
+	private void deliver(JournalEvent event) {
+		long sequence = event.getSequence();
+		boolean interrupted = false;
+		synchronized (deliveryLock) {
+			while (deliveredSequence != sequence - 1) {
+				try {
+					deliveryLock.wait();
+				} catch (InterruptedException e) {
+					// The event is already sequenced; skipping its turn would stall every later appender
+					interrupted = true;
+				}
+			}
+		}
+		try {
+			for (JournalListener listener : listeners) {
+				try {
+					listener.onEvent(event);
+				} catch (RuntimeException e) {
+					logger.log(Level.WARNING, "Journal listener failed: " + e.getMessage(), e);
+				}
+			}
+		} finally {
+			synchronized (deliveryLock) {
+				deliveredSequence = sequence;
+				deliveryLock.notifyAll();
+			}
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Waits until the given sequence number has been synced to disk.
+	 *
+	 * @param sequence      The sequence number to wait for.
+	 * @param timeoutMillis Maximum time to wait.
+	 * @return true if the sequence is durable, false on timeout, if the journal was closed first or if the flusher
+	 * stopped on an error.
+	 * @throws InterruptedException If interrupted while waiting.
+	 */
+	public boolean awaitDurable(long sequence, long timeoutMillis) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + timeoutMillis;
+		synchronized (lock) {
+			while (durableSequence < sequence) {
+				long remaining = deadline - System.currentTimeMillis();
+				if (remaining <= 0 || failure != null || (closed && !flusher.isAlive())) {
+					return false;
+				}
+				lock.wait(remaining);
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * @return The sequence number of the most recently appended event.
+	 */
+	public long getLastSequence() {
+		synchronized (lock) {
+			return lastSequence;
+		}
+	}
+
+	/**
+	 * @return The highest sequence number known to be synced to disk.
+	 */
+	public long getDurableSequence() {
+		synchronized (lock) {
+			return durableSequence;
+		}
+	}
+
+	/**
+	 * @return The journal file.
+	 */
+	public Path getPath() {
+		return path;
+	}
+
+	/**
+	 * Flusher thread body: collects pending events, writes them and syncs once per batch.
+	 */
+	private void flushLoop() {
+		while (true) {
+			List<JournalEvent> batch;
+			synchronized (lock) {
+				try {
+					while (pending.isEmpty() && !closed) {
+						lock.wait();
+					}
+					if (pending.isEmpty()) {
+						return;
+					}
+					// Linger briefly so concurrent appenders share the fsync
+					if (pending.size() < maxBatch && !closed && maxDelayMillis > 0) {
+						lock.wait(maxDelayMillis);
+					}
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+				batch = pending;
+				pending = new ArrayList<>();
+			}
+
+			try {
+				write(batch);
+			} catch (IOException e) {
+				logger.log(Level.SEVERE, "Error while writing to the journal: " + e.getMessage(), e);
+				synchronized (lock) {
+					if (closed) {
+						logger.severe(String.format("Dropping %d journal events after write failure on close", batch.size()));
+						return;
+					}
+					// Put the batch back in front so ordering is preserved on the next attempt
+					batch.addAll(pending);
+					pending = batch;
+				}
+				try {
+					Thread.sleep(100);
+				} catch (InterruptedException ie) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+				continue;
+			} catch (RuntimeException e) {
+				// Not a disk problem a retry could get past, so stop rather than fail on the same batch forever
+				synchronized (lock) {
+					logger.log(Level.SEVERE, String.format("Journal flusher stopped, dropping %d events: %s",
+							batch.size() + pending.size(), e.getMessage()), e);
+					failure = e;
+					pending = new ArrayList<>();
+					lock.notifyAll();
+				}
+				return;
+			}
+
+			synchronized (lock) {
+				durableSequence = batch.get(batch.size() - 1).getSequence();
+				lock.notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Writes one batch and syncs it.
+	 */
+	void write(List<JournalEvent> batch) throws IOException {
+		if (torn) {
+			// Drop whatever the failed attempt left behind, so the retry neither tears a record nor repeats sequences
+			channel.truncate(durableLength);
+			channel.position(durableLength);
+			torn = false;
+		}
+
+		StringBuilder buf = new StringBuilder(batch.size() * 96);
+		for (JournalEvent event : batch) {
+			buf.append(event.encode()).append('\n');
+		}
+		ByteBuffer bytes = ByteBuffer.wrap(buf.toString().getBytes(StandardCharsets.UTF_8));
+		try {
+			while (bytes.hasRemaining()) {
+				channel.write(bytes);
+			}
+			channel.force(false);
+		} catch (IOException e) {
+			torn = true;
+			throw e;
+		}
+		durableLength = channel.position();
+	}
+
+	/**
+	 * Flushes everything pending, stops the flusher thread and closes the file.
+	 *
+	 * @throws IOException If closing the file fails.
+	 */
+	@Override
+	public void close() throws IOException {
+		synchronized (lock) {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			lock.notifyAll();
+		}
+		try {
+			flusher.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		channel.close();
+	}
+}
@@ -0,0 +1,145 @@
+package ca.yorku.eecs.locking;
+
+import java.util.Collection;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-process locks keyed by actor and movie id, which the PUT handlers hold around their write transactions so that
+ * concurrent writes to the same node wait for each other here instead of deadlocking in Neo4j.
+ * <p>
+ * Ids are hashed onto a fixed number of stripes, so the memory used does not grow with the number of ids; two ids
+ * sharing a stripe merely serialize needlessly. A write touching two nodes takes both stripes in index order, so two
+ * such writes can never wait for each other in a cycle.
+ * </p>
+ */
+public class StripedLocks {
+
+	private final ReentrantLock[] stripes;
+
+	/**
+	 * Creates the locks.
+	 *
+	 * @param stripes Number of stripes; more stripes mean fewer unrelated writes waiting for each other.
+	 */
+	public StripedLocks(int stripes) {
+		this.stripes = new ReentrantLock[Math.max(1, stripes)];
+		for (int i = 0; i < this.stripes.length; i++) {
+			this.stripes[i] = new ReentrantLock();
+		}
+	}
+
+	/**
+	 * Locks an actor until the returned handle is closed.
+	 *
+	 * @param actorId The actor's id.
+	 * @return The handle releasing the lock.
+	 */
+	public Held lockActor(String actorId) {
+		return lock(stripe("a", actorId), -1);
+	}
+
+	/**
+	 * Locks a movie until the returned handle is closed.
+	 *
+	 * @param movieId The movie's id.
+	 * @return The handle releasing the lock.
+	 */
+	public Held lockMovie(String movieId) {
+		return lock(stripe("m", movieId), -1);
+	}
+
+	/**
+	 * Locks an actor and a movie until the returned handle is closed.
+	 *
+	 * @param actorId The actor's id.
+	 * @param movieId The movie's id.
+	 * @return The handle releasing both locks.
+	 */
+	public Held lockActorAndMovie(String actorId, String movieId) {
+		int actorStripe = stripe("a", actorId);
+		int movieStripe = stripe("m", movieId);
+		if (actorStripe == movieStripe) {
+			return lock(actorStripe, -1);
+		}
+		return lock(Math.min(actorStripe, movieStripe), Math.max(actorStripe, movieStripe));
+	}
+
+	/**
+	 * Locks any number of actors and movies until the returned handle is closed, as for a batch of writes.
+	 *
+	 * @param actorIds The actors' ids.
+	 * @param movieIds The movies' ids.
+	 * @return The handle releasing every lock.
+	 */
+	public Held lockAll(Collection<String> actorIds, Collection<String> movieIds) {
+		// Sorted and distinct, so batches overlapping each other or single writes cannot wait in a cycle
+		TreeSet<Integer> indices = new TreeSet<>();
+		for (String actorId : actorIds) {
+			indices.add(stripe("a", actorId));
+		}
+		for (String movieId : movieIds) {
+			indices.add(stripe("m", movieId));
+		}
+		int[] sorted = new int[indices.size()];
+		int i = 0;
+		for (int index : indices) {
+			sorted[i++] = index;
+		}
+		return lock(sorted);
+	}
+
+	public int getStripes() {
+		return stripes.length;
+	}
+
+	/**
+	 * The kind prefix keeps an actor and a movie that share an id from always sharing a stripe.
+	 */
+	private int stripe(String kind, String id) {
+		int hash = (kind + id).hashCode();
+		// Spread the high bits, as HashMap does, before taking the remainder
+		hash ^= hash >>> 16;
+		return Math.floorMod(hash, stripes.length);
+	}
+
+	private Held lock(int first, int second) {
+		return lock(second >= 0 ? new int[]{first, second} : new int[]{first});
+	}
+
+	/**
+	 * @param indices Stripe indices in ascending order.
+	 */
+	private Held lock(int[] indices) {
+		ReentrantLock[] held = new ReentrantLock[indices.length];
+		for (int i = 0; i < indices.length; i++) {
+			held[i] = stripes[indices[i]];
+			held[i].lock();
+		}
+		return new Held(held);
+	}
+
+	/**
+	 * Locks held by one write, released in the reverse order they were taken.
+	 */
+	public static class Held implements AutoCloseable {
+
+		/**
+		 * Holds no locks, for writers running without {@link StripedLocks}.
+		 */
+		public static final Held NONE = new Held(new ReentrantLock[0]);
+
+		private final ReentrantLock[] locks;
+
+		private Held(ReentrantLock[] locks) {
+			this.locks = locks;
+		}
+
+		@Override
+		public void close() {
+			for (int i = locks.length - 1; i >= 0; i--) {
+				locks[i].unlock();
+			}
+		}
+	}
+}
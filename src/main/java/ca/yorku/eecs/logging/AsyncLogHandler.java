@@ -0,0 +1,232 @@
+package ca.yorku.eecs.logging;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * A {@code java.util.logging} handler that moves formatting and I/O off the request threads.
+ * <p>
+ * {@link #publish(LogRecord)} only places the record in a bounded lock-free ring. A background thread drains the ring
+ * in batches, hands each record to the wrapped handlers and flushes them once per batch. When the ring is full the
+ * {@link OverflowPolicy} decides whether the record is dropped or, for severe records, written by the caller.
+ * Dropped records are counted and reported in a warning once the pressure is gone.
+ * </p>
+ */
+public class AsyncLogHandler extends Handler {
+
+	/**
+	 * What to do with a record when the ring is full.
+	 */
+	public enum OverflowPolicy {
+		/**
+		 * Drop every record that does not fit.
+		 */
+		DROP,
+		/**
+		 * Drop records below WARNING; write WARNING and SEVERE records synchronously on the calling thread.
+		 */
+		DROP_BELOW_WARNING
+	}
+
+	/**
+	 * Default number of records the ring can hold.
+	 */
+	public static final int DEFAULT_CAPACITY = 8192;
+
+	/**
+	 * Maximum number of records handed to the delegates per batch.
+	 */
+	private static final int BATCH_SIZE = 256;
+
+	/**
+	 * How long the drainer parks when the ring is empty.
+	 */
+	private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+	private final LogRingBuffer ring;
+
+	private final Handler[] delegates;
+
+	private final OverflowPolicy policy;
+
+	private final AtomicLong dropped = new AtomicLong();
+
+	private final AtomicLong published = new AtomicLong();
+
+	private final Thread drainer;
+
+	private volatile boolean running = true;
+
+	/**
+	 * Creates an asynchronous handler in front of the given handlers.
+	 *
+	 * @param capacity  Number of records the ring can hold.
+	 * @param policy    What to do when the ring is full.
+	 * @param delegates The handlers that do the actual formatting and I/O.
+	 */
+	public AsyncLogHandler(int capacity, OverflowPolicy policy, Handler... delegates) {
+		this.ring = new LogRingBuffer(capacity);
+		this.policy = policy;
+		this.delegates = delegates.clone();
+		this.drainer = new Thread(this::drainLoop, "async-log-drainer");
+		this.drainer.setDaemon(true);
+		this.drainer.start();
+	}
+
+	/**
+	 * Replaces the root logger's handlers with a single asynchronous handler that forwards to them.
+	 *
+	 * @param capacity Number of records the ring can hold.
+	 * @param policy   What to do when the ring is full.
+	 * @return The installed handler.
+	 */
+	public static AsyncLogHandler install(int capacity, OverflowPolicy policy) {
+		Logger root = Logger.getLogger("");
+		Handler[] existing = root.getHandlers();
+		for (Handler handler : existing) {
+			root.removeHandler(handler);
+		}
+		AsyncLogHandler async = new AsyncLogHandler(capacity, policy, existing);
+		root.addHandler(async);
+		return async;
+	}
+
+	/**
+	 * Enqueues the record for the background thread.
+	 *
+	 * @param record The log record.
+	 */
+	@Override
+	public void publish(LogRecord record) {
+		if (record == null || !isLoggable(record)) {
+			return;
+		}
+
+		// Fix the source now: caller inference walks the stack and would find the drainer thread later on
+		if (record.getSourceClassName() == null) {
+			record.setSourceClassName(record.getLoggerName());
+		}
+
+		if (running && ring.offer(record)) {
+			published.incrementAndGet();
+			return;
+		}
+
+		if (policy == OverflowPolicy.DROP_BELOW_WARNING && record.getLevel().intValue() >= Level.WARNING.intValue()) {
+			synchronized (delegates) {
+				writeToDelegates(record);
+			}
+			return;
+		}
+		dropped.incrementAndGet();
+	}
+
+	/**
+	 * Waits until every record published so far has been handed to the delegates, then flushes them.
+	 */
+	@Override
+	public void flush() {
+		while (!ring.isEmpty() && drainer.isAlive()) {
+			LockSupport.parkNanos(IDLE_PARK_NANOS);
+		}
+		synchronized (delegates) {
+			for (Handler delegate : delegates) {
+				delegate.flush();
+			}
+		}
+	}
+
+	/**
+	 * Drains the ring, stops the background thread and closes the delegates.
+	 */
+	@Override
+	public void close() {
+		running = false;
+		LockSupport.unpark(drainer);
+		try {
+			drainer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		for (Handler delegate : delegates) {
+			delegate.close();
+		}
+	}
+
+	/**
+	 * @return Number of records dropped because the ring was full.
+	 */
+	public long getDroppedCount() {
+		return dropped.get();
+	}
+
+	/**
+	 * @return Number of records accepted into the ring.
+	 */
+	public long getPublishedCount() {
+		return published.get();
+	}
+
+	/**
+	 * @return The wrapped handlers.
+	 */
+	public List<Handler> getDelegates() {
+		return Arrays.asList(delegates);
+	}
+
+	private void drainLoop() {
+		List<LogRecord> batch = new ArrayList<>(BATCH_SIZE);
+		long reportedDrops = 0;
+		while (true) {
+			boolean stopping = !running;
+			if (ring.drainTo(batch, BATCH_SIZE) == 0) {
+				if (stopping) {
+					return;
+				}
+				LockSupport.parkNanos(IDLE_PARK_NANOS);
+				continue;
+			}
+
+			synchronized (delegates) {
+				for (LogRecord record : batch) {
+					writeToDelegates(record);
+				}
+
+				// Report drops once the ring has caught up
+				long drops = dropped.get();
+				if (drops > reportedDrops && ring.isEmpty()) {
+					LogRecord warning = new LogRecord(Level.WARNING,
+							String.format("Async logging dropped %d records because the queue was full", drops - reportedDrops));
+					warning.setLoggerName(AsyncLogHandler.class.getName());
+					warning.setSourceClassName(AsyncLogHandler.class.getName());
+					writeToDelegates(warning);
+					reportedDrops = drops;
+				}
+
+				for (Handler delegate : delegates) {
+					delegate.flush();
+				}
+			}
+			batch.clear();
+		}
+	}
+
+	private void writeToDelegates(LogRecord record) {
+		for (Handler delegate : delegates) {
+			try {
+				delegate.publish(record);
+			} catch (RuntimeException e) {
+				reportError(e.getMessage(), e, ErrorManager.WRITE_FAILURE);
+			}
+		}
+	}
+}
@@ -0,0 +1,115 @@
+package ca.yorku.eecs.logging;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.logging.LogRecord;
+
+/**
+ * Bounded, lock-free multi-producer / single-consumer ring of log records.
+ * <p>
+ * Each slot carries a sequence number that tells producers whether it is free and the consumer whether it has been
+ * published. Producers claim slots with a compare-and-set on the tail and never wait: when the ring is full
+ * {@link #offer(LogRecord)} returns false and the caller applies its overflow policy.
+ * </p>
+ */
+class LogRingBuffer {
+
+	private final AtomicReferenceArray<LogRecord> items;
+
+	private final AtomicLongArray sequences;
+
+	private final int mask;
+
+	/**
+	 * Next position producers will claim.
+	 */
+	private final AtomicLong tail = new AtomicLong();
+
+	/**
+	 * Next position the consumer will read. Only written by the consumer thread; volatile so other threads can
+	 * check {@link #isEmpty()}.
+	 */
+	private volatile long head;
+
+	/**
+	 * Creates a ring.
+	 *
+	 * @param capacity Requested number of slots; rounded up to a power of two.
+	 */
+	LogRingBuffer(int capacity) {
+		int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+		this.items = new AtomicReferenceArray<>(size);
+		this.sequences = new AtomicLongArray(size);
+		this.mask = size - 1;
+		for (int i = 0; i < size; i++) {
+			sequences.set(i, i);
+		}
+	}
+
+	/**
+	 * Adds a record without blocking.
+	 *
+	 * @param record The record.
+	 * @return false if the ring is full.
+	 */
+	boolean offer(LogRecord record) {
+		long position;
+		int index;
+		while (true) {
+			position = tail.get();
+			index = (int) (position & mask);
+			long difference = sequences.get(index) - position;
+			if (difference == 0) {
+				if (tail.compareAndSet(position, position + 1)) {
+					break;
+				}
+			} else if (difference < 0) {
+				// The slot still holds a record from one lap ago
+				return false;
+			}
+			// Another producer claimed this position first; retry with the new tail
+		}
+		items.lazySet(index, record);
+		sequences.set(index, position + 1);
+		return true;
+	}
+
+	/**
+	 * Moves up to {@code max} published records into {@code out}. Must only be called by the consumer thread.
+	 *
+	 * @param out Receives the records in publication order.
+	 * @param max Maximum number of records to move.
+	 * @return The number of records moved.
+	 */
+	int drainTo(List<LogRecord> out, int max) {
+		int drained = 0;
+		while (drained < max) {
+			int index = (int) (head & mask);
+			if (sequences.get(index) != head + 1) {
+				break;
+			}
+			out.add(items.get(index));
+			items.lazySet(index, null);
+			sequences.set(index, head + mask + 1);
+			head++;
+			drained++;
+		}
+		return drained;
+	}
+
+	/**
+	 * @return Whether the consumer has caught up with every claimed slot.
+	 */
+	boolean isEmpty() {
+		return tail.get() == head;
+	}
+
+	/**
+	 * @return Number of slots.
+	 */
+	int capacity() {
+		return mask + 1;
+	}
+}
@@ -0,0 +1,165 @@
+package ca.yorku.eecs.membership;
+
+import ca.yorku.eecs.journal.JournalEvent;
+import ca.yorku.eecs.journal.JournalListener;
+import org.neo4j.driver.v1.AccessMode;
+import org.neo4j.driver.v1.Driver;
+import org.neo4j.driver.v1.Session;
+import org.neo4j.driver.v1.StatementResult;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Negative cache of actor and movie ids: Bloom filters over every existing actorId and movieId, which the GET handlers
+ * consult before querying Neo4j so that requests for ids that do not exist, such as typos and stale links, get their
+ * 404 without a database round trip.
+ * <p>
+ * The filters are loaded once from Neo4j with {@link #load(Driver)} and then kept current by registering this as a
+ * {@link JournalListener} on the write journal; it must be registered before loading, so that no write falls between
+ * the two. A filter never forgets an id, so an id it rules out was definitely not created through this server. Until
+ * the load completes, and if it fails, every id might exist and every request goes to the database. Nodes created in
+ * Neo4j by anything other than this server's PUT handlers are not seen, so such imports need a restart.
+ * </p>
+ */
+public class KnownIds implements JournalListener {
+
+	private static final Logger logger = Logger.getLogger(KnownIds.class.getName());
+
+	/**
+	 * Cypher statements streaming the ids into the filters.
+	 */
+	public static final String LOAD_ACTOR_IDS_QUERY = "MATCH (a:Actor) RETURN a.actorId AS id";
+
+	public static final String LOAD_MOVIE_IDS_QUERY = "MATCH (m:Movie) RETURN m.movieId AS id";
+
+	private final ScalableBloomFilter actors;
+
+	private final ScalableBloomFilter movies;
+
+	/**
+	 * Set once {@link #load(Driver)} completed, i.e. once the filters cover the database.
+	 */
+	private volatile boolean loaded;
+
+	private final AtomicLong definiteMisses = new AtomicLong();
+
+	private final AtomicLong possibleHits = new AtomicLong();
+
+	/**
+	 * Creates empty filters.
+	 *
+	 * @param initialCapacity   Ids of each kind the filters hold before they grow.
+	 * @param falsePositiveRate Largest fraction of unknown ids still sent to the database, e.g. 0.01.
+	 */
+	public KnownIds(int initialCapacity, double falsePositiveRate) {
+		this.actors = new ScalableBloomFilter(initialCapacity, falsePositiveRate);
+		this.movies = new ScalableBloomFilter(initialCapacity, falsePositiveRate);
+	}
+
+	/**
+	 * Streams every actorId and movieId from Neo4j into the filters.
+	 *
+	 * @param driver The Neo4j driver.
+	 */
+	public void load(Driver driver) {
+		long start = System.currentTimeMillis();
+		try (Session session = driver.session(AccessMode.READ)) {
+			StatementResult actorIds = session.run(LOAD_ACTOR_IDS_QUERY);
+			while (actorIds.hasNext()) {
+				addActor(actorIds.next().get("id").asString());
+			}
+
+			StatementResult movieIds = session.run(LOAD_MOVIE_IDS_QUERY);
+			while (movieIds.hasNext()) {
+				addMovie(movieIds.next().get("id").asString());
+			}
+		}
+		loaded = true;
+		logger.info(String.format("Loaded %d actorIds and %d movieIds into %d KB of Bloom filters in %d ms",
+				actors.getCount(), movies.getCount(), (actors.getBytes() + movies.getBytes()) / 1024,
+				System.currentTimeMillis() - start));
+	}
+
+	/**
+	 * Adds the id of a created actor or movie.
+	 *
+	 * @param event The event.
+	 */
+	@Override
+	public void onEvent(JournalEvent event) {
+		switch (event.getType()) {
+			case ADD_ACTOR:
+				addActor(event.getActorId());
+				break;
+			case ADD_MOVIE:
+				addMovie(event.getMovieId());
+				break;
+			default:
+				break;
+		}
+	}
+
+	/**
+	 * Adds are serialized here, as the filters require; journal listeners already run one at a time, so this only
+	 * orders them against the load.
+	 */
+	private synchronized void addActor(String actorId) {
+		if (actorId != null) {
+			actors.add(actorId);
+		}
+	}
+
+	private synchronized void addMovie(String movieId) {
+		if (movieId != null) {
+			movies.add(movieId);
+		}
+	}
+
+	/**
+	 * @param actorId The actorId.
+	 * @return False if no actor has this id; true if one might.
+	 */
+	public boolean mightContainActor(String actorId) {
+		return count(!loaded || actors.mightContain(actorId));
+	}
+
+	/**
+	 * @param movieId The movieId.
+	 * @return False if no movie has this id; true if one might.
+	 */
+	public boolean mightContainMovie(String movieId) {
+		return count(!loaded || movies.mightContain(movieId));
+	}
+
+	private boolean count(boolean mightContain) {
+		(mightContain ? possibleHits : definiteMisses).incrementAndGet();
+		return mightContain;
+	}
+
+	public boolean isLoaded() {
+		return loaded;
+	}
+
+	/**
+	 * @return Number of lookups answered without the database because the id does not exist.
+	 */
+	public long getDefiniteMisses() {
+		return definiteMisses.get();
+	}
+
+	/**
+	 * @return Number of lookups that had to go to the database.
+	 */
+	public long getPossibleHits() {
+		return possibleHits.get();
+	}
+
+	public long getActorCount() {
+		return actors.getCount();
+	}
+
+	public long getMovieCount() {
+		return movies.getCount();
+	}
+}
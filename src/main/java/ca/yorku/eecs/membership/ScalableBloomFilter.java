@@ -0,0 +1,205 @@
+package ca.yorku.eecs.membership;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter over strings that grows with the number of keys while keeping its false positive rate bounded.
+ * <p>
+ * The filter is a chain of plain Bloom filters. Keys are added to the newest one until it holds its capacity, then a
+ * new one twice as large with half the false positive rate is started; a key might be present if any filter says so.
+ * The rates form a geometric series, so the whole chain never exceeds twice the first filter's rate, i.e. the
+ * configured rate. A key that was added is always reported present.
+ * </p>
+ * <p>
+ * Adds must come from one thread at a time; lookups may run concurrently with them and see every add that completed
+ * before they started.
+ * </p>
+ */
+public class ScalableBloomFilter {
+
+	/**
+	 * Growth of each filter's capacity over the previous one's.
+	 */
+	private static final int GROWTH = 2;
+
+	/**
+	 * Ratio of each filter's false positive rate to the previous one's.
+	 */
+	private static final double TIGHTENING = 0.5;
+
+	private final double falsePositiveRate;
+
+	/**
+	 * The chain, oldest first. Replaced, never modified, when a filter is added.
+	 */
+	private volatile Stage[] stages;
+
+	private volatile long count;
+
+	/**
+	 * Creates an empty filter.
+	 *
+	 * @param initialCapacity   Keys the first filter holds before the chain grows.
+	 * @param falsePositiveRate Largest fraction of absent keys reported present, e.g. 0.01.
+	 * @throws IllegalArgumentException If the capacity is not positive or the rate not between 0 and 1.
+	 */
+	public ScalableBloomFilter(int initialCapacity, double falsePositiveRate) {
+		if (initialCapacity < 1) {
+			throw new IllegalArgumentException("Initial capacity must be positive: " + initialCapacity);
+		}
+		if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+			throw new IllegalArgumentException("False positive rate must be between 0 and 1: " + falsePositiveRate);
+		}
+		this.falsePositiveRate = falsePositiveRate;
+		// Half the budget for the first filter, so the series of tightening rates sums to at most the configured rate
+		this.stages = new Stage[]{new Stage(initialCapacity, falsePositiveRate * (1 - TIGHTENING))};
+	}
+
+	/**
+	 * Adds a key.
+	 *
+	 * @param key The key.
+	 */
+	public void add(String key) {
+		long hash = hash(key);
+		if (mightContain(hash)) {
+			// Present already, or a false positive that costs nothing more to leave as it is
+			return;
+		}
+		Stage[] current = stages;
+		Stage last = current[current.length - 1];
+		if (last.count >= last.capacity) {
+			Stage[] grown = new Stage[current.length + 1];
+			System.arraycopy(current, 0, grown, 0, current.length);
+			last = new Stage((int) Math.min(Integer.MAX_VALUE, (long) last.capacity * GROWTH), last.falsePositiveRate * TIGHTENING);
+			grown[current.length] = last;
+			stages = grown;
+		}
+		last.add(hash);
+		count++;
+	}
+
+	/**
+	 * @param key The key.
+	 * @return False if the key was definitely never added; true if it probably was.
+	 */
+	public boolean mightContain(String key) {
+		return mightContain(hash(key));
+	}
+
+	private boolean mightContain(long hash) {
+		for (Stage stage : stages) {
+			if (stage.mightContain(hash)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return Number of distinct keys added, less any that were false positives when added.
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * @return Number of filters in the chain.
+	 */
+	public int getStages() {
+		return stages.length;
+	}
+
+	/**
+	 * @return Memory used by the filters' bits.
+	 */
+	public long getBytes() {
+		long bytes = 0;
+		for (Stage stage : stages) {
+			bytes += stage.words.length() * 8L;
+		}
+		return bytes;
+	}
+
+	public double getFalsePositiveRate() {
+		return falsePositiveRate;
+	}
+
+	/**
+	 * 64-bit FNV-1a over the key's UTF-8 bytes, finished with the MurmurHash3 mixer so that both halves are usable as
+	 * independent hashes.
+	 */
+	private static long hash(String key) {
+		long hash = 0xcbf29ce484222325L;
+		for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+			hash ^= b & 0xff;
+			hash *= 0x100000001b3L;
+		}
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+
+	/**
+	 * One plain Bloom filter sized for its capacity and rate.
+	 */
+	private static final class Stage {
+
+		private final int capacity;
+
+		private final double falsePositiveRate;
+
+		private final long bits;
+
+		private final int hashes;
+
+		/**
+		 * Atomic, so a lookup sees every bit an earlier add set.
+		 */
+		private final AtomicLongArray words;
+
+		private volatile int count;
+
+		private Stage(int capacity, double falsePositiveRate) {
+			this.capacity = capacity;
+			this.falsePositiveRate = falsePositiveRate;
+			// Optimal size and number of hashes: m = -n ln p / (ln 2)^2 and k = m / n ln 2
+			long optimalBits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+			int words = (int) Math.max(1, Math.min(Integer.MAX_VALUE - 8, (optimalBits + 63) / 64));
+			this.bits = words * 64L;
+			this.hashes = Math.max(1, (int) Math.round((double) bits / capacity * Math.log(2)));
+			this.words = new AtomicLongArray(words);
+		}
+
+		private void add(long hash) {
+			int h1 = (int) hash;
+			int h2 = (int) (hash >>> 32);
+			for (int i = 0; i < hashes; i++) {
+				long bit = Math.floorMod(h1 + (long) i * h2, bits);
+				int word = (int) (bit >>> 6);
+				long mask = 1L << bit;
+				long current;
+				do {
+					current = words.get(word);
+				} while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask));
+			}
+			count++;
+		}
+
+		private boolean mightContain(long hash) {
+			int h1 = (int) hash;
+			int h2 = (int) (hash >>> 32);
+			for (int i = 0; i < hashes; i++) {
+				long bit = Math.floorMod(h1 + (long) i * h2, bits);
+				if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+}
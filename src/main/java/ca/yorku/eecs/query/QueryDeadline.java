@@ -0,0 +1,190 @@
+package ca.yorku.eecs.query;
+
+import ca.yorku.eecs.server.ConnectionMonitor;
+import org.neo4j.driver.v1.Session;
+import org.neo4j.driver.v1.TransactionConfig;
+import org.neo4j.driver.v1.exceptions.Neo4jException;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Bounds a Cypher query run in a session by a deadline, and cancels it when the deadline passes or the client
+ * disconnects.
+ * <p>
+ * The deadline is enforced twice: {@link #transactionConfig()} carries it as the transaction timeout, so Neo4j itself
+ * terminates the transaction, and a timer resets the session when it expires, which also interrupts the query on
+ * servers that ignore transaction timeouts. Where the server backend reports disconnects, a disconnect resets the
+ * session the same way. The timer thread only fires expiries; resets block on a round trip to Neo4j, so they run on a
+ * small pool of their own, where a slow or hung reset cannot delay another query's timeout.
+ * </p>
+ * <p>
+ * Use one deadline per query and close it, in a try-with-resources, before the session.
+ * </p>
+ */
+public final class QueryDeadline implements AutoCloseable {
+
+	private static final Logger logger = Logger.getLogger(QueryDeadline.class.getName());
+
+	/**
+	 * Why a query was cancelled, with the status answered to the client.
+	 */
+	public enum Cancellation {
+		/**
+		 * The deadline passed.
+		 */
+		TIMED_OUT(504),
+		/**
+		 * The client disconnected; the response is never read.
+		 */
+		DISCONNECTED(503);
+
+		private final int status;
+
+		Cancellation(int status) {
+			this.status = status;
+		}
+
+		public int getStatus() {
+			return status;
+		}
+	}
+
+	private static final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "query-deadline");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	/**
+	 * Threads resetting sessions; a reset only waits for another while this many are stuck at once.
+	 */
+	private static final int RESET_THREADS = 4;
+
+	private static final AtomicInteger resetThreadNumber = new AtomicInteger();
+
+	private static final ExecutorService resetter = Executors.newFixedThreadPool(RESET_THREADS, runnable -> {
+		Thread thread = new Thread(runnable, "query-reset-" + resetThreadNumber.incrementAndGet());
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final Session session;
+
+	private final long timeoutMillis;
+
+	private final ConnectionMonitor monitor;
+
+	private final Runnable onDisconnect = () -> cancel(Cancellation.DISCONNECTED);
+
+	/**
+	 * Set once, by whichever of completion, timeout and disconnect happens first.
+	 */
+	private final AtomicBoolean settled = new AtomicBoolean();
+
+	private volatile Cancellation cancellation;
+
+	private final ScheduledFuture<?> expiry;
+
+	/**
+	 * Starts the deadline.
+	 *
+	 * @param session       The session the query runs in.
+	 * @param timeoutMillis Time the query may take.
+	 * @param monitor       The client's connection, or null if disconnects cannot be seen.
+	 */
+	public QueryDeadline(Session session, long timeoutMillis, ConnectionMonitor monitor) {
+		this.session = session;
+		this.timeoutMillis = timeoutMillis;
+		this.monitor = monitor;
+		this.expiry = timer.schedule(() -> cancel(Cancellation.TIMED_OUT), timeoutMillis, TimeUnit.MILLISECONDS);
+		if (monitor != null) {
+			monitor.addCloseListener(onDisconnect);
+		}
+	}
+
+	/**
+	 * @return Transaction settings making Neo4j terminate the query at the deadline.
+	 */
+	public TransactionConfig transactionConfig() {
+		return TransactionConfig.builder().withTimeout(Duration.ofMillis(timeoutMillis)).build();
+	}
+
+	private void cancel(Cancellation reason) {
+		if (!settled.compareAndSet(false, true)) {
+			return;
+		}
+		cancellation = reason;
+		logger.info(String.format("Cancelling query: %s after at most %d ms", reason, timeoutMillis));
+		resetter.execute(this::reset);
+	}
+
+	/**
+	 * Resets the session, interrupting its running query. {@link Session#reset()} is deprecated in driver 1.7 without a
+	 * replacement: a transaction or result can only be closed from the thread using it, which is blocked in the query.
+	 */
+	@SuppressWarnings("deprecation")
+	private void reset() {
+		try {
+			session.reset();
+		} catch (RuntimeException e) {
+			logger.log(Level.FINE, "Error resetting session: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * @return Why the query was cancelled, or null if it was not (yet).
+	 */
+	public Cancellation getCancellation() {
+		return cancellation;
+	}
+
+	/**
+	 * Explains a query failure by the deadline: the query failed because it was cancelled, or because Neo4j enforced
+	 * the transaction timeout itself.
+	 *
+	 * @param e The failure.
+	 * @return Why the query was cancelled, or null if the failure is unrelated to the deadline.
+	 */
+	public Cancellation cancellationOf(Neo4jException e) {
+		Cancellation current = cancellation;
+		if (current != null) {
+			return current;
+		}
+		return e.code() != null && e.code().endsWith("TransactionTimedOut") ? Cancellation.TIMED_OUT : null;
+	}
+
+	/**
+	 * @param cancellation Why the query was cancelled.
+	 * @return The response body for the cancelled request.
+	 */
+	public String describe(Cancellation cancellation) {
+		return cancellation == Cancellation.TIMED_OUT
+				? "Query timed out after " + timeoutMillis + " ms."
+				: "Query cancelled after the client disconnected.";
+	}
+
+	public long getTimeoutMillis() {
+		return timeoutMillis;
+	}
+
+	/**
+	 * Stops the timer and the disconnect listener. Once closed, the query is never cancelled.
+	 */
+	@Override
+	public void close() {
+		settled.set(true);
+		expiry.cancel(false);
+		if (monitor != null) {
+			monitor.removeCloseListener(onDisconnect);
+		}
+	}
+}
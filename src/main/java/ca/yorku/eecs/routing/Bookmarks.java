@@ -0,0 +1,115 @@
+package ca.yorku.eecs.routing;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import org.neo4j.driver.v1.AccessMode;
+import org.neo4j.driver.v1.Driver;
+import org.neo4j.driver.v1.Session;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Opens handler sessions in the access mode their endpoint needs and carries Neo4j bookmarks over HTTP.
+ * <p>
+ * With a routing driver, READ sessions go to read replicas and WRITE sessions to the leader. A replica can lag behind
+ * the leader, so a client that wants its reads to see its own writes sends back the bookmark returned in the
+ * {@value #HEADER} header of its last PUT; sessions opened with it wait until the member has caught up to that write.
+ * Requests without the header read whatever the member has. Against a single server the mode and bookmarks have no
+ * effect.
+ * </p>
+ */
+public class Bookmarks {
+
+	/**
+	 * Request and response header carrying bookmarks. A request may repeat it or list several comma-separated.
+	 */
+	public static final String HEADER = "X-Neo4j-Bookmark";
+
+	private Bookmarks() {
+	}
+
+	/**
+	 * Opens a session for a GET handler.
+	 *
+	 * @param driver   The driver.
+	 * @param exchange The request, whose bookmarks the session waits for.
+	 * @return A READ session.
+	 */
+	public static Session readSession(Driver driver, HttpExchange exchange) {
+		return session(driver, AccessMode.READ, exchange);
+	}
+
+	/**
+	 * Opens a session for a GET handler whose response carries an ETag from
+	 * {@link ca.yorku.eecs.versioning.EntityVersions}.
+	 * <p>
+	 * The versions are bumped once the leader has committed, so a replica can still serve the previous data. The
+	 * session therefore also waits for the bookmark of the last write the tag counts, and a lagging replica catches up
+	 * to it before answering instead of sending older data under the current tag. The read still goes to a replica.
+	 * </p>
+	 *
+	 * @param driver   The driver.
+	 * @param exchange The request, whose bookmarks the session waits for.
+	 * @param bookmark The bookmark of the last write the tag counts, or null if there is none.
+	 * @return A READ session.
+	 */
+	public static Session taggedReadSession(Driver driver, HttpExchange exchange, String bookmark) {
+		List<String> bookmarks = fromRequest(exchange);
+		if (bookmark != null) {
+			bookmarks.add(bookmark);
+		}
+		return bookmarks.isEmpty() ? driver.session(AccessMode.READ) : driver.session(AccessMode.READ, bookmarks);
+	}
+
+	/**
+	 * Opens a session for a PUT handler.
+	 *
+	 * @param driver   The driver.
+	 * @param exchange The request, whose bookmarks the session waits for.
+	 * @return A WRITE session.
+	 */
+	public static Session writeSession(Driver driver, HttpExchange exchange) {
+		return session(driver, AccessMode.WRITE, exchange);
+	}
+
+	private static Session session(Driver driver, AccessMode mode, HttpExchange exchange) {
+		List<String> bookmarks = fromRequest(exchange);
+		return bookmarks.isEmpty() ? driver.session(mode) : driver.session(mode, bookmarks);
+	}
+
+	/**
+	 * Sets the bookmark of a committed write on the response, for the client to send with its next request. Must be
+	 * called before the response headers are sent.
+	 *
+	 * @param exchange The exchange.
+	 * @param bookmark The {@link Session#lastBookmark()} of the session that committed the write, or null.
+	 */
+	public static void toResponse(HttpExchange exchange, String bookmark) {
+		Headers headers = exchange.getResponseHeaders();
+		if (bookmark != null && headers != null) {
+			headers.set(HEADER, bookmark);
+		}
+	}
+
+	/**
+	 * @param exchange The request.
+	 * @return The bookmarks the request carries, in order, or an empty list.
+	 */
+	public static List<String> fromRequest(HttpExchange exchange) {
+		List<String> bookmarks = new ArrayList<>();
+		Headers headers = exchange.getRequestHeaders();
+		List<String> values = headers == null ? null : headers.get(HEADER);
+		if (values == null) {
+			return bookmarks;
+		}
+		for (String value : values) {
+			for (String bookmark : value.split(",")) {
+				if (!bookmark.trim().isEmpty()) {
+					bookmarks.add(bookmark.trim());
+				}
+			}
+		}
+		return bookmarks;
+	}
+}
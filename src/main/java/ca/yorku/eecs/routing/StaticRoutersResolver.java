@@ -0,0 +1,61 @@
+package ca.yorku.eecs.routing;
+
+import org.neo4j.driver.v1.net.ServerAddress;
+import org.neo4j.driver.v1.net.ServerAddressResolver;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Resolves the host of a {@code bolt+routing} URI to a fixed list of cluster members, so the driver can fetch the
+ * routing table from any of them when the URI's own host is down.
+ */
+public class StaticRoutersResolver implements ServerAddressResolver {
+
+	/**
+	 * Port assumed for a router given without one.
+	 */
+	private static final int DEFAULT_PORT = 7687;
+
+	private final Set<ServerAddress> routers;
+
+	/**
+	 * Creates a resolver.
+	 *
+	 * @param routers Comma-separated {@code host:port} pairs, e.g. "core1:7687,core2:7687".
+	 * @throws IllegalArgumentException If a port is not a number.
+	 */
+	public StaticRoutersResolver(String routers) {
+		Set<ServerAddress> addresses = new LinkedHashSet<>();
+		for (String router : routers.split(",")) {
+			String trimmed = router.trim();
+			if (trimmed.isEmpty()) {
+				continue;
+			}
+			int colon = trimmed.lastIndexOf(':');
+			if (colon < 0) {
+				addresses.add(ServerAddress.of(trimmed, DEFAULT_PORT));
+			} else {
+				addresses.add(ServerAddress.of(trimmed.substring(0, colon), Integer.parseInt(trimmed.substring(colon + 1))));
+			}
+		}
+		this.routers = Collections.unmodifiableSet(addresses);
+	}
+
+	/**
+	 * @param address The host and port of the URI.
+	 * @return The URI's own address followed by the configured routers.
+	 */
+	@Override
+	public Set<ServerAddress> resolve(ServerAddress address) {
+		Set<ServerAddress> addresses = new LinkedHashSet<>();
+		addresses.add(address);
+		addresses.addAll(routers);
+		return addresses;
+	}
+
+	public Set<ServerAddress> getRouters() {
+		return routers;
+	}
+}
@@ -0,0 +1,350 @@
+package ca.yorku.eecs.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Case-insensitive prefix index over the names of one kind of entity, e.g. actors.
+ * <p>
+ * Every word of a name is indexed, so both "kev" and "bac" find "Kevin Bacon". Keys are kept in two sorted arrays: a
+ * large main run and a small delta run that new names are inserted into. A search binary-searches both runs for the
+ * first key at or after the prefix and walks them in merged order, so it costs two binary searches plus the matches
+ * returned. Once the delta outgrows the square root of the main run it is merged into it, which keeps inserts cheap
+ * while bounding the delta.
+ * </p>
+ * <p>
+ * Writers are serialized; each write publishes a new immutable {@link State}, so searches never lock.
+ * </p>
+ */
+public class NameIndex {
+
+	/**
+	 * The delta is merged into the main run once it holds more than this many keys, or the square root of the main
+	 * run's size, whichever is larger.
+	 */
+	private static final int MIN_DELTA_SIZE = 256;
+
+	private static final Run EMPTY_RUN = new Run(new String[0], new int[0]);
+
+	/**
+	 * Entity ids and names by entity number, growing by doubling; only the first {@code State.count} are visible.
+	 */
+	private String[] ids = new String[16];
+
+	private String[] names = new String[16];
+
+	/**
+	 * Entity number by id, so re-adding an entity is a no-op. Guarded by {@code this}.
+	 */
+	private final Map<String, Integer> entityById = new HashMap<>();
+
+	private volatile State state = new State(EMPTY_RUN, EMPTY_RUN, ids, names, 0);
+
+	/**
+	 * Indexes an entity's name if the entity is not indexed yet.
+	 *
+	 * @param id   The entity id.
+	 * @param name The entity's name; entities without a name are not searchable.
+	 * @return false if the entity was already indexed.
+	 */
+	public synchronized boolean add(String id, String name) {
+		int entity = register(id, name);
+		if (entity < 0) {
+			return false;
+		}
+		State current = state;
+		Run delta = current.delta;
+		for (String key : keys(name)) {
+			delta = delta.insert(key, entity);
+		}
+		Run main = current.main;
+		if (delta.keys.length > Math.max(MIN_DELTA_SIZE, (int) Math.sqrt(main.keys.length))) {
+			main = Run.merge(main, delta);
+			delta = EMPTY_RUN;
+		}
+		state = new State(main, delta, ids, names, entityById.size());
+		return true;
+	}
+
+	/**
+	 * Indexes many entities at once, rebuilding the main run with a single sort. Entities already indexed are
+	 * skipped.
+	 *
+	 * @param ids   The entity ids.
+	 * @param names The entities' names, in the same order.
+	 */
+	public synchronized void addAll(List<String> ids, List<String> names) {
+		for (int i = 0; i < ids.size(); i++) {
+			register(ids.get(i), names.get(i));
+		}
+		int count = entityById.size();
+		List<Entry> entries = new ArrayList<>(count);
+		for (int entity = 0; entity < count; entity++) {
+			for (String key : keys(this.names[entity])) {
+				entries.add(new Entry(key, entity));
+			}
+		}
+		entries.sort((a, b) -> {
+			int compare = a.key.compareTo(b.key);
+			return compare != 0 ? compare : Integer.compare(a.entity, b.entity);
+		});
+		String[] keys = new String[entries.size()];
+		int[] entities = new int[entries.size()];
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = entries.get(i).key;
+			entities[i] = entries.get(i).entity;
+		}
+		state = new State(new Run(keys, entities), EMPTY_RUN, this.ids, this.names, count);
+	}
+
+	/**
+	 * Assigns the next entity number, growing the id and name arrays if needed.
+	 *
+	 * @return The entity number, or -1 if the id is already indexed.
+	 */
+	private int register(String id, String name) {
+		if (entityById.containsKey(id)) {
+			return -1;
+		}
+		int entity = entityById.size();
+		if (entity == ids.length) {
+			ids = Arrays.copyOf(ids, entity * 2);
+			names = Arrays.copyOf(names, entity * 2);
+		}
+		ids[entity] = id;
+		names[entity] = name;
+		entityById.put(id, entity);
+		return entity;
+	}
+
+	/**
+	 * Finds entities with a word starting with the given prefix, ignoring case.
+	 *
+	 * @param prefix The prefix; may span several words, e.g. "kevin ba".
+	 * @param limit  Maximum number of matches.
+	 * @return The matches in order of the matched word, each entity at most once.
+	 */
+	public List<Match> search(String prefix, int limit) {
+		State current = state;
+		String key = normalize(prefix);
+		List<Match> matches = new ArrayList<>(Math.min(limit, 16));
+		if (key.isEmpty()) {
+			return matches;
+		}
+
+		Run main = current.main;
+		Run delta = current.delta;
+		int i = main.lowerBound(key);
+		int j = delta.lowerBound(key);
+		int[] seen = new int[Math.min(limit, 16)];
+		while (matches.size() < limit) {
+			boolean inMain = i < main.keys.length && main.keys[i].startsWith(key);
+			boolean inDelta = j < delta.keys.length && delta.keys[j].startsWith(key);
+			int entity;
+			if (inMain && (!inDelta || main.keys[i].compareTo(delta.keys[j]) <= 0)) {
+				entity = main.entities[i++];
+			} else if (inDelta) {
+				entity = delta.entities[j++];
+			} else {
+				break;
+			}
+			if (!contains(seen, matches.size(), entity)) {
+				if (matches.size() == seen.length) {
+					seen = Arrays.copyOf(seen, seen.length * 2);
+				}
+				seen[matches.size()] = entity;
+				matches.add(new Match(current.ids[entity], current.names[entity]));
+			}
+		}
+		return matches;
+	}
+
+	/**
+	 * @return Number of indexed entities.
+	 */
+	public int size() {
+		return state.count;
+	}
+
+	private static boolean contains(int[] values, int size, int value) {
+		for (int i = 0; i < size; i++) {
+			if (values[i] == value) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Lower-cases a name and collapses runs of non-alphanumeric characters into single spaces.
+	 */
+	static String normalize(String name) {
+		StringBuilder normalized = new StringBuilder(name.length());
+		boolean space = false;
+		for (int i = 0; i < name.length(); i++) {
+			char c = name.charAt(i);
+			if (Character.isLetterOrDigit(c)) {
+				if (space && normalized.length() > 0) {
+					normalized.append(' ');
+				}
+				normalized.append(c);
+				space = false;
+			} else {
+				space = true;
+			}
+		}
+		return normalized.toString().toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * @return The normalized name from the start of each of its words, e.g. "kevin bacon" and "bacon".
+	 */
+	static List<String> keys(String name) {
+		List<String> keys = new ArrayList<>(2);
+		if (name == null) {
+			return keys;
+		}
+		String normalized = normalize(name);
+		for (int i = 0; i < normalized.length(); i++) {
+			if (i == 0 || normalized.charAt(i - 1) == ' ') {
+				keys.add(normalized.substring(i));
+			}
+		}
+		return keys;
+	}
+
+	/**
+	 * One search result.
+	 */
+	public static final class Match {
+
+		private final String id;
+
+		private final String name;
+
+		Match(String id, String name) {
+			this.id = id;
+			this.name = name;
+		}
+
+		public String getId() {
+			return id;
+		}
+
+		public String getName() {
+			return name;
+		}
+	}
+
+	/**
+	 * Keys sorted ascending, with the entity number each belongs to.
+	 */
+	private static final class Run {
+
+		private final String[] keys;
+
+		private final int[] entities;
+
+		Run(String[] keys, int[] entities) {
+			this.keys = keys;
+			this.entities = entities;
+		}
+
+		/**
+		 * @return Index of the first key not less than the given one.
+		 */
+		int lowerBound(String key) {
+			int low = 0;
+			int high = keys.length;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (keys[mid].compareTo(key) < 0) {
+					low = mid + 1;
+				} else {
+					high = mid;
+				}
+			}
+			return low;
+		}
+
+		/**
+		 * @return A copy of this run with one more key, placed after any equal keys so older entities come first.
+		 */
+		Run insert(String key, int entity) {
+			int at = lowerBound(key);
+			while (at < keys.length && keys[at].equals(key)) {
+				at++;
+			}
+			String[] newKeys = new String[keys.length + 1];
+			int[] newEntities = new int[keys.length + 1];
+			System.arraycopy(keys, 0, newKeys, 0, at);
+			System.arraycopy(entities, 0, newEntities, 0, at);
+			newKeys[at] = key;
+			newEntities[at] = entity;
+			System.arraycopy(keys, at, newKeys, at + 1, keys.length - at);
+			System.arraycopy(entities, at, newEntities, at + 1, keys.length - at);
+			return new Run(newKeys, newEntities);
+		}
+
+		static Run merge(Run a, Run b) {
+			int n = a.keys.length + b.keys.length;
+			String[] keys = new String[n];
+			int[] entities = new int[n];
+			int i = 0;
+			int j = 0;
+			for (int k = 0; k < n; k++) {
+				if (j == b.keys.length || (i < a.keys.length && a.keys[i].compareTo(b.keys[j]) <= 0)) {
+					keys[k] = a.keys[i];
+					entities[k] = a.entities[i++];
+				} else {
+					keys[k] = b.keys[j];
+					entities[k] = b.entities[j++];
+				}
+			}
+			return new Run(keys, entities);
+		}
+	}
+
+	/**
+	 * Everything a search reads, published at once.
+	 */
+	private static final class State {
+
+		private final Run main;
+
+		private final Run delta;
+
+		private final String[] ids;
+
+		private final String[] names;
+
+		private final int count;
+
+		State(Run main, Run delta, String[] ids, String[] names, int count) {
+			this.main = main;
+			this.delta = delta;
+			this.ids = ids;
+			this.names = names;
+			this.count = count;
+		}
+	}
+
+	/**
+	 * A key and its entity, used while bulk-building the main run.
+	 */
+	private static final class Entry {
+
+		private final String key;
+
+		private final int entity;
+
+		Entry(String key, int entity) {
+			this.key = key;
+			this.entity = entity;
+		}
+	}
+}
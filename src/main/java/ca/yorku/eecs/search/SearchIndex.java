@@ -0,0 +1,92 @@
+package ca.yorku.eecs.search;
+
+import ca.yorku.eecs.graph.ActorMovieGraph;
+import ca.yorku.eecs.journal.JournalEvent;
+import ca.yorku.eecs.journal.JournalListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Name indexes over every actor and movie, kept current from the write journal.
+ * <p>
+ * The indexes are bulk-built from the in-memory graph once it has loaded, so names are read from Neo4j only once.
+ * Register the index as a {@link JournalListener} before the graph loads: names added by the PUT handlers meanwhile
+ * are indexed as they arrive, and indexing the same entity twice is a no-op.
+ * </p>
+ */
+public class SearchIndex implements JournalListener {
+
+	private static final Logger logger = Logger.getLogger(SearchIndex.class.getName());
+
+	private final NameIndex actors = new NameIndex();
+
+	private final NameIndex movies = new NameIndex();
+
+	/**
+	 * Set once {@link #load(ActorMovieGraph)} completed.
+	 */
+	private volatile boolean loaded;
+
+	/**
+	 * Indexes every actor and movie of a loaded graph.
+	 *
+	 * @param graph The in-memory graph.
+	 */
+	public void load(ActorMovieGraph graph) {
+		long start = System.currentTimeMillis();
+		List<String> ids = new ArrayList<>();
+		List<String> names = new ArrayList<>();
+		for (int i = 0; i < graph.getActorCount(); i++) {
+			ids.add(graph.actorId(i));
+			names.add(graph.actorName(i));
+		}
+		actors.addAll(ids, names);
+
+		ids.clear();
+		names.clear();
+		for (int i = 0; i < graph.getMovieCount(); i++) {
+			ids.add(graph.movieId(i));
+			names.add(graph.movieName(i));
+		}
+		movies.addAll(ids, names);
+		loaded = true;
+		logger.info(String.format("Indexed %d actor and %d movie names in %d ms",
+				actors.size(), movies.size(), System.currentTimeMillis() - start));
+	}
+
+	/**
+	 * Indexes the name of an added actor or movie.
+	 *
+	 * @param event The event.
+	 */
+	@Override
+	public void onEvent(JournalEvent event) {
+		switch (event.getType()) {
+			case ADD_ACTOR:
+				actors.add(event.getActorId(), event.getName());
+				break;
+			case ADD_MOVIE:
+				movies.add(event.getMovieId(), event.getName());
+				break;
+			default:
+				break;
+		}
+	}
+
+	public NameIndex getActors() {
+		return actors;
+	}
+
+	public NameIndex getMovies() {
+		return movies;
+	}
+
+	/**
+	 * @return Whether the indexes cover every actor and movie in the database.
+	 */
+	public boolean isLoaded() {
+		return loaded;
+	}
+}
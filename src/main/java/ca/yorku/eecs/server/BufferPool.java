@@ -0,0 +1,58 @@
+package ca.yorku.eecs.server;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+/**
+ * Pool of equally sized direct buffers for socket reads and writes.
+ * <p>
+ * Direct buffers are expensive to allocate and are only freed by the garbage collector, so the event loop reuses
+ * them instead. Only the event-loop thread may use a pool.
+ * </p>
+ */
+final class BufferPool {
+
+	private final int bufferSize;
+
+	private final int maxPooled;
+
+	private final ArrayDeque<ByteBuffer> free = new ArrayDeque<>();
+
+	private long allocated;
+
+	BufferPool(int bufferSize, int maxPooled) {
+		this.bufferSize = bufferSize;
+		this.maxPooled = maxPooled;
+	}
+
+	/**
+	 * @return A cleared buffer.
+	 */
+	ByteBuffer acquire() {
+		ByteBuffer buffer = free.poll();
+		if (buffer == null) {
+			allocated++;
+			return ByteBuffer.allocateDirect(bufferSize);
+		}
+		buffer.clear();
+		return buffer;
+	}
+
+	/**
+	 * Returns a buffer to the pool; beyond the pool's capacity it is left to the garbage collector.
+	 *
+	 * @param buffer A buffer obtained from {@link #acquire()}.
+	 */
+	void release(ByteBuffer buffer) {
+		if (free.size() < maxPooled) {
+			free.push(buffer);
+		}
+	}
+
+	/**
+	 * @return Number of buffers allocated so far.
+	 */
+	long getAllocated() {
+		return allocated;
+	}
+}
@@ -0,0 +1,42 @@
+package ca.yorku.eecs.server;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.util.logging.Logger;
+
+/**
+ * The response to a request whose context's executor has no room for it.
+ */
+final class BusyResponse {
+
+	private static final Logger logger = Logger.getLogger(BusyResponse.class.getName());
+
+	/**
+	 * Seconds a rejected client is asked to wait before retrying.
+	 */
+	private static final String RETRY_AFTER_SECONDS = "1";
+
+	private static final String BODY = "Server busy, retry later.";
+
+	private BusyResponse() {
+	}
+
+	/**
+	 * Sends 503 with a Retry-After and closes the exchange.
+	 *
+	 * @param exchange The rejected request.
+	 */
+	static void send(HttpExchange exchange) {
+		logger.fine("Rejected " + exchange.getRequestURI() + " because its executor is saturated");
+		try {
+			exchange.getResponseHeaders().set("Retry-After", RETRY_AFTER_SECONDS);
+			exchange.sendResponseHeaders(503, BODY.length());
+			exchange.getResponseBody().write(BODY.getBytes());
+		} catch (IOException e) {
+			logger.fine("Could not send 503: " + e.getMessage());
+		} finally {
+			exchange.close();
+		}
+	}
+}
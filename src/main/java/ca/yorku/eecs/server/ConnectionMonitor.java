@@ -0,0 +1,48 @@
+package ca.yorku.eecs.server;
+
+import com.sun.net.httpserver.HttpExchange;
+
+/**
+ * Tells a handler whether the client of its exchange is still connected.
+ * <p>
+ * Backends that can see a disconnect while a handler runs publish a monitor as the exchange attribute
+ * {@link #ATTRIBUTE}; the NIO backend does, the JDK backend cannot. Handlers doing expensive work use it to abandon a
+ * request nobody is waiting for.
+ * </p>
+ */
+public interface ConnectionMonitor {
+
+	/**
+	 * Name of the exchange attribute holding the monitor.
+	 */
+	String ATTRIBUTE = ConnectionMonitor.class.getName();
+
+	/**
+	 * @return Whether the connection is still open.
+	 */
+	boolean isOpen();
+
+	/**
+	 * Registers a listener run once when the connection closes, or right away if it already has. Listeners run on the
+	 * server's event loop and must not block.
+	 *
+	 * @param listener The listener.
+	 */
+	void addCloseListener(Runnable listener);
+
+	/**
+	 * Unregisters a listener, typically once the request it guards has completed.
+	 *
+	 * @param listener The listener.
+	 */
+	void removeCloseListener(Runnable listener);
+
+	/**
+	 * @param exchange An HTTP exchange.
+	 * @return The exchange's monitor, or null if its backend does not provide one.
+	 */
+	static ConnectionMonitor of(HttpExchange exchange) {
+		Object monitor = exchange.getAttribute(ATTRIBUTE);
+		return monitor instanceof ConnectionMonitor ? (ConnectionMonitor) monitor : null;
+	}
+}
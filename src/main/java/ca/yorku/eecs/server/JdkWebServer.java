@@ -0,0 +1,90 @@
+package ca.yorku.eecs.server;
+
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * {@link WebServer} backed by the JDK's {@code com.sun.net.httpserver.HttpServer}.
+ */
+public class JdkWebServer implements WebServer {
+
+	private static final Logger logger = Logger.getLogger(JdkWebServer.class.getName());
+
+	private final HttpServer server;
+
+	/**
+	 * Binds the server with the system's default accept backlog.
+	 *
+	 * @param address The address to listen on.
+	 * @throws IOException If the address cannot be bound.
+	 */
+	public JdkWebServer(InetSocketAddress address) throws IOException {
+		this(address, 0);
+	}
+
+	/**
+	 * Binds the server.
+	 *
+	 * @param address The address to listen on.
+	 * @param backlog Maximum number of connections waiting to be accepted; 0 or less for the system default.
+	 * @throws IOException If the address cannot be bound.
+	 */
+	public JdkWebServer(InetSocketAddress address, int backlog) throws IOException {
+		this.server = HttpServer.create(address, Math.max(0, backlog));
+	}
+
+	@Override
+	public void createContext(String path, HttpHandler handler) {
+		server.createContext(path, handler);
+	}
+
+	/**
+	 * The JDK server has a single executor, so the context's handler is handed off to its own executor from the server's
+	 * thread, which returns at once. The exchange stays open until the handler's thread closes it.
+	 */
+	@Override
+	public void createContext(String path, HttpHandler handler, Executor executor) {
+		server.createContext(path, exchange -> {
+			try {
+				executor.execute(() -> {
+					try {
+						handler.handle(exchange);
+					} catch (Exception e) {
+						logger.log(Level.SEVERE, "Error while handling " + exchange.getRequestURI() + ": " + e.getMessage(), e);
+					} finally {
+						exchange.close();
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				BusyResponse.send(exchange);
+			}
+		});
+	}
+
+	@Override
+	public void setExecutor(Executor executor) {
+		server.setExecutor(executor);
+	}
+
+	@Override
+	public void start() {
+		server.start();
+	}
+
+	@Override
+	public void stop(int delaySeconds) {
+		server.stop(delaySeconds);
+	}
+
+	@Override
+	public InetSocketAddress getAddress() {
+		return server.getAddress();
+	}
+}
@@ -0,0 +1,506 @@
+package ca.yorku.eecs.server;
+
+import com.sun.net.httpserver.Headers;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * One client connection of the {@link NioWebServer}.
+ * <p>
+ * Reading, parsing and socket writes happen on the event loop. Handler threads only append encoded output to the
+ * outbound queue, followed by a marker that ends the response; when the event loop reaches the marker it either
+ * closes the connection or starts on the next pipelined request.
+ * </p>
+ */
+final class NioConnection implements ConnectionMonitor {
+
+	private static final Logger logger = Logger.getLogger(NioConnection.class.getName());
+
+	/**
+	 * Largest request line plus headers accepted.
+	 */
+	static final int MAX_HEADER_BYTES = 16 * 1024;
+
+	/**
+	 * Largest request body accepted.
+	 */
+	static final int MAX_BODY_BYTES = 10 * 1024 * 1024;
+
+	/**
+	 * Reading pauses while this many unprocessed bytes are buffered behind a request in progress.
+	 */
+	private static final int MAX_PIPELINED_BYTES = 64 * 1024;
+
+	/**
+	 * A handler thread blocks while more than this much output is queued, and resumes below half of it.
+	 */
+	private static final long HIGH_WATER_BYTES = 256 * 1024;
+
+	/**
+	 * Ends a response after which the connection stays open.
+	 */
+	static final ByteBuffer END_KEEP_ALIVE = ByteBuffer.allocate(0);
+
+	/**
+	 * Ends a response after which the connection is closed.
+	 */
+	static final ByteBuffer END_CLOSE = ByteBuffer.allocate(0);
+
+	private static final byte[] CONTINUE = "HTTP/1.1 100 Continue\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1);
+
+	private final NioWebServer server;
+
+	private final SocketChannel channel;
+
+	private final SelectionKey key;
+
+	private final BufferPool bufferPool;
+
+	/**
+	 * Received bytes not yet consumed by a request, in {@code in[inStart .. inEnd)}. Event loop only.
+	 */
+	private byte[] in = new byte[4096];
+
+	private int inStart;
+
+	private int inEnd;
+
+	/**
+	 * Whether a request is being handled or its response written. Event loop only.
+	 */
+	private boolean busy;
+
+	/**
+	 * Whether a 100 Continue was sent for the request being received. Event loop only.
+	 */
+	private boolean continueSent;
+
+	/**
+	 * Direct buffer holding output the socket has not accepted yet, or null. Event loop only.
+	 */
+	private ByteBuffer staging;
+
+	private final ConcurrentLinkedQueue<ByteBuffer> outbound = new ConcurrentLinkedQueue<>();
+
+	private final AtomicLong queuedBytes = new AtomicLong();
+
+	/**
+	 * Set while the connection is in the server's pending-write queue, so it is queued at most once.
+	 */
+	private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+	private volatile boolean closed;
+
+	private final CopyOnWriteArrayList<Runnable> closeListeners = new CopyOnWriteArrayList<>();
+
+	private long lastActive = System.currentTimeMillis();
+
+	NioConnection(NioWebServer server, SocketChannel channel, SelectionKey key, BufferPool bufferPool) {
+		this.server = server;
+		this.channel = channel;
+		this.key = key;
+		this.bufferPool = bufferPool;
+	}
+
+	/**
+	 * Reads what the socket has and dispatches the next request if the connection is idle.
+	 */
+	void read() {
+		ByteBuffer buffer = bufferPool.acquire();
+		try {
+			int read = channel.read(buffer);
+			if (read < 0) {
+				close();
+				return;
+			}
+			buffer.flip();
+			ensureInCapacity(buffer.remaining());
+			buffer.get(in, inEnd, buffer.remaining());
+			inEnd += read;
+		} catch (IOException e) {
+			close();
+			return;
+		} finally {
+			bufferPool.release(buffer);
+		}
+		lastActive = System.currentTimeMillis();
+		if (!busy) {
+			dispatchNext();
+		} else if (inEnd - inStart > MAX_PIPELINED_BYTES) {
+			key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+		}
+	}
+
+	private void ensureInCapacity(int extra) {
+		if (inEnd + extra <= in.length) {
+			return;
+		}
+		int used = inEnd - inStart;
+		if (used + extra <= in.length && inStart > 0) {
+			System.arraycopy(in, inStart, in, 0, used);
+		} else {
+			byte[] grown = new byte[Math.max(in.length * 2, used + extra)];
+			System.arraycopy(in, inStart, grown, 0, used);
+			in = grown;
+		}
+		inStart = 0;
+		inEnd = used;
+	}
+
+	/**
+	 * Parses the next buffered request, if complete, and hands it to a handler thread.
+	 */
+	private void dispatchNext() {
+		if (closed) {
+			return;
+		}
+		NioExchange exchange;
+		try {
+			exchange = parse();
+		} catch (ProtocolException e) {
+			reject(e.status, e.getMessage());
+			return;
+		}
+		if (exchange == null) {
+			key.interestOps(key.interestOps() | SelectionKey.OP_READ);
+			return;
+		}
+		busy = true;
+		continueSent = false;
+		server.dispatch(exchange);
+	}
+
+	/**
+	 * @return The next complete request, or null if more bytes are needed.
+	 */
+	private NioExchange parse() throws ProtocolException {
+		int headerEnd = indexOfHeaderEnd();
+		if (headerEnd < 0) {
+			if (inEnd - inStart > MAX_HEADER_BYTES) {
+				throw new ProtocolException(431, "Request header too large.");
+			}
+			return null;
+		}
+		if (headerEnd - inStart > MAX_HEADER_BYTES) {
+			throw new ProtocolException(431, "Request header too large.");
+		}
+
+		String head = new String(in, inStart, headerEnd - inStart, StandardCharsets.ISO_8859_1);
+		String[] lines = head.split("\r\n");
+		String[] requestLine = lines[0].split(" ");
+		if (requestLine.length != 3 || !requestLine[2].startsWith("HTTP/1.")) {
+			throw new ProtocolException(400, "Malformed request line.");
+		}
+		Headers headers = new Headers();
+		for (int i = 1; i < lines.length; i++) {
+			int colon = lines[i].indexOf(':');
+			if (colon <= 0) {
+				throw new ProtocolException(400, "Malformed header.");
+			}
+			headers.add(lines[i].substring(0, colon).trim(), lines[i].substring(colon + 1).trim());
+		}
+		if (headers.containsKey("Transfer-encoding")) {
+			throw new ProtocolException(501, "Chunked request bodies are not supported.");
+		}
+
+		int contentLength = 0;
+		String lengthHeader = headers.getFirst("Content-length");
+		if (lengthHeader != null) {
+			try {
+				contentLength = Integer.parseInt(lengthHeader.trim());
+			} catch (NumberFormatException e) {
+				throw new ProtocolException(400, "Malformed Content-Length.");
+			}
+			if (contentLength < 0) {
+				throw new ProtocolException(400, "Malformed Content-Length.");
+			}
+			if (contentLength > MAX_BODY_BYTES) {
+				throw new ProtocolException(413, "Request body too large.");
+			}
+		}
+		int bodyStart = headerEnd + 4;
+		if (inEnd - bodyStart < contentLength) {
+			if (!continueSent && "100-continue".equalsIgnoreCase(headers.getFirst("Expect"))) {
+				continueSent = true;
+				enqueueFromLoop(ByteBuffer.wrap(CONTINUE));
+			}
+			return null;
+		}
+
+		URI uri;
+		try {
+			uri = new URI(requestLine[1]);
+		} catch (URISyntaxException e) {
+			throw new ProtocolException(400, "Malformed request target.");
+		}
+		String protocol = requestLine[2];
+		String connection = headers.getFirst("Connection");
+		boolean keepAlive = protocol.equals("HTTP/1.1")
+				? !"close".equalsIgnoreCase(connection)
+				: "keep-alive".equalsIgnoreCase(connection);
+
+		byte[] body = Arrays.copyOfRange(in, bodyStart, bodyStart + contentLength);
+		inStart = bodyStart + contentLength;
+		if (inStart == inEnd) {
+			inStart = 0;
+			inEnd = 0;
+		}
+		return new NioExchange(this, requestLine[0], uri, protocol, headers, body, keepAlive);
+	}
+
+	private int indexOfHeaderEnd() {
+		for (int i = inStart; i + 3 < inEnd; i++) {
+			if (in[i] == '\r' && in[i + 1] == '\n' && in[i + 2] == '\r' && in[i + 3] == '\n') {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Answers a request that could not be parsed and closes the connection.
+	 */
+	private void reject(int status, String message) {
+		busy = true;
+		byte[] body = message.getBytes(StandardCharsets.ISO_8859_1);
+		String head = "HTTP/1.1 " + status + " " + NioExchange.reason(status) + "\r\nContent-Length: " + body.length
+				+ "\r\nConnection: close\r\n\r\n";
+		enqueueFromLoop(ByteBuffer.wrap(head.getBytes(StandardCharsets.ISO_8859_1)));
+		enqueueFromLoop(ByteBuffer.wrap(body));
+		outbound.add(END_CLOSE);
+		flush();
+	}
+
+	private void enqueueFromLoop(ByteBuffer buffer) {
+		outbound.add(buffer);
+		queuedBytes.addAndGet(buffer.remaining());
+		key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+	}
+
+	/**
+	 * Queues response bytes from a handler thread, blocking while too much output is already queued.
+	 *
+	 * @param buffer The bytes; must not be modified afterwards.
+	 * @throws IOException If the connection was closed.
+	 */
+	void enqueue(ByteBuffer buffer) throws IOException {
+		if (closed) {
+			throw new IOException("Connection closed");
+		}
+		outbound.add(buffer);
+		long queued = queuedBytes.addAndGet(buffer.remaining());
+		scheduleFlush();
+		if (queued > HIGH_WATER_BYTES) {
+			synchronized (this) {
+				while (queuedBytes.get() > HIGH_WATER_BYTES / 2 && !closed) {
+					try {
+						wait(1000);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						throw new IOException("Interrupted while writing the response");
+					}
+				}
+			}
+			if (closed) {
+				throw new IOException("Connection closed");
+			}
+		}
+	}
+
+	/**
+	 * Ends the current response from a handler thread.
+	 *
+	 * @param keepAlive Whether the connection may serve another request afterwards.
+	 */
+	void endResponse(boolean keepAlive) {
+		outbound.add(keepAlive ? END_KEEP_ALIVE : END_CLOSE);
+		scheduleFlush();
+	}
+
+	private void scheduleFlush() {
+		if (flushScheduled.compareAndSet(false, true)) {
+			server.requestFlush(this);
+		}
+	}
+
+	/**
+	 * Writes queued output until the queue is empty or the socket is full. Event loop only.
+	 */
+	void flush() {
+		flushScheduled.set(false);
+		if (closed) {
+			return;
+		}
+		try {
+			while (true) {
+				if (staging == null) {
+					staging = bufferPool.acquire();
+				}
+				long drained = 0;
+				ByteBuffer head;
+				while (staging.hasRemaining() && (head = outbound.peek()) != null
+						&& head != END_KEEP_ALIVE && head != END_CLOSE) {
+					int count = Math.min(staging.remaining(), head.remaining());
+					int limit = head.limit();
+					head.limit(head.position() + count);
+					staging.put(head);
+					head.limit(limit);
+					drained += count;
+					if (!head.hasRemaining()) {
+						outbound.poll();
+					}
+				}
+				if (drained > 0 && queuedBytes.addAndGet(-drained) <= HIGH_WATER_BYTES / 2) {
+					synchronized (this) {
+						notifyAll();
+					}
+				}
+
+				staging.flip();
+				channel.write(staging);
+				staging.compact();
+				if (staging.position() > 0) {
+					// The socket is full; continue once it is writable again
+					key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+					return;
+				}
+
+				head = outbound.peek();
+				if (head == null) {
+					bufferPool.release(staging);
+					staging = null;
+					key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+					return;
+				}
+				if (head == END_KEEP_ALIVE || head == END_CLOSE) {
+					outbound.poll();
+					lastActive = System.currentTimeMillis();
+					busy = false;
+					if (head == END_CLOSE) {
+						close();
+						return;
+					}
+					dispatchNext();
+					if (closed) {
+						return;
+					}
+				}
+			}
+		} catch (IOException e) {
+			close();
+		}
+	}
+
+	/**
+	 * Closes the connection if it has been idle between requests for too long. Event loop only.
+	 *
+	 * @param now The current time.
+	 */
+	void closeIfIdle(long now) {
+		if (!busy && now - lastActive > NioWebServer.IDLE_TIMEOUT_MILLIS) {
+			close();
+		}
+	}
+
+	/**
+	 * Closes the socket and wakes any handler thread blocked on output.
+	 */
+	void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		key.cancel();
+		try {
+			channel.close();
+		} catch (IOException e) {
+			logger.log(Level.FINE, "Error closing connection: " + e.getMessage(), e);
+		}
+		if (staging != null) {
+			bufferPool.release(staging);
+			staging = null;
+		}
+		outbound.clear();
+		synchronized (this) {
+			notifyAll();
+		}
+		// Whoever removes a listener runs it, so a listener added concurrently runs exactly once
+		for (Runnable listener : closeListeners) {
+			if (closeListeners.remove(listener)) {
+				runCloseListener(listener);
+			}
+		}
+	}
+
+	@Override
+	public boolean isOpen() {
+		return !closed;
+	}
+
+	@Override
+	public void addCloseListener(Runnable listener) {
+		closeListeners.add(listener);
+		// The connection may have closed before the listener was added, in which case close() missed it
+		if (closed && closeListeners.remove(listener)) {
+			runCloseListener(listener);
+		}
+	}
+
+	@Override
+	public void removeCloseListener(Runnable listener) {
+		closeListeners.remove(listener);
+	}
+
+	private static void runCloseListener(Runnable listener) {
+		try {
+			listener.run();
+		} catch (RuntimeException e) {
+			logger.log(Level.WARNING, "Connection close listener failed: " + e.getMessage(), e);
+		}
+	}
+
+	InetSocketAddress getRemoteAddress() {
+		try {
+			return (InetSocketAddress) channel.getRemoteAddress();
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	InetSocketAddress getLocalAddress() {
+		try {
+			return (InetSocketAddress) channel.getLocalAddress();
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * A request that cannot be served, with the status to answer it with.
+	 */
+	private static final class ProtocolException extends Exception {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int status;
+
+		ProtocolException(int status, String message) {
+			super(message);
+			this.status = status;
+		}
+	}
+}
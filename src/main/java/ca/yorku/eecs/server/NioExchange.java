@@ -0,0 +1,407 @@
+package ca.yorku.eecs.server;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpPrincipal;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The HttpExchange handed to handlers by the {@link NioWebServer}.
+ * <p>
+ * It follows the JDK server's contract: a response length of 0 streams the body with chunked transfer encoding
+ * (or until the connection closes for HTTP/1.0 clients), -1 sends no body, and any other length must be written in
+ * full. The request body has already been read into memory. Response bytes are buffered and queued on the connection
+ * whenever the buffer fills, on {@code flush()} and on close, so small responses leave in a single write.
+ * </p>
+ */
+final class NioExchange extends HttpExchange {
+
+	/**
+	 * Size of the response buffer; also the largest chunk of a chunked response.
+	 */
+	private static final int RESPONSE_BUFFER_SIZE = 8 * 1024;
+
+	private static final byte[] CRLF = {'\r', '\n'};
+
+	private static final byte[] LAST_CHUNK = "0\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1);
+
+	private final NioConnection connection;
+
+	private final String method;
+
+	private final URI uri;
+
+	private final String protocol;
+
+	private final Headers requestHeaders;
+
+	private final Headers responseHeaders = new Headers();
+
+	private final Map<String, Object> attributes = new HashMap<>();
+
+	private InputStream requestBody;
+
+	private OutputStream responseBody;
+
+	private final ResponseStream stream = new ResponseStream();
+
+	private boolean keepAlive;
+
+	private int responseCode = -1;
+
+	NioExchange(NioConnection connection, String method, URI uri, String protocol, Headers requestHeaders, byte[] body,
+				boolean keepAlive) {
+		this.connection = connection;
+		this.method = method;
+		this.uri = uri;
+		this.protocol = protocol;
+		this.requestHeaders = requestHeaders;
+		this.requestBody = new ByteArrayInputStream(body);
+		this.responseBody = stream;
+		this.keepAlive = keepAlive;
+		attributes.put(ConnectionMonitor.ATTRIBUTE, connection);
+	}
+
+	@Override
+	public void sendResponseHeaders(int rCode, long responseLength) throws IOException {
+		if (responseCode != -1) {
+			throw new IOException("Response headers already sent");
+		}
+		responseCode = rCode;
+		boolean http11 = protocol.equals("HTTP/1.1");
+		boolean noBody = responseLength == -1 || rCode == 204 || rCode == 304 || rCode < 200;
+		boolean head = method.equals("HEAD");
+
+		StringBuilder response = new StringBuilder(256);
+		response.append("HTTP/1.1 ").append(rCode).append(' ').append(reason(rCode)).append("\r\n");
+		for (Map.Entry<String, List<String>> header : responseHeaders.entrySet()) {
+			for (String value : header.getValue()) {
+				response.append(header.getKey()).append(": ").append(value).append("\r\n");
+			}
+		}
+		if (noBody) {
+			stream.remaining = 0;
+			if (rCode >= 200 && rCode != 204 && rCode != 304) {
+				response.append("Content-Length: 0\r\n");
+			}
+		} else if (responseLength > 0) {
+			stream.remaining = responseLength;
+			response.append("Content-Length: ").append(responseLength).append("\r\n");
+		} else if (head) {
+			stream.remaining = 0;
+		} else if (http11) {
+			stream.chunked = true;
+			response.append("Transfer-Encoding: chunked\r\n");
+		} else {
+			// HTTP/1.0 has no chunked encoding; the body ends when the connection closes
+			keepAlive = false;
+		}
+		if (!keepAlive) {
+			response.append("Connection: close\r\n");
+		} else if (!http11) {
+			response.append("Connection: keep-alive\r\n");
+		}
+		response.append("\r\n");
+		// A HEAD response carries the headers of the GET response but never a body
+		stream.discard = head;
+		stream.writeHead(response.toString().getBytes(StandardCharsets.ISO_8859_1));
+	}
+
+	/**
+	 * Marks the response as failed, so the connection is closed instead of reused.
+	 */
+	void abort() {
+		keepAlive = false;
+		stream.aborted = true;
+	}
+
+	/**
+	 * Completes the exchange once the handler has returned: answers 500 if no response was started, and otherwise
+	 * closes the response body if the handler did not.
+	 */
+	void finish() {
+		try {
+			if (responseCode == -1) {
+				keepAlive = false;
+				stream.aborted = false;
+				byte[] response = "Internal server error.".getBytes(StandardCharsets.ISO_8859_1);
+				sendResponseHeaders(500, response.length);
+				stream.write(response);
+			}
+			stream.close();
+		} catch (IOException e) {
+			keepAlive = false;
+			stream.closed = true;
+			connection.endResponse(false);
+		}
+	}
+
+	@Override
+	public Headers getRequestHeaders() {
+		return requestHeaders;
+	}
+
+	@Override
+	public Headers getResponseHeaders() {
+		return responseHeaders;
+	}
+
+	@Override
+	public URI getRequestURI() {
+		return uri;
+	}
+
+	@Override
+	public String getRequestMethod() {
+		return method;
+	}
+
+	@Override
+	public HttpContext getHttpContext() {
+		return null;
+	}
+
+	@Override
+	public void close() {
+		try {
+			requestBody.close();
+			responseBody.close();
+		} catch (IOException e) {
+			abort();
+		}
+	}
+
+	@Override
+	public InputStream getRequestBody() {
+		return requestBody;
+	}
+
+	@Override
+	public OutputStream getResponseBody() {
+		return responseBody;
+	}
+
+	@Override
+	public InetSocketAddress getRemoteAddress() {
+		return connection.getRemoteAddress();
+	}
+
+	@Override
+	public int getResponseCode() {
+		return responseCode;
+	}
+
+	@Override
+	public InetSocketAddress getLocalAddress() {
+		return connection.getLocalAddress();
+	}
+
+	@Override
+	public String getProtocol() {
+		return protocol;
+	}
+
+	@Override
+	public Object getAttribute(String name) {
+		return attributes.get(name);
+	}
+
+	@Override
+	public void setAttribute(String name, Object value) {
+		attributes.put(name, value);
+	}
+
+	@Override
+	public void setStreams(InputStream i, OutputStream o) {
+		if (i != null) {
+			requestBody = i;
+		}
+		if (o != null) {
+			responseBody = o;
+		}
+	}
+
+	@Override
+	public HttpPrincipal getPrincipal() {
+		return null;
+	}
+
+	/**
+	 * @param status An HTTP status code.
+	 * @return Its reason phrase.
+	 */
+	static String reason(int status) {
+		switch (status) {
+			case 100: return "Continue";
+			case 200: return "OK";
+			case 201: return "Created";
+			case 204: return "No Content";
+			case 304: return "Not Modified";
+			case 400: return "Bad Request";
+			case 404: return "Not Found";
+			case 405: return "Method Not Allowed";
+			case 409: return "Conflict";
+			case 413: return "Payload Too Large";
+			case 422: return "Unprocessable Entity";
+			case 429: return "Too Many Requests";
+			case 431: return "Request Header Fields Too Large";
+			case 500: return "Internal Server Error";
+			case 501: return "Not Implemented";
+			case 503: return "Service Unavailable";
+			case 504: return "Gateway Timeout";
+			default: return "Status " + status;
+		}
+	}
+
+	/**
+	 * The response body. The head written by {@link #sendResponseHeaders} sits at the start of the buffer until the
+	 * first flush, so it is sent together with the first bytes of the body.
+	 */
+	private final class ResponseStream extends OutputStream {
+
+		private final byte[] buffer = new byte[RESPONSE_BUFFER_SIZE];
+
+		private int count;
+
+		/**
+		 * Bytes at the start of the buffer that belong to the head rather than the body.
+		 */
+		private int headLength;
+
+		/**
+		 * Body bytes still allowed, or -1 when unlimited (chunked or close-delimited).
+		 */
+		private long remaining = -1;
+
+		private boolean chunked;
+
+		private boolean closed;
+
+		private boolean aborted;
+
+		/**
+		 * Set for HEAD requests: body bytes are counted but not sent.
+		 */
+		private boolean discard;
+
+		void writeHead(byte[] head) throws IOException {
+			if (head.length > buffer.length) {
+				connection.enqueue(ByteBuffer.wrap(head));
+			} else {
+				System.arraycopy(head, 0, buffer, 0, head.length);
+				count = head.length;
+				headLength = head.length;
+			}
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			write(new byte[]{(byte) b}, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] bytes, int offset, int length) throws IOException {
+			if (responseCode == -1) {
+				throw new IOException("Response headers not sent");
+			}
+			if (closed) {
+				throw new IOException("Response body closed");
+			}
+			if (remaining >= 0) {
+				if (length > remaining) {
+					throw new IOException("Too many bytes to write to stream");
+				}
+				remaining -= length;
+			}
+			if (discard) {
+				return;
+			}
+			while (length > 0) {
+				int copied = Math.min(length, buffer.length - count);
+				System.arraycopy(bytes, offset, buffer, count, copied);
+				count += copied;
+				offset += copied;
+				length -= copied;
+				if (count == buffer.length) {
+					drain(false);
+				}
+			}
+		}
+
+		@Override
+		public void flush() throws IOException {
+			if (!closed && responseCode != -1) {
+				drain(false);
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			if (aborted) {
+				// A partial response cannot be completed; send what there is and drop the connection
+				drain(false);
+				connection.endResponse(false);
+				return;
+			}
+			if (remaining > 0 && !discard) {
+				keepAlive = false;
+			}
+			drain(true);
+			connection.endResponse(keepAlive);
+		}
+
+		/**
+		 * Queues the buffered bytes, framing the body bytes as a chunk if needed.
+		 *
+		 * @param last Whether to append the terminating chunk.
+		 */
+		private void drain(boolean last) throws IOException {
+			int bodyLength = count - headLength;
+			if (!chunked || (bodyLength == 0 && !last)) {
+				if (count > 0) {
+					connection.enqueue(ByteBuffer.wrap(Arrays.copyOf(buffer, count)));
+				}
+			} else {
+				byte[] size = Integer.toHexString(bodyLength).getBytes(StandardCharsets.ISO_8859_1);
+				int framedLength = headLength + (bodyLength > 0 ? size.length + 2 + bodyLength + 2 : 0)
+						+ (last ? LAST_CHUNK.length : 0);
+				byte[] framed = new byte[framedLength];
+				int at = headLength;
+				System.arraycopy(buffer, 0, framed, 0, headLength);
+				if (bodyLength > 0) {
+					System.arraycopy(size, 0, framed, at, size.length);
+					at += size.length;
+					System.arraycopy(CRLF, 0, framed, at, 2);
+					at += 2;
+					System.arraycopy(buffer, headLength, framed, at, bodyLength);
+					at += bodyLength;
+					System.arraycopy(CRLF, 0, framed, at, 2);
+					at += 2;
+				}
+				if (last) {
+					System.arraycopy(LAST_CHUNK, 0, framed, at, LAST_CHUNK.length);
+				}
+				connection.enqueue(ByteBuffer.wrap(framed));
+			}
+			count = 0;
+			headLength = 0;
+		}
+	}
+}
@@ -0,0 +1,311 @@
+package ca.yorku.eecs.server;
+
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * {@link WebServer} running an NIO selector event loop, with persistent connections, pipelining and pooled direct
+ * buffers.
+ * <p>
+ * A single event-loop thread accepts connections, reads and parses requests, and writes responses. Parsed requests
+ * are handed to the executor, since handlers block on Neo4j; their output is queued on the connection and written by
+ * the event loop, and a handler streaming a large response blocks once too much output is queued for a slow client.
+ * Each connection serves one request at a time: pipelined requests stay buffered until the previous response has
+ * been written, so responses always go out in request order.
+ * </p>
+ */
+public class NioWebServer implements WebServer {
+
+	private static final Logger logger = Logger.getLogger(NioWebServer.class.getName());
+
+	/**
+	 * Size of the pooled direct buffers used for socket reads and writes.
+	 */
+	static final int BUFFER_SIZE = 16 * 1024;
+
+	/**
+	 * Number of idle buffers kept in the pool.
+	 */
+	private static final int MAX_POOLED_BUFFERS = 256;
+
+	/**
+	 * Idle keep-alive connections are closed after this long.
+	 */
+	static final long IDLE_TIMEOUT_MILLIS = 60_000;
+
+	/**
+	 * Accept backlog used when none is given.
+	 */
+	static final int DEFAULT_BACKLOG = 1024;
+
+	private final InetSocketAddress requestedAddress;
+
+	private final int backlog;
+
+	private final Map<String, HttpHandler> contexts = new ConcurrentHashMap<>();
+
+	/**
+	 * Executors of the contexts that do not run on the server's executor.
+	 */
+	private final Map<String, Executor> contextExecutors = new ConcurrentHashMap<>();
+
+	/**
+	 * Connections with output queued by handler threads, waiting for the event loop to write it.
+	 */
+	private final ConcurrentLinkedQueue<NioConnection> pendingWrites = new ConcurrentLinkedQueue<>();
+
+	private final BufferPool bufferPool = new BufferPool(BUFFER_SIZE, MAX_POOLED_BUFFERS);
+
+	private Executor executor;
+
+	private ExecutorService ownedExecutor;
+
+	private Selector selector;
+
+	private ServerSocketChannel serverChannel;
+
+	private Thread thread;
+
+	private volatile boolean running;
+
+	/**
+	 * Creates the server; nothing is bound until {@link #start()}.
+	 *
+	 * @param address The address to listen on.
+	 */
+	public NioWebServer(InetSocketAddress address) {
+		this(address, DEFAULT_BACKLOG);
+	}
+
+	/**
+	 * Creates the server; nothing is bound until {@link #start()}.
+	 *
+	 * @param address The address to listen on.
+	 * @param backlog Maximum number of connections waiting to be accepted; 0 or less for the default.
+	 */
+	public NioWebServer(InetSocketAddress address, int backlog) {
+		this.requestedAddress = address;
+		this.backlog = backlog > 0 ? backlog : DEFAULT_BACKLOG;
+	}
+
+	@Override
+	public void createContext(String path, HttpHandler handler) {
+		contexts.put(path, handler);
+	}
+
+	@Override
+	public void createContext(String path, HttpHandler handler, Executor executor) {
+		contextExecutors.put(path, executor);
+		contexts.put(path, handler);
+	}
+
+	@Override
+	public void setExecutor(Executor executor) {
+		this.executor = executor;
+	}
+
+	@Override
+	public synchronized void start() throws IOException {
+		if (executor == null) {
+			ownedExecutor = Executors.newCachedThreadPool();
+			executor = ownedExecutor;
+		}
+		selector = Selector.open();
+		serverChannel = ServerSocketChannel.open();
+		serverChannel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+		serverChannel.bind(requestedAddress, backlog);
+		serverChannel.configureBlocking(false);
+		serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+
+		running = true;
+		thread = new Thread(this::run, "nio-http-loop");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	@Override
+	public synchronized void stop(int delaySeconds) {
+		if (!running) {
+			return;
+		}
+		running = false;
+		selector.wakeup();
+		try {
+			thread.join(Math.max(1, delaySeconds) * 1000L);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if (ownedExecutor != null) {
+			ownedExecutor.shutdownNow();
+		}
+	}
+
+	@Override
+	public InetSocketAddress getAddress() {
+		try {
+			return serverChannel == null ? requestedAddress : (InetSocketAddress) serverChannel.getLocalAddress();
+		} catch (IOException e) {
+			return requestedAddress;
+		}
+	}
+
+	/**
+	 * The event loop.
+	 */
+	private void run() {
+		long lastSweep = System.currentTimeMillis();
+		while (running) {
+			try {
+				selector.select(1000);
+				for (SelectionKey key : selector.selectedKeys()) {
+					if (!key.isValid()) {
+						continue;
+					}
+					if (key.isAcceptable()) {
+						accept();
+						continue;
+					}
+					NioConnection connection = (NioConnection) key.attachment();
+					if (key.isWritable()) {
+						connection.flush();
+					}
+					if (key.isValid() && key.isReadable()) {
+						connection.read();
+					}
+				}
+				selector.selectedKeys().clear();
+
+				NioConnection connection;
+				while ((connection = pendingWrites.poll()) != null) {
+					connection.flush();
+				}
+
+				long now = System.currentTimeMillis();
+				if (now - lastSweep >= 1000) {
+					lastSweep = now;
+					for (SelectionKey key : selector.keys()) {
+						if (key.attachment() instanceof NioConnection) {
+							((NioConnection) key.attachment()).closeIfIdle(now);
+						}
+					}
+				}
+			} catch (Exception e) {
+				logger.log(Level.SEVERE, "Error in the HTTP event loop: " + e.getMessage(), e);
+			}
+		}
+		closeAll();
+	}
+
+	private void accept() throws IOException {
+		SocketChannel channel;
+		while ((channel = serverChannel.accept()) != null) {
+			channel.configureBlocking(false);
+			channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+			SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+			key.attach(new NioConnection(this, channel, key, bufferPool));
+		}
+	}
+
+	private void closeAll() {
+		for (SelectionKey key : selector.keys()) {
+			if (key.attachment() instanceof NioConnection) {
+				((NioConnection) key.attachment()).close();
+			}
+		}
+		try {
+			serverChannel.close();
+			selector.close();
+		} catch (IOException e) {
+			logger.log(Level.WARNING, "Error closing the HTTP server: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Called from handler threads once a connection has output queued.
+	 *
+	 * @param connection The connection.
+	 */
+	void requestFlush(NioConnection connection) {
+		pendingWrites.add(connection);
+		selector.wakeup();
+	}
+
+	/**
+	 * Runs the handler of a parsed request on its context's executor, or the server's if it has none. A request the
+	 * context's executor rejects is answered with 503 from the server's executor.
+	 *
+	 * @param exchange The request.
+	 */
+	void dispatch(NioExchange exchange) {
+		String context = findContext(exchange.getRequestURI().getPath());
+		HttpHandler handler = context == null ? null : contexts.get(context);
+		Executor contextExecutor = context == null ? null : contextExecutors.get(context);
+		Runnable task = () -> {
+			try {
+				if (handler != null) {
+					handler.handle(exchange);
+				} else {
+					byte[] response = "No context found for request".getBytes();
+					exchange.sendResponseHeaders(404, response.length);
+					exchange.getResponseBody().write(response);
+				}
+			} catch (Exception e) {
+				logger.log(Level.SEVERE, "Error while handling " + exchange.getRequestURI() + ": " + e.getMessage(), e);
+				exchange.abort();
+			} finally {
+				exchange.finish();
+			}
+		};
+		if (contextExecutor == null) {
+			executor.execute(task);
+			return;
+		}
+		try {
+			contextExecutor.execute(task);
+		} catch (RejectedExecutionException e) {
+			executor.execute(() -> {
+				try {
+					BusyResponse.send(exchange);
+				} finally {
+					exchange.finish();
+				}
+			});
+		}
+	}
+
+	/**
+	 * @return The longest context path prefixing the request path, or null.
+	 */
+	private String findContext(String path) {
+		String best = null;
+		for (String context : contexts.keySet()) {
+			if (path != null && path.startsWith(context) && (best == null || context.length() > best.length())) {
+				best = context;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * @return Number of direct buffers allocated by the event loop so far.
+	 */
+	long getBuffersAllocated() {
+		return bufferPool.getAllocated();
+	}
+}
@@ -0,0 +1,63 @@
+package ca.yorku.eecs.server;
+
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.Executor;
+
+/**
+ * The HTTP server the API handlers are mounted on.
+ * <p>
+ * Handlers are plain {@link HttpHandler}s whichever backend is used, so the same handler code runs on the JDK server
+ * and on the NIO event loop. As with {@code com.sun.net.httpserver.HttpServer}, a request is routed to the context
+ * with the longest path that prefixes the request path.
+ * </p>
+ */
+public interface WebServer {
+
+	/**
+	 * Mounts a handler.
+	 *
+	 * @param path    The context path, e.g. "/api/v1/getActor".
+	 * @param handler The handler.
+	 */
+	void createContext(String path, HttpHandler handler);
+
+	/**
+	 * Mounts a handler that runs on its own executor instead of the server's, so it cannot take threads from other
+	 * contexts. A request the executor rejects, e.g. because its queue is full, is answered with 503 and a
+	 * Retry-After.
+	 *
+	 * @param path     The context path.
+	 * @param handler  The handler.
+	 * @param executor The executor the handler runs on.
+	 */
+	void createContext(String path, HttpHandler handler, Executor executor);
+
+	/**
+	 * Sets the executor handlers run on. Must be called before {@link #start()}.
+	 *
+	 * @param executor The executor.
+	 */
+	void setExecutor(Executor executor);
+
+	/**
+	 * Starts accepting connections.
+	 *
+	 * @throws IOException If the server socket cannot be opened.
+	 */
+	void start() throws IOException;
+
+	/**
+	 * Stops the server, waiting up to the given delay for requests in progress.
+	 *
+	 * @param delaySeconds Maximum time to wait.
+	 */
+	void stop(int delaySeconds);
+
+	/**
+	 * @return The address the server listens on, with the actual port once started.
+	 */
+	InetSocketAddress getAddress();
+}
@@ -0,0 +1,35 @@
+package ca.yorku.eecs.tracing;
+
+/**
+ * A timed section of a {@link Trace} that ends when closed.
+ * <p>
+ * Use with try-with-resources for sections that do not follow the handler's sequential stages. Unsampled traces
+ * hand out {@link #NOOP}, so closing costs nothing.
+ * </p>
+ */
+public final class Span implements AutoCloseable {
+
+	/**
+	 * Span returned by unsampled traces.
+	 */
+	static final Span NOOP = new Span(null, null, 0);
+
+	private final Trace trace;
+
+	private final String name;
+
+	private final long startNanos;
+
+	Span(Trace trace, String name, long startNanos) {
+		this.trace = trace;
+		this.name = name;
+		this.startNanos = startNanos;
+	}
+
+	@Override
+	public void close() {
+		if (trace != null) {
+			trace.record(name, startNanos, System.nanoTime());
+		}
+	}
+}
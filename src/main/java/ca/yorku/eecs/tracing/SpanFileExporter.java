@@ -0,0 +1,110 @@
+package ca.yorku.eecs.tracing;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Background exporter that periodically appends new spans from a {@link SpanRingBuffer} to a file, one JSON object
+ * per line.
+ * <p>
+ * The exporter reads the ring without blocking writers; if it falls more than a ring's worth behind, the overwritten
+ * spans are simply lost.
+ * </p>
+ */
+public class SpanFileExporter implements Closeable {
+
+	private static final Logger logger = Logger.getLogger(SpanFileExporter.class.getName());
+
+	private final SpanRingBuffer buffer;
+
+	private final Path path;
+
+	private final long intervalMillis;
+
+	private final Thread thread;
+
+	private volatile boolean running = true;
+
+	private long nextSequence;
+
+	/**
+	 * Starts exporting.
+	 *
+	 * @param buffer         The ring to read.
+	 * @param path           The file to append to.
+	 * @param intervalMillis Time between exports.
+	 */
+	public SpanFileExporter(SpanRingBuffer buffer, Path path, long intervalMillis) {
+		this.buffer = buffer;
+		this.path = path;
+		this.intervalMillis = intervalMillis;
+		this.nextSequence = buffer.getWritten();
+		this.thread = new Thread(this::run, "span-file-exporter");
+		this.thread.setDaemon(true);
+		this.thread.start();
+	}
+
+	private void run() {
+		while (running) {
+			try {
+				Thread.sleep(intervalMillis);
+			} catch (InterruptedException e) {
+				running = false;
+			}
+			try {
+				export();
+			} catch (IOException e) {
+				logger.log(Level.WARNING, "Error exporting spans: " + e.getMessage(), e);
+			}
+		}
+	}
+
+	/**
+	 * Writes every span recorded since the previous export.
+	 *
+	 * @throws IOException If the file cannot be written.
+	 */
+	synchronized void export() throws IOException {
+		List<SpanRecord> records = new ArrayList<>();
+		nextSequence = buffer.drainFrom(nextSequence, records);
+		if (records.isEmpty()) {
+			return;
+		}
+
+		Path parent = path.toAbsolutePath().getParent();
+		if (parent != null) {
+			Files.createDirectories(parent);
+		}
+		try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+				StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+			for (SpanRecord record : records) {
+				writer.write(record.toJson().toString());
+				writer.newLine();
+			}
+		}
+	}
+
+	/**
+	 * Stops the exporter after a final export.
+	 */
+	@Override
+	public void close() throws IOException {
+		running = false;
+		thread.interrupt();
+		try {
+			thread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		export();
+	}
+}
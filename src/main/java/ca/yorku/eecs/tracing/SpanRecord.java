@@ -0,0 +1,105 @@
+package ca.yorku.eecs.tracing;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * An immutable finished span as stored in the {@link SpanRingBuffer}.
+ * <p>
+ * A trace produces one root record covering the whole request plus one record per stage. Offsets are relative to the
+ * start of the trace so the stages of a request line up without clock skew.
+ * </p>
+ */
+public class SpanRecord {
+
+	private final long sequence;
+
+	private final String traceId;
+
+	private final String operation;
+
+	private final String name;
+
+	private final boolean root;
+
+	private final long traceStartMillis;
+
+	private final long offsetNanos;
+
+	private final long durationNanos;
+
+	SpanRecord(long sequence, String traceId, String operation, String name, boolean root, long traceStartMillis,
+			   long offsetNanos, long durationNanos) {
+		this.sequence = sequence;
+		this.traceId = traceId;
+		this.operation = operation;
+		this.name = name;
+		this.root = root;
+		this.traceStartMillis = traceStartMillis;
+		this.offsetNanos = offsetNanos;
+		this.durationNanos = durationNanos;
+	}
+
+	/**
+	 * @return Position of this record in the ring buffer's write order.
+	 */
+	public long getSequence() {
+		return sequence;
+	}
+
+	public String getTraceId() {
+		return traceId;
+	}
+
+	/**
+	 * @return The traced endpoint, e.g. getMovie.
+	 */
+	public String getOperation() {
+		return operation;
+	}
+
+	/**
+	 * @return The stage name, or the operation for the root record.
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return Whether this record covers the whole request.
+	 */
+	public boolean isRoot() {
+		return root;
+	}
+
+	public long getTraceStartMillis() {
+		return traceStartMillis;
+	}
+
+	public long getOffsetNanos() {
+		return offsetNanos;
+	}
+
+	public long getDurationNanos() {
+		return durationNanos;
+	}
+
+	/**
+	 * @return This record as a JSON object with microsecond timings.
+	 */
+	public JSONObject toJson() {
+		JSONObject json = new JSONObject();
+		try {
+			json.put("traceId", traceId);
+			json.put("operation", operation);
+			json.put("name", name);
+			json.put("root", root);
+			json.put("start", traceStartMillis);
+			json.put("offsetMicros", offsetNanos / 1000);
+			json.put("durationMicros", durationNanos / 1000);
+		} catch (JSONException e) {
+			throw new IllegalStateException(e);
+		}
+		return json;
+	}
+}
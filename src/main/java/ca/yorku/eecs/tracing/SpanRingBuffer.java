@@ -0,0 +1,99 @@
+package ca.yorku.eecs.tracing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fixed-size, lock-free ring of finished spans.
+ * <p>
+ * Writers claim a slot with a single atomic increment and publish the record into it, overwriting the oldest entry
+ * once the ring has wrapped. Readers never block writers: they copy whatever records are currently published and use
+ * each record's sequence number to ignore slots that were overwritten or not yet filled.
+ * </p>
+ */
+public class SpanRingBuffer {
+
+	private final AtomicReferenceArray<SpanRecord> slots;
+
+	private final int mask;
+
+	/**
+	 * Sequence number that the next record will receive.
+	 */
+	private final AtomicLong cursor = new AtomicLong();
+
+	/**
+	 * Creates a ring buffer.
+	 *
+	 * @param capacity Requested number of slots; rounded up to a power of two.
+	 */
+	public SpanRingBuffer(int capacity) {
+		int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+		this.slots = new AtomicReferenceArray<>(size);
+		this.mask = size - 1;
+	}
+
+	/**
+	 * Appends a finished span.
+	 */
+	void add(String traceId, String operation, String name, boolean root, long traceStartMillis, long offsetNanos,
+			 long durationNanos) {
+		long sequence = cursor.getAndIncrement();
+		slots.lazySet((int) (sequence & mask),
+				new SpanRecord(sequence, traceId, operation, name, root, traceStartMillis, offsetNanos, durationNanos));
+	}
+
+	/**
+	 * Returns up to {@code max} of the most recent records, oldest first.
+	 *
+	 * @param max Maximum number of records.
+	 * @return The records.
+	 */
+	public List<SpanRecord> snapshot(int max) {
+		long end = cursor.get();
+		long start = Math.max(0, end - Math.min(max, slots.length()));
+		List<SpanRecord> records = new ArrayList<>((int) (end - start));
+		drain(start, end, records);
+		return records;
+	}
+
+	/**
+	 * Copies every still-available record with a sequence number of at least {@code fromSequence} into {@code out}.
+	 * Records that have already been overwritten are skipped.
+	 *
+	 * @param fromSequence The first sequence number wanted, usually the value returned by the previous call.
+	 * @param out          Receives the records, oldest first.
+	 * @return The sequence number to pass to the next call.
+	 */
+	public long drainFrom(long fromSequence, List<SpanRecord> out) {
+		long end = cursor.get();
+		drain(Math.max(fromSequence, end - slots.length()), end, out);
+		return end;
+	}
+
+	private void drain(long start, long end, List<SpanRecord> out) {
+		for (long sequence = start; sequence < end; sequence++) {
+			SpanRecord record = slots.get((int) (sequence & mask));
+			// Skip slots not yet published or already reused by a newer record
+			if (record != null && record.getSequence() == sequence) {
+				out.add(record);
+			}
+		}
+	}
+
+	/**
+	 * @return Total number of records ever written.
+	 */
+	public long getWritten() {
+		return cursor.get();
+	}
+
+	/**
+	 * @return Number of slots.
+	 */
+	public int getCapacity() {
+		return slots.length();
+	}
+}
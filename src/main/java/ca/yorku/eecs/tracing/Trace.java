@@ -0,0 +1,107 @@
+package ca.yorku.eecs.tracing;
+
+/**
+ * Request-scoped trace handed out by {@link Tracer#start}.
+ * <p>
+ * Handlers mark the stages they go through with {@link #stage(String)}; each call ends the previous stage and starts
+ * the next, so one line per stage is enough to time parsing, session acquisition, Cypher execution, encoding and
+ * writing. {@link #finish()} ends the last stage and records the whole request.
+ * </p>
+ * <p>
+ * Unsampled requests all share {@link #NOOP}, whose methods return immediately without allocating.
+ * </p>
+ */
+public class Trace {
+
+	/**
+	 * Shared trace for unsampled requests.
+	 */
+	static final Trace NOOP = new Trace(null, null, null, 0, 0);
+
+	private final SpanRingBuffer buffer;
+
+	private final String traceId;
+
+	private final String operation;
+
+	private final long startMillis;
+
+	private final long startNanos;
+
+	private String currentStage;
+
+	private long currentStageStart;
+
+	Trace(SpanRingBuffer buffer, String traceId, String operation, long startMillis, long startNanos) {
+		this.buffer = buffer;
+		this.traceId = traceId;
+		this.operation = operation;
+		this.startMillis = startMillis;
+		this.startNanos = startNanos;
+	}
+
+	/**
+	 * @return Whether this request is being recorded.
+	 */
+	public boolean isSampled() {
+		return buffer != null;
+	}
+
+	/**
+	 * @return The trace id, or null if unsampled.
+	 */
+	public String getTraceId() {
+		return traceId;
+	}
+
+	/**
+	 * Ends the current stage (if any) and starts a new one.
+	 *
+	 * @param name The stage name, e.g. "cypher".
+	 */
+	public void stage(String name) {
+		if (buffer == null) {
+			return;
+		}
+		long now = System.nanoTime();
+		endStage(now);
+		currentStage = name;
+		currentStageStart = now;
+	}
+
+	/**
+	 * Starts a span that ends when closed, independently of the sequential stages.
+	 *
+	 * @param name The span name.
+	 * @return The span.
+	 */
+	public Span span(String name) {
+		if (buffer == null) {
+			return Span.NOOP;
+		}
+		return new Span(this, name, System.nanoTime());
+	}
+
+	/**
+	 * Ends the current stage and records the request as a whole.
+	 */
+	public void finish() {
+		if (buffer == null) {
+			return;
+		}
+		long now = System.nanoTime();
+		endStage(now);
+		buffer.add(traceId, operation, operation, true, startMillis, 0, now - startNanos);
+	}
+
+	void record(String name, long spanStartNanos, long spanEndNanos) {
+		buffer.add(traceId, operation, name, false, startMillis, spanStartNanos - startNanos, spanEndNanos - spanStartNanos);
+	}
+
+	private void endStage(long now) {
+		if (currentStage != null) {
+			record(currentStage, currentStageStart, now);
+			currentStage = null;
+		}
+	}
+}
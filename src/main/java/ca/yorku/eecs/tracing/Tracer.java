@@ -0,0 +1,114 @@
+package ca.yorku.eecs.tracing;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Entry point for request tracing.
+ * <p>
+ * Each request asks {@link #start(String, HttpExchange)} for a {@link Trace}. A request is sampled with the configured
+ * probability, or always when the client sends {@code X-Trace: 1}; sampled requests get an {@code X-Trace-Id} response
+ * header and their spans are written to a shared {@link SpanRingBuffer}. Everything else receives a no-op trace.
+ * </p>
+ * <p>
+ * The buffer size and sampling probability are set once at startup with {@link #configure(int, double)}; until then
+ * the buffer holds {@value #DEFAULT_BUFFER_SIZE} spans and {@value #DEFAULT_SAMPLE_RATE} of requests are sampled.
+ * </p>
+ */
+public final class Tracer {
+
+	/**
+	 * Request header that forces a request to be sampled.
+	 */
+	public static final String FORCE_HEADER = "X-Trace";
+
+	/**
+	 * Response header carrying the trace id of sampled requests.
+	 */
+	public static final String TRACE_ID_HEADER = "X-Trace-Id";
+
+	/**
+	 * Number of spans kept unless configured otherwise.
+	 */
+	public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+	/**
+	 * Probability that a request is sampled unless configured otherwise.
+	 */
+	public static final double DEFAULT_SAMPLE_RATE = 0.01;
+
+	private static volatile SpanRingBuffer buffer = new SpanRingBuffer(DEFAULT_BUFFER_SIZE);
+
+	private static volatile double sampleRate = DEFAULT_SAMPLE_RATE;
+
+	private Tracer() {
+	}
+
+	/**
+	 * Replaces the span buffer and sets the sampling probability. Call at startup, before the buffer is handed out by
+	 * {@link #getBuffer()}: spans in the previous buffer are dropped.
+	 *
+	 * @param bufferSize Number of spans kept; rounded up to a power of two.
+	 * @param rate       The sampling probability, clamped to [0, 1].
+	 */
+	public static void configure(int bufferSize, double rate) {
+		buffer = new SpanRingBuffer(bufferSize);
+		setSampleRate(rate);
+	}
+
+	/**
+	 * Starts tracing a request.
+	 *
+	 * @param operation The endpoint name, e.g. getActor.
+	 * @param exchange  The exchange, used for the force header and to return the trace id. May be null.
+	 * @return A sampled trace, or a shared no-op trace.
+	 */
+	public static Trace start(String operation, HttpExchange exchange) {
+		if (!shouldSample(exchange)) {
+			return Trace.NOOP;
+		}
+
+		String traceId = Long.toHexString(ThreadLocalRandom.current().nextLong() | Long.MIN_VALUE);
+		if (exchange != null && exchange.getResponseHeaders() != null) {
+			exchange.getResponseHeaders().set(TRACE_ID_HEADER, traceId);
+		}
+		return new Trace(buffer, traceId, operation, System.currentTimeMillis(), System.nanoTime());
+	}
+
+	private static boolean shouldSample(HttpExchange exchange) {
+		double rate = sampleRate;
+		if (rate > 0 && (rate >= 1 || ThreadLocalRandom.current().nextDouble() < rate)) {
+			return true;
+		}
+		if (exchange != null) {
+			Headers headers = exchange.getRequestHeaders();
+			return headers != null && "1".equals(headers.getFirst(FORCE_HEADER));
+		}
+		return false;
+	}
+
+	/**
+	 * @return The buffer holding recent spans.
+	 */
+	public static SpanRingBuffer getBuffer() {
+		return buffer;
+	}
+
+	/**
+	 * @return The probability that a request is sampled.
+	 */
+	public static double getSampleRate() {
+		return sampleRate;
+	}
+
+	/**
+	 * Changes the sampling probability at runtime.
+	 *
+	 * @param rate The probability, clamped to [0, 1].
+	 */
+	public static void setSampleRate(double rate) {
+		sampleRate = Math.max(0, Math.min(1, rate));
+	}
+}
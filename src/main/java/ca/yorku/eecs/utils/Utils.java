@@ -19,9 +19,17 @@ public class Utils {
     // use for extracting query params
     public static Map<String, String> splitQuery(String query) throws UnsupportedEncodingException {
         Map<String, String> query_pairs = new LinkedHashMap<String, String>();
+        // requests without a query string simply have no params
+        if (query == null || query.isEmpty()) {
+            return query_pairs;
+        }
         String[] pairs = query.split("&");
         for (String pair : pairs) {
             int idx = pair.indexOf("=");
+            if (idx < 0) {
+                query_pairs.put(URLDecoder.decode(pair, "UTF-8"), "");
+                continue;
+            }
             query_pairs.put(URLDecoder.decode(pair.substring(0, idx), "UTF-8"), URLDecoder.decode(pair.substring(idx + 1), "UTF-8"));
         }
         return query_pairs;
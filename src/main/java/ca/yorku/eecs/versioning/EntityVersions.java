@@ -0,0 +1,174 @@
+package ca.yorku.eecs.versioning;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-actor and per-movie version counters, bumped by the PUT handlers after every committed write, from which the
+ * GET handlers derive ETags without reading Neo4j.
+ * <p>
+ * Only entities written since startup have an entry; every other entity is at version 0. ETags also carry an epoch
+ * chosen at startup, so tags handed out by an earlier process never match. A GET handler must read the version
+ * <em>before</em> querying Neo4j: a write committing in between then makes the tag older than the data, which only
+ * costs the client one extra download, whereas the other order could pin stale data to a current tag.
+ * </p>
+ * <p>
+ * Each version also keeps the bookmark of the write that produced it. A replica can lag behind the leader, so the
+ * GET handler opens its READ session with that bookmark and the replica waits until it has applied the write the tag
+ * counts. Writes to one entity are serialized by the striped locks, so the bookmark kept is always the newest.
+ * </p>
+ * <p>
+ * The versions live in this process only. A tag is therefore valid only while this instance is the sole writer:
+ * a write through another instance, or straight to Neo4j, changes the data without changing the tag, and clients
+ * keep getting 304 for stale copies. Deployments with more than one writer must turn ETags off with
+ * {@code etags.enabled=false}.
+ * </p>
+ */
+public class EntityVersions {
+
+	/**
+	 * Distinguishes this process's tags from those of earlier runs.
+	 */
+	private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+	private final ConcurrentHashMap<String, Version> actors = new ConcurrentHashMap<>();
+
+	private final ConcurrentHashMap<String, Version> movies = new ConcurrentHashMap<>();
+
+	/**
+	 * Records a committed write touching an actor.
+	 *
+	 * @param actorId  The actor's id.
+	 * @param bookmark The bookmark of the transaction that committed it, or null if unknown.
+	 */
+	public void bumpActor(String actorId, String bookmark) {
+		actors.merge(actorId, new Version(1, bookmark), Version::next);
+	}
+
+	/**
+	 * Records a committed write touching a movie.
+	 *
+	 * @param movieId  The movie's id.
+	 * @param bookmark The bookmark of the transaction that committed it, or null if unknown.
+	 */
+	public void bumpMovie(String movieId, String bookmark) {
+		movies.merge(movieId, new Version(1, bookmark), Version::next);
+	}
+
+	public long actorVersion(String actorId) {
+		return actors.getOrDefault(actorId, Version.NONE).count;
+	}
+
+	public long movieVersion(String movieId) {
+		return movies.getOrDefault(movieId, Version.NONE).count;
+	}
+
+	/**
+	 * @param actorId The actor's id.
+	 * @return The bookmark of the last write counted in the actor's version, or null if there is none.
+	 */
+	public String actorBookmark(String actorId) {
+		return actors.getOrDefault(actorId, Version.NONE).bookmark;
+	}
+
+	/**
+	 * @param movieId The movie's id.
+	 * @return The bookmark of the last write counted in the movie's version, or null if there is none.
+	 */
+	public String movieBookmark(String movieId) {
+		return movies.getOrDefault(movieId, Version.NONE).bookmark;
+	}
+
+	/**
+	 * @param actorId     The actor's id.
+	 * @param contentType The Content-Type of the representation, since JSON and CBOR bodies differ.
+	 * @return The current ETag of the actor's representation.
+	 */
+	public String actorTag(String actorId, String contentType) {
+		return tag("a", actorVersion(actorId), contentType);
+	}
+
+	/**
+	 * @param movieId     The movie's id.
+	 * @param contentType The Content-Type of the representation, since JSON and CBOR bodies differ.
+	 * @return The current ETag of the movie's representation.
+	 */
+	public String movieTag(String movieId, String contentType) {
+		return tag("m", movieVersion(movieId), contentType);
+	}
+
+	/**
+	 * Weak tags, because a response is the same whether or not it is sent compressed. The media subtype, e.g. "json"
+	 * or "cbor", tells the representations apart.
+	 */
+	private String tag(String kind, long version, String contentType) {
+		int slash = contentType.indexOf('/');
+		int semicolon = contentType.indexOf(';');
+		String subtype = contentType.substring(slash + 1, semicolon < 0 ? contentType.length() : semicolon).trim();
+		return "W/\"" + epoch + "-" + kind + version + "-" + subtype + "\"";
+	}
+
+	/**
+	 * Checks an If-None-Match header against a tag using the weak comparison required for GET. A "*" is not a match
+	 * here, since it depends on the entity existing; see {@link #matchesAny(String)}.
+	 *
+	 * @param ifNoneMatch The header value, or null.
+	 * @param etag        The current tag.
+	 * @return Whether the client's copy is current, so a 304 can be sent.
+	 */
+	public static boolean matches(String ifNoneMatch, String etag) {
+		if (ifNoneMatch == null) {
+			return false;
+		}
+		String opaque = opaque(etag);
+		for (String candidate : ifNoneMatch.split(",")) {
+			if (opaque(candidate.trim()).equals(opaque)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Checks whether an If-None-Match header is "*", which matches any current representation. It must only be
+	 * honoured once the entity is known to exist, so that a missing one still gets its 404.
+	 *
+	 * @param ifNoneMatch The header value, or null.
+	 * @return Whether the header lists "*".
+	 */
+	public static boolean matchesAny(String ifNoneMatch) {
+		if (ifNoneMatch == null) {
+			return false;
+		}
+		for (String candidate : ifNoneMatch.split(",")) {
+			if (candidate.trim().equals("*")) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static String opaque(String etag) {
+		return etag.startsWith("W/") ? etag.substring(2) : etag;
+	}
+
+	/**
+	 * A version and the bookmark of the write that produced it, replaced as a whole so they are read together.
+	 */
+	private static final class Version {
+
+		private static final Version NONE = new Version(0, null);
+
+		private final long count;
+
+		private final String bookmark;
+
+		private Version(long count, String bookmark) {
+			this.count = count;
+			this.bookmark = bookmark;
+		}
+
+		private static Version next(Version current, Version write) {
+			return new Version(current.count + 1, write.bookmark != null ? write.bookmark : current.bookmark);
+		}
+	}
+}
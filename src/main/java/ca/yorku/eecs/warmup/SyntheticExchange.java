@@ -0,0 +1,147 @@
+package ca.yorku.eecs.warmup;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpPrincipal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An in-memory HttpExchange used to drive handlers without a socket.
+ * <p>
+ * The request body is read from a byte array and the response is captured in memory, so handler code paths can be
+ * exercised during warmup exactly as they are for real requests.
+ * </p>
+ */
+public class SyntheticExchange extends HttpExchange {
+
+	private static final InetSocketAddress LOOPBACK = new InetSocketAddress("127.0.0.1", 0);
+
+	private final String method;
+
+	private final URI uri;
+
+	private final Headers requestHeaders = new Headers();
+
+	private final Headers responseHeaders = new Headers();
+
+	private final Map<String, Object> attributes = new HashMap<>();
+
+	private InputStream requestBody;
+
+	private OutputStream responseBody = new ByteArrayOutputStream();
+
+	private int responseCode = -1;
+
+	/**
+	 * Creates a synthetic request.
+	 *
+	 * @param method The HTTP method.
+	 * @param uri    The request URI, including any query string.
+	 * @param body   The request body, or null for none.
+	 */
+	public SyntheticExchange(String method, String uri, String body) {
+		this.method = method;
+		this.uri = URI.create(uri);
+		this.requestBody = new ByteArrayInputStream(body == null ? new byte[0] : body.getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Override
+	public Headers getRequestHeaders() {
+		return requestHeaders;
+	}
+
+	@Override
+	public Headers getResponseHeaders() {
+		return responseHeaders;
+	}
+
+	@Override
+	public URI getRequestURI() {
+		return uri;
+	}
+
+	@Override
+	public String getRequestMethod() {
+		return method;
+	}
+
+	@Override
+	public HttpContext getHttpContext() {
+		return null;
+	}
+
+	@Override
+	public void close() {
+		// nothing to release
+	}
+
+	@Override
+	public InputStream getRequestBody() {
+		return requestBody;
+	}
+
+	@Override
+	public OutputStream getResponseBody() {
+		return responseBody;
+	}
+
+	@Override
+	public void sendResponseHeaders(int rCode, long responseLength) {
+		this.responseCode = rCode;
+	}
+
+	@Override
+	public InetSocketAddress getRemoteAddress() {
+		return LOOPBACK;
+	}
+
+	@Override
+	public int getResponseCode() {
+		return responseCode;
+	}
+
+	@Override
+	public InetSocketAddress getLocalAddress() {
+		return LOOPBACK;
+	}
+
+	@Override
+	public String getProtocol() {
+		return "HTTP/1.1";
+	}
+
+	@Override
+	public Object getAttribute(String name) {
+		return attributes.get(name);
+	}
+
+	@Override
+	public void setAttribute(String name, Object value) {
+		attributes.put(name, value);
+	}
+
+	@Override
+	public void setStreams(InputStream i, OutputStream o) {
+		if (i != null) {
+			requestBody = i;
+		}
+		if (o != null) {
+			responseBody = o;
+		}
+	}
+
+	@Override
+	public HttpPrincipal getPrincipal() {
+		return null;
+	}
+}
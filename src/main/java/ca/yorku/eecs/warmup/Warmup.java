@@ -0,0 +1,237 @@
+package ca.yorku.eecs.warmup;
+
+import com.sun.net.httpserver.HttpHandler;
+import org.neo4j.driver.v1.Driver;
+import org.neo4j.driver.v1.Session;
+import org.neo4j.driver.v1.Value;
+import org.neo4j.driver.v1.Values;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Startup warmup phase run before the HTTP port is opened.
+ * <p>
+ * Warmup runs in three steps:
+ * <ol>
+ *     <li>opens the configured number of driver sessions at the same time so that many Bolt connections are
+ *     established and returned to the pool,</li>
+ *     <li>runs every registered Cypher statement prefixed with {@code EXPLAIN} so its plan is compiled and cached
+ *     without executing (or writing) anything,</li>
+ *     <li>drives each registered handler with synthetic requests so the request code paths are JIT-compiled.</li>
+ * </ol>
+ * Failures are counted rather than thrown, so a missing database leaves the server startable but not ready.
+ * </p>
+ */
+public class Warmup {
+
+	private static final Logger logger = Logger.getLogger(Warmup.class.getName());
+
+	/**
+	 * Id used in synthetic requests and statement parameters. It never matches a real actor or movie.
+	 */
+	public static final String PROBE_ID = "__warmup_probe__";
+
+	/**
+	 * Maximum time to wait for the connection pool to fill.
+	 */
+	private static final long CONNECT_TIMEOUT_SECONDS = 30;
+
+	private final Driver driver;
+
+	private final int connections;
+
+	private final int iterations;
+
+	private final List<String> statements = new ArrayList<>();
+
+	private final List<SyntheticRequest> requests = new ArrayList<>();
+
+	/**
+	 * Creates a warmup phase.
+	 *
+	 * @param driver      The Neo4j driver whose pool should be primed.
+	 * @param connections Number of pooled connections to pre-establish.
+	 * @param iterations  Number of times each synthetic request is replayed.
+	 */
+	public Warmup(Driver driver, int connections, int iterations) {
+		this.driver = driver;
+		this.connections = connections;
+		this.iterations = iterations;
+	}
+
+	/**
+	 * Registers Cypher statements whose plans should be cached.
+	 *
+	 * @param cypher The statements, exactly as the handlers run them.
+	 * @return This warmup, for chaining.
+	 */
+	public Warmup addStatements(String... cypher) {
+		for (String statement : cypher) {
+			statements.add(statement);
+		}
+		return this;
+	}
+
+	/**
+	 * Registers a synthetic request to replay against a handler.
+	 * <p>
+	 * Requests must not have side effects; use {@link #PROBE_ID} for ids so lookups miss. A handler that consults
+	 * {@link ca.yorku.eecs.membership.KnownIds} answers the probe from its filters once they are loaded, so load them
+	 * only after the warmup, or the request never reaches Neo4j.
+	 * </p>
+	 *
+	 * @param handler The handler to exercise.
+	 * @param method  The HTTP method.
+	 * @param uri     The request URI, including the query string.
+	 * @param body    The request body, or null.
+	 * @return This warmup, for chaining.
+	 */
+	public Warmup addRequest(HttpHandler handler, String method, String uri, String body) {
+		requests.add(new SyntheticRequest(handler, method, uri, body));
+		return this;
+	}
+
+	/**
+	 * Runs the warmup.
+	 *
+	 * @return A report of what was warmed and how long it took.
+	 */
+	public WarmupReport run() {
+		long start = System.nanoTime();
+
+		int connected = primeConnectionPool();
+		int prepared = prepareStatements();
+
+		// Silence the per-request handler logging while replaying synthetic requests
+		Logger handlerLogger = Logger.getLogger("ca.yorku.eecs.handler");
+		Level previousLevel = handlerLogger.getLevel();
+		handlerLogger.setLevel(Level.WARNING);
+		int failedRequests;
+		try {
+			failedRequests = exerciseHandlers();
+		} finally {
+			handlerLogger.setLevel(previousLevel);
+		}
+
+		long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		return new WarmupReport(elapsedMillis, connections, connected, statements.size(), prepared,
+				requests.size() * iterations, failedRequests);
+	}
+
+	/**
+	 * Holds {@code connections} sessions open concurrently so the driver has to create that many connections.
+	 *
+	 * @return The number of sessions that successfully ran a statement.
+	 */
+	private int primeConnectionPool() {
+		if (connections <= 0) {
+			return 0;
+		}
+
+		ExecutorService pool = Executors.newFixedThreadPool(connections);
+		CountDownLatch allOpen = new CountDownLatch(connections);
+		AtomicInteger connected = new AtomicInteger();
+		try {
+			for (int i = 0; i < connections; i++) {
+				pool.execute(() -> {
+					try (Session session = driver.session()) {
+						session.run("RETURN 1").consume();
+						connected.incrementAndGet();
+						allOpen.countDown();
+						// Keep the connection checked out until every other session has one too
+						allOpen.await(CONNECT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					} catch (Exception e) {
+						allOpen.countDown();
+						logger.log(Level.WARNING, "Warmup could not open a connection: " + e.getMessage());
+					}
+				});
+			}
+		} finally {
+			pool.shutdown();
+			try {
+				pool.awaitTermination(CONNECT_TIMEOUT_SECONDS * 2, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		return connected.get();
+	}
+
+	/**
+	 * Compiles every registered statement with EXPLAIN. Neo4j caches plans by statement text without the EXPLAIN
+	 * prefix, so the handlers' first real executions hit the cache.
+	 *
+	 * @return The number of statements that compiled successfully.
+	 */
+	private int prepareStatements() {
+		if (statements.isEmpty()) {
+			return 0;
+		}
+
+		Value parameters = Values.parameters(
+				"actorId", PROBE_ID,
+				"movieId", PROBE_ID,
+				"name", PROBE_ID,
+				"kevinBaconId", PROBE_ID);
+		int prepared = 0;
+		try (Session session = driver.session()) {
+			for (String statement : statements) {
+				try {
+					session.run("EXPLAIN " + statement, parameters).consume();
+					prepared++;
+				} catch (Exception e) {
+					logger.log(Level.WARNING, "Warmup could not prepare statement: " + statement + ": " + e.getMessage());
+				}
+			}
+		} catch (Exception e) {
+			logger.log(Level.WARNING, "Warmup could not open a session: " + e.getMessage());
+		}
+		return prepared;
+	}
+
+	/**
+	 * Replays the synthetic requests.
+	 *
+	 * @return The number of requests whose handler threw.
+	 */
+	private int exerciseHandlers() {
+		int failed = 0;
+		for (int i = 0; i < iterations; i++) {
+			for (SyntheticRequest request : requests) {
+				try {
+					request.handler.handle(new SyntheticExchange(request.method, request.uri, request.body));
+				} catch (Exception e) {
+					failed++;
+				}
+			}
+		}
+		return failed;
+	}
+
+	/**
+	 * A request registered with {@link #addRequest(HttpHandler, String, String, String)}.
+	 */
+	private static class SyntheticRequest {
+		private final HttpHandler handler;
+		private final String method;
+		private final String uri;
+		private final String body;
+
+		SyntheticRequest(HttpHandler handler, String method, String uri, String body) {
+			this.handler = handler;
+			this.method = method;
+			this.uri = uri;
+			this.body = body;
+		}
+	}
+}
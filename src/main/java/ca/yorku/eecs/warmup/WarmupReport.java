@@ -0,0 +1,73 @@
+package ca.yorku.eecs.warmup;
+
+/**
+ * Outcome of a {@link Warmup} run.
+ */
+public class WarmupReport {
+
+	private final long elapsedMillis;
+
+	private final int connectionsRequested;
+
+	private final int connectionsEstablished;
+
+	private final int statementsRequested;
+
+	private final int statementsPrepared;
+
+	private final int requestsReplayed;
+
+	private final int requestsFailed;
+
+	WarmupReport(long elapsedMillis, int connectionsRequested, int connectionsEstablished, int statementsRequested,
+				 int statementsPrepared, int requestsReplayed, int requestsFailed) {
+		this.elapsedMillis = elapsedMillis;
+		this.connectionsRequested = connectionsRequested;
+		this.connectionsEstablished = connectionsEstablished;
+		this.statementsRequested = statementsRequested;
+		this.statementsPrepared = statementsPrepared;
+		this.requestsReplayed = requestsReplayed;
+		this.requestsFailed = requestsFailed;
+	}
+
+	/**
+	 * The server is ready once every requested connection was established, every statement was prepared and no
+	 * synthetic request failed.
+	 *
+	 * @return Whether warmup fully succeeded.
+	 */
+	public boolean isReady() {
+		return connectionsEstablished == connectionsRequested
+				&& statementsPrepared == statementsRequested
+				&& requestsFailed == 0;
+	}
+
+	public long getElapsedMillis() {
+		return elapsedMillis;
+	}
+
+	public int getConnectionsEstablished() {
+		return connectionsEstablished;
+	}
+
+	public int getStatementsPrepared() {
+		return statementsPrepared;
+	}
+
+	public int getRequestsReplayed() {
+		return requestsReplayed;
+	}
+
+	public int getRequestsFailed() {
+		return requestsFailed;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("Warmup %s in %d ms: %d/%d connections, %d/%d statements prepared, %d requests replayed (%d failed)",
+				isReady() ? "ready" : "NOT ready", elapsedMillis,
+				connectionsEstablished, connectionsRequested,
+				statementsPrepared, statementsRequested,
+				requestsReplayed, requestsFailed);
+	}
+}
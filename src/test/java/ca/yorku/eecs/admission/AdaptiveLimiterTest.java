@@ -0,0 +1,175 @@
+package ca.yorku.eecs.admission;
+
+import org.junit.Test;
+import org.neo4j.driver.v1.Driver;
+import org.neo4j.driver.v1.Session;
+import org.neo4j.driver.v1.exceptions.ClientException;
+import org.neo4j.driver.v1.exceptions.ServiceUnavailableException;
+import org.neo4j.driver.v1.exceptions.TransientException;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * This class tests how the adaptive limiter moves its limit with latency and how the limited driver admits sessions.
+ */
+public class AdaptiveLimiterTest {
+
+	private static final long BASE_RTT = TimeUnit.MILLISECONDS.toNanos(10);
+
+	/**
+	 * This test verifies that the limit grows while calls are fast and callers use it.
+	 *
+	 * @throws Exception If interrupted.
+	 */
+	@Test
+	public void testLimitGrowsAtSteadyLatency() throws Exception {
+		AdaptiveLimiter limiter = new AdaptiveLimiter("neo4j", 4, 1, 50, 100);
+		for (int i = 0; i < 200; i++) {
+			saturate(limiter, BASE_RTT);
+		}
+		assertTrue(limiter.getLimit() > 4);
+		assertEquals(0, limiter.getInFlight());
+		assertEquals(10.0, limiter.getRttMillis(), 0.001);
+	}
+
+	/**
+	 * This test verifies that an idle limiter does not grow: a few calls at a time never make the limit the bottleneck.
+	 *
+	 * @throws Exception If interrupted.
+	 */
+	@Test
+	public void testLimitDoesNotGrowWhenIdle() throws Exception {
+		AdaptiveLimiter limiter = new AdaptiveLimiter("neo4j", 10, 1, 50, 100);
+		for (int i = 0; i < 200; i++) {
+			assertTrue(limiter.acquire());
+			limiter.release(BASE_RTT, false);
+		}
+		assertEquals(10, limiter.getLimit());
+	}
+
+	/**
+	 * This test verifies that an overload failure cuts the limit, and that it shrinks towards the minimum once
+	 * latency rises well above the long-term average.
+	 *
+	 * @throws Exception If interrupted.
+	 */
+	@Test
+	public void testLimitShrinksUnderLoad() throws Exception {
+		AdaptiveLimiter limiter = new AdaptiveLimiter("neo4j", 20, 2, 50, 100);
+		for (int i = 0; i < 20; i++) {
+			saturate(limiter, BASE_RTT);
+		}
+		int before = limiter.getLimit();
+		assertTrue(limiter.acquire());
+		limiter.release(BASE_RTT, true);
+		int dropped = limiter.getLimit();
+		assertTrue(dropped < before);
+		assertEquals(1, limiter.getDropped());
+
+		for (int i = 0; i < 20; i++) {
+			saturate(limiter, 10 * BASE_RTT);
+		}
+		assertTrue(limiter.getLimit() < dropped);
+		assertTrue(limiter.getLimit() >= 2);
+	}
+
+	/**
+	 * This test verifies that a call waiting longer than the maximum wait is rejected.
+	 *
+	 * @throws Exception If interrupted.
+	 */
+	@Test
+	public void testAcquireTimesOut() throws Exception {
+		AdaptiveLimiter limiter = new AdaptiveLimiter("neo4j", 1, 1, 1, 50);
+		assertTrue(limiter.acquire());
+		assertFalse(limiter.acquire());
+		assertEquals(1, limiter.getRejected());
+		limiter.release(BASE_RTT, false);
+		assertTrue(limiter.acquire());
+	}
+
+	/**
+	 * This test verifies that a limited session holds the limiter until closed, reports transient failures as drops,
+	 * and that a full limiter refuses new sessions.
+	 *
+	 * @throws Exception If interrupted.
+	 */
+	@Test
+	public void testLimitedDriver() throws Exception {
+		Driver driver = mock(Driver.class);
+		Session session = mock(Session.class);
+		when(driver.session()).thenReturn(session);
+		when(session.run("RETURN 1")).thenThrow(new TransientException("Neo.TransientError.General.MemoryPoolOutOfMemoryError", "busy"));
+		when(session.run("RETURN 2")).thenThrow(new ClientException("Neo.ClientError.Statement.SyntaxError", "bad"));
+		AdaptiveLimiter limiter = new AdaptiveLimiter("neo4j", 1, 1, 1, 50);
+		LimitedDriver limitedDriver = new LimitedDriver(driver, limiter);
+
+		try (Session limited = limitedDriver.session()) {
+			assertEquals(1, limiter.getInFlight());
+			try {
+				limitedDriver.session();
+				fail("The limit should be full.");
+			} catch (ServiceUnavailableException expected) {
+				assertEquals(1, limiter.getRejected());
+			}
+			limited.run("RETURN 2");
+			fail("The statement should fail.");
+		} catch (ClientException expected) {
+			assertEquals(0, limiter.getInFlight());
+			assertEquals(0, limiter.getDropped());
+		}
+
+		try (Session limited = limitedDriver.session()) {
+			limited.run("RETURN 1");
+			fail("The statement should fail.");
+		} catch (TransientException expected) {
+			assertEquals(1, limiter.getDropped());
+		}
+		verify(session, times(2)).close();
+	}
+
+	/**
+	 * This test verifies that only the time spent in statements is measured, not the rest of the session's lifetime,
+	 * and that an unsampled driver's statements leave the measured latency alone.
+	 *
+	 * @throws Exception If interrupted.
+	 */
+	@Test
+	public void testLimitedSessionMeasuresStatements() throws Exception {
+		Driver driver = mock(Driver.class);
+		Session session = mock(Session.class);
+		when(driver.session()).thenReturn(session);
+		AdaptiveLimiter limiter = new AdaptiveLimiter("neo4j", 2, 1, 2, 50);
+
+		try (Session limited = new LimitedDriver(driver, limiter, false).session()) {
+			limited.run("RETURN 1");
+		}
+		assertEquals(0.0, limiter.getRttMillis(), 0.001);
+
+		try (Session limited = new LimitedDriver(driver, limiter).session()) {
+			limited.run("RETURN 1");
+			// Holding the session, e.g. while sending the response, is not database latency
+			Thread.sleep(100);
+			assertEquals(1, limiter.getInFlight());
+		}
+		assertTrue(limiter.getRttMillis() > 0);
+		assertTrue(limiter.getRttMillis() < 100);
+		assertEquals(0, limiter.getInFlight());
+	}
+
+	/**
+	 * Fills the limit and releases every call with the given round-trip time.
+	 */
+	private static void saturate(AdaptiveLimiter limiter, long rttNanos) throws InterruptedException {
+		int calls = limiter.getLimit();
+		for (int i = 0; i < calls; i++) {
+			assertTrue(limiter.acquire());
+		}
+		for (int i = 0; i < calls; i++) {
+			limiter.release(rttNanos, false);
+		}
+	}
+}
@@ -0,0 +1,127 @@
+package ca.yorku.eecs.admission;
+
+import org.junit.After;
+import org.junit.Test;
+import org.neo4j.driver.v1.Driver;
+import org.neo4j.driver.v1.Session;
+import org.neo4j.driver.v1.exceptions.ServiceUnavailableException;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * This class tests that a bulkhead bounds its threads, queue and Neo4j sessions, and reports its saturation.
+ */
+public class BulkheadTest {
+
+	private Bulkhead bulkhead;
+
+	/**
+	 * This method is called after each test. It stops the bulkhead's threads.
+	 */
+	@After
+	public void tearDown() {
+		if (bulkhead != null) {
+			bulkhead.shutdown();
+		}
+	}
+
+	/**
+	 * This test verifies that once every thread is busy and the queue is full, further requests are rejected and
+	 * counted, and that the bulkhead accepts work again after it drains.
+	 *
+	 * @throws Exception If interrupted.
+	 */
+	@Test
+	public void testRejectsWhenSaturated() throws Exception {
+		bulkhead = new Bulkhead("paths", 1, 1, 0, 100);
+		CountDownLatch running = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		bulkhead.getExecutor().execute(() -> {
+			running.countDown();
+			try {
+				release.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		assertTrue(running.await(5, TimeUnit.SECONDS));
+		bulkhead.getExecutor().execute(() -> { });
+
+		assertEquals(1, bulkhead.getActive());
+		assertEquals(1, bulkhead.getQueued());
+		assertEquals(1.0, bulkhead.getSaturation(), 0.001);
+		try {
+			bulkhead.getExecutor().execute(() -> { });
+			fail("A saturated bulkhead must reject");
+		} catch (RejectedExecutionException e) {
+			assertEquals(1, bulkhead.getRejected());
+		}
+
+		release.countDown();
+		CountDownLatch ran = new CountDownLatch(1);
+		long deadline = System.currentTimeMillis() + 5000;
+		while (bulkhead.getQueued() > 0 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(5);
+		}
+		bulkhead.getExecutor().execute(ran::countDown);
+		assertTrue(ran.await(5, TimeUnit.SECONDS));
+	}
+
+	/**
+	 * This test verifies that the bulkhead's threads are named after it.
+	 *
+	 * @throws Exception If interrupted.
+	 */
+	@Test
+	public void testThreadNames() throws Exception {
+		bulkhead = new Bulkhead("lookups", 2, 2, 0, 100);
+		String[] name = new String[1];
+		CountDownLatch ran = new CountDownLatch(1);
+		bulkhead.getExecutor().execute(() -> {
+			name[0] = Thread.currentThread().getName();
+			ran.countDown();
+		});
+		assertTrue(ran.await(5, TimeUnit.SECONDS));
+		assertTrue(name[0].startsWith("bulkhead-lookups-"));
+	}
+
+	/**
+	 * This test verifies that the session budget caps concurrent sessions and frees a slot when a session closes.
+	 */
+	@Test
+	public void testSessionBudget() {
+		bulkhead = new Bulkhead("paths", 1, 1, 1, 10);
+		Driver driver = mock(Driver.class);
+		when(driver.session()).thenReturn(mock(Session.class));
+		Driver limited = bulkhead.limit(driver);
+
+		Session first = limited.session();
+		assertEquals(1, bulkhead.getSessions().getInFlight());
+		try {
+			limited.session();
+			fail("The second session must exceed the budget");
+		} catch (ServiceUnavailableException e) {
+			assertEquals(1, bulkhead.getSessions().getRejected());
+		}
+		first.close();
+		limited.session().close();
+		assertEquals(1, bulkhead.getSessions().getLimit());
+		assertEquals(0, bulkhead.getSessions().getInFlight());
+	}
+
+	/**
+	 * This test verifies that a bulkhead without a session budget leaves the driver as it is.
+	 */
+	@Test
+	public void testNoSessionBudget() {
+		bulkhead = new Bulkhead("analytics", 1, 1, 0, 10);
+		Driver driver = mock(Driver.class);
+		assertSame(driver, bulkhead.limit(driver));
+		assertNull(bulkhead.getSessions());
+	}
+}
@@ -0,0 +1,205 @@
+package ca.yorku.eecs.admission;
+
+import ca.yorku.eecs.warmup.SyntheticExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * This class tests admission, queueing and rejection within and across cost classes, and within a bulkhead.
+ */
+public class CostClassTest {
+
+	private final ExecutorService pool = Executors.newCachedThreadPool();
+
+	/**
+	 * Released at the end of each test so blocked handlers finish.
+	 */
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	@After
+	public void tearDown() {
+		release.countDown();
+		pool.shutdownNow();
+	}
+
+	/**
+	 * This test verifies that a saturated expensive class does not delay cheap requests.
+	 *
+	 * @throws Exception If a request fails.
+	 */
+	@Test
+	public void testClassesAreIsolated() throws Exception {
+		CostClass cheap = new CostClass("cheap", 4, 4, 1000);
+		CostClass expensive = new CostClass("expensive", 2, 8, 5000);
+		HttpHandler path = expensive.wrap(blocking(), 1);
+		CountDownLatch running = new CountDownLatch(2);
+		for (int i = 0; i < 4; i++) {
+			pool.submit(() -> {
+				running.countDown();
+				return handle(path);
+			});
+		}
+		running.await();
+		waitFor(() -> expensive.getInUse() == 2 && expensive.getQueued() == 2);
+
+		long start = System.nanoTime();
+		assertEquals(200, handle(cheap.wrap(ok(), 1)));
+		assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(500));
+		assertEquals(1, cheap.getAdmitted());
+		assertEquals(0, cheap.getInUse());
+	}
+
+	/**
+	 * This test verifies the 429 for a full queue and the 503 for a request that waited too long.
+	 *
+	 * @throws Exception If a request fails.
+	 */
+	@Test
+	public void testRejections() throws Exception {
+		CostClass expensive = new CostClass("expensive", 1, 1, 100);
+		HttpHandler path = expensive.wrap(blocking(), 1);
+		pool.submit(() -> handle(path));
+		waitFor(() -> expensive.getInUse() == 1);
+		Future<Integer> queued = pool.submit(() -> handle(path));
+		waitFor(() -> expensive.getQueued() == 1);
+
+		SyntheticExchange overflow = new SyntheticExchange("GET", "/api/v1/computeBaconPath?actorId=nm1", null);
+		path.handle(overflow);
+		assertEquals(429, overflow.getResponseCode());
+		assertEquals("1", overflow.getResponseHeaders().getFirst("Retry-After"));
+		assertEquals(1, expensive.getRejectedQueueFull());
+
+		assertEquals(503, (int) queued.get(5, TimeUnit.SECONDS));
+		assertEquals(1, expensive.getRejectedTimeout());
+		assertEquals(0, expensive.getQueued());
+	}
+
+	/**
+	 * This test verifies that a heavier endpoint holds more permits and that queued requests get in once they free.
+	 *
+	 * @throws Exception If a request fails.
+	 */
+	@Test
+	public void testWeights() throws Exception {
+		CostClass expensive = new CostClass("expensive", 4, 8, 5000);
+		CountDownLatch exportDone = new CountDownLatch(1);
+		HttpHandler export = expensive.wrap(exchange -> {
+			try {
+				exportDone.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			ok().handle(exchange);
+		}, 3);
+		pool.submit(() -> handle(export));
+		waitFor(() -> expensive.getInUse() == 3);
+
+		// One permit is free, but the path query needs two and waits; a lighter request arriving later queues behind
+		// it rather than overtaking it
+		Future<Integer> path = pool.submit(() -> handle(expensive.wrap(ok(), 2)));
+		waitFor(() -> expensive.getQueued() == 1);
+		Future<Integer> number = pool.submit(() -> handle(expensive.wrap(ok(), 1)));
+		waitFor(() -> expensive.getQueued() == 2);
+		assertEquals(3, expensive.getInUse());
+
+		exportDone.countDown();
+		assertEquals(200, (int) path.get(5, TimeUnit.SECONDS));
+		assertEquals(200, (int) number.get(5, TimeUnit.SECONDS));
+		assertTrue(expensive.getMaxQueueWaitMillis() > 0);
+		waitFor(() -> expensive.getInUse() == 0);
+	}
+
+	/**
+	 * This test verifies that a cost class sized to its bulkhead and the bulkhead both take effect: the class holds
+	 * back a second path query while the bulkhead still has threads, and the bulkhead rejects once its threads and
+	 * queue are taken.
+	 *
+	 * @throws Exception If a request fails.
+	 */
+	@Test
+	public void testWithinBulkhead() throws Exception {
+		Bulkhead paths = new Bulkhead("paths", 3, 1, 0, 100);
+		CostClass admission = new CostClass("paths", paths.getThreads(), paths.getThreads(), 5000);
+		HttpHandler path = admission.wrap(blocking(), 2);
+		HttpHandler number = admission.wrap(blocking(), 1);
+		try {
+			paths.getExecutor().execute(() -> handleQuietly(path));
+			waitFor(() -> admission.getInUse() == 2);
+
+			// A thread is free, but the path query needs two permits and waits in the class, as does the number
+			// query arriving after it
+			paths.getExecutor().execute(() -> handleQuietly(path));
+			paths.getExecutor().execute(() -> handleQuietly(number));
+			waitFor(() -> admission.getQueued() == 2 && paths.getActive() == 3);
+
+			paths.getExecutor().execute(() -> handleQuietly(number));
+			assertEquals(1, paths.getQueued());
+			try {
+				paths.getExecutor().execute(() -> handleQuietly(number));
+				fail("A saturated bulkhead must reject");
+			} catch (RejectedExecutionException e) {
+				assertEquals(1, paths.getRejected());
+			}
+		} finally {
+			release.countDown();
+			paths.shutdown();
+		}
+	}
+
+	private static void handleQuietly(HttpHandler handler) {
+		try {
+			handle(handler);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private HttpHandler blocking() {
+		return exchange -> {
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			ok().handle(exchange);
+		};
+	}
+
+	private static HttpHandler ok() {
+		return exchange -> {
+			exchange.sendResponseHeaders(200, 2);
+			exchange.getResponseBody().write("ok".getBytes());
+			exchange.getResponseBody().close();
+		};
+	}
+
+	private static int handle(HttpHandler handler) throws IOException {
+		SyntheticExchange exchange = new SyntheticExchange("GET", "/", null);
+		handler.handle(exchange);
+		return exchange.getResponseCode();
+	}
+
+	private interface Condition {
+		boolean holds();
+	}
+
+	private static void waitFor(Condition condition) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (!condition.holds()) {
+			assertTrue("Timed out waiting for condition", System.currentTimeMillis() < deadline);
+			Thread.sleep(5);
+		}
+	}
+}
@@ -0,0 +1,215 @@
+package ca.yorku.eecs.compression;
+
+import ca.yorku.eecs.warmup.SyntheticExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * This class tests negotiation, the size threshold, streaming and caching of compressed responses.
+ */
+public class ResponseCompressorTest {
+
+	private static final String SMALL = "{\"actorId\":\"nm0000102\"}";
+
+	private ResponseCompressor compressor;
+
+	private String large;
+
+	/**
+	 * This method is called before each test. It builds a compressible body well above the threshold.
+	 */
+	@Before
+	public void setUp() {
+		compressor = new ResponseCompressor(256, 6, 1024 * 1024);
+		StringBuilder body = new StringBuilder("{\"actors\":[");
+		for (int i = 0; i < 200; i++) {
+			body.append(i == 0 ? "" : ",").append(String.format("\"nm%07d\"", i));
+		}
+		large = body.append("]}").toString();
+	}
+
+	/**
+	 * This test verifies which codings are picked from Accept-Encoding.
+	 */
+	@Test
+	public void testNegotiate() {
+		assertNull(ResponseCompressor.negotiate(null));
+		assertNull(ResponseCompressor.negotiate("identity"));
+		assertEquals("gzip", ResponseCompressor.negotiate("gzip, deflate, br"));
+		assertEquals("gzip", ResponseCompressor.negotiate("x-gzip"));
+		assertEquals("deflate", ResponseCompressor.negotiate("deflate"));
+		assertEquals("deflate", ResponseCompressor.negotiate("gzip;q=0.5, deflate"));
+		assertEquals("deflate", ResponseCompressor.negotiate("gzip;q=0, *"));
+		assertEquals("gzip", ResponseCompressor.negotiate("*"));
+		assertNull(ResponseCompressor.negotiate("gzip;q=0, deflate;q=0"));
+	}
+
+	/**
+	 * This test verifies that a large response is gzipped and marked as such.
+	 *
+	 * @throws IOException If there's an issue with input or output.
+	 */
+	@Test
+	public void testGzip() throws IOException {
+		SyntheticExchange exchange = exchange("gzip, deflate");
+		ByteArrayOutputStream body = capture(exchange);
+		compressor.wrap(fixed(large), false).handle(exchange);
+
+		assertEquals("gzip", exchange.getResponseHeaders().getFirst("Content-Encoding"));
+		assertEquals("Accept-Encoding", exchange.getResponseHeaders().getFirst("Vary"));
+		assertTrue(body.size() < large.length());
+		assertEquals(large, read(new GZIPInputStream(new ByteArrayInputStream(body.toByteArray()))));
+		assertEquals(1, compressor.getResponsesCompressed());
+	}
+
+	/**
+	 * This test verifies the zlib format sent for deflate.
+	 *
+	 * @throws IOException If there's an issue with input or output.
+	 */
+	@Test
+	public void testDeflate() throws IOException {
+		SyntheticExchange exchange = exchange("deflate");
+		ByteArrayOutputStream body = capture(exchange);
+		compressor.wrap(fixed(large), false).handle(exchange);
+
+		assertEquals("deflate", exchange.getResponseHeaders().getFirst("Content-Encoding"));
+		assertEquals(large, read(new InflaterInputStream(new ByteArrayInputStream(body.toByteArray()))));
+	}
+
+	/**
+	 * This test verifies that responses below the threshold, and clients not accepting a coding, get the body as is.
+	 *
+	 * @throws IOException If there's an issue with input or output.
+	 */
+	@Test
+	public void testUncompressed() throws IOException {
+		SyntheticExchange small = exchange("gzip");
+		ByteArrayOutputStream smallBody = capture(small);
+		compressor.wrap(fixed(SMALL), false).handle(small);
+		assertFalse(small.getResponseHeaders().containsKey("Content-Encoding"));
+		assertFalse(small.getResponseHeaders().containsKey("Vary"));
+		assertEquals(SMALL, smallBody.toString("UTF-8"));
+
+		SyntheticExchange identity = exchange(null);
+		ByteArrayOutputStream identityBody = capture(identity);
+		compressor.wrap(fixed(large), false).handle(identity);
+		assertFalse(identity.getResponseHeaders().containsKey("Content-Encoding"));
+		assertEquals("Accept-Encoding", identity.getResponseHeaders().getFirst("Vary"));
+		assertEquals(large, identityBody.toString("UTF-8"));
+		assertEquals(0, compressor.getResponsesCompressed());
+	}
+
+	/**
+	 * This test verifies that a streamed response is compressed on the fly.
+	 *
+	 * @throws IOException If there's an issue with input or output.
+	 */
+	@Test
+	public void testStreaming() throws IOException {
+		SyntheticExchange exchange = exchange("gzip");
+		ByteArrayOutputStream body = capture(exchange);
+		compressor.wrap(e -> {
+			e.sendResponseHeaders(200, 0);
+			OutputStream out = e.getResponseBody();
+			for (int i = 0; i < 1000; i++) {
+				out.write(large.getBytes(StandardCharsets.UTF_8));
+				if (i % 100 == 0) {
+					out.flush();
+				}
+			}
+			out.close();
+		}, false).handle(exchange);
+
+		assertEquals("gzip", exchange.getResponseHeaders().getFirst("Content-Encoding"));
+		String decoded = read(new GZIPInputStream(new ByteArrayInputStream(body.toByteArray())));
+		assertEquals(1000 * large.length(), decoded.length());
+		assertTrue(decoded.startsWith(large));
+	}
+
+	/**
+	 * This test verifies that a repeated cacheable response is served from the cache and reuses deflaters.
+	 *
+	 * @throws IOException If there's an issue with input or output.
+	 */
+	@Test
+	public void testCache() throws IOException {
+		HttpHandler handler = compressor.wrap(fixed(large), true);
+		byte[] first = null;
+		for (int i = 0; i < 5; i++) {
+			SyntheticExchange exchange = exchange("gzip");
+			ByteArrayOutputStream body = capture(exchange);
+			handler.handle(exchange);
+			if (first == null) {
+				first = body.toByteArray();
+			}
+			assertArrayEquals(first, body.toByteArray());
+		}
+		assertEquals(1, compressor.getCacheMisses());
+		assertEquals(4, compressor.getCacheHits());
+
+		for (int i = 0; i < 5; i++) {
+			SyntheticExchange exchange = exchange("gzip");
+			capture(exchange);
+			compressor.wrap(fixed(large + i), false).handle(exchange);
+		}
+		assertEquals(1, compressor.getDeflatersCreated());
+	}
+
+	/**
+	 * This test verifies that writing past the declared length fails like it does on the server.
+	 */
+	@Test(expected = IOException.class)
+	public void testTooManyBytes() throws IOException {
+		SyntheticExchange exchange = exchange("gzip");
+		capture(exchange);
+		compressor.wrap(e -> {
+			e.sendResponseHeaders(200, large.length());
+			e.getResponseBody().write((large + "!").getBytes(StandardCharsets.UTF_8));
+		}, false).handle(exchange);
+	}
+
+	private static SyntheticExchange exchange(String acceptEncoding) {
+		SyntheticExchange exchange = new SyntheticExchange("GET", "/api/v1/getMovie?movieId=tt0000001", null);
+		if (acceptEncoding != null) {
+			exchange.getRequestHeaders().set("Accept-Encoding", acceptEncoding);
+		}
+		return exchange;
+	}
+
+	private static ByteArrayOutputStream capture(SyntheticExchange exchange) {
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		exchange.setStreams(null, body);
+		return body;
+	}
+
+	private static HttpHandler fixed(String response) {
+		return exchange -> {
+			exchange.sendResponseHeaders(200, response.length());
+			exchange.getResponseBody().write(response.getBytes(StandardCharsets.UTF_8));
+			exchange.getResponseBody().close();
+		};
+	}
+
+	private static String read(InputStream in) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int n;
+		while ((n = in.read(buffer)) > 0) {
+			out.write(buffer, 0, n);
+		}
+		return out.toString("UTF-8");
+	}
+}
@@ -0,0 +1,73 @@
+package ca.yorku.eecs.config;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.Assert.*;
+
+/**
+ * This class tests how settings are layered from the file, the environment and system properties.
+ */
+public class AppConfigTest {
+
+	/**
+	 * This test verifies that system properties override the environment, which overrides the file.
+	 */
+	@Test
+	public void testPrecedence() {
+		Properties file = new Properties();
+		file.setProperty("neo4j.pool.maxSize", "10");
+		file.setProperty("server.port", "9000");
+		file.setProperty("server.host", "127.0.0.1");
+		Map<String, String> environment = new HashMap<>();
+		environment.put("NEO4J_POOL_MAX_SIZE", "20");
+		environment.put("SERVER_PORT", "9001");
+		Properties system = new Properties();
+		system.setProperty("neo4j.pool.maxSize", "30");
+
+		AppConfig config = new AppConfig(file, environment, system);
+		assertEquals(30, config.getInt("neo4j.pool.maxSize", 100));
+		assertEquals(9001, config.getInt("server.port", 8080));
+		assertEquals("127.0.0.1", config.get("server.host", "0.0.0.0"));
+		assertEquals(5000L, config.getLong("neo4j.connectionTimeoutMillis", 5000));
+		assertTrue(config.getBoolean("neo4j.metrics.enabled", true));
+	}
+
+	/**
+	 * This test verifies that malformed values fail instead of silently using the default.
+	 */
+	@Test
+	public void testInvalidValues() {
+		Properties file = new Properties();
+		file.setProperty("server.port", "eighty");
+		file.setProperty("logging.async", "yes");
+		AppConfig config = new AppConfig(file, Collections.emptyMap(), new Properties());
+		try {
+			config.getInt("server.port", 8080);
+			fail("A non-numeric port should be rejected.");
+		} catch (IllegalArgumentException expected) {
+			assertTrue(expected.getMessage().contains("server.port"));
+		}
+		try {
+			config.getBoolean("logging.async", true);
+			fail("A non-boolean flag should be rejected.");
+		} catch (IllegalArgumentException expected) {
+			assertTrue(expected.getMessage().contains("logging.async"));
+		}
+	}
+
+	/**
+	 * This test verifies the mapping from settings to environment variable names.
+	 */
+	@Test
+	public void testEnvironmentName() {
+		assertEquals("NEO4J_POOL_MAX_SIZE", AppConfig.environmentName("neo4j.pool.maxSize"));
+		assertEquals("SERVER_EXECUTOR_THREADS", AppConfig.environmentName("server.executor.threads"));
+		assertEquals("NEO4J_POOL_ACQUISITION_TIMEOUT_MILLIS", AppConfig.environmentName("neo4j.pool.acquisitionTimeoutMillis"));
+		assertEquals("CONFIG_FILE", AppConfig.environmentName("config.file"));
+	}
+}
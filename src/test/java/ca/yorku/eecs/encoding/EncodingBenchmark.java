@@ -0,0 +1,109 @@
+package ca.yorku.eecs.encoding;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Compares payload size and encode time of org.json, the streaming JSON encoder and the CBOR encoder on the two
+ * response shapes that dominate batch callers: a getMovie with a large cast and a Bacon path.
+ * <p>
+ * Run with:
+ * <pre>
+ * mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=ca.yorku.eecs.encoding.EncodingBenchmark [-Dexec.args="castSize seconds"]
+ * </pre>
+ * </p>
+ */
+public class EncodingBenchmark {
+
+	/**
+	 * Keeps results reachable so the JIT cannot drop the encoding work.
+	 */
+	private static long sink;
+
+	public static void main(String[] args) throws Exception {
+		int castSize = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+		int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+
+		String[] cast = new String[castSize];
+		for (int i = 0; i < castSize; i++) {
+			cast[i] = String.format("nm%07d", i * 7919);
+		}
+		String[] path = {"nm0000001", "tt0000001", "nm0000002", "tt0000002", "nm0000003", "tt0000003", "nm0000102"};
+
+		System.out.printf("cast=%d, %d s per encoder%n", castSize, seconds);
+		System.out.printf("%-12s %-10s %10s %15s%n", "payload", "encoder", "bytes", "encodes/s");
+		for (int round = 0; round < 2; round++) {
+			// The first round only warms up the JIT
+			boolean report = round == 1;
+			int runSeconds = report ? seconds : 1;
+			run("getMovie", "org.json", () -> movieOrgJson(cast), runSeconds, report);
+			run("getMovie", "json", () -> movie(new JsonEncoder(), cast), runSeconds, report);
+			run("getMovie", "cbor", () -> movie(new CborEncoder(), cast), runSeconds, report);
+			run("baconPath", "org.json", () -> pathOrgJson(path), runSeconds, report);
+			run("baconPath", "json", () -> path(new JsonEncoder(), path), runSeconds, report);
+			run("baconPath", "cbor", () -> path(new CborEncoder(), path), runSeconds, report);
+		}
+		System.out.println(sink == 42 ? "" : "done");
+	}
+
+	private interface Encode {
+		byte[] encode() throws Exception;
+	}
+
+	private static void run(String payload, String encoder, Encode encode, int seconds, boolean report) throws Exception {
+		long count = 0;
+		int size = 0;
+		long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+		long start = System.nanoTime();
+		while (System.nanoTime() < deadline) {
+			for (int i = 0; i < 1000; i++) {
+				byte[] bytes = encode.encode();
+				size = bytes.length;
+				sink += bytes[bytes.length - 1];
+			}
+			count += 1000;
+		}
+		double elapsed = (System.nanoTime() - start) / 1e9;
+		if (report) {
+			System.out.printf("%-12s %-10s %10d %15.0f%n", payload, encoder, size, count / elapsed);
+		}
+	}
+
+	private static byte[] movieOrgJson(String[] cast) throws Exception {
+		JSONObject json = new JSONObject();
+		json.put("name", "A Big Ensemble Film");
+		json.put("movieId", "tt0000001");
+		JSONArray actors = new JSONArray();
+		for (String id : cast) {
+			actors.put(id);
+		}
+		json.put("actors", actors);
+		return json.toString().getBytes("UTF-8");
+	}
+
+	private static byte[] movie(ResponseEncoder encoder, String[] cast) {
+		encoder.beginObject(3)
+				.key("name").value("A Big Ensemble Film")
+				.key("movieId").value("tt0000001")
+				.key("actors").beginArray(cast.length);
+		for (String id : cast) {
+			encoder.value(id);
+		}
+		return encoder.endArray().endObject().toByteArray();
+	}
+
+	private static byte[] pathOrgJson(String[] path) throws Exception {
+		JSONObject json = new JSONObject();
+		json.put("baconPath", new JSONArray(java.util.Arrays.asList(path)));
+		return json.toString().getBytes("UTF-8");
+	}
+
+	private static byte[] path(ResponseEncoder encoder, String[] path) {
+		encoder.beginObject(1).key("baconPath").beginArray(path.length);
+		for (String id : path) {
+			encoder.value(id);
+		}
+		return encoder.endArray().endObject().toByteArray();
+	}
+}
@@ -0,0 +1,72 @@
+package ca.yorku.eecs.encoding;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * This class tests the JSON and CBOR response encoders and Accept header negotiation.
+ */
+public class ResponseEncoderTest {
+
+	/**
+	 * This test verifies commas, nesting, escaping and number formatting in JSON.
+	 */
+	@Test
+	public void testJson() {
+		ResponseEncoder encoder = new JsonEncoder();
+		encoder.beginObject(4)
+				.key("name").value("Say \"hi\"\n\u0001")
+				.key("ids").beginArray(2).value("a").value((String) null).endArray()
+				.key("empty").beginArray(0).endArray()
+				.key("nested").beginObject(3).key("n").value(-5).key("x").value(1.5).key("whole").value(2.0).endObject()
+				.endObject();
+		assertEquals("{\"name\":\"Say \\\"hi\\\"\\n\\u0001\",\"ids\":[\"a\",null],\"empty\":[],"
+				+ "\"nested\":{\"n\":-5,\"x\":1.5,\"whole\":2}}", encoder.toString());
+	}
+
+	/**
+	 * This test compares CBOR output with the examples of RFC 8949, appendix A.
+	 */
+	@Test
+	public void testCbor() {
+		assertArrayEquals(bytes(0x00), new CborEncoder().value(0).toByteArray());
+		assertArrayEquals(bytes(0x17), new CborEncoder().value(23).toByteArray());
+		assertArrayEquals(bytes(0x18, 0x18), new CborEncoder().value(24).toByteArray());
+		assertArrayEquals(bytes(0x19, 0x03, 0xE8), new CborEncoder().value(1000).toByteArray());
+		assertArrayEquals(bytes(0x1A, 0x00, 0x0F, 0x42, 0x40), new CborEncoder().value(1000000).toByteArray());
+		assertArrayEquals(bytes(0x1B, 0x00, 0x00, 0x00, 0xE8, 0xD4, 0xA5, 0x10, 0x00),
+				new CborEncoder().value(1000000000000L).toByteArray());
+		assertArrayEquals(bytes(0x38, 0x63), new CborEncoder().value(-100).toByteArray());
+		assertArrayEquals(bytes(0xFA, 0x3F, 0xC0, 0x00, 0x00), new CborEncoder().value(1.5).toByteArray());
+		assertArrayEquals(bytes(0xFB, 0x3F, 0xF1, 0x99, 0x99, 0x99, 0x99, 0x99, 0x9A),
+				new CborEncoder().value(1.1).toByteArray());
+		assertArrayEquals(bytes(0xF5), new CborEncoder().value(true).toByteArray());
+		assertArrayEquals(bytes(0xF6), new CborEncoder().value((String) null).toByteArray());
+		assertArrayEquals(bytes(0x62, 0xC3, 0xBC), new CborEncoder().value("\u00fc").toByteArray());
+		// {"a": 1, "b": [2, 3]}
+		assertArrayEquals(bytes(0xA2, 0x61, 0x61, 0x01, 0x61, 0x62, 0x82, 0x02, 0x03),
+				new CborEncoder().beginObject(2).key("a").value(1).key("b").beginArray(2).value(2).value(3).endArray()
+						.endObject().toByteArray());
+	}
+
+	/**
+	 * This test verifies which Accept headers select CBOR.
+	 */
+	@Test
+	public void testAccepts() {
+		assertTrue(ResponseEncoder.accepts("application/cbor", ResponseEncoder.CBOR));
+		assertTrue(ResponseEncoder.accepts("application/json;q=0.9, Application/CBOR;q=1", ResponseEncoder.CBOR));
+		assertFalse(ResponseEncoder.accepts("application/cbor;q=0", ResponseEncoder.CBOR));
+		assertFalse(ResponseEncoder.accepts("application/json, */*", ResponseEncoder.CBOR));
+		assertFalse(ResponseEncoder.accepts(null, ResponseEncoder.CBOR));
+	}
+
+	private static byte[] bytes(int... values) {
+		byte[] bytes = new byte[values.length];
+		for (int i = 0; i < values.length; i++) {
+			bytes[i] = (byte) values[i];
+		}
+		return bytes;
+	}
+}
@@ -0,0 +1,175 @@
+package ca.yorku.eecs.graph;
+
+import ca.yorku.eecs.journal.JournalEvent;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.driver.v1.AccessMode;
+import org.neo4j.driver.v1.Driver;
+import org.neo4j.driver.v1.Session;
+import org.neo4j.driver.v1.StatementResult;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * This class tests the in-memory ActorMovieGraph, its snapshots and the Bacon statistics computed over them.
+ */
+public class ActorMovieGraphTest {
+
+	/**
+	 * The graph under test:
+	 * bacon - tt1 - a1 - tt2 - a2, and a3 acting alone in tt3.
+	 */
+	private ActorMovieGraph graph;
+
+	/**
+	 * This method is called before each test. It builds the small test graph.
+	 */
+	@Before
+	public void setUp() {
+		graph = new ActorMovieGraph();
+		graph.addActor("bacon", "Kevin Bacon");
+		graph.addActor("a1", "Actor One");
+		graph.addActor("a2", "Actor Two");
+		graph.addActor("a3", "Actor Three");
+		graph.addMovie("tt1", "Movie One");
+		graph.addMovie("tt2", "Movie Two");
+		graph.addMovie("tt3", "Movie Three");
+		graph.addRelationship("bacon", "tt1");
+		graph.addRelationship("a1", "tt1");
+		graph.addRelationship("a1", "tt2");
+		graph.addRelationship("a2", "tt2");
+		graph.addRelationship("a3", "tt3");
+	}
+
+	/**
+	 * This test verifies that mutations are idempotent and bump the version only when something changes.
+	 */
+	@Test
+	public void testIdempotentMutations() {
+		long version = graph.getVersion();
+		assertEquals(0, graph.addActor("bacon", "Kevin Bacon"));
+		assertFalse(graph.addRelationship("a1", "tt1"));
+		assertFalse(graph.addRelationship("unknown", "tt1"));
+		assertEquals(version, graph.getVersion());
+
+		graph.onEvent(JournalEvent.addRelationship("a3", "tt1"));
+		assertEquals(version + 1, graph.getVersion());
+		assertEquals(6, graph.getEdgeCount());
+	}
+
+	/**
+	 * This test verifies that snapshots are cached per version and expose the CSR adjacency.
+	 */
+	@Test
+	public void testSnapshot() {
+		GraphSnapshot snapshot = graph.snapshot();
+		assertSame(snapshot, graph.snapshot());
+		assertEquals(4, snapshot.getActorCount());
+		assertEquals(5, snapshot.getEdgeCount());
+		assertEquals(2, snapshot.actorDegree(graph.actorIndexOf("a1")));
+		assertEquals(2, snapshot.movieDegree(graph.movieIndexOf("tt1")));
+
+		graph.addRelationship("a2", "tt3");
+		assertNotSame(snapshot, graph.snapshot());
+	}
+
+	/**
+	 * This test verifies that the statistics cache is invalidated when a relationship is added.
+	 */
+	@Test
+	public void testBaconStatsInvalidation() {
+		BaconStatsCache cache = new BaconStatsCache(graph, "bacon");
+		BaconStats stats = cache.get();
+		assertEquals(1, stats.getUnreachable());
+		assertEquals(1.5, stats.getAverageBaconNumber(), 1e-9);
+		assertSame(stats, cache.get());
+
+		graph.addRelationship("a3", "tt2");
+		BaconStats updated = cache.get();
+		assertNotSame(stats, updated);
+		assertEquals(0, updated.getUnreachable());
+		assertArrayEquals(new long[]{1, 1, 2}, updated.getHistogram());
+
+		assertNull(new BaconStatsCache(graph, "missing").get());
+	}
+
+	/**
+	 * This test verifies that once the graph is loaded a snapshot is kept until it reaches its maximum age, while the
+	 * live graph already answers for the new relationship.
+	 *
+	 * @throws InterruptedException If interrupted while waiting for the snapshot to age.
+	 */
+	@Test
+	public void testSnapshotMaxAge() throws InterruptedException {
+		ActorMovieGraph debounced = new ActorMovieGraph(200);
+		debounced.load(emptyDriver());
+		debounced.addActor("a1", null);
+		debounced.addMovie("tt1", null);
+		GraphSnapshot snapshot = debounced.snapshot();
+
+		debounced.addRelationship("a1", "tt1");
+		assertTrue(debounced.hasRelationship("a1", "tt1"));
+		assertSame(snapshot, debounced.snapshot());
+		assertEquals(0, debounced.snapshot().getEdgeCount());
+
+		Thread.sleep(250);
+		assertEquals(1, debounced.snapshot().getEdgeCount());
+	}
+
+	/**
+	 * This test verifies that a snapshot taken while the graph was loading is not kept once the load completes.
+	 */
+	@Test
+	public void testSnapshotRebuiltAfterLoad() {
+		ActorMovieGraph debounced = new ActorMovieGraph(60_000);
+		debounced.addActor("a1", null);
+		GraphSnapshot partial = debounced.snapshot();
+		debounced.load(emptyDriver());
+		debounced.addActor("a2", null);
+
+		assertNotSame(partial, debounced.snapshot());
+		assertEquals(2, debounced.snapshot().getActorCount());
+	}
+
+	/**
+	 * @return A driver whose database is empty.
+	 */
+	private static Driver emptyDriver() {
+		Driver driver = mock(Driver.class);
+		Session session = mock(Session.class);
+		StatementResult result = mock(StatementResult.class);
+		when(driver.session(AccessMode.READ)).thenReturn(session);
+		when(session.run(anyString())).thenReturn(result);
+		return driver;
+	}
+
+	/**
+	 * This test verifies that the edge index answers membership for every added edge, and no others, as it grows.
+	 */
+	@Test
+	public void testHasRelationship() {
+		assertTrue(graph.hasRelationship("a1", "tt2"));
+		assertFalse(graph.hasRelationship("a2", "tt1"));
+		assertFalse(graph.hasRelationship("unknown", "tt1"));
+		assertFalse(graph.hasRelationship("a1", "unknown"));
+
+		for (int i = 0; i < 200; i++) {
+			graph.addActor("x" + i, null);
+			graph.addMovie("m" + i, null);
+		}
+		for (int i = 0; i < 200; i++) {
+			for (int j = i % 3; j < 200; j += 3) {
+				assertTrue(graph.addRelationship("x" + i, "m" + j));
+			}
+		}
+		assertFalse(graph.addRelationship("x0", "m0"));
+		for (int i = 0; i < 200; i++) {
+			for (int j = 0; j < 200; j++) {
+				assertEquals(j % 3 == i % 3, graph.hasRelationship("x" + i, "m" + j));
+			}
+		}
+		assertTrue(graph.hasRelationship("bacon", "tt1"));
+	}
+
+}
@@ -0,0 +1,83 @@
+package ca.yorku.eecs.graph;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Measures how a full BFS from one actor scales with the number of fork-join workers, for the top-down-only and the
+ * direction-optimizing strategies.
+ * <p>
+ * The graph is synthetic but IMDb-shaped: most actors appear in a handful of movies and movie popularity is skewed,
+ * so a few movies have very large casts. Run with:
+ * <pre>
+ * mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=ca.yorku.eecs.graph.BfsScalingBenchmark [-Dexec.args="actors maxThreads"]
+ * </pre>
+ * </p>
+ */
+public class BfsScalingBenchmark {
+
+	private static final int WARMUP_RUNS = 3;
+
+	private static final int MEASURED_RUNS = 7;
+
+	public static void main(String[] args) {
+		int actors = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+		long start = System.currentTimeMillis();
+		GraphSnapshot graph = imdbLikeGraph(new Random(1), actors, actors / 4).snapshot();
+		System.out.printf("graph: %d actors, %d movies, %d edges (built in %d ms), %d cores available%n",
+				graph.getActorCount(), graph.getMovieCount(), graph.getEdgeCount(),
+				System.currentTimeMillis() - start, Runtime.getRuntime().availableProcessors());
+		System.out.printf("%-8s %16s %16s %10s%n", "threads", "top-down ms", "dir-opt ms", "speedup");
+
+		for (int threads = 1; threads <= maxThreads; threads = threads < maxThreads ? Math.min(threads * 2, maxThreads) : threads + 1) {
+			ForkJoinPool pool = new ForkJoinPool(threads);
+			try {
+				double topDown = medianMillis(new DirectionOptimizingBfs(pool, 0, 0), graph);
+				double switching = medianMillis(new DirectionOptimizingBfs(pool), graph);
+				System.out.printf("%-8d %16.1f %16.1f %9.2fx%n", threads, topDown, switching, topDown / switching);
+			} finally {
+				pool.shutdown();
+			}
+		}
+	}
+
+	private static double medianMillis(DirectionOptimizingBfs bfs, GraphSnapshot graph) {
+		for (int i = 0; i < WARMUP_RUNS; i++) {
+			bfs.search(graph, 0);
+		}
+		double[] millis = new double[MEASURED_RUNS];
+		for (int i = 0; i < MEASURED_RUNS; i++) {
+			long start = System.nanoTime();
+			bfs.search(graph, 0);
+			millis[i] = (System.nanoTime() - start) / 1e6;
+		}
+		Arrays.sort(millis);
+		return millis[MEASURED_RUNS / 2];
+	}
+
+	/**
+	 * Each actor appears in 1 + a geometric number of movies (mean 4); movies are picked with a squared-uniform skew
+	 * so low-numbered movies get large casts.
+	 */
+	private static ActorMovieGraph imdbLikeGraph(Random random, int actors, int movies) {
+		ActorMovieGraph graph = new ActorMovieGraph();
+		for (int i = 0; i < actors; i++) {
+			graph.addActor("nm" + i, null);
+		}
+		for (int i = 0; i < movies; i++) {
+			graph.addMovie("tt" + i, null);
+		}
+		for (int i = 0; i < actors; i++) {
+			String actorId = "nm" + i;
+			do {
+				double u = random.nextDouble();
+				graph.addRelationship(actorId, "tt" + (int) (u * u * movies));
+			} while (random.nextDouble() < 0.75);
+		}
+		return graph;
+	}
+}
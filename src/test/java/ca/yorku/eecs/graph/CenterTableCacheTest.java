@@ -0,0 +1,119 @@
+package ca.yorku.eecs.graph;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.driver.v1.AccessMode;
+import org.neo4j.driver.v1.Driver;
+import org.neo4j.driver.v1.Session;
+import org.neo4j.driver.v1.StatementResult;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * This class tests the per-center distance tables and their memory-bounded LRU cache.
+ */
+public class CenterTableCacheTest {
+
+	/**
+	 * A chain a0 - m0 - a1 - m1 - a2 - m2 - a3.
+	 */
+	private ActorMovieGraph graph;
+
+	/**
+	 * This method is called before each test. It builds the test graph.
+	 */
+	@Before
+	public void setUp() {
+		graph = new ActorMovieGraph();
+		for (int i = 0; i <= 3; i++) {
+			graph.addActor("a" + i, null);
+		}
+		for (int i = 0; i <= 2; i++) {
+			graph.addMovie("m" + i, null);
+			graph.addRelationship("a" + i, "m" + i);
+			graph.addRelationship("a" + (i + 1), "m" + i);
+		}
+	}
+
+	/**
+	 * This test verifies distances and paths read from a table.
+	 */
+	@Test
+	public void testTable() {
+		CenterTable table = new CenterTableCache(graph, Long.MAX_VALUE).get("a1");
+		assertEquals(0, table.distance(graph.actorIndexOf("a1")));
+		assertEquals(1, table.distance(graph.actorIndexOf("a0")));
+		assertEquals(2, table.distance(graph.actorIndexOf("a3")));
+		assertArrayEquals(new int[]{graph.actorIndexOf("a3"), graph.movieIndexOf("m2"), graph.actorIndexOf("a2"),
+				graph.movieIndexOf("m1"), graph.actorIndexOf("a1")}, table.pathFrom(graph.actorIndexOf("a3")));
+	}
+
+	/**
+	 * This test verifies that tables are reused until a relationship is added, and that new actors alone do not
+	 * invalidate them.
+	 */
+	@Test
+	public void testInvalidation() {
+		CenterTableCache cache = new CenterTableCache(graph, Long.MAX_VALUE);
+		CenterTable table = cache.get("a0");
+		assertSame(table, cache.get("a0"));
+		assertEquals(1, cache.getHits());
+		assertEquals(1, cache.getMisses());
+
+		int loner = graph.addActor("a4", null);
+		assertSame(table, cache.get("a0"));
+		assertEquals(-1, table.distance(loner));
+
+		graph.addRelationship("a4", "m0");
+		CenterTable rebuilt = cache.get("a0");
+		assertNotSame(table, rebuilt);
+		assertEquals(1, rebuilt.distance(loner));
+		assertNull(cache.get("missing"));
+	}
+
+	/**
+	 * This test verifies that tables outlive writes for as long as the graph keeps its snapshot, and that a center
+	 * added since the snapshot was taken is not found until the next one.
+	 */
+	@Test
+	public void testTablesFollowSnapshot() {
+		Driver driver = mock(Driver.class);
+		Session session = mock(Session.class);
+		when(driver.session(AccessMode.READ)).thenReturn(session);
+		when(session.run(anyString())).thenReturn(mock(StatementResult.class));
+		ActorMovieGraph debounced = new ActorMovieGraph(60_000);
+		debounced.load(driver);
+		debounced.addActor("a0", null);
+		debounced.addMovie("m0", null);
+		debounced.addRelationship("a0", "m0");
+
+		CenterTableCache cache = new CenterTableCache(debounced, Long.MAX_VALUE);
+		CenterTable table = cache.get("a0");
+		debounced.addActor("a1", null);
+		debounced.addRelationship("a1", "m0");
+
+		assertSame(table, cache.get("a0"));
+		assertEquals(1, cache.getHits());
+		assertNull(cache.get("a1"));
+	}
+
+	/**
+	 * This test verifies that least recently used tables are evicted to stay within the memory budget.
+	 */
+	@Test
+	public void testEviction() {
+		long tableBytes = new CenterTableCache(graph, Long.MAX_VALUE).get("a0").sizeInBytes();
+		CenterTableCache cache = new CenterTableCache(graph, 2 * tableBytes);
+		CenterTable a0 = cache.get("a0");
+		cache.get("a1");
+		assertSame(a0, cache.get("a0"));
+		cache.get("a2");
+
+		assertEquals(2, cache.size());
+		assertEquals(1, cache.getEvictions());
+		assertTrue(cache.getBytesUsed() <= cache.getMaxBytes());
+		// a1 was the least recently used, so a0 survived
+		assertSame(a0, cache.get("a0"));
+	}
+}
@@ -0,0 +1,82 @@
+package ca.yorku.eecs.graph;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/**
+ * This class tests the closeness-centrality ranking.
+ */
+public class ClosenessCentralityJobTest {
+
+	/**
+	 * A chain a0 - m0 - a1 - m1 - a2 - m2 - a3 - m3 - a4 and a separate pair a5 - m4 - a6.
+	 */
+	private ActorMovieGraph graph;
+
+	/**
+	 * This method is called before each test. It builds the test graph.
+	 */
+	@Before
+	public void setUp() {
+		graph = new ActorMovieGraph();
+		for (int i = 0; i <= 6; i++) {
+			graph.addActor("a" + i, "Actor " + i);
+		}
+		for (int i = 0; i <= 4; i++) {
+			graph.addMovie("m" + i, "Movie " + i);
+		}
+		for (int i = 0; i < 4; i++) {
+			graph.addRelationship("a" + i, "m" + i);
+			graph.addRelationship("a" + (i + 1), "m" + i);
+		}
+		graph.addRelationship("a5", "m4");
+		graph.addRelationship("a6", "m4");
+	}
+
+	/**
+	 * This test verifies the exact ranking: the middle of the chain is most central and the small component does not
+	 * outrank it.
+	 */
+	@Test
+	public void testExactRanking() {
+		ClosenessCentralityJob job = new ClosenessCentralityJob(graph, new ForkJoinPool(3), 0, 3);
+		CentralityRanking ranking = job.compute();
+
+		assertTrue(ranking.isExact());
+		assertEquals(7, ranking.getSources());
+		assertSame(ranking, job.getRanking());
+		assertEquals(1.0, job.getProgress(), 1e-9);
+		assertFalse(job.isRunning());
+
+		List<CentralityScore> centers = ranking.getCenters();
+		assertEquals(3, centers.size());
+		assertEquals("a2", centers.get(0).getActorId());
+		assertEquals(1.5, centers.get(0).getAverageDistance(), 1e-9);
+		assertEquals(4, centers.get(0).getReached());
+		assertEquals((4.0 / 6) * (4.0 / 6), centers.get(0).getCloseness(), 1e-9);
+		assertTrue(centers.get(1).getActorId().equals("a1") || centers.get(1).getActorId().equals("a3"));
+		assertTrue(centers.get(0).getCloseness() >= centers.get(1).getCloseness());
+	}
+
+	/**
+	 * This test verifies that sampling runs the configured number of searches and is reproducible per graph version.
+	 */
+	@Test
+	public void testSampledRanking() {
+		ClosenessCentralityJob job = new ClosenessCentralityJob(graph, ForkJoinPool.commonPool(), 4, 7);
+		CentralityRanking first = job.compute();
+		CentralityRanking second = job.compute();
+
+		assertFalse(first.isExact());
+		assertEquals(4, first.getSources());
+		assertEquals(first.getCenters().size(), second.getCenters().size());
+		for (int i = 0; i < first.getCenters().size(); i++) {
+			assertEquals(first.getCenters().get(i).getActorId(), second.getCenters().get(i).getActorId());
+		}
+	}
+}
@@ -0,0 +1,183 @@
+package ca.yorku.eecs.graph;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.driver.v1.AccessMode;
+import org.neo4j.driver.v1.Driver;
+import org.neo4j.driver.v1.Session;
+import org.neo4j.driver.v1.StatementResult;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * This class tests the co-star recommendations and their per-actor cache.
+ */
+public class CoStarRecommenderTest {
+
+	/**
+	 * a0 shares m0 and m1 with a1 and m1 with a2; a3 co-stars with a1 in m2 and with a2 in m3; a4 co-stars with a2
+	 * in m4.
+	 */
+	private ActorMovieGraph graph;
+
+	/**
+	 * This method is called before each test. It builds the test graph.
+	 */
+	@Before
+	public void setUp() {
+		graph = new ActorMovieGraph();
+		for (int i = 0; i <= 4; i++) {
+			graph.addActor("a" + i, "Actor " + i);
+			graph.addMovie("m" + i, null);
+		}
+		graph.addRelationship("a0", "m0");
+		graph.addRelationship("a1", "m0");
+		graph.addRelationship("a0", "m1");
+		graph.addRelationship("a1", "m1");
+		graph.addRelationship("a2", "m1");
+		graph.addRelationship("a1", "m2");
+		graph.addRelationship("a3", "m2");
+		graph.addRelationship("a2", "m3");
+		graph.addRelationship("a3", "m3");
+		graph.addRelationship("a2", "m4");
+		graph.addRelationship("a4", "m4");
+	}
+
+	/**
+	 * This test verifies the ranking of co-stars by shared movies and of two-hop actors by common co-stars.
+	 */
+	@Test
+	public void testRecommendations() {
+		CoStarRecommendations recommendations = new CoStarRecommender(graph, 10, 10).get("a0");
+		assertArrayEquals(new int[]{graph.actorIndexOf("a1"), graph.actorIndexOf("a2")}, recommendations.getCoStars());
+		assertArrayEquals(new int[]{2, 1}, recommendations.getSharedMovies());
+		assertArrayEquals(new int[]{graph.actorIndexOf("a3"), graph.actorIndexOf("a4")}, recommendations.getTwoHop());
+		assertArrayEquals(new int[]{2, 1}, recommendations.getCommonCoStars());
+
+		CoStarRecommendations top = new CoStarRecommender(graph, 1, 10).get("a0");
+		assertArrayEquals(new int[]{graph.actorIndexOf("a1")}, top.getCoStars());
+		assertArrayEquals(new int[]{graph.actorIndexOf("a3")}, top.getTwoHop());
+	}
+
+	/**
+	 * This test verifies that results are reused until a relationship is added.
+	 */
+	@Test
+	public void testInvalidation() {
+		CoStarRecommender recommender = new CoStarRecommender(graph, 10, 10);
+		CoStarRecommendations recommendations = recommender.get("a0");
+		assertSame(recommendations, recommender.get("a0"));
+		assertEquals(1, recommender.getHits());
+		assertEquals(1, recommender.getMisses());
+
+		graph.addActor("a5", null);
+		assertSame(recommendations, recommender.get("a0"));
+
+		graph.addRelationship("a4", "m0");
+		CoStarRecommendations updated = recommender.get("a0");
+		assertNotSame(recommendations, updated);
+		assertEquals(3, updated.getCoStars().length);
+		assertArrayEquals(new int[]{graph.actorIndexOf("a3")}, updated.getTwoHop());
+		assertNull(recommender.get("missing"));
+	}
+
+	/**
+	 * This test verifies that results outlive writes for as long as the graph keeps its snapshot.
+	 */
+	@Test
+	public void testCacheFollowsSnapshot() {
+		Driver driver = mock(Driver.class);
+		Session session = mock(Session.class);
+		when(driver.session(AccessMode.READ)).thenReturn(session);
+		when(session.run(anyString())).thenReturn(mock(StatementResult.class));
+		ActorMovieGraph debounced = new ActorMovieGraph(60_000);
+		debounced.load(driver);
+		debounced.addActor("a0", null);
+		debounced.addActor("a1", null);
+		debounced.addMovie("m0", null);
+		debounced.addRelationship("a0", "m0");
+		debounced.addRelationship("a1", "m0");
+
+		CoStarRecommender recommender = new CoStarRecommender(debounced, 10, 10);
+		CoStarRecommendations recommendations = recommender.get("a0");
+		debounced.addActor("a2", null);
+		debounced.addRelationship("a2", "m0");
+
+		assertSame(recommendations, recommender.get("a0"));
+		assertEquals(1, recommender.getHits());
+		assertEquals(1, recommendations.getCoStars().length);
+	}
+
+	/**
+	 * This test verifies that only the most recently used actors stay cached.
+	 */
+	@Test
+	public void testEviction() {
+		CoStarRecommender recommender = new CoStarRecommender(graph, 10, 2);
+		recommender.get("a0");
+		recommender.get("a1");
+		recommender.get("a0");
+		recommender.get("a2");
+		assertEquals(2, recommender.size());
+		recommender.get("a0");
+		assertEquals(2, recommender.getHits());
+		recommender.get("a1");
+		assertEquals(4, recommender.getMisses());
+	}
+
+	/**
+	 * This test compares the counts on a random graph with a brute-force computation over every pair of actors.
+	 */
+	@Test
+	public void testRandomGraph() {
+		GraphSnapshot snapshot = DirectionOptimizingBfsTest.randomGraph(new Random(7), 300, 200, 3).snapshot();
+		CoStarRecommender recommender = new CoStarRecommender(null, 1000, 1);
+		for (int actor = 0; actor < 20; actor++) {
+			CoStarRecommendations recommendations = recommender.compute(snapshot, actor);
+			int[] shared = sharedMovies(snapshot, actor);
+
+			int[] coStars = recommendations.getCoStars();
+			for (int i = 0; i < coStars.length; i++) {
+				assertEquals(shared[coStars[i]], recommendations.getSharedMovies()[i]);
+				if (i > 0) {
+					assertTrue(recommendations.getSharedMovies()[i - 1] >= recommendations.getSharedMovies()[i]);
+				}
+			}
+			int expectedCoStars = 0;
+			for (int other = 0; other < shared.length; other++) {
+				if (other != actor && shared[other] > 0) {
+					expectedCoStars++;
+				}
+			}
+			assertEquals(expectedCoStars, coStars.length);
+
+			int[] twoHop = recommendations.getTwoHop();
+			for (int i = 0; i < twoHop.length; i++) {
+				assertEquals(0, shared[twoHop[i]]);
+				int[] candidateShared = sharedMovies(snapshot, twoHop[i]);
+				int common = 0;
+				for (int coStar : coStars) {
+					if (candidateShared[coStar] > 0) {
+						common++;
+					}
+				}
+				assertEquals(common, recommendations.getCommonCoStars()[i]);
+			}
+		}
+	}
+
+	private static int[] sharedMovies(GraphSnapshot snapshot, int actor) {
+		int[] shared = new int[snapshot.getActorCount()];
+		for (int i = snapshot.actorOffsets[actor]; i < snapshot.actorOffsets[actor + 1]; i++) {
+			int movie = snapshot.actorMovies[i];
+			for (int j = snapshot.movieOffsets[movie]; j < snapshot.movieOffsets[movie + 1]; j++) {
+				shared[snapshot.movieActors[j]]++;
+			}
+		}
+		shared[actor] = 0;
+		return shared;
+	}
+}
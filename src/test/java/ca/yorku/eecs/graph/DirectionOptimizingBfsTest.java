@@ -0,0 +1,169 @@
+package ca.yorku.eecs.graph;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/**
+ * This class tests the direction-optimizing BFS kernel in its top-down, bottom-up and switching configurations.
+ */
+public class DirectionOptimizingBfsTest {
+
+	/**
+	 * A pool with several workers so the fork-join paths run concurrently even on small machines.
+	 */
+	private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+	@AfterClass
+	public static void tearDown() {
+		POOL.shutdown();
+	}
+
+	/**
+	 * This test verifies distances, paths and the histogram on a small graph:
+	 * bacon - tt1 - a1 - tt2 - a2, and a3 acting alone in tt3.
+	 */
+	@Test
+	public void testSmallGraph() {
+		ActorMovieGraph graph = new ActorMovieGraph();
+		int bacon = graph.addActor("bacon", "Kevin Bacon");
+		int a1 = graph.addActor("a1", "Actor One");
+		int a2 = graph.addActor("a2", "Actor Two");
+		int a3 = graph.addActor("a3", "Actor Three");
+		int tt1 = graph.addMovie("tt1", "Movie One");
+		int tt2 = graph.addMovie("tt2", "Movie Two");
+		graph.addMovie("tt3", "Movie Three");
+		graph.addRelationship("bacon", "tt1");
+		graph.addRelationship("a1", "tt1");
+		graph.addRelationship("a1", "tt2");
+		graph.addRelationship("a2", "tt2");
+		graph.addRelationship("a3", "tt3");
+
+		BfsResult result = new DirectionOptimizingBfs(POOL).search(graph.snapshot(), bacon);
+		assertEquals(0, result.distance(bacon));
+		assertEquals(1, result.distance(a1));
+		assertEquals(2, result.distance(a2));
+		assertEquals(-1, result.distance(a3));
+		assertArrayEquals(new long[]{1, 1, 1}, result.histogram());
+		assertArrayEquals(new int[]{a2, tt2, a1, tt1, bacon}, result.pathFrom(a2));
+		assertArrayEquals(new int[]{bacon}, result.pathFrom(bacon));
+		assertNull(result.pathFrom(a3));
+	}
+
+	/**
+	 * This test verifies that every direction strategy agrees with a plain sequential BFS on a random graph.
+	 */
+	@Test
+	public void testMatchesSequentialBfs() {
+		GraphSnapshot snapshot = randomGraph(new Random(42), 20000, 6000, 3).snapshot();
+		int[] expected = sequentialDistances(snapshot, 0);
+
+		BfsResult switching = new DirectionOptimizingBfs(POOL).search(snapshot, 0);
+		BfsResult topDown = new DirectionOptimizingBfs(POOL, 0, 0).search(snapshot, 0);
+		BfsResult bottomUp = new DirectionOptimizingBfs(POOL, Integer.MAX_VALUE, Integer.MAX_VALUE).search(snapshot, 0);
+
+		assertArrayEquals(expected, switching.distances());
+		assertArrayEquals(expected, topDown.distances());
+		assertArrayEquals(expected, bottomUp.distances());
+		assertTrue(switching.getBottomUpSteps() > 0);
+		assertTrue(switching.getBottomUpSteps() < switching.getSteps());
+		assertEquals(0, topDown.getBottomUpSteps());
+		assertEquals(bottomUp.getSteps(), bottomUp.getBottomUpSteps());
+
+		// Every path must be a valid walk of the right length ending at the source
+		for (int actor = 0; actor < expected.length; actor += 97) {
+			int[] path = bottomUp.pathFrom(actor);
+			if (expected[actor] < 0) {
+				assertNull(path);
+				continue;
+			}
+			assertEquals(2 * expected[actor] + 1, path.length);
+			assertEquals(0, path[path.length - 1]);
+			for (int i = 0; i + 1 < path.length; i += 2) {
+				assertTrue(contains(snapshot.actorMovies, snapshot.actorOffsets, path[i], path[i + 1]));
+				assertTrue(contains(snapshot.movieActors, snapshot.movieOffsets, path[i + 1], path[i + 2]));
+			}
+		}
+	}
+
+	/**
+	 * This test verifies that a targeted search stops once the target is reached.
+	 */
+	@Test
+	public void testTargetedSearchStopsEarly() {
+		GraphSnapshot snapshot = randomGraph(new Random(7), 5000, 2000, 2).snapshot();
+		int[] expected = sequentialDistances(snapshot, 0);
+		int target = 0;
+		for (int actor = 1; actor < expected.length; actor++) {
+			if (expected[actor] == 2) {
+				target = actor;
+				break;
+			}
+		}
+
+		BfsResult result = new DirectionOptimizingBfs(POOL).search(snapshot, 0, target);
+		assertEquals(2, result.distance(target));
+		assertEquals(4, result.getSteps());
+	}
+
+	private static boolean contains(int[] adjacency, int[] offsets, int vertex, int neighbour) {
+		for (int e = offsets[vertex]; e < offsets[vertex + 1]; e++) {
+			if (adjacency[e] == neighbour) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Builds a graph where each actor appears in {@code moviesPerActor} random movies.
+	 */
+	static ActorMovieGraph randomGraph(Random random, int actors, int movies, int moviesPerActor) {
+		ActorMovieGraph graph = new ActorMovieGraph();
+		for (int i = 0; i < actors; i++) {
+			graph.addActor("nm" + i, null);
+		}
+		for (int i = 0; i < movies; i++) {
+			graph.addMovie("tt" + i, null);
+		}
+		for (int i = 0; i < actors; i++) {
+			for (int j = 0; j < moviesPerActor; j++) {
+				graph.addRelationship("nm" + i, "tt" + random.nextInt(movies));
+			}
+		}
+		return graph;
+	}
+
+	private static int[] sequentialDistances(GraphSnapshot graph, int source) {
+		int[] distances = new int[graph.getActorCount()];
+		boolean[] movieSeen = new boolean[graph.getMovieCount()];
+		Arrays.fill(distances, -1);
+		distances[source] = 0;
+		ArrayDeque<Integer> queue = new ArrayDeque<>();
+		queue.add(source);
+		while (!queue.isEmpty()) {
+			int actor = queue.poll();
+			for (int e = graph.actorOffsets[actor]; e < graph.actorOffsets[actor + 1]; e++) {
+				int movie = graph.actorMovies[e];
+				if (movieSeen[movie]) {
+					continue;
+				}
+				movieSeen[movie] = true;
+				for (int f = graph.movieOffsets[movie]; f < graph.movieOffsets[movie + 1]; f++) {
+					int coStar = graph.movieActors[f];
+					if (distances[coStar] < 0) {
+						distances[coStar] = distances[actor] + 1;
+						queue.add(coStar);
+					}
+				}
+			}
+		}
+		return distances;
+	}
+}
@@ -0,0 +1,91 @@
+package ca.yorku.eecs.handler.get;
+
+import ca.yorku.eecs.graph.ActorMovieGraph;
+import ca.yorku.eecs.graph.BaconStatsCache;
+import com.sun.net.httpserver.HttpExchange;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * This class is responsible for testing the BaconStatsHandler.
+ * It checks for different scenarios using Mockito to mock dependencies.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class BaconStatsHandlerTest {
+
+	/**
+	 * Mock of the HttpExchange class. This is the argument that will be passed to the handle method
+	 * of BaconStatsHandler.
+	 */
+	@Mock
+	private HttpExchange httpExchange;
+
+	/**
+	 * Mock of the OutputStream class. This is used to mock the output stream of the HttpExchange.
+	 */
+	@Mock
+	private OutputStream outputStream;
+
+	/**
+	 * A small in-memory graph: Kevin Bacon and one co-star, plus an unconnected actor.
+	 */
+	private ActorMovieGraph graph;
+
+	/**
+	 * This method is called before each test. It sets up the mocks and the graph.
+	 */
+	@Before
+	public void setUp() {
+		when(httpExchange.getResponseBody()).thenReturn(outputStream);
+		graph = new ActorMovieGraph();
+		graph.addActor("nm0000102", "Kevin Bacon");
+		graph.addActor("nm1", "Co Star");
+		graph.addActor("nm2", "Loner");
+		graph.addMovie("tt1", "Movie");
+		graph.addRelationship("nm0000102", "tt1");
+		graph.addRelationship("nm1", "tt1");
+	}
+
+	/**
+	 * This test verifies the successful computation of the statistics.
+	 *
+	 * @throws IOException If there's an issue with input or output.
+	 */
+	@Test
+	public void testBaconStatsHandlerSuccess() throws IOException {
+		BaconStatsHandler handler = new BaconStatsHandler(new BaconStatsCache(graph, "nm0000102"));
+		handler.handle(httpExchange);
+
+		verify(httpExchange).sendResponseHeaders(eq(200), anyLong());
+		ArgumentCaptor<byte[]> body = ArgumentCaptor.forClass(byte[].class);
+		verify(outputStream).write(body.capture());
+		String response = new String(body.getValue());
+		assertTrue(response.contains("\"histogram\":[1,1]"));
+		assertTrue(response.contains("\"unreachable\":1"));
+		verify(outputStream).close();
+	}
+
+	/**
+	 * This test verifies the case where Kevin Bacon is not in the graph.
+	 *
+	 * @throws IOException If there's an issue with input or output.
+	 */
+	@Test
+	public void testBaconStatsHandlerNoBacon() throws IOException {
+		BaconStatsHandler handler = new BaconStatsHandler(new BaconStatsCache(graph, "nm9999999"));
+		handler.handle(httpExchange);
+
+		verify(httpExchange).sendResponseHeaders(eq(404), anyLong());
+		verify(outputStream).close();
+	}
+}
@@ -1,17 +1,23 @@
 package ca.yorku.eecs.handler.get;
 
+import ca.yorku.eecs.graph.ActorMovieGraph;
+import ca.yorku.eecs.graph.CenterTableCache;
 import com.sun.net.httpserver.HttpExchange;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.neo4j.driver.v1.*;
+import org.neo4j.driver.v1.exceptions.ClientException;
 
 import java.io.IOException;
 import java.io.OutputStream;
 import java.net.URI;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.*;
 
 /**
@@ -75,8 +81,8 @@ public class ComputeBaconNumberHandlerTest {
 	@Before
 	public void setUp() throws IOException {
 		when(httpExchange.getResponseBody()).thenReturn(outputStream);
-		when(driver.session()).thenReturn(session);
-		when(session.run(anyString(), any(Value.class))).thenReturn(statementResult);
+		when(driver.session(AccessMode.READ)).thenReturn(session);
+		when(session.run(any(Statement.class), any(TransactionConfig.class))).thenReturn(statementResult);
 	}
 
 	/**
@@ -131,4 +137,172 @@ public class ComputeBaconNumberHandlerTest {
 		verify(outputStream).write(any(byte[].class));
 		verify(outputStream).close();
 	}
+
+	/**
+	 * This test verifies that the Bacon number is computed from the in-memory graph once it is loaded, without running
+	 * the Cypher query.
+	 *
+	 * @throws IOException If there's an issue with input or output.
+	 */
+	@Test
+	public void testComputeBaconNumberHandlerFromGraph() throws IOException {
+		ActorMovieGraph graph = new ActorMovieGraph();
+		graph.addActor("nm0000102", "Kevin Bacon");
+		graph.addActor("a1", "Actor One");
+		graph.addActor("a2", "Actor Two");
+		graph.addMovie("tt1", "Movie One");
+		graph.addMovie("tt2", "Movie Two");
+		graph.addRelationship("nm0000102", "tt1");
+		graph.addRelationship("a1", "tt1");
+		graph.addRelationship("a1", "tt2");
+		graph.addRelationship("a2", "tt2");
+		// Loading from an empty database marks the graph as loaded and keeps the actors above
+		when(session.run(anyString())).thenReturn(statementResult);
+		graph.load(driver);
+
+		when(httpExchange.getRequestURI()).thenReturn(URI.create("/api/v1/computeBaconNumber?actorId=a2"));
+
+		ComputeBaconNumberHandler handler = new ComputeBaconNumberHandler(driver, new CenterTableCache(graph, Long.MAX_VALUE), ComputeBaconNumberHandler.DEFAULT_TIMEOUT_MILLIS, null);
+		handler.handle(httpExchange);
+
+		ArgumentCaptor<byte[]> body = ArgumentCaptor.forClass(byte[].class);
+		verify(outputStream).write(body.capture());
+		assertEquals("{\"baconNumber\":2}", new String(body.getValue()));
+		verify(session, never()).run(any(Statement.class), any(TransactionConfig.class));
+		verify(outputStream).close();
+	}
+
+	/**
+	 * This test verifies that the optional centerId replaces Kevin Bacon as the center.
+	 *
+	 * @throws IOException If there's an issue with input or output.
+	 */
+	@Test
+	public void testComputeBaconNumberHandlerWithCenterId() throws IOException {
+		ActorMovieGraph graph = new ActorMovieGraph();
+		graph.addActor("nm0000102", "Kevin Bacon");
+		graph.addActor("a1", "Actor One");
+		graph.addActor("a2", "Actor Two");
+		graph.addMovie("tt1", "Movie One");
+		graph.addMovie("tt2", "Movie Two");
+		graph.addRelationship("nm0000102", "tt1");
+		graph.addRelationship("a1", "tt1");
+		graph.addRelationship("a1", "tt2");
+		graph.addRelationship("a2", "tt2");
+		// Loading from an empty database marks the graph as loaded and keeps the actors above
+		when(session.run(anyString())).thenReturn(statementResult);
+		graph.load(driver);
+
+		when(httpExchange.getRequestURI()).thenReturn(URI.create("/api/v1/computeBaconNumber?actorId=a2&centerId=a1"));
+
+		ComputeBaconNumberHandler handler = new ComputeBaconNumberHandler(driver, new CenterTableCache(graph, Long.MAX_VALUE), ComputeBaconNumberHandler.DEFAULT_TIMEOUT_MILLIS, null);
+		handler.handle(httpExchange);
+
+		ArgumentCaptor<byte[]> body = ArgumentCaptor.forClass(byte[].class);
+		verify(outputStream).write(body.capture());
+		assertEquals("{\"baconNumber\":1}", new String(body.getValue()));
+		verify(session, never()).run(any(Statement.class), any(TransactionConfig.class));
+		verify(outputStream).close();
+	}
+
+	/**
+	 * This test verifies that maxHops bounds the Cypher query and that a miss is reported as 422 rather than 404.
+	 *
+	 * @throws IOException If there's an issue with input or output.
+	 */
+	@Test
+	public void testComputeBaconNumberHandlerNotWithinMaxHops() throws IOException {
+		when(httpExchange.getRequestURI()).thenReturn(URI.create("/api/v1/computeBaconNumber?actorId=123&maxHops=3&timeoutMillis=2000"));
+		when(statementResult.hasNext()).thenReturn(false);
+
+		ComputeBaconNumberHandler handler = new ComputeBaconNumberHandler(driver);
+		handler.handle(httpExchange);
+
+		ArgumentCaptor<Statement> statement = ArgumentCaptor.forClass(Statement.class);
+		ArgumentCaptor<TransactionConfig> config = ArgumentCaptor.forClass(TransactionConfig.class);
+		verify(session).run(statement.capture(), config.capture());
+		assertTrue(statement.getValue().text().contains("[:ACTED_IN*..6]"));
+		assertEquals(2000, config.getValue().timeout().toMillis());
+		verify(httpExchange).sendResponseHeaders(eq(422), anyLong());
+		verify(outputStream).close();
+	}
+
+	/**
+	 * This test verifies that a query terminated by Neo4j's transaction timeout is answered with 504.
+	 *
+	 * @throws IOException If there's an issue with input or output.
+	 */
+	@Test
+	public void testComputeBaconNumberHandlerTimeout() throws IOException {
+		when(httpExchange.getRequestURI()).thenReturn(URI.create("/api/v1/computeBaconNumber?actorId=123"));
+		when(session.run(any(Statement.class), any(TransactionConfig.class)))
+				.thenThrow(new ClientException("Neo.ClientError.Transaction.TransactionTimedOut", "Transaction timed out."));
+
+		ComputeBaconNumberHandler handler = new ComputeBaconNumberHandler(driver, null, 100, null);
+		handler.handle(httpExchange);
+
+		verify(httpExchange).sendResponseHeaders(eq(504), anyLong());
+		verify(outputStream).close();
+	}
+
+	/**
+	 * This test verifies the case where maxHops is not a positive integer.
+	 *
+	 * @throws IOException If there's an issue with input or output.
+	 */
+	@Test
+	public void testComputeBaconNumberHandlerBadMaxHops() throws IOException {
+		when(httpExchange.getRequestURI()).thenReturn(URI.create("/api/v1/computeBaconNumber?actorId=123&maxHops=0"));
+
+		ComputeBaconNumberHandler handler = new ComputeBaconNumberHandler(driver);
+		handler.handle(httpExchange);
+
+		verify(httpExchange).sendResponseHeaders(eq(400), anyLong());
+		verify(driver, never()).session(any(AccessMode.class));
+		verify(outputStream).close();
+	}
+
+	/**
+	 * This test verifies that a maxHops above the limit is rejected before its doubled bound could overflow.
+	 *
+	 * @throws IOException If there's an issue with input or output.
+	 */
+	@Test
+	public void testComputeBaconNumberHandlerMaxHopsTooLarge() throws IOException {
+		when(httpExchange.getRequestURI()).thenReturn(URI.create("/api/v1/computeBaconNumber?actorId=123&maxHops=1073741824"));
+
+		ComputeBaconNumberHandler handler = new ComputeBaconNumberHandler(driver);
+		handler.handle(httpExchange);
+
+		verify(httpExchange).sendResponseHeaders(eq(400), anyLong());
+		verify(driver, never()).session(any(AccessMode.class));
+		verify(outputStream).close();
+	}
+
+	/**
+	 * This test verifies that an actor given as its own center gets 0 only if it exists, and 404 otherwise, even with
+	 * maxHops.
+	 *
+	 * @throws IOException If there's an issue with input or output.
+	 */
+	@Test
+	public void testComputeBaconNumberHandlerActorIsCenter() throws IOException {
+		when(httpExchange.getRequestURI()).thenReturn(URI.create("/api/v1/computeBaconNumber?actorId=nm9&centerId=nm9&maxHops=3"));
+		when(statementResult.hasNext()).thenReturn(false);
+
+		ComputeBaconNumberHandler handler = new ComputeBaconNumberHandler(driver);
+		handler.handle(httpExchange);
+
+		verify(httpExchange).sendResponseHeaders(eq(404), anyLong());
+		ArgumentCaptor<Statement> statement = ArgumentCaptor.forClass(Statement.class);
+		verify(session).run(statement.capture(), any(TransactionConfig.class));
+		assertTrue(statement.getValue().text().startsWith("MATCH (a:Actor {actorId: $actorId}) RETURN"));
+
+		when(statementResult.hasNext()).thenReturn(true);
+		when(statementResult.single()).thenReturn(record);
+		when(record.get("baconNumber")).thenReturn(Values.value(0));
+		handler.handle(httpExchange);
+
+		verify(httpExchange).sendResponseHeaders(eq(200), anyLong());
+	}
 }
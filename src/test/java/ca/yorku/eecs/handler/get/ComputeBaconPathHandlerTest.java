@@ -1,9 +1,12 @@
 package ca.yorku.eecs.handler.get;
 
+import ca.yorku.eecs.graph.ActorMovieGraph;
+import ca.yorku.eecs.graph.CenterTableCache;
 import com.sun.net.httpserver.HttpExchange;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.neo4j.driver.v1.*;
@@ -14,6 +17,7 @@ import java.io.OutputStream;
 import java.net.URI;
 import java.util.Arrays;
 
+import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.*;
 
 /**
@@ -83,8 +87,8 @@ public class ComputeBaconPathHandlerTest {
 	@Before
 	public void setUp() throws IOException {
 		when(httpExchange.getResponseBody()).thenReturn(outputStream);
-		when(driver.session()).thenReturn(session);
-		when(session.run(anyString(), any(Value.class))).thenReturn(statementResult);
+		when(driver.session(AccessMode.READ)).thenReturn(session);
+		when(session.run(any(Statement.class), any(TransactionConfig.class))).thenReturn(statementResult);
 	}
 
 	/**
@@ -143,4 +147,89 @@ public class ComputeBaconPathHandlerTest {
 		verify(outputStream).write(any(byte[].class));
 		verify(outputStream).close();
 	}
+
+	/**
+	 * This test verifies that the Bacon path is computed from the in-memory graph once it is loaded, without running
+	 * the Cypher query.
+	 *
+	 * @throws IOException If there's an issue with input or output.
+	 */
+	@Test
+	public void testComputeBaconPathHandlerFromGraph() throws IOException {
+		ActorMovieGraph graph = new ActorMovieGraph();
+		graph.addActor("nm0000102", "Kevin Bacon");
+		graph.addActor("a1", "Actor One");
+		graph.addActor("a2", "Actor Two");
+		graph.addMovie("tt1", "Movie One");
+		graph.addMovie("tt2", "Movie Two");
+		graph.addRelationship("nm0000102", "tt1");
+		graph.addRelationship("a1", "tt1");
+		graph.addRelationship("a1", "tt2");
+		graph.addRelationship("a2", "tt2");
+		// Loading from an empty database marks the graph as loaded and keeps the actors above
+		when(session.run(anyString())).thenReturn(statementResult);
+		graph.load(driver);
+
+		when(httpExchange.getRequestURI()).thenReturn(URI.create("/api/v1/computeBaconPath?actorId=a2"));
+
+		ComputeBaconPathHandler handler = new ComputeBaconPathHandler(driver, new CenterTableCache(graph, Long.MAX_VALUE), ComputeBaconPathHandler.DEFAULT_TIMEOUT_MILLIS, null);
+		handler.handle(httpExchange);
+
+		ArgumentCaptor<byte[]> body = ArgumentCaptor.forClass(byte[].class);
+		verify(outputStream).write(body.capture());
+		assertEquals("{\"baconPath\":[\"a2\",\"tt2\",\"a1\",\"tt1\",\"nm0000102\"]}", new String(body.getValue()));
+		verify(session, never()).run(any(Statement.class), any(TransactionConfig.class));
+		verify(outputStream).close();
+	}
+
+	/**
+	 * This test verifies that an actor further from the center than maxHops gets 422 from the in-memory graph.
+	 *
+	 * @throws IOException If there's an issue with input or output.
+	 */
+	@Test
+	public void testComputeBaconPathHandlerNotWithinMaxHops() throws IOException {
+		ActorMovieGraph graph = new ActorMovieGraph();
+		graph.addActor("nm0000102", "Kevin Bacon");
+		graph.addActor("a1", "Actor One");
+		graph.addActor("a2", "Actor Two");
+		graph.addMovie("tt1", "Movie One");
+		graph.addMovie("tt2", "Movie Two");
+		graph.addRelationship("nm0000102", "tt1");
+		graph.addRelationship("a1", "tt1");
+		graph.addRelationship("a1", "tt2");
+		graph.addRelationship("a2", "tt2");
+		// Loading from an empty database marks the graph as loaded and keeps the actors above
+		when(session.run(anyString())).thenReturn(statementResult);
+		graph.load(driver);
+
+		ComputeBaconPathHandler handler = new ComputeBaconPathHandler(driver, new CenterTableCache(graph, Long.MAX_VALUE), ComputeBaconPathHandler.DEFAULT_TIMEOUT_MILLIS, null);
+		when(httpExchange.getRequestURI()).thenReturn(URI.create("/api/v1/computeBaconPath?actorId=a2&maxHops=1"));
+		handler.handle(httpExchange);
+		verify(httpExchange).sendResponseHeaders(eq(422), anyLong());
+
+		when(httpExchange.getRequestURI()).thenReturn(URI.create("/api/v1/computeBaconPath?actorId=a2&maxHops=2"));
+		handler.handle(httpExchange);
+		verify(httpExchange).sendResponseHeaders(eq(200), anyLong());
+	}
+
+	/**
+	 * This test verifies that an actor given as its own center that does not exist gets 404 rather than a one-actor
+	 * path.
+	 *
+	 * @throws IOException If there's an issue with input or output.
+	 */
+	@Test
+	public void testComputeBaconPathHandlerUnknownActorIsCenter() throws IOException {
+		when(httpExchange.getRequestURI()).thenReturn(URI.create("/api/v1/computeBaconPath?actorId=nm9&centerId=nm9"));
+		when(statementResult.hasNext()).thenReturn(false);
+
+		ComputeBaconPathHandler handler = new ComputeBaconPathHandler(driver);
+		handler.handle(httpExchange);
+
+		verify(httpExchange).sendResponseHeaders(eq(404), anyLong());
+		ArgumentCaptor<Statement> statement = ArgumentCaptor.forClass(Statement.class);
+		verify(session).run(statement.capture(), any(TransactionConfig.class));
+		assertEquals("MATCH (a:Actor {actorId: $actorId}) RETURN [a] AS nodes", statement.getValue().text());
+	}
 }
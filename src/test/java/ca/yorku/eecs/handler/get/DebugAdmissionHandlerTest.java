@@ -0,0 +1,89 @@
+package ca.yorku.eecs.handler.get;
+
+import ca.yorku.eecs.admission.AdaptiveLimiter;
+import ca.yorku.eecs.admission.CostClass;
+import com.sun.net.httpserver.HttpExchange;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * This class is responsible for testing the DebugAdmissionHandler.
+ * It checks for different scenarios using Mockito to mock dependencies.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class DebugAdmissionHandlerTest {
+
+	/**
+	 * Mock of the HttpExchange class. This is the argument that will be passed to the handle method
+	 * of DebugAdmissionHandler.
+	 */
+	@Mock
+	private HttpExchange httpExchange;
+
+	/**
+	 * Mock of the OutputStream class. This is used to mock the output stream of the HttpExchange.
+	 */
+	@Mock
+	private OutputStream outputStream;
+
+	/**
+	 * This method is called before each test. It sets up the mocks.
+	 */
+	@Before
+	public void setUp() {
+		when(httpExchange.getResponseBody()).thenReturn(outputStream);
+	}
+
+	/**
+	 * This test verifies that every cost class is listed with its metrics.
+	 *
+	 * @throws IOException If there's an issue with input or output.
+	 */
+	@Test
+	public void testDebugAdmissionHandlerSuccess() throws IOException {
+		DebugAdmissionHandler handler = new DebugAdmissionHandler(Arrays.asList(
+				new CostClass("cheap", 64, 256, 1000), new CostClass("expensive", 8, 16, 1000)));
+		handler.handle(httpExchange);
+
+		verify(httpExchange).sendResponseHeaders(eq(200), anyLong());
+		ArgumentCaptor<byte[]> body = ArgumentCaptor.forClass(byte[].class);
+		verify(outputStream).write(body.capture());
+		String response = new String(body.getValue());
+		assertTrue(response.contains("\"name\":\"cheap\""));
+		assertTrue(response.contains("\"name\":\"expensive\""));
+		assertTrue(response.contains("\"rejectedQueueFull\":0"));
+		verify(outputStream).close();
+	}
+
+	/**
+	 * This test verifies that adaptive limiters are listed with their current limit.
+	 *
+	 * @throws IOException If there's an issue with input or output.
+	 */
+	@Test
+	public void testDebugAdmissionHandlerListsLimiters() throws IOException {
+		DebugAdmissionHandler handler = new DebugAdmissionHandler(Collections.singletonList(new CostClass("cheap", 64, 256, 1000)),
+				Collections.singletonList(new AdaptiveLimiter("neo4j", 20, 2, 100, 1000)));
+		handler.handle(httpExchange);
+
+		verify(httpExchange).sendResponseHeaders(eq(200), anyLong());
+		ArgumentCaptor<byte[]> body = ArgumentCaptor.forClass(byte[].class);
+		verify(outputStream).write(body.capture());
+		String response = new String(body.getValue());
+		assertTrue(response.contains("\"name\":\"neo4j\""));
+		assertTrue(response.contains("\"limit\":20"));
+		verify(outputStream).close();
+	}
+}
@@ -0,0 +1,83 @@
+package ca.yorku.eecs.handler.get;
+
+import ca.yorku.eecs.admission.Bulkhead;
+import com.sun.net.httpserver.HttpExchange;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * This class is responsible for testing the DebugBulkheadsHandler.
+ * It checks for different scenarios using Mockito to mock dependencies.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class DebugBulkheadsHandlerTest {
+
+	/**
+	 * Mock of the HttpExchange class. This is the argument that will be passed to the handle method
+	 * of DebugBulkheadsHandler.
+	 */
+	@Mock
+	private HttpExchange httpExchange;
+
+	/**
+	 * Mock of the OutputStream class. This is used to mock the output stream of the HttpExchange.
+	 */
+	@Mock
+	private OutputStream outputStream;
+
+	/**
+	 * This method is called before each test. It sets up the mocks.
+	 */
+	@Before
+	public void setUp() {
+		when(httpExchange.getResponseBody()).thenReturn(outputStream);
+	}
+
+	/**
+	 * This test verifies that every bulkhead is listed with its routes, saturation and session budget.
+	 *
+	 * @throws IOException If there's an issue with input or output.
+	 */
+	@Test
+	public void testDebugBulkheadsHandlerSuccess() throws IOException {
+		Bulkhead lookups = new Bulkhead("lookups", 32, 64, 24, 1000);
+		Bulkhead analytics = new Bulkhead("analytics", 8, 32, 0, 1000);
+		Map<Bulkhead, List<String>> routes = new LinkedHashMap<>();
+		routes.put(lookups, Arrays.asList("/api/v1/getActor", "/api/v1/getMovie"));
+		routes.put(analytics, Collections.singletonList("/api/v1/search"));
+		try {
+			new DebugBulkheadsHandler(routes).handle(httpExchange);
+		} finally {
+			lookups.shutdown();
+			analytics.shutdown();
+		}
+
+		verify(httpExchange).sendResponseHeaders(eq(200), anyLong());
+		ArgumentCaptor<byte[]> body = ArgumentCaptor.forClass(byte[].class);
+		verify(outputStream).write(body.capture());
+		String response = new String(body.getValue());
+		assertTrue(response.contains("\"name\":\"lookups\""));
+		assertTrue(response.contains("\"/api/v1/getMovie\""));
+		assertTrue(response.contains("\"threads\":32"));
+		assertTrue(response.contains("\"saturation\":0"));
+		assertTrue(response.contains("\"limit\":24"));
+		assertTrue(response.contains("\"name\":\"analytics\""));
+		assertTrue(response.contains("\"rejected\":0"));
+		verify(outputStream).close();
+	}
+}
@@ -0,0 +1,120 @@
+package ca.yorku.eecs.handler.get;
+
+import com.sun.net.httpserver.HttpExchange;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.neo4j.driver.internal.InternalDriver;
+import org.neo4j.driver.internal.metrics.spi.ConnectionPoolMetrics;
+import org.neo4j.driver.internal.metrics.spi.Histogram;
+import org.neo4j.driver.internal.metrics.spi.Metrics;
+import org.neo4j.driver.internal.metrics.spi.PoolStatus;
+import org.neo4j.driver.v1.Config;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * This class is responsible for testing the DebugPoolHandler.
+ * It checks for different scenarios using Mockito to mock dependencies.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class DebugPoolHandlerTest {
+
+	/**
+	 * Mock of the HttpExchange class. This is the argument that will be passed to the handle method
+	 * of DebugPoolHandler.
+	 */
+	@Mock
+	private HttpExchange httpExchange;
+
+	/**
+	 * Mock of the OutputStream class. This is used to mock the output stream of the HttpExchange.
+	 */
+	@Mock
+	private OutputStream outputStream;
+
+	/**
+	 * Mock of the driver whose metrics are reported.
+	 */
+	@Mock
+	private InternalDriver driver;
+
+	@Mock
+	private Metrics metrics;
+
+	@Mock
+	private ConnectionPoolMetrics pool;
+
+	@Mock
+	private Histogram histogram;
+
+	/**
+	 * This method is called before each test. It sets up the mocks.
+	 */
+	@Before
+	public void setUp() {
+		when(httpExchange.getResponseBody()).thenReturn(outputStream);
+	}
+
+	/**
+	 * This test verifies that the settings and each pool's statistics are listed.
+	 *
+	 * @throws IOException If there's an issue with input or output.
+	 */
+	@Test
+	public void testDebugPoolHandlerSuccess() throws IOException {
+		when(driver.metrics()).thenReturn(metrics);
+		when(metrics.connectionPoolMetrics()).thenReturn(Collections.singletonMap("localhost:7687", pool));
+		when(pool.poolStatus()).thenReturn(PoolStatus.OPEN);
+		when(pool.inUse()).thenReturn(3);
+		when(pool.idle()).thenReturn(7);
+		when(pool.acquisitionTimeHistogram()).thenReturn(histogram);
+		when(histogram.totalCount()).thenReturn(10L);
+		when(histogram.mean()).thenReturn(2e6);
+		when(histogram.max()).thenReturn(5_000_000L);
+		Config config = Config.build().withMaxConnectionPoolSize(40)
+				.withConnectionAcquisitionTimeout(2, TimeUnit.SECONDS).toConfig();
+
+		new DebugPoolHandler(driver, config).handle(httpExchange);
+
+		verify(httpExchange).sendResponseHeaders(eq(200), anyLong());
+		ArgumentCaptor<byte[]> body = ArgumentCaptor.forClass(byte[].class);
+		verify(outputStream).write(body.capture());
+		String response = new String(body.getValue());
+		assertTrue(response.contains("\"maxConnectionPoolSize\":40"));
+		assertTrue(response.contains("\"connectionAcquisitionTimeoutMillis\":2000"));
+		assertTrue(response.contains("\"server\":\"localhost:7687\""));
+		assertTrue(response.contains("\"inUse\":3"));
+		assertTrue(response.contains("\"idle\":7"));
+		assertTrue(response.contains("\"acquisitionMeanMillis\":2"));
+		assertTrue(response.contains("\"acquisitionMaxMillis\":5"));
+		verify(outputStream).close();
+	}
+
+	/**
+	 * This test verifies that a driver without metrics lists no pools.
+	 *
+	 * @throws IOException If there's an issue with input or output.
+	 */
+	@Test
+	public void testDebugPoolHandlerWithoutMetrics() throws IOException {
+		when(driver.metrics()).thenReturn(metrics);
+		when(metrics.connectionPoolMetrics()).thenReturn(Collections.emptyMap());
+
+		new DebugPoolHandler(driver, Config.defaultConfig()).handle(httpExchange);
+
+		verify(httpExchange).sendResponseHeaders(eq(200), anyLong());
+		ArgumentCaptor<byte[]> body = ArgumentCaptor.forClass(byte[].class);
+		verify(outputStream).write(body.capture());
+		assertTrue(new String(body.getValue()).contains("\"pools\":[]"));
+	}
+}
@@ -0,0 +1,81 @@
+package ca.yorku.eecs.handler.get;
+
+import ca.yorku.eecs.tracing.SpanRingBuffer;
+import com.sun.net.httpserver.HttpExchange;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * This class is responsible for testing the DebugTracesHandler.
+ * It checks for different scenarios using Mockito to mock dependencies.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class DebugTracesHandlerTest {
+
+	/**
+	 * Mock of the HttpExchange class. This is the argument that will be passed to the handle method
+	 * of DebugTracesHandler.
+	 */
+	@Mock
+	private HttpExchange httpExchange;
+
+	/**
+	 * Mock of the OutputStream class. This is used to mock the output stream of the HttpExchange.
+	 */
+	@Mock
+	private OutputStream outputStream;
+
+	/**
+	 * This method is called before each test. It sets up the mocks.
+	 */
+	@Before
+	public void setUp() {
+		when(httpExchange.getResponseBody()).thenReturn(outputStream);
+	}
+
+	/**
+	 * This test verifies that traces are listed.
+	 *
+	 * @throws IOException If there's an issue with input or output.
+	 */
+	@Test
+	public void testDebugTracesHandlerSuccess() throws IOException {
+		when(httpExchange.getRequestURI()).thenReturn(URI.create("/debug/traces"));
+
+		DebugTracesHandler handler = new DebugTracesHandler(new SpanRingBuffer(16));
+		handler.handle(httpExchange);
+
+		verify(httpExchange).sendResponseHeaders(eq(200), anyLong());
+		ArgumentCaptor<byte[]> body = ArgumentCaptor.forClass(byte[].class);
+		verify(outputStream).write(body.capture());
+		assertTrue(new String(body.getValue()).contains("\"traces\":[]"));
+		verify(outputStream).close();
+	}
+
+	/**
+	 * This test verifies the case where the limit is not a number.
+	 *
+	 * @throws IOException If there's an issue with input or output.
+	 */
+	@Test
+	public void testDebugTracesHandlerBadLimit() throws IOException {
+		when(httpExchange.getRequestURI()).thenReturn(URI.create("/debug/traces?limit=abc"));
+
+		DebugTracesHandler handler = new DebugTracesHandler(new SpanRingBuffer(16));
+		handler.handle(httpExchange);
+
+		verify(httpExchange).sendResponseHeaders(eq(400), anyLong());
+		verify(outputStream).close();
+	}
+}
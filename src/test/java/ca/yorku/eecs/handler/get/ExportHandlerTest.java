@@ -0,0 +1,198 @@
+package ca.yorku.eecs.handler.get;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.neo4j.driver.v1.AccessMode;
+import org.neo4j.driver.v1.Driver;
+import org.neo4j.driver.v1.Record;
+import org.neo4j.driver.v1.Session;
+import org.neo4j.driver.v1.StatementResult;
+import org.neo4j.driver.v1.Values;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * This class is responsible for testing the ExportHandler.
+ * It checks for different scenarios using Mockito to mock dependencies.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class ExportHandlerTest {
+
+	/**
+	 * Mock of the HttpExchange class. This is the argument that will be passed to the handle method
+	 * of ExportHandler.
+	 */
+	@Mock
+	private HttpExchange httpExchange;
+
+	/**
+	 * Mock of the Driver class. This is used to mock the database driver.
+	 */
+	@Mock
+	private Driver driver;
+
+	/**
+	 * Mock of the Session class. This is used to mock the database session.
+	 */
+	@Mock
+	private Session session;
+
+	/**
+	 * Mock of the StatementResult class. This is used to mock the export cursor.
+	 */
+	@Mock
+	private StatementResult statementResult;
+
+	/**
+	 * Mock of an actor row.
+	 */
+	@Mock
+	private Record actorRecord;
+
+	/**
+	 * Mock of a relationship row.
+	 */
+	@Mock
+	private Record relationshipRecord;
+
+	/**
+	 * Receives the response body.
+	 */
+	private ByteArrayOutputStream body;
+
+	/**
+	 * This method is called before each test. It sets up the mocks.
+	 */
+	@Before
+	public void setUp() {
+		body = new ByteArrayOutputStream();
+		when(httpExchange.getResponseBody()).thenReturn(body);
+		when(driver.session(AccessMode.READ)).thenReturn(session);
+	}
+
+	/**
+	 * Stubs a cursor with one actor named with a comma and one relationship.
+	 */
+	private void stubRows() {
+		when(httpExchange.getResponseHeaders()).thenReturn(new Headers());
+		when(session.run(ExportHandler.EXPORT_QUERY)).thenReturn(statementResult);
+		when(statementResult.hasNext()).thenReturn(true, true, true, false);
+		when(statementResult.next()).thenReturn(actorRecord, relationshipRecord);
+		when(actorRecord.get("type")).thenReturn(Values.value("actor"));
+		when(actorRecord.get("actorId")).thenReturn(Values.value("nm0"));
+		when(actorRecord.get("movieId")).thenReturn(Values.NULL);
+		when(actorRecord.get("name")).thenReturn(Values.value("Bacon, Kevin"));
+		when(relationshipRecord.get("type")).thenReturn(Values.value("actedIn"));
+		when(relationshipRecord.get("actorId")).thenReturn(Values.value("nm0"));
+		when(relationshipRecord.get("movieId")).thenReturn(Values.value("tt0"));
+		when(relationshipRecord.get("name")).thenReturn(Values.NULL);
+	}
+
+	/**
+	 * This test verifies that rows are streamed as newline-delimited JSON with chunked encoding.
+	 *
+	 * @throws IOException If there's an issue with input or output.
+	 */
+	@Test
+	public void testExportHandlerNdjson() throws IOException {
+		stubRows();
+		when(httpExchange.getRequestURI()).thenReturn(URI.create("/api/v1/export"));
+
+		ExportHandler handler = new ExportHandler(driver);
+		handler.handle(httpExchange);
+
+		verify(httpExchange).sendResponseHeaders(200, 0);
+		String[] lines = new String(body.toByteArray(), StandardCharsets.UTF_8).split("\n");
+		assertEquals(2, lines.length);
+		assertTrue(lines[0].contains("\"name\":\"Bacon, Kevin\""));
+		assertFalse(lines[0].contains("movieId"));
+		assertTrue(lines[1].contains("\"type\":\"actedIn\""));
+		assertTrue(lines[1].contains("\"movieId\":\"tt0\""));
+	}
+
+	/**
+	 * This test verifies the CSV format, including quoting.
+	 *
+	 * @throws IOException If there's an issue with input or output.
+	 */
+	@Test
+	public void testExportHandlerCsv() throws IOException {
+		stubRows();
+		when(httpExchange.getRequestURI()).thenReturn(URI.create("/api/v1/export?format=csv"));
+
+		ExportHandler handler = new ExportHandler(driver);
+		handler.handle(httpExchange);
+
+		verify(httpExchange).sendResponseHeaders(200, 0);
+		assertEquals(ExportHandler.CSV_HEADER + "actor,nm0,,\"Bacon, Kevin\"\nactedIn,nm0,tt0,\n",
+				new String(body.toByteArray(), StandardCharsets.UTF_8));
+		assertEquals("\"say \"\"hi\"\"\"", ExportHandler.csvField("say \"hi\""));
+	}
+
+	/**
+	 * This test verifies that a query failure before streaming starts is reported as a 500.
+	 *
+	 * @throws IOException If there's an issue with input or output.
+	 */
+	@Test
+	public void testExportHandlerInternalError() throws IOException {
+		when(session.run(anyString())).thenThrow(new RuntimeException("Database error"));
+		when(httpExchange.getRequestURI()).thenReturn(URI.create("/api/v1/export"));
+
+		ExportHandler handler = new ExportHandler(driver);
+		handler.handle(httpExchange);
+
+		verify(httpExchange).sendResponseHeaders(eq(500), anyLong());
+	}
+
+	/**
+	 * This test verifies that a failure after streaming started ends the output with an error row and propagates, so
+	 * the server aborts the response instead of completing it.
+	 */
+	@Test
+	public void testExportHandlerAbortedMidStream() {
+		stubRows();
+		when(statementResult.hasNext()).thenReturn(true, true).thenThrow(new RuntimeException("Connection lost"));
+		when(httpExchange.getRequestURI()).thenReturn(URI.create("/api/v1/export"));
+
+		ExportHandler handler = new ExportHandler(driver);
+		try {
+			handler.handle(httpExchange);
+			fail("Expected the export to be aborted");
+		} catch (IOException e) {
+			assertTrue(e.getMessage().startsWith("Export aborted after 1 rows."));
+		}
+
+		String[] lines = new String(body.toByteArray(), StandardCharsets.UTF_8).split("\n");
+		assertEquals(2, lines.length);
+		assertTrue(lines[0].contains("\"name\":\"Bacon, Kevin\""));
+		assertEquals("{\"type\":\"error\",\"name\":\"Export aborted after 1 rows.\"}", lines[1]);
+	}
+
+	/**
+	 * This test verifies the case where the format is not supported.
+	 *
+	 * @throws IOException If there's an issue with input or output.
+	 */
+	@Test
+	public void testExportHandlerBadFormat() throws IOException {
+		when(httpExchange.getRequestURI()).thenReturn(URI.create("/api/v1/export?format=xml"));
+
+		ExportHandler handler = new ExportHandler(driver);
+		handler.handle(httpExchange);
+
+		verify(httpExchange).sendResponseHeaders(eq(400), anyLong());
+		verify(driver, never()).session(any(AccessMode.class));
+	}
+}
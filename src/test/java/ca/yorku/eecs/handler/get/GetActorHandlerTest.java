@@ -1,9 +1,14 @@
 package ca.yorku.eecs.handler.get;
 
+import ca.yorku.eecs.encoding.JsonEncoder;
+import ca.yorku.eecs.encoding.ResponseEncoder;
+import ca.yorku.eecs.versioning.EntityVersions;
+import com.sun.net.httpserver.Headers;
 import com.sun.net.httpserver.HttpExchange;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.neo4j.driver.v1.*;
@@ -11,7 +16,11 @@ import org.neo4j.driver.v1.*;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.net.URI;
+import java.util.Collections;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
 import static org.mockito.Mockito.*;
 
 /**
@@ -70,7 +79,7 @@ public class GetActorHandlerTest {
 	public void setUp() throws IOException {
 		when(httpExchange.getRequestURI()).thenReturn(URI.create("/api/v1/getActor?actorId=123"));
 		when(httpExchange.getResponseBody()).thenReturn(outputStream);
-		when(driver.session()).thenReturn(session);
+		when(driver.session(AccessMode.READ)).thenReturn(session);
 		when(session.run(anyString(), any(Value.class))).thenReturn(statementResult);
 	}
 
@@ -122,4 +131,100 @@ public class GetActorHandlerTest {
 		verify(outputStream).write(any(byte[].class));
 		verify(outputStream).close();
 	}
+
+	/**
+	 * This test verifies that the actor is encoded as CBOR when the client accepts it.
+	 *
+	 * @throws IOException If there's an issue with input or output.
+	 */
+	@Test
+	public void testGetActorHandlerCbor() throws IOException {
+		Headers requestHeaders = new Headers();
+		requestHeaders.add("Accept", "application/json;q=0.5, application/cbor");
+		Headers responseHeaders = new Headers();
+		when(httpExchange.getRequestHeaders()).thenReturn(requestHeaders);
+		when(httpExchange.getResponseHeaders()).thenReturn(responseHeaders);
+		when(statementResult.hasNext()).thenReturn(true);
+		when(statementResult.single()).thenReturn(record);
+		when(record.get("name")).thenReturn(Values.value("Kevin Bacon"));
+		when(record.get("actorId")).thenReturn(Values.value("123"));
+		when(record.get("movies")).thenReturn(Values.value(Collections.singletonList("tt0")));
+
+		GetActorHandler handler = new GetActorHandler(driver);
+		handler.handle(httpExchange);
+
+		verify(httpExchange).sendResponseHeaders(eq(200), anyLong());
+		assertEquals(ResponseEncoder.CBOR, responseHeaders.getFirst("Content-Type"));
+		ArgumentCaptor<byte[]> body = ArgumentCaptor.forClass(byte[].class);
+		verify(outputStream).write(body.capture());
+		// A map of three pairs, the first key being the four-character text "name"
+		assertEquals((byte) 0xA3, body.getValue()[0]);
+		assertEquals((byte) 0x64, body.getValue()[1]);
+		verify(outputStream).close();
+	}
+
+	/**
+	 * This test verifies that a current If-None-Match is answered with 304 without opening a session, and that a
+	 * write to the actor makes the tag stale.
+	 *
+	 * @throws IOException If there's an issue with input or output.
+	 */
+	@Test
+	public void testGetActorHandlerNotModified() throws IOException {
+		EntityVersions versions = new EntityVersions();
+		String etag = versions.actorTag("123", new JsonEncoder().getContentType());
+		Headers requestHeaders = new Headers();
+		requestHeaders.add("If-None-Match", etag);
+		Headers responseHeaders = new Headers();
+		when(httpExchange.getRequestHeaders()).thenReturn(requestHeaders);
+		when(httpExchange.getResponseHeaders()).thenReturn(responseHeaders);
+
+		GetActorHandler handler = new GetActorHandler(driver, versions, null);
+		handler.handle(httpExchange);
+
+		verify(httpExchange).sendResponseHeaders(304, -1);
+		verify(driver, never()).session(any(AccessMode.class));
+		assertEquals(etag, responseHeaders.getFirst("ETag"));
+		verify(outputStream).close();
+
+		// Adding a relationship bumps the version, so the same tag now gets the full response, read once caught up to it
+		versions.bumpActor("123", "neo4j:bookmark:v1:tx7");
+		when(driver.session(AccessMode.READ, Collections.singletonList("neo4j:bookmark:v1:tx7"))).thenReturn(session);
+		when(statementResult.hasNext()).thenReturn(true);
+		when(statementResult.single()).thenReturn(record);
+		when(record.get("name")).thenReturn(Values.value("Kevin Bacon"));
+		when(record.get("actorId")).thenReturn(Values.value("123"));
+		when(record.get("movies")).thenReturn(Values.value(Collections.singletonList("tt0")));
+
+		handler.handle(httpExchange);
+
+		verify(httpExchange).sendResponseHeaders(eq(200), anyLong());
+		verify(driver).session(AccessMode.READ, Collections.singletonList("neo4j:bookmark:v1:tx7"));
+		verify(driver, never()).session(AccessMode.WRITE);
+		assertNotEquals(etag, responseHeaders.getFirst("ETag"));
+	}
+
+	/**
+	 * This test verifies that If-None-Match: * gets a 404 for a missing actor and a 304 only once the actor is found.
+	 *
+	 * @throws IOException If there's an issue with input or output.
+	 */
+	@Test
+	public void testGetActorHandlerWildcardIfNoneMatch() throws IOException {
+		Headers requestHeaders = new Headers();
+		requestHeaders.add("If-None-Match", "*");
+		Headers responseHeaders = new Headers();
+		when(httpExchange.getRequestHeaders()).thenReturn(requestHeaders);
+		when(httpExchange.getResponseHeaders()).thenReturn(responseHeaders);
+		GetActorHandler handler = new GetActorHandler(driver, new EntityVersions(), null);
+
+		when(statementResult.hasNext()).thenReturn(false);
+		handler.handle(httpExchange);
+		verify(httpExchange).sendResponseHeaders(eq(404), anyLong());
+
+		when(statementResult.hasNext()).thenReturn(true);
+		handler.handle(httpExchange);
+		verify(httpExchange).sendResponseHeaders(304, -1);
+		assertNotNull(responseHeaders.getFirst("ETag"));
+	}
 }
@@ -70,7 +70,7 @@ public class GetMovieHandlerTest {
 	public void setUp() throws IOException {
 		when(httpExchange.getRequestURI()).thenReturn(URI.create("/api/v1/getMovie?movieId=123"));
 		when(httpExchange.getResponseBody()).thenReturn(outputStream);
-		when(driver.session()).thenReturn(session);
+		when(driver.session(AccessMode.READ)).thenReturn(session);
 		when(session.run(anyString(), any(Value.class))).thenReturn(statementResult);
 	}
 
@@ -1,6 +1,7 @@
 package ca.yorku.eecs.handler.get;
 
 import com.sun.net.httpserver.HttpExchange;
+import ca.yorku.eecs.graph.ActorMovieGraph;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -70,7 +71,7 @@ public class HasRelationshipHandlerTest {
 	public void setUp() throws IOException {
 		when(httpExchange.getRequestURI()).thenReturn(URI.create("/api/v1/hasRelationship?actorId=123&movieId=456"));
 		when(httpExchange.getResponseBody()).thenReturn(outputStream);
-		when(driver.session()).thenReturn(session);
+		when(driver.session(AccessMode.READ)).thenReturn(session);
 		when(session.run(anyString(), any(Value.class))).thenReturn(statementResult);
 	}
 
@@ -121,4 +122,29 @@ public class HasRelationshipHandlerTest {
 		verify(outputStream).write(any(byte[].class));
 		verify(outputStream).close();
 	}
+
+	/**
+	 * This test verifies that once the in-memory graph is loaded, its edge index answers without opening a session.
+	 *
+	 * @throws IOException If there's an issue with input or output.
+	 */
+	@Test
+	public void testHasRelationshipHandlerFromGraph() throws IOException {
+		ActorMovieGraph graph = new ActorMovieGraph();
+		graph.addActor("123", "Actor");
+		graph.addMovie("456", "Movie");
+		graph.addRelationship("123", "456");
+		Driver loader = mock(Driver.class);
+		Session loaderSession = mock(Session.class);
+		when(loader.session(AccessMode.READ)).thenReturn(loaderSession);
+		when(loaderSession.run(anyString())).thenReturn(mock(StatementResult.class));
+		graph.load(loader);
+
+		HasRelationshipHandler handler = new HasRelationshipHandler(driver, null, graph);
+		handler.handle(httpExchange);
+
+		verify(httpExchange).sendResponseHeaders(eq(200), anyLong());
+		verify(outputStream).close();
+		verify(driver, never()).session(any(AccessMode.class));
+	}
 }
@@ -0,0 +1,172 @@
+package ca.yorku.eecs.handler.get;
+
+import ca.yorku.eecs.graph.ActorMovieGraph;
+import ca.yorku.eecs.graph.CoStarRecommender;
+import com.sun.net.httpserver.HttpExchange;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.neo4j.driver.v1.AccessMode;
+import org.neo4j.driver.v1.Driver;
+import org.neo4j.driver.v1.Session;
+import org.neo4j.driver.v1.StatementResult;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * This class is responsible for testing the RecommendCoStarsHandler.
+ * It checks for different scenarios using Mockito to mock dependencies.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class RecommendCoStarsHandlerTest {
+
+	/**
+	 * Mock of the HttpExchange class. This is the argument that will be passed to the handle method
+	 * of RecommendCoStarsHandler.
+	 */
+	@Mock
+	private HttpExchange httpExchange;
+
+	/**
+	 * Mock of the OutputStream class. This is used to mock the output stream of the HttpExchange.
+	 */
+	@Mock
+	private OutputStream outputStream;
+
+	/**
+	 * Mock of the Driver class. This is used to load the graph from an empty database.
+	 */
+	@Mock
+	private Driver driver;
+
+	/**
+	 * Mock of the Session class. This is used to mock the database session.
+	 */
+	@Mock
+	private Session session;
+
+	/**
+	 * Mock of the StatementResult class. This is used to mock the result of the load queries.
+	 */
+	@Mock
+	private StatementResult statementResult;
+
+	/**
+	 * A small graph: nm0 and nm1 share tt0, nm1 and nm2 share tt1.
+	 */
+	private ActorMovieGraph graph;
+
+	/**
+	 * This method is called before each test. It sets up the mocks and the graph.
+	 */
+	@Before
+	public void setUp() {
+		when(httpExchange.getResponseBody()).thenReturn(outputStream);
+		graph = new ActorMovieGraph();
+		graph.addActor("nm0", "Zero");
+		graph.addActor("nm1", "One");
+		graph.addActor("nm2", "Two");
+		graph.addMovie("tt0", "Movie Zero");
+		graph.addMovie("tt1", "Movie One");
+		graph.addRelationship("nm0", "tt0");
+		graph.addRelationship("nm1", "tt0");
+		graph.addRelationship("nm1", "tt1");
+		graph.addRelationship("nm2", "tt1");
+	}
+
+	/**
+	 * Loading from an empty database marks the graph as loaded and keeps the actors above.
+	 */
+	private void loadGraph() {
+		when(driver.session(AccessMode.READ)).thenReturn(session);
+		when(session.run(anyString())).thenReturn(statementResult);
+		graph.load(driver);
+	}
+
+	/**
+	 * This test verifies that co-stars and two-hop actors are returned for a known actor.
+	 *
+	 * @throws IOException If there's an issue with input or output.
+	 */
+	@Test
+	public void testRecommendCoStarsHandlerSuccess() throws IOException {
+		loadGraph();
+		when(httpExchange.getRequestURI()).thenReturn(URI.create("/api/v1/recommendCoStars?actorId=nm0&k=5"));
+
+		RecommendCoStarsHandler handler = new RecommendCoStarsHandler(new CoStarRecommender(graph, 10, 10));
+		handler.handle(httpExchange);
+
+		verify(httpExchange).sendResponseHeaders(eq(200), anyLong());
+		ArgumentCaptor<byte[]> body = ArgumentCaptor.forClass(byte[].class);
+		verify(outputStream).write(body.capture());
+		String response = new String(body.getValue());
+		assertTrue(response.contains("\"coStars\":[{"));
+		assertTrue(response.contains("\"actorId\":\"nm1\""));
+		assertTrue(response.contains("\"sharedMovies\":1"));
+		assertTrue(response.contains("\"actorId\":\"nm2\""));
+		assertTrue(response.contains("\"commonCoStars\":1"));
+		verify(outputStream).close();
+	}
+
+	/**
+	 * This test verifies the case where the actor is not in the graph.
+	 *
+	 * @throws IOException If there's an issue with input or output.
+	 */
+	@Test
+	public void testRecommendCoStarsHandlerNotFound() throws IOException {
+		loadGraph();
+		when(httpExchange.getRequestURI()).thenReturn(URI.create("/api/v1/recommendCoStars?actorId=nm9"));
+
+		RecommendCoStarsHandler handler = new RecommendCoStarsHandler(new CoStarRecommender(graph, 10, 10));
+		handler.handle(httpExchange);
+
+		verify(httpExchange).sendResponseHeaders(eq(404), anyLong());
+		verify(outputStream).close();
+	}
+
+	/**
+	 * This test verifies the case where the graph has not been loaded yet.
+	 *
+	 * @throws IOException If there's an issue with input or output.
+	 */
+	@Test
+	public void testRecommendCoStarsHandlerNotLoaded() throws IOException {
+		when(httpExchange.getRequestURI()).thenReturn(URI.create("/api/v1/recommendCoStars?actorId=nm0"));
+
+		RecommendCoStarsHandler handler = new RecommendCoStarsHandler(new CoStarRecommender(graph, 10, 10));
+		handler.handle(httpExchange);
+
+		verify(httpExchange).sendResponseHeaders(eq(503), anyLong());
+		verify(outputStream).close();
+	}
+
+	/**
+	 * This test verifies the cases where actorId is missing or k is invalid.
+	 *
+	 * @throws IOException If there's an issue with input or output.
+	 */
+	@Test
+	public void testRecommendCoStarsHandlerBadRequest() throws IOException {
+		when(httpExchange.getRequestURI()).thenReturn(
+				URI.create("/api/v1/recommendCoStars"),
+				URI.create("/api/v1/recommendCoStars?actorId=nm0&k=11"),
+				URI.create("/api/v1/recommendCoStars?actorId=nm0&k=abc"));
+
+		RecommendCoStarsHandler handler = new RecommendCoStarsHandler(new CoStarRecommender(graph, 10, 10));
+		handler.handle(httpExchange);
+		handler.handle(httpExchange);
+		handler.handle(httpExchange);
+
+		verify(httpExchange, times(3)).sendResponseHeaders(eq(400), anyLong());
+		verify(outputStream, times(3)).close();
+	}
+}
@@ -0,0 +1,137 @@
+package ca.yorku.eecs.handler.get;
+
+import ca.yorku.eecs.graph.ActorMovieGraph;
+import ca.yorku.eecs.search.SearchIndex;
+import com.sun.net.httpserver.HttpExchange;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * This class is responsible for testing the SearchHandler.
+ * It checks for different scenarios using Mockito to mock dependencies.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class SearchHandlerTest {
+
+	/**
+	 * Mock of the HttpExchange class. This is the argument that will be passed to the handle method
+	 * of SearchHandler.
+	 */
+	@Mock
+	private HttpExchange httpExchange;
+
+	/**
+	 * Mock of the OutputStream class. This is used to mock the output stream of the HttpExchange.
+	 */
+	@Mock
+	private OutputStream outputStream;
+
+	/**
+	 * An index over one actor and one movie.
+	 */
+	private SearchIndex index;
+
+	/**
+	 * This method is called before each test. It sets up the mocks and the index.
+	 */
+	@Before
+	public void setUp() {
+		when(httpExchange.getResponseBody()).thenReturn(outputStream);
+		ActorMovieGraph graph = new ActorMovieGraph();
+		graph.addActor("nm0", "Kevin Bacon");
+		graph.addMovie("tt0", "Kevin's Movie");
+		index = new SearchIndex();
+		index.load(graph);
+	}
+
+	/**
+	 * This test verifies that matching actors and movies are returned.
+	 *
+	 * @throws IOException If there's an issue with input or output.
+	 */
+	@Test
+	public void testSearchHandlerSuccess() throws IOException {
+		when(httpExchange.getRequestURI()).thenReturn(URI.create("/api/v1/search?prefix=kev&limit=5"));
+
+		SearchHandler handler = new SearchHandler(index);
+		handler.handle(httpExchange);
+
+		verify(httpExchange).sendResponseHeaders(eq(200), anyLong());
+		ArgumentCaptor<byte[]> body = ArgumentCaptor.forClass(byte[].class);
+		verify(outputStream).write(body.capture());
+		String response = new String(body.getValue());
+		assertTrue(response.contains("\"actorId\":\"nm0\""));
+		assertTrue(response.contains("\"movieId\":\"tt0\""));
+		verify(outputStream).close();
+	}
+
+	/**
+	 * This test verifies that the type parameter restricts the search.
+	 *
+	 * @throws IOException If there's an issue with input or output.
+	 */
+	@Test
+	public void testSearchHandlerType() throws IOException {
+		when(httpExchange.getRequestURI()).thenReturn(URI.create("/api/v1/search?prefix=kev&type=movie"));
+
+		SearchHandler handler = new SearchHandler(index);
+		handler.handle(httpExchange);
+
+		verify(httpExchange).sendResponseHeaders(eq(200), anyLong());
+		ArgumentCaptor<byte[]> body = ArgumentCaptor.forClass(byte[].class);
+		verify(outputStream).write(body.capture());
+		String response = new String(body.getValue());
+		assertFalse(response.contains("\"actors\""));
+		assertTrue(response.contains("\"movieId\":\"tt0\""));
+		verify(outputStream).close();
+	}
+
+	/**
+	 * This test verifies the case where the index has not been built yet.
+	 *
+	 * @throws IOException If there's an issue with input or output.
+	 */
+	@Test
+	public void testSearchHandlerNotLoaded() throws IOException {
+		when(httpExchange.getRequestURI()).thenReturn(URI.create("/api/v1/search?prefix=kev"));
+
+		SearchHandler handler = new SearchHandler(new SearchIndex());
+		handler.handle(httpExchange);
+
+		verify(httpExchange).sendResponseHeaders(eq(503), anyLong());
+		verify(outputStream).close();
+	}
+
+	/**
+	 * This test verifies the cases where prefix is missing, or type or limit are invalid.
+	 *
+	 * @throws IOException If there's an issue with input or output.
+	 */
+	@Test
+	public void testSearchHandlerBadRequest() throws IOException {
+		when(httpExchange.getRequestURI()).thenReturn(
+				URI.create("/api/v1/search"),
+				URI.create("/api/v1/search?prefix=kev&type=person"),
+				URI.create("/api/v1/search?prefix=kev&limit=0"),
+				URI.create("/api/v1/search?prefix=kev&limit=abc"));
+
+		SearchHandler handler = new SearchHandler(index);
+		for (int i = 0; i < 4; i++) {
+			handler.handle(httpExchange);
+		}
+
+		verify(httpExchange, times(4)).sendResponseHeaders(eq(400), anyLong());
+		verify(outputStream, times(4)).close();
+	}
+}
@@ -0,0 +1,118 @@
+package ca.yorku.eecs.handler.get;
+
+import ca.yorku.eecs.graph.ActorMovieGraph;
+import ca.yorku.eecs.graph.ClosenessCentralityJob;
+import com.sun.net.httpserver.HttpExchange;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * This class is responsible for testing the TopCentersHandler.
+ * It checks for different scenarios using Mockito to mock dependencies.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class TopCentersHandlerTest {
+
+	/**
+	 * Mock of the HttpExchange class. This is the argument that will be passed to the handle method
+	 * of TopCentersHandler.
+	 */
+	@Mock
+	private HttpExchange httpExchange;
+
+	/**
+	 * Mock of the OutputStream class. This is used to mock the output stream of the HttpExchange.
+	 */
+	@Mock
+	private OutputStream outputStream;
+
+	/**
+	 * The job over a small graph: nm1 co-stars with both nm0 and nm2.
+	 */
+	private ClosenessCentralityJob job;
+
+	/**
+	 * This method is called before each test. It sets up the mocks and the job.
+	 */
+	@Before
+	public void setUp() {
+		when(httpExchange.getResponseBody()).thenReturn(outputStream);
+		ActorMovieGraph graph = new ActorMovieGraph();
+		graph.addActor("nm0", "Zero");
+		graph.addActor("nm1", "One");
+		graph.addActor("nm2", "Two");
+		graph.addMovie("tt0", "Movie Zero");
+		graph.addMovie("tt1", "Movie One");
+		graph.addRelationship("nm0", "tt0");
+		graph.addRelationship("nm1", "tt0");
+		graph.addRelationship("nm1", "tt1");
+		graph.addRelationship("nm2", "tt1");
+		job = new ClosenessCentralityJob(graph, ForkJoinPool.commonPool(), 0, 5);
+	}
+
+	/**
+	 * This test verifies that the top centers are returned once the ranking exists.
+	 *
+	 * @throws IOException If there's an issue with input or output.
+	 */
+	@Test
+	public void testTopCentersHandlerSuccess() throws IOException {
+		job.compute();
+		when(httpExchange.getRequestURI()).thenReturn(URI.create("/api/v1/topCenters?k=1"));
+
+		TopCentersHandler handler = new TopCentersHandler(job);
+		handler.handle(httpExchange);
+
+		verify(httpExchange).sendResponseHeaders(eq(200), anyLong());
+		ArgumentCaptor<byte[]> body = ArgumentCaptor.forClass(byte[].class);
+		verify(outputStream).write(body.capture());
+		String response = new String(body.getValue());
+		assertTrue(response.contains("\"actorId\":\"nm1\""));
+		assertFalse(response.contains("\"actorId\":\"nm0\""));
+		verify(outputStream).close();
+	}
+
+	/**
+	 * This test verifies the case where the ranking has not been computed yet.
+	 *
+	 * @throws IOException If there's an issue with input or output.
+	 */
+	@Test
+	public void testTopCentersHandlerNotReady() throws IOException {
+		when(httpExchange.getRequestURI()).thenReturn(URI.create("/api/v1/topCenters?k=3"));
+
+		TopCentersHandler handler = new TopCentersHandler(job);
+		handler.handle(httpExchange);
+
+		verify(httpExchange).sendResponseHeaders(eq(503), anyLong());
+		verify(outputStream).close();
+	}
+
+	/**
+	 * This test verifies the case where k is out of range.
+	 *
+	 * @throws IOException If there's an issue with input or output.
+	 */
+	@Test
+	public void testTopCentersHandlerBadK() throws IOException {
+		when(httpExchange.getRequestURI()).thenReturn(URI.create("/api/v1/topCenters?k=500"));
+
+		TopCentersHandler handler = new TopCentersHandler(job);
+		handler.handle(httpExchange);
+
+		verify(httpExchange).sendResponseHeaders(eq(400), anyLong());
+		verify(outputStream).close();
+	}
+}
@@ -69,8 +69,8 @@ public class AddActorHandlerTest {
 	public void setUp() throws IOException {
 		when(httpExchange.getRequestBody()).thenReturn(new ByteArrayInputStream("{\"name\": \"John Doe\", \"actorId\": \"123\"}".getBytes()));
 		when(httpExchange.getResponseBody()).thenReturn(outputStream);
-		when(driver.session()).thenReturn(session);
-		when(session.beginTransaction()).thenReturn(transaction);
+		when(driver.session(AccessMode.WRITE)).thenReturn(session);
+		when(session.writeTransaction(any())).thenAnswer(invocation -> invocation.<TransactionWork<?>>getArgument(0).execute(transaction));
 		when(transaction.run(anyString(), any(Value.class))).thenReturn(statementResult);
 	}
 
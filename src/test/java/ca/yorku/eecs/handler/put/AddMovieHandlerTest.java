@@ -68,8 +68,8 @@ public class AddMovieHandlerTest {
 	public void setUp() throws IOException {
 		when(httpExchange.getRequestBody()).thenReturn(new ByteArrayInputStream("{\"name\": \"John Doe\", \"movieId\": \"123\"}".getBytes()));
 		when(httpExchange.getResponseBody()).thenReturn(outputStream);
-		when(driver.session()).thenReturn(session);
-		when(session.beginTransaction()).thenReturn(transaction);
+		when(driver.session(AccessMode.WRITE)).thenReturn(session);
+		when(session.writeTransaction(any())).thenAnswer(invocation -> invocation.<TransactionWork<?>>getArgument(0).execute(transaction));
 		when(transaction.run(anyString(), any(Value.class))).thenReturn(statementResult);
 	}
 
@@ -1,6 +1,9 @@
 package ca.yorku.eecs.handler.put;
 
+import ca.yorku.eecs.locking.StripedLocks;
+import ca.yorku.eecs.versioning.EntityVersions;
 import com.sun.net.httpserver.HttpExchange;
+import ca.yorku.eecs.graph.ActorMovieGraph;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -11,7 +14,10 @@ import org.neo4j.driver.v1.*;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.*;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -45,8 +51,8 @@ public class AddRelationshipHandlerTest {
 	public void setUp() throws IOException {
 		when(httpExchange.getRequestBody()).thenReturn(new ByteArrayInputStream("{\"actorId\": \"123\", \"movieId\": \"456\"}".getBytes()));
 		when(httpExchange.getResponseBody()).thenReturn(outputStream);
-		when(driver.session()).thenReturn(session);
-		when(session.beginTransaction()).thenReturn(transaction);
+		when(driver.session(AccessMode.WRITE)).thenReturn(session);
+		when(session.writeTransaction(any())).thenAnswer(invocation -> invocation.<TransactionWork<?>>getArgument(0).execute(transaction));
 	}
 
 	@Test
@@ -78,4 +84,113 @@ public class AddRelationshipHandlerTest {
 		verify(outputStream).close();
 		verify(transaction, never()).success();
 	}
+
+	@Test
+	public void testAddRelationshipHandlerBumpsVersions() throws IOException {
+		when(transaction.run(anyString(), any(Value.class))).thenReturn(actorResult, movieResult, relationResult);
+		when(actorResult.hasNext()).thenReturn(true);
+		when(movieResult.hasNext()).thenReturn(true);
+		when(relationResult.hasNext()).thenReturn(false);
+		EntityVersions versions = new EntityVersions();
+
+		AddRelationshipHandler handler = new AddRelationshipHandler(driver, null, versions, null, null);
+		handler.handle(httpExchange);
+
+		assertEquals(1, versions.actorVersion("123"));
+		assertEquals(1, versions.movieVersion("456"));
+		assertEquals(0, versions.actorVersion("456"));
+	}
+
+	@Test
+	public void testAddRelationshipHandlerRetriedTransactionReportsLastAttempt() throws IOException {
+		// The first attempt sees a missing movie, as a transaction aborted by a deadlock might; the retry succeeds
+		doAnswer(invocation -> {
+			TransactionWork<?> work = invocation.getArgument(0);
+			work.execute(transaction);
+			return work.execute(transaction);
+		}).when(session).writeTransaction(any());
+		when(transaction.run(anyString(), any(Value.class))).thenReturn(actorResult, movieResult, actorResult, movieResult, relationResult);
+		when(actorResult.hasNext()).thenReturn(true);
+		when(movieResult.hasNext()).thenReturn(false, true);
+		when(relationResult.hasNext()).thenReturn(false);
+		EntityVersions versions = new EntityVersions();
+		StripedLocks locks = new StripedLocks(16);
+
+		AddRelationshipHandler handler = new AddRelationshipHandler(driver, null, versions, locks, null);
+		handler.handle(httpExchange);
+
+		verify(httpExchange).sendResponseHeaders(eq(200), anyLong());
+		verify(transaction, times(1)).success();
+		assertEquals(1, versions.actorVersion("123"));
+	}
+
+	@Test
+	public void testAddRelationshipHandlerLocksBeforeSession() throws Exception {
+		when(transaction.run(anyString(), any(Value.class))).thenReturn(actorResult, movieResult, relationResult);
+		when(actorResult.hasNext()).thenReturn(true);
+		when(movieResult.hasNext()).thenReturn(true);
+		when(relationResult.hasNext()).thenReturn(false);
+		StripedLocks locks = new StripedLocks(16);
+		AddRelationshipHandler handler = new AddRelationshipHandler(driver, null, null, locks, null);
+
+		// A write waiting for the movie's lock must not hold a session meanwhile
+		Thread writer;
+		StripedLocks.Held held = locks.lockMovie("456");
+		try {
+			writer = new Thread(() -> {
+				try {
+					handler.handle(httpExchange);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+			writer.start();
+			writer.join(200);
+			assertTrue(writer.isAlive());
+			verify(driver, never()).session(any(AccessMode.class));
+		} finally {
+			held.close();
+		}
+		writer.join(5000);
+
+		verify(driver).session(AccessMode.WRITE);
+		verify(httpExchange).sendResponseHeaders(eq(200), anyLong());
+	}
+
+	@Test
+	public void testAddRelationshipHandlerExistingInGraph() throws IOException {
+		ActorMovieGraph graph = new ActorMovieGraph();
+		graph.addActor("123", "Actor");
+		graph.addMovie("456", "Movie");
+		graph.addRelationship("123", "456");
+		Driver loader = mock(Driver.class);
+		Session loaderSession = mock(Session.class);
+		when(loader.session(AccessMode.READ)).thenReturn(loaderSession);
+		when(loaderSession.run(anyString())).thenReturn(mock(StatementResult.class));
+		graph.load(loader);
+
+		AddRelationshipHandler handler = new AddRelationshipHandler(driver, null, null, null, graph);
+		handler.handle(httpExchange);
+
+		verify(httpExchange).sendResponseHeaders(eq(400), anyLong());
+		verify(outputStream).close();
+		verify(driver, never()).session(any(AccessMode.class));
+	}
+
+	@Test
+	public void testAddRelationshipHandlerNewInGraphRunsTransaction() throws IOException {
+		when(transaction.run(anyString(), any(Value.class))).thenReturn(actorResult, movieResult, relationResult);
+		when(actorResult.hasNext()).thenReturn(true);
+		when(movieResult.hasNext()).thenReturn(true);
+		when(relationResult.hasNext()).thenReturn(false);
+		ActorMovieGraph graph = new ActorMovieGraph();
+		graph.addActor("123", "Actor");
+		graph.addMovie("456", "Movie");
+
+		AddRelationshipHandler handler = new AddRelationshipHandler(driver, null, null, null, graph);
+		handler.handle(httpExchange);
+
+		verify(httpExchange).sendResponseHeaders(eq(200), anyLong());
+		verify(transaction, times(1)).success();
+	}
 }
@@ -0,0 +1,171 @@
+package ca.yorku.eecs.handler.put;
+
+import ca.yorku.eecs.locking.StripedLocks;
+import ca.yorku.eecs.versioning.EntityVersions;
+import com.sun.net.httpserver.HttpExchange;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.neo4j.driver.v1.*;
+import org.neo4j.driver.v1.exceptions.DatabaseException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BatchHandlerTest {
+
+	@Mock
+	private HttpExchange httpExchange;
+
+	@Mock
+	private Driver driver;
+
+	@Mock
+	private Session session;
+
+	@Mock
+	private Transaction transaction;
+
+	@Mock
+	private StatementResult existingActors;
+
+	@Mock
+	private StatementResult existingMovies;
+
+	@Mock
+	private StatementResult existingRelationships;
+
+	@Mock
+	private Record existingActor;
+
+	@Mock
+	private OutputStream outputStream;
+
+	@Before
+	public void setUp() {
+		when(httpExchange.getResponseBody()).thenReturn(outputStream);
+	}
+
+	private void stubSession() {
+		when(driver.session(AccessMode.WRITE)).thenReturn(session);
+		when(session.writeTransaction(any())).thenAnswer(invocation -> invocation.<TransactionWork<?>>getArgument(0).execute(transaction));
+	}
+
+	private void request(String body) {
+		when(httpExchange.getRequestBody()).thenReturn(new ByteArrayInputStream(body.getBytes()));
+	}
+
+	private JSONObject response() throws Exception {
+		ArgumentCaptor<byte[]> body = ArgumentCaptor.forClass(byte[].class);
+		verify(outputStream).write(body.capture());
+		return new JSONObject(new String(body.getValue()));
+	}
+
+	@Test
+	public void testBatchHandlerMixedOperations() throws Exception {
+		request("{\"operations\": ["
+				+ "{\"op\": \"addActor\", \"actorId\": \"nm1\", \"name\": \"A\"},"
+				+ "{\"op\": \"addMovie\", \"movieId\": \"tt1\", \"name\": \"M\"},"
+				+ "{\"op\": \"addRelationship\", \"actorId\": \"nm1\", \"movieId\": \"tt1\"},"
+				+ "{\"op\": \"addActor\", \"actorId\": \"nm2\", \"name\": \"B\"},"
+				+ "{\"op\": \"addRelationship\", \"actorId\": \"nm3\", \"movieId\": \"tt1\"},"
+				+ "{\"op\": \"addRelationship\", \"actorId\": \"nm1\", \"movieId\": \"tt1\"}]}");
+		stubSession();
+		when(transaction.run(eq(BatchHandler.FIND_ACTORS_QUERY), any(Value.class))).thenReturn(existingActors);
+		when(transaction.run(eq(BatchHandler.FIND_MOVIES_QUERY), any(Value.class))).thenReturn(existingMovies);
+		when(transaction.run(eq(BatchHandler.FIND_RELATIONSHIPS_QUERY), any(Value.class))).thenReturn(existingRelationships);
+		when(existingActors.list()).thenReturn(Collections.singletonList(existingActor));
+		when(existingActor.get("actorId")).thenReturn(Values.value("nm2"));
+		when(existingMovies.list()).thenReturn(Collections.emptyList());
+		when(existingRelationships.list()).thenReturn(Collections.emptyList());
+		EntityVersions versions = new EntityVersions();
+
+		BatchHandler handler = new BatchHandler(driver, null, versions, new StripedLocks(16), BatchHandler.DEFAULT_MAX_OPERATIONS);
+		handler.handle(httpExchange);
+
+		verify(httpExchange).sendResponseHeaders(eq(200), anyLong());
+		JSONArray results = response().getJSONArray("results");
+		assertEquals(6, results.length());
+		assertEquals(200, results.getJSONObject(0).getInt("status"));
+		assertEquals(200, results.getJSONObject(1).getInt("status"));
+		assertEquals(200, results.getJSONObject(2).getInt("status"));
+		assertEquals("Relationship added successfully.", results.getJSONObject(2).getString("message"));
+		assertEquals(400, results.getJSONObject(3).getInt("status"));
+		assertEquals(404, results.getJSONObject(4).getInt("status"));
+		assertEquals(400, results.getJSONObject(5).getInt("status"));
+
+		// One statement per kind, however many operations
+		verify(transaction, times(1)).run(eq(BatchHandler.CREATE_ACTORS_QUERY), any(Value.class));
+		verify(transaction, times(1)).run(eq(BatchHandler.CREATE_MOVIES_QUERY), any(Value.class));
+		verify(transaction, times(1)).run(eq(BatchHandler.CREATE_RELATIONSHIPS_QUERY), any(Value.class));
+		verify(transaction, times(1)).success();
+		verify(session, times(1)).writeTransaction(any());
+		assertEquals(2, versions.actorVersion("nm1"));
+		assertEquals(0, versions.actorVersion("nm2"));
+		assertEquals(2, versions.movieVersion("tt1"));
+	}
+
+	@Test
+	public void testBatchHandlerSkipsEmptyStatements() throws Exception {
+		request("{\"operations\": [{\"op\": \"addMovie\", \"movieId\": \"tt1\", \"name\": \"M\"}]}");
+		stubSession();
+		when(transaction.run(eq(BatchHandler.FIND_MOVIES_QUERY), any(Value.class))).thenReturn(existingMovies);
+		when(existingMovies.list()).thenReturn(Collections.emptyList());
+
+		BatchHandler handler = new BatchHandler(driver);
+		handler.handle(httpExchange);
+
+		verify(httpExchange).sendResponseHeaders(eq(200), anyLong());
+		verify(transaction, times(2)).run(anyString(), any(Value.class));
+		verify(transaction).run(eq(BatchHandler.CREATE_MOVIES_QUERY), any(Value.class));
+	}
+
+	@Test
+	public void testBatchHandlerInvalidOperation() throws IOException {
+		request("{\"operations\": [{\"op\": \"addActor\", \"actorId\": \"nm1\", \"name\": \"A\"}, {\"op\": \"deleteActor\"}]}");
+
+		BatchHandler handler = new BatchHandler(driver);
+		handler.handle(httpExchange);
+
+		verify(httpExchange).sendResponseHeaders(eq(400), anyLong());
+		verify(outputStream).close();
+		verifyZeroInteractions(driver);
+	}
+
+	@Test
+	public void testBatchHandlerTooManyOperations() throws IOException {
+		request("{\"operations\": [{\"op\": \"addActor\", \"actorId\": \"nm1\", \"name\": \"A\"}, {\"op\": \"addActor\", \"actorId\": \"nm2\", \"name\": \"B\"}]}");
+
+		BatchHandler handler = new BatchHandler(driver, null, null, null, 1);
+		handler.handle(httpExchange);
+
+		verify(httpExchange).sendResponseHeaders(eq(400), anyLong());
+		verifyZeroInteractions(driver);
+	}
+
+	@Test
+	public void testBatchHandlerDatabaseError() throws IOException {
+		request("{\"operations\": [{\"op\": \"addActor\", \"actorId\": \"nm1\", \"name\": \"A\"}]}");
+		stubSession();
+		when(transaction.run(anyString(), any(Value.class))).thenThrow(new DatabaseException("Neo.DatabaseError.General.UnknownError", "boom"));
+		EntityVersions versions = new EntityVersions();
+
+		BatchHandler handler = new BatchHandler(driver, null, versions, null, BatchHandler.DEFAULT_MAX_OPERATIONS);
+		handler.handle(httpExchange);
+
+		verify(httpExchange).sendResponseHeaders(eq(500), anyLong());
+		verify(outputStream).close();
+		assertEquals(0, versions.actorVersion("nm1"));
+	}
+}
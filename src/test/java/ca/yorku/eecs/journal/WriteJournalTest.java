@@ -0,0 +1,239 @@
+package ca.yorku.eecs.journal;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * This class tests the WriteJournal together with its JournalReader.
+ * It checks sequencing, durability, tailing, checkpoint resume and crash recovery.
+ */
+public class WriteJournalTest {
+
+	/**
+	 * Temporary directory holding the journal files.
+	 */
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * This test verifies that appended events get increasing sequence numbers and are read back in order.
+	 *
+	 * @throws Exception If the journal cannot be written or read.
+	 */
+	@Test
+	public void testAppendAndRead() throws Exception {
+		Path path = folder.getRoot().toPath().resolve("journal.log");
+		List<JournalEvent> seen = new ArrayList<>();
+
+		try (WriteJournal journal = new WriteJournal(path)) {
+			journal.addListener(seen::add);
+			assertEquals(1, journal.append(JournalEvent.addActor("nm1", "Actor One")));
+			assertEquals(2, journal.append(JournalEvent.addMovie("tt1", "Movie One")));
+			long last = journal.append(JournalEvent.addRelationship("nm1", "tt1"));
+			assertEquals(3, last);
+			assertTrue(journal.awaitDurable(last, 5000));
+		}
+
+		assertEquals(3, seen.size());
+
+		try (JournalReader reader = new JournalReader(path, 0)) {
+			List<JournalEvent> events = reader.poll(10);
+			assertEquals(3, events.size());
+			assertEquals(JournalEvent.Type.ADD_ACTOR, events.get(0).getType());
+			assertEquals("Actor One", events.get(0).getName());
+			assertEquals(JournalEvent.Type.ADD_RELATIONSHIP, events.get(2).getType());
+			assertEquals("tt1", events.get(2).getMovieId());
+			assertEquals(3, reader.getLastSequence());
+		}
+	}
+
+	/**
+	 * This test verifies that a reader tails new events and that a consumer can resume from its checkpoint.
+	 *
+	 * @throws Exception If the journal cannot be written or read.
+	 */
+	@Test
+	public void testTailAndResumeFromCheckpoint() throws Exception {
+		Path path = folder.getRoot().toPath().resolve("journal.log");
+		Path checkpoint = folder.getRoot().toPath().resolve("consumer.checkpoint");
+
+		try (WriteJournal journal = new WriteJournal(path);
+			 JournalReader reader = new JournalReader(path, JournalCheckpoint.load(checkpoint))) {
+			journal.append(JournalEvent.addActor("nm1", "Actor One"));
+			assertEquals(1, reader.poll(10, 5000).size());
+
+			journal.append(JournalEvent.addActor("nm2", "Actor Two"));
+			List<JournalEvent> events = reader.poll(10, 5000);
+			assertEquals(1, events.size());
+			assertEquals("nm2", events.get(0).getActorId());
+			JournalCheckpoint.store(checkpoint, reader.getLastSequence());
+
+			long last = journal.append(JournalEvent.addActor("nm3", "Actor Three"));
+			assertTrue(journal.awaitDurable(last, 5000));
+		}
+
+		assertEquals(2, JournalCheckpoint.load(checkpoint));
+		try (JournalReader reader = new JournalReader(path, JournalCheckpoint.load(checkpoint))) {
+			List<JournalEvent> events = reader.poll(10);
+			assertEquals(1, events.size());
+			assertEquals(3, events.get(0).getSequence());
+		}
+	}
+
+	/**
+	 * This test verifies that reopening a journal continues the sequence and drops a torn trailing record.
+	 *
+	 * @throws IOException If the journal cannot be written or read.
+	 */
+	@Test
+	public void testReopenAfterTornWrite() throws IOException {
+		Path path = folder.getRoot().toPath().resolve("journal.log");
+
+		try (WriteJournal journal = new WriteJournal(path)) {
+			journal.append(JournalEvent.addMovie("tt1", "Movie One"));
+		}
+		Files.write(path, "{\"seq\":2,\"ty".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+		try (WriteJournal journal = new WriteJournal(path)) {
+			assertEquals(1, journal.getLastSequence());
+			assertEquals(2, journal.append(JournalEvent.addMovie("tt2", "Movie Two")));
+		}
+
+		try (JournalReader reader = new JournalReader(path, 0)) {
+			List<JournalEvent> events = reader.poll(10);
+			assertEquals(2, events.size());
+			assertEquals("tt2", events.get(1).getMovieId());
+		}
+	}
+
+	/**
+	 * This test verifies that a record torn by a failed write, followed by the rewritten batch, is skipped on recovery
+	 * together with the repeated sequence numbers.
+	 *
+	 * @throws IOException If the journal cannot be written or read.
+	 */
+	@Test
+	public void testReopenAfterTornRetry() throws IOException {
+		Path path = folder.getRoot().toPath().resolve("journal.log");
+
+		try (WriteJournal journal = new WriteJournal(path)) {
+			journal.append(JournalEvent.addMovie("tt1", "Movie One"));
+			journal.append(JournalEvent.addMovie("tt2", "Movie Two"));
+		}
+		List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+		String torn = lines.get(0) + "\n" + lines.get(1).substring(0, 10) + lines.get(1) + "\n" + lines.get(1) + "\n";
+		Files.write(path, torn.getBytes(StandardCharsets.UTF_8));
+
+		try (WriteJournal journal = new WriteJournal(path)) {
+			assertEquals(2, journal.getLastSequence());
+			assertEquals(3, journal.append(JournalEvent.addMovie("tt3", "Movie Three")));
+		}
+
+		try (JournalReader reader = new JournalReader(path, 0)) {
+			List<JournalEvent> events = reader.poll(10);
+			assertEquals(3, events.size());
+			assertEquals("tt3", events.get(2).getMovieId());
+			assertEquals(1, reader.getSkipped());
+		}
+	}
+
+	/**
+	 * This test verifies that an unexpected error in the flusher fails waiting appenders at once, and that later
+	 * appends are still sequenced and delivered to the listeners.
+	 *
+	 * @throws Exception If the journal cannot be opened.
+	 */
+	@Test
+	public void testFlusherFailureFailsPendingAppends() throws Exception {
+		Path path = folder.getRoot().toPath().resolve("journal.log");
+		List<JournalEvent> seen = new ArrayList<>();
+
+		try (WriteJournal journal = new WriteJournal(path) {
+			@Override
+			void write(List<JournalEvent> batch) {
+				throw new IllegalStateException("broken encoder");
+			}
+		}) {
+			journal.addListener(seen::add);
+			long first = journal.append(JournalEvent.addActor("nm1", "Actor One"));
+
+			long start = System.nanoTime();
+			assertFalse(journal.awaitDurable(first, 10_000));
+			assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 5_000);
+
+			long second = journal.append(JournalEvent.addActor("nm2", "Actor Two"));
+			assertEquals(first + 1, second);
+			assertFalse(journal.awaitDurable(second, 10_000));
+			assertEquals(0, journal.getDurableSequence());
+		}
+		assertEquals(2, seen.size());
+		assertEquals(0, Files.size(path));
+	}
+
+	/**
+	 * This test verifies that a slow listener does not hold up the flusher, and that concurrent appenders still
+	 * deliver to listeners in sequence order.
+	 *
+	 * @throws Exception If the journal cannot be written.
+	 */
+	@Test
+	public void testListenersRunOutsideAppendLock() throws Exception {
+		Path path = folder.getRoot().toPath().resolve("journal.log");
+		CountDownLatch entered = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		List<Long> seen = new ArrayList<>();
+
+		try (WriteJournal journal = new WriteJournal(path)) {
+			journal.addListener(event -> {
+				if (event.getSequence() == 1) {
+					entered.countDown();
+					try {
+						release.await();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+				seen.add(event.getSequence());
+			});
+
+			Thread slow = new Thread(() -> journal.append(JournalEvent.addActor("nm0", "Actor Zero")));
+			slow.start();
+			assertTrue(entered.await(5, TimeUnit.SECONDS));
+			assertTrue(journal.awaitDurable(1, 5000));
+
+			List<Thread> appenders = new ArrayList<>();
+			for (int t = 0; t < 4; t++) {
+				Thread appender = new Thread(() -> {
+					for (int i = 0; i < 50; i++) {
+						journal.append(JournalEvent.addActor("nm" + i, "Actor"));
+					}
+				});
+				appenders.add(appender);
+				appender.start();
+			}
+			release.countDown();
+			slow.join();
+			for (Thread appender : appenders) {
+				appender.join();
+			}
+		}
+
+		assertEquals(201, seen.size());
+		for (int i = 0; i < seen.size(); i++) {
+			assertEquals(i + 1, (long) seen.get(i));
+		}
+	}
+}
@@ -0,0 +1,121 @@
+package ca.yorku.eecs.locking;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.*;
+
+/**
+ * This class tests that striped locks serialize writes to the same node and never deadlock on two-node writes.
+ */
+public class StripedLocksTest {
+
+	private final ExecutorService pool = Executors.newCachedThreadPool();
+
+	@After
+	public void tearDown() {
+		pool.shutdownNow();
+	}
+
+	/**
+	 * This test verifies that a second write to a locked actor waits until the first is done.
+	 *
+	 * @throws Exception If the waiting write fails.
+	 */
+	@Test
+	public void testSameActorIsSerialized() throws Exception {
+		StripedLocks locks = new StripedLocks(64);
+		Future<?> second;
+		StripedLocks.Held held = locks.lockActor("nm1");
+		try {
+			second = pool.submit(() -> locks.lockActorAndMovie("nm1", "tt1").close());
+			try {
+				second.get(100, TimeUnit.MILLISECONDS);
+				fail("The second write should wait for the actor's lock.");
+			} catch (TimeoutException expected) {
+				// still waiting
+			}
+		} finally {
+			held.close();
+		}
+		second.get(1, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * This test verifies that writes locking the same actor and movie from many threads finish, whatever order the
+	 * threads would name them in.
+	 *
+	 * @throws Exception If a write fails.
+	 */
+	@Test
+	public void testTwoNodeWritesDoNotDeadlock() throws Exception {
+		StripedLocks locks = new StripedLocks(4);
+		CountDownLatch done = new CountDownLatch(8);
+		for (int t = 0; t < 8; t++) {
+			int thread = t;
+			pool.submit(() -> {
+				for (int i = 0; i < 1000; i++) {
+					String actorId = "nm" + ((i + thread) % 5);
+					String movieId = "tt" + (i % 7);
+					StripedLocks.Held held = locks.lockActorAndMovie(actorId, movieId);
+					try {
+						Thread.yield();
+					} finally {
+						held.close();
+					}
+				}
+				done.countDown();
+			});
+		}
+		assertTrue(done.await(10, TimeUnit.SECONDS));
+	}
+
+	/**
+	 * This test verifies that a batch's locks cover every id it names, and that batches overlapping with each other and
+	 * with single writes all finish.
+	 *
+	 * @throws Exception If a write fails.
+	 */
+	@Test
+	public void testBatchLocks() throws Exception {
+		StripedLocks locks = new StripedLocks(8);
+		Future<?> single;
+		StripedLocks.Held batch = locks.lockAll(Arrays.asList("nm1", "nm2", "nm1"), Collections.singletonList("tt1"));
+		try {
+			single = pool.submit(() -> locks.lockMovie("tt1").close());
+			try {
+				single.get(100, TimeUnit.MILLISECONDS);
+				fail("A write to a movie in the batch should wait for the batch.");
+			} catch (TimeoutException expected) {
+				// still waiting
+			}
+		} finally {
+			batch.close();
+		}
+		single.get(1, TimeUnit.SECONDS);
+
+		CountDownLatch done = new CountDownLatch(8);
+		for (int t = 0; t < 8; t++) {
+			int thread = t;
+			pool.submit(() -> {
+				for (int i = 0; i < 500; i++) {
+					StripedLocks.Held held = thread % 2 == 0
+							? locks.lockAll(Arrays.asList("nm" + (i % 5), "nm" + ((i + thread) % 3)), Arrays.asList("tt" + (i % 7), "tt" + thread))
+							: locks.lockActorAndMovie("nm" + (i % 5), "tt" + (i % 7));
+					held.close();
+				}
+				done.countDown();
+			});
+		}
+		assertTrue(done.await(10, TimeUnit.SECONDS));
+	}
+}
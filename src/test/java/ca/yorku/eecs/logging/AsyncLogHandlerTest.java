@@ -0,0 +1,117 @@
+package ca.yorku.eecs.logging;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import static org.junit.Assert.*;
+
+/**
+ * This class tests the AsyncLogHandler.
+ * It checks delivery order, the overflow policies and the source fix-up done on the calling thread.
+ */
+public class AsyncLogHandlerTest {
+
+	/**
+	 * A handler that collects records and can be blocked to simulate slow I/O.
+	 */
+	private static class CollectingHandler extends Handler {
+		private final List<LogRecord> records = new CopyOnWriteArrayList<>();
+		private final CountDownLatch release;
+
+		CollectingHandler(CountDownLatch release) {
+			this.release = release;
+		}
+
+		@Override
+		public void publish(LogRecord record) {
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			records.add(record);
+		}
+
+		@Override
+		public void flush() {
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+
+	/**
+	 * This test verifies that records reach the delegate in order with their source set.
+	 */
+	@Test
+	public void testRecordsDeliveredInOrder() {
+		CollectingHandler delegate = new CollectingHandler(new CountDownLatch(0));
+		AsyncLogHandler handler = new AsyncLogHandler(256, AsyncLogHandler.OverflowPolicy.DROP, delegate);
+
+		for (int i = 0; i < 200; i++) {
+			LogRecord record = new LogRecord(Level.INFO, "message " + i);
+			record.setLoggerName("ca.yorku.eecs.handler.get.GetActorHandler");
+			handler.publish(record);
+		}
+		handler.flush();
+		handler.close();
+
+		List<LogRecord> records = delegate.records;
+		assertEquals(0, handler.getDroppedCount());
+		assertEquals(200, records.size());
+		assertEquals("message 0", records.get(0).getMessage());
+		assertEquals("ca.yorku.eecs.handler.get.GetActorHandler", records.get(0).getSourceClassName());
+	}
+
+	/**
+	 * This test verifies that a full ring drops INFO records but still writes SEVERE ones under DROP_BELOW_WARNING.
+	 */
+	@Test
+	public void testOverflowPolicy() {
+		CountDownLatch release = new CountDownLatch(1);
+		CollectingHandler delegate = new CollectingHandler(release);
+		AsyncLogHandler handler = new AsyncLogHandler(4, AsyncLogHandler.OverflowPolicy.DROP_BELOW_WARNING, delegate);
+
+		// The drainer blocks on the first record, so the ring fills up
+		for (int i = 0; i < 100; i++) {
+			handler.publish(new LogRecord(Level.INFO, "info " + i));
+		}
+		assertTrue(handler.getDroppedCount() > 0);
+
+		// With the ring still full the SEVERE record is written by the caller, which then waits for the slow delegate
+		Thread severe = new Thread(() -> handler.publish(new LogRecord(Level.SEVERE, "severe")));
+		severe.start();
+		boolean queued = false;
+		try {
+			// If the drainer emptied the ring first, the record was simply queued and the thread has finished
+			while (severe.getState() != Thread.State.BLOCKED && severe.getState() != Thread.State.WAITING
+					&& severe.getState() != Thread.State.TERMINATED) {
+				Thread.sleep(1);
+			}
+			queued = severe.getState() == Thread.State.TERMINATED;
+			release.countDown();
+			severe.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		handler.flush();
+		handler.close();
+
+		boolean sawSevere = false;
+		boolean sawDropReport = false;
+		for (LogRecord record : delegate.records) {
+			sawSevere |= "severe".equals(record.getMessage());
+			sawDropReport |= record.getMessage().startsWith("Async logging dropped");
+		}
+		assertTrue(sawSevere);
+		assertTrue(sawDropReport);
+		assertEquals(queued ? 101 : 100, handler.getPublishedCount() + handler.getDroppedCount());
+	}
+}
@@ -0,0 +1,140 @@
+package ca.yorku.eecs.logging;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.FileHandler;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.logging.SimpleFormatter;
+import java.util.logging.StreamHandler;
+
+/**
+ * Measures request-thread throughput of the two INFO log calls every handler makes per request, with logging
+ * disabled, with synchronous JUL handlers, and with the AsyncLogHandler in front of the same handlers.
+ * <p>
+ * Each "request" simulates a little handler work between the two log calls. Run with:
+ * <pre>
+ * mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=ca.yorku.eecs.logging.AsyncLoggingBenchmark [-Dexec.args="threads seconds"]
+ * </pre>
+ * </p>
+ */
+public class AsyncLoggingBenchmark {
+
+	private static final Logger logger = Logger.getLogger("ca.yorku.eecs.benchmark");
+
+	public static void main(String[] args) throws Exception {
+		int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+		int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+		logger.setUseParentHandlers(false);
+
+		Path logFile = Files.createTempFile("async-logging-benchmark", ".log");
+		try {
+			System.out.printf("threads=%d, %d s per mode%n", threads, seconds);
+			System.out.printf("%-28s %15s %12s%n", "mode", "requests/s", "dropped");
+
+			// Warm up the JIT once before measuring
+			run(Level.OFF, null, threads, 1);
+
+			report("logging disabled", run(Level.OFF, null, threads, seconds), 0);
+
+			report("sync console (null sink)", run(Level.INFO, nullStreamHandler(), threads, seconds), 0);
+
+			FileHandler syncFile = fileHandler(logFile);
+			report("sync file", run(Level.INFO, syncFile, threads, seconds), 0);
+			syncFile.close();
+
+			AsyncLogHandler asyncConsole = new AsyncLogHandler(AsyncLogHandler.DEFAULT_CAPACITY,
+					AsyncLogHandler.OverflowPolicy.DROP, nullStreamHandler());
+			report("async console (null sink)", run(Level.INFO, asyncConsole, threads, seconds), asyncConsole.getDroppedCount());
+			asyncConsole.close();
+
+			AsyncLogHandler asyncFile = new AsyncLogHandler(AsyncLogHandler.DEFAULT_CAPACITY,
+					AsyncLogHandler.OverflowPolicy.DROP, fileHandler(logFile));
+			report("async file", run(Level.INFO, asyncFile, threads, seconds), asyncFile.getDroppedCount());
+			asyncFile.close();
+		} finally {
+			Files.deleteIfExists(logFile);
+		}
+	}
+
+	private static double run(Level level, Handler handler, int threads, int seconds) throws InterruptedException {
+		logger.setLevel(level);
+		for (Handler existing : logger.getHandlers()) {
+			logger.removeHandler(existing);
+		}
+		if (handler != null) {
+			logger.addHandler(handler);
+		}
+
+		LongAdder requests = new LongAdder();
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+		CountDownLatch done = new CountDownLatch(threads);
+		long start = System.nanoTime();
+		for (int t = 0; t < threads; t++) {
+			new Thread(() -> {
+				long sink = 0;
+				while (System.nanoTime() < deadline) {
+					logger.log(Level.INFO, "Received request to get actor details.");
+					sink += simulatedWork();
+					logger.info("Actor retrieved successfully");
+					requests.increment();
+				}
+				if (sink == 42) {
+					System.out.print("");
+				}
+				done.countDown();
+			}).start();
+		}
+		done.await();
+		double elapsed = (System.nanoTime() - start) / 1e9;
+		return requests.sum() / elapsed;
+	}
+
+	private static long simulatedWork() {
+		long x = System.nanoTime();
+		for (int i = 0; i < 200; i++) {
+			x ^= (x << 13);
+			x ^= (x >>> 7);
+			x ^= (x << 17);
+		}
+		return x;
+	}
+
+	private static void report(String mode, double throughput, long dropped) {
+		System.out.printf("%-28s %15.0f %12d%n", mode, throughput, dropped);
+	}
+
+	private static StreamHandler nullStreamHandler() {
+		StreamHandler handler = new StreamHandler(new OutputStream() {
+			@Override
+			public void write(int b) {
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) {
+			}
+		}, new SimpleFormatter()) {
+			@Override
+			public synchronized void publish(java.util.logging.LogRecord record) {
+				// ConsoleHandler flushes after every record
+				super.publish(record);
+				flush();
+			}
+		};
+		handler.setLevel(Level.ALL);
+		return handler;
+	}
+
+	private static FileHandler fileHandler(Path file) throws IOException {
+		FileHandler handler = new FileHandler(file.toString(), true);
+		handler.setFormatter(new SimpleFormatter());
+		return handler;
+	}
+}
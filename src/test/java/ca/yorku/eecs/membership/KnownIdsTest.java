@@ -0,0 +1,123 @@
+package ca.yorku.eecs.membership;
+
+import ca.yorku.eecs.handler.get.ComputeBaconNumberHandler;
+import ca.yorku.eecs.handler.get.GetActorHandler;
+import ca.yorku.eecs.handler.get.GetMovieHandler;
+import ca.yorku.eecs.handler.get.HasRelationshipHandler;
+import ca.yorku.eecs.journal.JournalEvent;
+import ca.yorku.eecs.warmup.SyntheticExchange;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.driver.v1.*;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * This class tests that the known ids are loaded from Neo4j and follow the journal, and that the GET handlers answer
+ * requests for unknown ids without opening a session.
+ */
+public class KnownIdsTest {
+
+	private KnownIds knownIds;
+
+	@Before
+	public void setUp() {
+		Driver loader = mock(Driver.class);
+		Session session = mock(Session.class);
+		StatementResult actors = mock(StatementResult.class);
+		StatementResult movies = mock(StatementResult.class);
+		Record actor = mock(Record.class);
+		Record movie = mock(Record.class);
+		when(loader.session(AccessMode.READ)).thenReturn(session);
+		when(session.run(KnownIds.LOAD_ACTOR_IDS_QUERY)).thenReturn(actors);
+		when(session.run(KnownIds.LOAD_MOVIE_IDS_QUERY)).thenReturn(movies);
+		when(actors.hasNext()).thenReturn(true, false);
+		when(actors.next()).thenReturn(actor);
+		when(actor.get("id")).thenReturn(Values.value("nm1"));
+		when(movies.hasNext()).thenReturn(true, false);
+		when(movies.next()).thenReturn(movie);
+		when(movie.get("id")).thenReturn(Values.value("tt1"));
+
+		knownIds = new KnownIds(16, 0.001);
+		knownIds.load(loader);
+		verify(session).close();
+	}
+
+	/**
+	 * This test verifies that loaded and journaled ids are known, and that others are ruled out.
+	 */
+	@Test
+	public void testLoadAndJournal() {
+		assertTrue(knownIds.isLoaded());
+		assertTrue(knownIds.mightContainActor("nm1"));
+		assertTrue(knownIds.mightContainMovie("tt1"));
+		assertFalse(knownIds.mightContainActor("nm2"));
+		assertFalse(knownIds.mightContainMovie("nm1"));
+
+		knownIds.onEvent(JournalEvent.addActor("nm2", "B"));
+		knownIds.onEvent(JournalEvent.addMovie("tt2", "M"));
+		assertTrue(knownIds.mightContainActor("nm2"));
+		assertTrue(knownIds.mightContainMovie("tt2"));
+		assertEquals(2, knownIds.getDefiniteMisses());
+		assertEquals(4, knownIds.getPossibleHits());
+	}
+
+	/**
+	 * This test verifies that before the load every id might exist.
+	 */
+	@Test
+	public void testNotLoaded() {
+		KnownIds empty = new KnownIds(16, 0.01);
+		assertFalse(empty.isLoaded());
+		assertTrue(empty.mightContainActor("nm404"));
+		assertTrue(empty.mightContainMovie("tt404"));
+	}
+
+	/**
+	 * This test verifies that the GET handlers answer 404 for unknown ids without touching the database.
+	 *
+	 * @throws Exception If a handler fails.
+	 */
+	@Test
+	public void testHandlersSkipDatabaseForUnknownIds() throws Exception {
+		Driver driver = mock(Driver.class);
+
+		SyntheticExchange getActor = new SyntheticExchange("GET", "/api/v1/getActor?actorId=nm404", null);
+		new GetActorHandler(driver, null, knownIds).handle(getActor);
+		assertEquals(404, getActor.getResponseCode());
+
+		SyntheticExchange getMovie = new SyntheticExchange("GET", "/api/v1/getMovie?movieId=tt404", null);
+		new GetMovieHandler(driver, null, knownIds).handle(getMovie);
+		assertEquals(404, getMovie.getResponseCode());
+
+		SyntheticExchange hasRelationship = new SyntheticExchange("GET", "/api/v1/hasRelationship?actorId=nm1&movieId=tt404", null);
+		new HasRelationshipHandler(driver, knownIds, null).handle(hasRelationship);
+		assertEquals(404, hasRelationship.getResponseCode());
+
+		SyntheticExchange baconNumber = new SyntheticExchange("GET", "/api/v1/computeBaconNumber?actorId=nm404", null);
+		new ComputeBaconNumberHandler(driver, null, ComputeBaconNumberHandler.DEFAULT_TIMEOUT_MILLIS, knownIds).handle(baconNumber);
+		assertEquals(404, baconNumber.getResponseCode());
+
+		verifyZeroInteractions(driver);
+	}
+
+	/**
+	 * This test verifies that known ids still go to the database.
+	 *
+	 * @throws Exception If the handler fails.
+	 */
+	@Test
+	public void testHandlersQueryKnownIds() throws Exception {
+		Driver driver = mock(Driver.class);
+		Session session = mock(Session.class);
+		StatementResult result = mock(StatementResult.class);
+		when(driver.session(AccessMode.READ)).thenReturn(session);
+		when(session.run(anyString(), any(Value.class))).thenReturn(result);
+
+		SyntheticExchange hasRelationship = new SyntheticExchange("GET", "/api/v1/hasRelationship?actorId=nm1&movieId=tt1", null);
+		new HasRelationshipHandler(driver, knownIds, null).handle(hasRelationship);
+		assertEquals(404, hasRelationship.getResponseCode());
+		verify(session).run(eq(HasRelationshipHandler.HAS_RELATIONSHIP_QUERY), any(Value.class));
+	}
+}
@@ -0,0 +1,66 @@
+package ca.yorku.eecs.membership;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * This class tests that the Bloom filter never forgets a key, grows past its initial capacity, and keeps its false
+ * positive rate near the configured one while growing.
+ */
+public class ScalableBloomFilterTest {
+
+	/**
+	 * This test verifies that every added key is reported present, across several growth steps.
+	 */
+	@Test
+	public void testNoFalseNegatives() {
+		ScalableBloomFilter filter = new ScalableBloomFilter(1000, 0.01);
+		for (int i = 0; i < 20000; i++) {
+			filter.add("nm" + i);
+		}
+		for (int i = 0; i < 20000; i++) {
+			assertTrue(filter.mightContain("nm" + i));
+		}
+		assertTrue(filter.getStages() > 1);
+		assertTrue(filter.getCount() > 19000);
+	}
+
+	/**
+	 * This test verifies that the false positive rate of a grown filter stays within the configured rate.
+	 */
+	@Test
+	public void testFalsePositiveRate() {
+		ScalableBloomFilter filter = new ScalableBloomFilter(1000, 0.01);
+		for (int i = 0; i < 50000; i++) {
+			filter.add("nm" + i);
+		}
+		int falsePositives = 0;
+		int probes = 100000;
+		for (int i = 0; i < probes; i++) {
+			if (filter.mightContain("tt" + i)) {
+				falsePositives++;
+			}
+		}
+		assertTrue("False positive rate " + (double) falsePositives / probes, falsePositives < probes * 0.015);
+	}
+
+	/**
+	 * This test verifies that an empty filter rules everything out.
+	 */
+	@Test
+	public void testEmpty() {
+		ScalableBloomFilter filter = new ScalableBloomFilter(16, 0.01);
+		assertFalse(filter.mightContain("nm0000102"));
+		assertFalse(filter.mightContain(""));
+		assertEquals(0, filter.getCount());
+	}
+
+	/**
+	 * This test verifies that invalid sizes are rejected.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidRate() {
+		new ScalableBloomFilter(16, 1.0);
+	}
+}
@@ -0,0 +1,134 @@
+package ca.yorku.eecs.query;
+
+import ca.yorku.eecs.server.ConnectionMonitor;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.neo4j.driver.v1.Session;
+import org.neo4j.driver.v1.exceptions.ClientException;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * This class tests that queries are cancelled at their deadline or on disconnect, and only then.
+ */
+@RunWith(MockitoJUnitRunner.class)
+@SuppressWarnings("deprecation") // Session.reset() is how QueryDeadline cancels, see there
+public class QueryDeadlineTest {
+
+	@Mock
+	private Session session;
+
+	/**
+	 * This test verifies that the session is reset once the deadline passes.
+	 */
+	@Test
+	public void testTimeout() {
+		QueryDeadline deadline = new QueryDeadline(session, 20, null);
+		verify(session, timeout(2000)).reset();
+		assertEquals(QueryDeadline.Cancellation.TIMED_OUT, deadline.getCancellation());
+		assertEquals(504, deadline.getCancellation().getStatus());
+		assertEquals(20, deadline.transactionConfig().timeout().toMillis());
+		deadline.close();
+	}
+
+	/**
+	 * This test verifies that a reset stuck in a round trip to Neo4j does not delay another query's timeout.
+	 *
+	 * @throws Exception If interrupted.
+	 */
+	@Test
+	public void testHungResetDoesNotDelayOthers() throws Exception {
+		Session hung = mock(Session.class);
+		CountDownLatch release = new CountDownLatch(1);
+		doAnswer(invocation -> release.await(5, TimeUnit.SECONDS)).when(hung).reset();
+		QueryDeadline first = new QueryDeadline(hung, 10, null);
+		verify(hung, timeout(2000)).reset();
+		try {
+			QueryDeadline second = new QueryDeadline(session, 20, null);
+			verify(session, timeout(1000)).reset();
+			assertEquals(QueryDeadline.Cancellation.TIMED_OUT, second.getCancellation());
+			second.close();
+		} finally {
+			release.countDown();
+			first.close();
+		}
+	}
+
+	/**
+	 * This test verifies that a disconnect cancels the query and that the listener is removed on close.
+	 */
+	@Test
+	public void testDisconnect() {
+		FakeConnection connection = new FakeConnection();
+		QueryDeadline deadline = new QueryDeadline(session, 60_000, connection);
+		assertEquals(1, connection.listeners.size());
+
+		connection.close();
+		verify(session, timeout(2000)).reset();
+		assertEquals(QueryDeadline.Cancellation.DISCONNECTED, deadline.getCancellation());
+		assertEquals(QueryDeadline.Cancellation.DISCONNECTED, deadline.cancellationOf(new ClientException("boom")));
+		deadline.close();
+		assertTrue(connection.listeners.isEmpty());
+	}
+
+	/**
+	 * This test verifies that nothing is cancelled after the query completed, and that unrelated failures are not
+	 * mistaken for timeouts.
+	 *
+	 * @throws InterruptedException If interrupted while waiting.
+	 */
+	@Test
+	public void testCompleted() throws InterruptedException {
+		FakeConnection connection = new FakeConnection();
+		QueryDeadline deadline = new QueryDeadline(session, 20, connection);
+		deadline.close();
+		connection.close();
+		Thread.sleep(100);
+
+		verify(session, never()).reset();
+		assertNull(deadline.getCancellation());
+		assertNull(deadline.cancellationOf(new ClientException("Neo.ClientError.Statement.SyntaxError", "bad")));
+		assertEquals(QueryDeadline.Cancellation.TIMED_OUT,
+				deadline.cancellationOf(new ClientException("Neo.ClientError.Transaction.TransactionTimedOut", "slow")));
+	}
+
+	/**
+	 * A connection closed on demand.
+	 */
+	private static final class FakeConnection implements ConnectionMonitor {
+
+		private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+		private volatile boolean open = true;
+
+		void close() {
+			open = false;
+			for (Runnable listener : listeners) {
+				listener.run();
+			}
+		}
+
+		@Override
+		public boolean isOpen() {
+			return open;
+		}
+
+		@Override
+		public void addCloseListener(Runnable listener) {
+			listeners.add(listener);
+		}
+
+		@Override
+		public void removeCloseListener(Runnable listener) {
+			listeners.remove(listener);
+		}
+	}
+}
@@ -0,0 +1,131 @@
+package ca.yorku.eecs.routing;
+
+import ca.yorku.eecs.handler.get.GetActorHandler;
+import ca.yorku.eecs.handler.put.AddActorHandler;
+import ca.yorku.eecs.versioning.EntityVersions;
+import ca.yorku.eecs.warmup.SyntheticExchange;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.driver.v1.*;
+import org.neo4j.driver.v1.net.ServerAddress;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * This class tests that handlers open sessions in the right access mode and pass bookmarks from a client's writes to
+ * its reads, against a routing stand-in: a driver whose WRITE sessions go to a "leader" and READ sessions to a
+ * "replica".
+ */
+public class BookmarksTest {
+
+	private Driver driver;
+
+	private Session leader;
+
+	private Session replica;
+
+	@Before
+	public void setUp() {
+		driver = mock(Driver.class);
+		leader = mock(Session.class);
+		replica = mock(Session.class);
+		Transaction transaction = mock(Transaction.class);
+		StatementResult empty = mock(StatementResult.class);
+
+		when(driver.session(eq(AccessMode.WRITE))).thenReturn(leader);
+		when(driver.session(eq(AccessMode.WRITE), anyIterable())).thenReturn(leader);
+		when(driver.session(eq(AccessMode.READ))).thenReturn(replica);
+		when(driver.session(eq(AccessMode.READ), anyIterable())).thenReturn(replica);
+		when(leader.writeTransaction(any())).thenAnswer(invocation -> invocation.<TransactionWork<?>>getArgument(0).execute(transaction));
+		when(leader.lastBookmark()).thenReturn("neo4j:bookmark:v1:tx42");
+		when(transaction.run(anyString(), any(Value.class))).thenReturn(empty);
+		when(replica.run(anyString(), any(Value.class))).thenReturn(empty);
+	}
+
+	/**
+	 * This test verifies that a write goes to the leader and returns its bookmark, and that a read sent with the
+	 * bookmark opens a replica session waiting for it.
+	 *
+	 * @throws Exception If a handler fails.
+	 */
+	@Test
+	public void testReadYourWrites() throws Exception {
+		SyntheticExchange put = new SyntheticExchange("PUT", "/api/v1/addActor", "{\"name\": \"A\", \"actorId\": \"nm1\"}");
+		new AddActorHandler(driver).handle(put);
+		assertEquals(200, put.getResponseCode());
+		String bookmark = put.getResponseHeaders().getFirst(Bookmarks.HEADER);
+		assertEquals("neo4j:bookmark:v1:tx42", bookmark);
+		verify(driver).session(AccessMode.WRITE);
+
+		SyntheticExchange get = new SyntheticExchange("GET", "/api/v1/getActor?actorId=nm1", null);
+		get.getRequestHeaders().add(Bookmarks.HEADER, bookmark);
+		new GetActorHandler(driver).handle(get);
+		verify(driver).session(AccessMode.READ, Collections.singletonList(bookmark));
+		verify(replica).close();
+	}
+
+	/**
+	 * This test verifies that a read without bookmarks opens a plain replica session.
+	 *
+	 * @throws Exception If the handler fails.
+	 */
+	@Test
+	public void testReadWithoutBookmark() throws Exception {
+		new GetActorHandler(driver).handle(new SyntheticExchange("GET", "/api/v1/getActor?actorId=nm1", null));
+		verify(driver).session(AccessMode.READ);
+		verify(driver, never()).session(AccessMode.WRITE);
+	}
+
+	/**
+	 * This test verifies that a read whose response carries an ETag stays on a replica and waits for the bookmark of the
+	 * last write the tag counts, along with any the client sent, so a lagging replica cannot serve older data under
+	 * the current tag.
+	 *
+	 * @throws Exception If the handler fails.
+	 */
+	@Test
+	public void testTaggedRead() throws Exception {
+		EntityVersions versions = new EntityVersions();
+		versions.bumpActor("nm1", "neo4j:bookmark:v1:tx42");
+
+		new GetActorHandler(driver, versions, null).handle(new SyntheticExchange("GET", "/api/v1/getActor?actorId=nm1", null));
+		verify(driver).session(AccessMode.READ, Collections.singletonList("neo4j:bookmark:v1:tx42"));
+
+		SyntheticExchange get = new SyntheticExchange("GET", "/api/v1/getActor?actorId=nm1", null);
+		get.getRequestHeaders().add(Bookmarks.HEADER, "b1");
+		new GetActorHandler(driver, versions, null).handle(get);
+		verify(driver).session(AccessMode.READ, Arrays.asList("b1", "neo4j:bookmark:v1:tx42"));
+
+		// Never written through this server, so there is nothing to wait for
+		new GetActorHandler(driver, versions, null).handle(new SyntheticExchange("GET", "/api/v1/getActor?actorId=nm2", null));
+		verify(driver).session(AccessMode.READ);
+		verify(driver, never()).session(eq(AccessMode.WRITE));
+		verify(driver, never()).session(eq(AccessMode.WRITE), anyIterable());
+	}
+
+	/**
+	 * This test verifies that repeated and comma-separated bookmark headers are all collected.
+	 */
+	@Test
+	public void testFromRequest() {
+		SyntheticExchange exchange = new SyntheticExchange("GET", "/", null);
+		assertTrue(Bookmarks.fromRequest(exchange).isEmpty());
+		exchange.getRequestHeaders().add(Bookmarks.HEADER, "b1, b2");
+		exchange.getRequestHeaders().add(Bookmarks.HEADER, "b3");
+		assertEquals(Arrays.asList("b1", "b2", "b3"), Bookmarks.fromRequest(exchange));
+	}
+
+	/**
+	 * This test verifies that the resolver offers the URI's address first, then the configured routers.
+	 */
+	@Test
+	public void testStaticRoutersResolver() {
+		StaticRoutersResolver resolver = new StaticRoutersResolver("core1:7688, core2");
+		assertEquals(Arrays.asList(ServerAddress.of("seed", 7687), ServerAddress.of("core1", 7688), ServerAddress.of("core2", 7687)),
+				Arrays.asList(resolver.resolve(ServerAddress.of("seed", 7687)).toArray()));
+	}
+}
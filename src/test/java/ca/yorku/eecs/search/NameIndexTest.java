@@ -0,0 +1,120 @@
+package ca.yorku.eecs.search;
+
+import ca.yorku.eecs.graph.ActorMovieGraph;
+import ca.yorku.eecs.journal.JournalEvent;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * This class tests the prefix name index and the search index built on it.
+ */
+public class NameIndexTest {
+
+	/**
+	 * This test verifies case-insensitive matching on every word of a name, and that each entity is returned once.
+	 */
+	@Test
+	public void testSearch() {
+		NameIndex index = new NameIndex();
+		assertTrue(index.add("nm0", "Kevin Bacon"));
+		assertTrue(index.add("nm1", "Kevin Costner"));
+		assertTrue(index.add("nm2", "Francis Bacon-Bacon"));
+		assertTrue(index.add("nm3", null));
+		assertFalse(index.add("nm0", "Someone Else"));
+
+		assertEquals(Arrays.asList("nm0", "nm1"), ids(index.search("KEV", 10)));
+		assertEquals(Arrays.asList("nm0"), ids(index.search("kevin  ba", 10)));
+		assertEquals(Arrays.asList("nm0", "nm2"), ids(index.search("bacon", 10)));
+		assertEquals(Arrays.asList("nm0"), ids(index.search("b", 1)));
+		assertEquals("Kevin Bacon", index.search("kevin b", 1).get(0).getName());
+		assertTrue(index.search("acon", 10).isEmpty());
+		assertTrue(index.search(" ", 10).isEmpty());
+		assertEquals(4, index.size());
+	}
+
+	/**
+	 * This test compares many incremental inserts, which merge the delta into the main run several times, and a bulk
+	 * build with a brute-force scan.
+	 */
+	@Test
+	public void testRandomNames() {
+		Random random = new Random(3);
+		List<String> ids = new ArrayList<>();
+		List<String> names = new ArrayList<>();
+		for (int i = 0; i < 2000; i++) {
+			ids.add("nm" + i);
+			names.add(randomWord(random) + " " + randomWord(random));
+		}
+		NameIndex incremental = new NameIndex();
+		for (int i = 0; i < ids.size(); i++) {
+			incremental.add(ids.get(i), names.get(i));
+		}
+		NameIndex bulk = new NameIndex();
+		bulk.addAll(ids.subList(0, 1000), names.subList(0, 1000));
+		for (int i = 1000; i < ids.size(); i++) {
+			bulk.add(ids.get(i), names.get(i));
+		}
+
+		for (int q = 0; q < 200; q++) {
+			String prefix = randomWord(random).substring(0, 1 + random.nextInt(2));
+			List<String> expected = new ArrayList<>();
+			for (int i = 0; i < names.size(); i++) {
+				for (String word : names.get(i).split(" ")) {
+					if (word.startsWith(prefix) && !expected.contains(ids.get(i))) {
+						expected.add(ids.get(i));
+					}
+				}
+			}
+			expected.sort(null);
+			List<String> actual = ids(incremental.search(prefix, Integer.MAX_VALUE));
+			actual.sort(null);
+			assertEquals(expected, actual);
+			List<String> fromBulk = ids(bulk.search(prefix, Integer.MAX_VALUE));
+			fromBulk.sort(null);
+			assertEquals(expected, fromBulk);
+			assertEquals(Math.min(5, expected.size()), incremental.search(prefix, 5).size());
+		}
+	}
+
+	/**
+	 * This test verifies that the search index is built from the graph and then updated from journal events.
+	 */
+	@Test
+	public void testSearchIndex() {
+		ActorMovieGraph graph = new ActorMovieGraph();
+		graph.addActor("nm0", "Kevin Bacon");
+		graph.addMovie("tt0", "Footloose");
+		SearchIndex index = new SearchIndex();
+		index.onEvent(JournalEvent.addActor("nm0", "Kevin Bacon"));
+		assertFalse(index.isLoaded());
+
+		index.load(graph);
+		assertTrue(index.isLoaded());
+		assertEquals(1, index.getActors().size());
+		index.onEvent(JournalEvent.addMovie("tt1", "Flatliners"));
+		assertEquals(Arrays.asList("tt1", "tt0"), ids(index.getMovies().search("f", 10)));
+		assertTrue(index.getActors().search("f", 10).isEmpty());
+	}
+
+	private static List<String> ids(List<NameIndex.Match> matches) {
+		List<String> ids = new ArrayList<>();
+		for (NameIndex.Match match : matches) {
+			ids.add(match.getId());
+		}
+		return ids;
+	}
+
+	private static String randomWord(Random random) {
+		char[] word = new char[3 + random.nextInt(5)];
+		for (int i = 0; i < word.length; i++) {
+			word[i] = (char) ('a' + random.nextInt(6));
+		}
+		return new String(word);
+	}
+}
@@ -0,0 +1,259 @@
+package ca.yorku.eecs.server;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * This class tests the NIO event-loop server over real sockets.
+ */
+public class NioWebServerTest {
+
+	private NioWebServer server;
+
+	private int port;
+
+	private final CountDownLatch closeNoticed = new CountDownLatch(1);
+
+	/**
+	 * This method is called before each test. It starts a server with an echo, a streaming and a failing handler.
+	 *
+	 * @throws IOException If the server cannot start.
+	 */
+	@Before
+	public void setUp() throws IOException {
+		server = new NioWebServer(new InetSocketAddress("127.0.0.1", 0));
+		server.createContext("/echo", exchange -> {
+			ByteArrayOutputStream body = new ByteArrayOutputStream();
+			byte[] buffer = new byte[1024];
+			int read;
+			while ((read = exchange.getRequestBody().read(buffer)) > 0) {
+				body.write(buffer, 0, read);
+			}
+			String response = exchange.getRequestMethod() + " " + exchange.getRequestURI().getQuery() + " " + body;
+			exchange.sendResponseHeaders(200, response.length());
+			exchange.getResponseBody().write(response.getBytes(StandardCharsets.ISO_8859_1));
+			exchange.getResponseBody().close();
+		});
+		server.createContext("/stream", exchange -> {
+			exchange.sendResponseHeaders(200, 0);
+			OutputStream body = exchange.getResponseBody();
+			byte[] line = new byte[1000];
+			Arrays.fill(line, (byte) 'x');
+			for (int i = 0; i < 1000; i++) {
+				body.write(line);
+			}
+			body.close();
+		});
+		server.createContext("/wait", exchange -> {
+			// Answers only once the client has gone, like a query cancelled on disconnect
+			CountDownLatch disconnected = new CountDownLatch(1);
+			ConnectionMonitor.of(exchange).addCloseListener(disconnected::countDown);
+			try {
+				disconnected.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			closeNoticed.countDown();
+			exchange.sendResponseHeaders(503, -1);
+			exchange.close();
+		});
+		server.createContext("/fail", exchange -> {
+			throw new IllegalStateException("boom");
+		});
+		server.start();
+		port = server.getAddress().getPort();
+	}
+
+	/**
+	 * This method is called after each test. It stops the server.
+	 */
+	@After
+	public void tearDown() {
+		server.stop(1);
+	}
+
+	/**
+	 * This test verifies that pipelined requests on one persistent connection are answered in order.
+	 *
+	 * @throws IOException If there's an issue with input or output.
+	 */
+	@Test
+	public void testPipelining() throws IOException {
+		try (Socket socket = new Socket("127.0.0.1", port)) {
+			OutputStream out = socket.getOutputStream();
+			InputStream in = socket.getInputStream();
+			out.write(("GET /echo?n=1 HTTP/1.1\r\nHost: x\r\n\r\n"
+					+ "POST /echo?n=2 HTTP/1.1\r\nHost: x\r\nContent-Length: 5\r\n\r\nhello"
+					+ "GET /missing HTTP/1.1\r\nHost: x\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1));
+			out.flush();
+			assertEquals("200 GET n=1 ", readResponse(in));
+			assertEquals("200 POST n=2 hello", readResponse(in));
+			assertEquals("404 No context found for request", readResponse(in));
+
+			// The connection is still usable afterwards
+			out.write("GET /echo?n=3 HTTP/1.1\r\nHost: x\r\nConnection: close\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+			assertEquals("200 GET n=3 ", readResponse(in));
+			assertEquals(-1, in.read());
+		}
+	}
+
+	/**
+	 * This test verifies a large chunked response, read with the JDK client.
+	 *
+	 * @throws IOException If there's an issue with input or output.
+	 */
+	@Test
+	public void testChunkedStreaming() throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + port + "/stream").openConnection();
+		assertEquals(200, connection.getResponseCode());
+		assertEquals("chunked", connection.getHeaderField("Transfer-Encoding"));
+		long total = 0;
+		try (InputStream in = connection.getInputStream()) {
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = in.read(buffer)) > 0) {
+				total += read;
+			}
+		}
+		assertEquals(1_000_000, total);
+	}
+
+	/**
+	 * This test verifies that a failing handler gets a 500 and the connection is closed.
+	 *
+	 * @throws IOException If there's an issue with input or output.
+	 */
+	@Test
+	public void testHandlerFailure() throws IOException {
+		try (Socket socket = new Socket("127.0.0.1", port)) {
+			socket.getOutputStream().write("GET /fail HTTP/1.1\r\nHost: x\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+			assertEquals("500 Internal server error.", readResponse(socket.getInputStream()));
+			assertEquals(-1, socket.getInputStream().read());
+		}
+	}
+
+	/**
+	 * This test verifies that a handler is told when its client disconnects mid-request.
+	 *
+	 * @throws Exception If there's an issue with input or output.
+	 */
+	@Test
+	public void testDisconnectNotified() throws Exception {
+		try (Socket socket = new Socket("127.0.0.1", port)) {
+			socket.getOutputStream().write("GET /wait HTTP/1.1\r\nHost: x\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+			Thread.sleep(100);
+		}
+		assertTrue(closeNoticed.await(2, TimeUnit.SECONDS));
+	}
+
+	/**
+	 * This test verifies that malformed requests are rejected.
+	 *
+	 * @throws IOException If there's an issue with input or output.
+	 */
+	@Test
+	public void testMalformedRequest() throws IOException {
+		try (Socket socket = new Socket("127.0.0.1", port)) {
+			socket.getOutputStream().write("NONSENSE\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+			assertTrue(readResponse(socket.getInputStream()).startsWith("400 "));
+		}
+	}
+
+	/**
+	 * This test verifies that a context mounted on its own executor runs there, and that one whose executor rejects the
+	 * request gets 503 with a Retry-After without affecting other contexts.
+	 *
+	 * @throws IOException If there's an issue with input or output.
+	 */
+	@Test
+	public void testContextExecutors() throws IOException {
+		ExecutorService routeExecutor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "route-thread"));
+		try {
+			server.createContext("/thread", exchange -> {
+				byte[] response = Thread.currentThread().getName().getBytes(StandardCharsets.ISO_8859_1);
+				exchange.sendResponseHeaders(200, response.length);
+				exchange.getResponseBody().write(response);
+				exchange.getResponseBody().close();
+			}, routeExecutor);
+			server.createContext("/saturated", exchange -> fail("A rejected request must not run"), runnable -> {
+				throw new RejectedExecutionException("full");
+			});
+
+			try (Socket socket = new Socket("127.0.0.1", port)) {
+				OutputStream out = socket.getOutputStream();
+				InputStream in = socket.getInputStream();
+				out.write("GET /thread HTTP/1.1\r\nHost: x\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+				assertEquals("200 route-thread", readResponse(in));
+				out.write("GET /saturated HTTP/1.1\r\nHost: x\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+				assertEquals("503 Server busy, retry later.", readResponse(in));
+				out.write("GET /echo?n=1 HTTP/1.1\r\nHost: x\r\nConnection: close\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+				assertEquals("200 GET n=1 ", readResponse(in));
+			}
+
+			HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + port + "/saturated").openConnection();
+			assertEquals(503, connection.getResponseCode());
+			assertEquals("1", connection.getHeaderField("Retry-After"));
+		} finally {
+			routeExecutor.shutdown();
+		}
+	}
+
+	/**
+	 * Reads one response with a Content-Length body.
+	 *
+	 * @return The status code and body, separated by a space.
+	 */
+	private static String readResponse(InputStream in) throws IOException {
+		String statusLine = readLine(in);
+		int contentLength = 0;
+		String line;
+		while (!(line = readLine(in)).isEmpty()) {
+			if (line.toLowerCase().startsWith("content-length:")) {
+				contentLength = Integer.parseInt(line.substring(15).trim());
+			}
+		}
+		byte[] body = new byte[contentLength];
+		int read = 0;
+		while (read < contentLength) {
+			int n = in.read(body, read, contentLength - read);
+			if (n < 0) {
+				throw new IOException("Connection closed mid-body");
+			}
+			read += n;
+		}
+		return statusLine.split(" ")[1] + " " + new String(body, StandardCharsets.ISO_8859_1);
+	}
+
+	private static String readLine(InputStream in) throws IOException {
+		StringBuilder line = new StringBuilder();
+		int c;
+		while ((c = in.read()) != '\n') {
+			if (c < 0) {
+				throw new IOException("Connection closed");
+			}
+			if (c != '\r') {
+				line.append((char) c);
+			}
+		}
+		return line.toString();
+	}
+}
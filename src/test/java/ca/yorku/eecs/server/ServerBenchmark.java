@@ -0,0 +1,136 @@
+package ca.yorku.eecs.server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares requests per second of the JDK and the NIO server backends on a trivial handler, so the numbers measure the
+ * server layer rather than Neo4j.
+ * <p>
+ * Each client keeps one persistent connection open and sends batches of {@code pipeline} requests before reading the
+ * responses; a pipeline depth of 1 is a plain keep-alive client. Run with:
+ * <pre>
+ * mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=ca.yorku.eecs.server.ServerBenchmark [-Dexec.args="clients pipeline seconds"]
+ * </pre>
+ * </p>
+ */
+public class ServerBenchmark {
+
+	private static final byte[] BODY = "{\"actorId\":\"nm0000102\",\"name\":\"Kevin Bacon\"}".getBytes(StandardCharsets.US_ASCII);
+
+	public static void main(String[] args) throws Exception {
+		int clients = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+		int pipeline = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+		int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+		System.out.printf("clients=%d, pipeline=%d, %d s per backend%n", clients, pipeline, seconds);
+		System.out.printf("%-8s %12s%n", "backend", "requests/s");
+		for (int round = 0; round < 2; round++) {
+			// The first round only warms up the JIT
+			boolean report = round == 1;
+			run("jdk", new JdkWebServer(new InetSocketAddress("127.0.0.1", 0)), clients, pipeline, report ? seconds : 1, report);
+			run("nio", new NioWebServer(new InetSocketAddress("127.0.0.1", 0)), clients, pipeline, report ? seconds : 1, report);
+		}
+	}
+
+	private static void run(String name, WebServer server, int clients, int pipeline, int seconds, boolean report)
+			throws Exception {
+		server.createContext("/api/v1/getActor", exchange -> {
+			exchange.sendResponseHeaders(200, BODY.length);
+			exchange.getResponseBody().write(BODY);
+			exchange.getResponseBody().close();
+		});
+		ExecutorService handlers = Executors.newCachedThreadPool();
+		server.setExecutor(handlers);
+		server.start();
+		int port = server.getAddress().getPort();
+
+		StringBuilder requests = new StringBuilder();
+		for (int i = 0; i < pipeline; i++) {
+			requests.append("GET /api/v1/getActor?actorId=nm0000102 HTTP/1.1\r\nHost: localhost\r\n\r\n");
+		}
+		byte[] batch = requests.toString().getBytes(StandardCharsets.US_ASCII);
+
+		AtomicLong completed = new AtomicLong();
+		long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+		List<Thread> threads = new ArrayList<>();
+		for (int c = 0; c < clients; c++) {
+			byte[] request = batch;
+			Thread thread = new Thread(() -> {
+				try (Socket socket = new Socket("127.0.0.1", port)) {
+					socket.setTcpNoDelay(true);
+					OutputStream out = socket.getOutputStream();
+					InputStream in = socket.getInputStream();
+					while (System.nanoTime() < deadline) {
+						out.write(request);
+						out.flush();
+						for (int i = 0; i < pipeline; i++) {
+							readResponse(in);
+						}
+						completed.addAndGet(pipeline);
+					}
+				} catch (IOException e) {
+					System.err.println(name + ": " + e);
+				}
+			});
+			threads.add(thread);
+		}
+		long start = System.nanoTime();
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		double elapsed = (System.nanoTime() - start) / 1e9;
+		server.stop(0);
+		handlers.shutdown();
+		if (report) {
+			System.out.printf("%-8s %12.0f%n", name, completed.get() / elapsed);
+		}
+	}
+
+	/**
+	 * Reads and discards one response with a Content-Length body.
+	 */
+	private static void readResponse(InputStream in) throws IOException {
+		int contentLength = 0;
+		StringBuilder line = new StringBuilder();
+		while (true) {
+			int c = in.read();
+			if (c < 0) {
+				throw new IOException("Connection closed");
+			}
+			if (c == '\r') {
+				continue;
+			}
+			if (c != '\n') {
+				line.append((char) c);
+				continue;
+			}
+			if (line.length() == 0) {
+				break;
+			}
+			String header = line.toString().toLowerCase();
+			if (header.startsWith("content-length:")) {
+				contentLength = Integer.parseInt(header.substring(15).trim());
+			}
+			line.setLength(0);
+		}
+		for (int i = 0; i < contentLength; i++) {
+			if (in.read() < 0) {
+				throw new IOException("Connection closed mid-body");
+			}
+		}
+	}
+}
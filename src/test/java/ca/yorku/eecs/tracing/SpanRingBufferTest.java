@@ -0,0 +1,77 @@
+package ca.yorku.eecs.tracing;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * This class tests the SpanRingBuffer and the stage-based Trace API that writes into it.
+ */
+public class SpanRingBufferTest {
+
+	/**
+	 * This test verifies that each stage and the request as a whole are recorded in order.
+	 */
+	@Test
+	public void testTraceRecordsStages() {
+		SpanRingBuffer buffer = new SpanRingBuffer(16);
+		Trace trace = new Trace(buffer, "abc", "getMovie", System.currentTimeMillis(), System.nanoTime());
+
+		trace.stage("parse");
+		trace.stage("cypher");
+		Span span = trace.span("encode");
+		assertTrue(trace.isSampled());
+		span.close();
+		trace.finish();
+
+		List<SpanRecord> records = buffer.snapshot(16);
+		assertEquals(4, records.size());
+		assertEquals("parse", records.get(0).getName());
+		assertEquals("encode", records.get(1).getName());
+		assertEquals("cypher", records.get(2).getName());
+		assertTrue(records.get(3).isRoot());
+		assertEquals("getMovie", records.get(3).getName());
+		assertEquals("abc", records.get(3).getTraceId());
+	}
+
+	/**
+	 * This test verifies that the unsampled trace records nothing.
+	 */
+	@Test
+	public void testNoopTraceRecordsNothing() {
+		assertFalse(Trace.NOOP.isSampled());
+		Trace.NOOP.stage("parse");
+		assertSame(Span.NOOP, Trace.NOOP.span("cypher"));
+		Trace.NOOP.finish();
+	}
+
+	/**
+	 * This test verifies that the ring keeps only the most recent records and that draining skips overwritten ones.
+	 */
+	@Test
+	public void testWrapAroundAndDrain() {
+		SpanRingBuffer buffer = new SpanRingBuffer(4);
+		for (int i = 0; i < 10; i++) {
+			buffer.add("t" + i, "op", "stage", false, 0, 0, i);
+		}
+
+		List<SpanRecord> recent = buffer.snapshot(100);
+		assertEquals(4, recent.size());
+		assertEquals("t6", recent.get(0).getTraceId());
+		assertEquals("t9", recent.get(3).getTraceId());
+
+		List<SpanRecord> drained = new ArrayList<>();
+		long next = buffer.drainFrom(0, drained);
+		assertEquals(10, next);
+		assertEquals(4, drained.size());
+
+		drained.clear();
+		buffer.add("t10", "op", "stage", false, 0, 0, 10);
+		assertEquals(11, buffer.drainFrom(next, drained));
+		assertEquals(1, drained.size());
+		assertEquals("t10", drained.get(0).getTraceId());
+	}
+}
@@ -0,0 +1,57 @@
+package ca.yorku.eecs.versioning;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * This class tests the version counters and ETag matching.
+ */
+public class EntityVersionsTest {
+
+	private static final String JSON = "application/json; charset=utf-8";
+
+	private static final String CBOR = "application/cbor";
+
+	/**
+	 * This test verifies that tags change with the entity's version and the representation only, and that versions keep their
+	 * writes' bookmarks.
+	 */
+	@Test
+	public void testTags() {
+		EntityVersions versions = new EntityVersions();
+		String actor = versions.actorTag("nm1", JSON);
+		assertTrue(actor.startsWith("W/\"") && actor.endsWith("-json\""));
+		assertEquals(actor, versions.actorTag("nm1", JSON));
+		assertNotEquals(actor, versions.actorTag("nm1", CBOR));
+		assertNotEquals(actor, versions.movieTag("nm1", JSON));
+
+		versions.bumpMovie("tt1", null);
+		assertEquals(actor, versions.actorTag("nm1", JSON));
+		versions.bumpActor("nm1", "b1");
+		versions.bumpActor("nm1", null);
+		assertEquals(2, versions.actorVersion("nm1"));
+		// A write whose bookmark is unknown keeps the last one known
+		assertEquals("b1", versions.actorBookmark("nm1"));
+		assertNull(versions.movieBookmark("nm1"));
+		assertNotEquals(actor, versions.actorTag("nm1", JSON));
+	}
+
+	/**
+	 * This test verifies If-None-Match lists, wildcards and weak comparison.
+	 */
+	@Test
+	public void testMatches() {
+		String etag = "W/\"abc-a1-json\"";
+		assertFalse(EntityVersions.matches(null, etag));
+		assertTrue(EntityVersions.matches(etag, etag));
+		assertTrue(EntityVersions.matches("\"abc-a1-json\"", etag));
+		assertTrue(EntityVersions.matches("\"x\", W/\"abc-a1-json\"", etag));
+		assertFalse(EntityVersions.matches("*", etag));
+		assertFalse(EntityVersions.matches("W/\"abc-a2-json\"", etag));
+		assertTrue(EntityVersions.matchesAny("*"));
+		assertTrue(EntityVersions.matchesAny("\"x\", *"));
+		assertFalse(EntityVersions.matchesAny(etag));
+		assertFalse(EntityVersions.matchesAny(null));
+	}
+}
@@ -0,0 +1,117 @@
+package ca.yorku.eecs.warmup;
+
+import ca.yorku.eecs.handler.get.GetActorHandler;
+import ca.yorku.eecs.membership.KnownIds;
+import com.sun.net.httpserver.HttpHandler;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.neo4j.driver.v1.*;
+
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * This class tests the startup Warmup phase using Mockito to mock the Neo4j driver.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class WarmupTest {
+
+	/**
+	 * Mock of the Driver class, which is the Neo4j database driver.
+	 */
+	@Mock
+	private Driver driver;
+
+	/**
+	 * Mock of the Session class. This is used to mock the database session.
+	 */
+	@Mock
+	private Session session;
+
+	/**
+	 * Mock of the StatementResult class. This is used to mock the result of the database query.
+	 */
+	@Mock
+	private StatementResult statementResult;
+
+	/**
+	 * Mock handler that the synthetic requests are replayed against.
+	 */
+	@Mock
+	private HttpHandler handler;
+
+	/**
+	 * This method is called before each test. It sets up the mocks.
+	 */
+	@Before
+	public void setUp() {
+		when(driver.session()).thenReturn(session);
+	}
+
+	/**
+	 * This test verifies that warmup opens the connections, prepares statements with EXPLAIN and replays requests.
+	 *
+	 * @throws IOException If there's an issue with input or output.
+	 */
+	@Test
+	public void testWarmupReady() throws IOException {
+		when(session.run(anyString())).thenReturn(statementResult);
+		when(session.run(anyString(), any(Value.class))).thenReturn(statementResult);
+
+		WarmupReport report = new Warmup(driver, 3, 5)
+				.addStatements("MATCH (a:Actor {actorId: $actorId}) RETURN a")
+				.addRequest(handler, "GET", "/api/v1/getActor?actorId=" + Warmup.PROBE_ID, null)
+				.run();
+
+		assertTrue(report.isReady());
+		assertEquals(3, report.getConnectionsEstablished());
+		assertEquals(1, report.getStatementsPrepared());
+		assertEquals(5, report.getRequestsReplayed());
+		verify(session).run(eq("EXPLAIN MATCH (a:Actor {actorId: $actorId}) RETURN a"), any(Value.class));
+		verify(handler, times(5)).handle(any(SyntheticExchange.class));
+	}
+
+	/**
+	 * This test verifies that a warmup request for the probe id reaches a session while the known ids are not loaded,
+	 * which is why they are loaded only after the warmup.
+	 *
+	 * @throws IOException If there's an issue with input or output.
+	 */
+	@Test
+	public void testWarmupRequestReachesSession() throws IOException {
+		when(driver.session(AccessMode.READ)).thenReturn(session);
+		when(session.run(anyString(), any(Value.class))).thenReturn(statementResult);
+		KnownIds knownIds = new KnownIds(1024, 0.01);
+		GetActorHandler getActorHandler = new GetActorHandler(driver, null, knownIds);
+
+		WarmupReport report = new Warmup(driver, 0, 2)
+				.addRequest(getActorHandler, "GET", "/api/v1/getActor?actorId=" + Warmup.PROBE_ID, null)
+				.run();
+
+		assertEquals(2, report.getRequestsReplayed());
+		verify(session, times(2)).run(eq(GetActorHandler.GET_ACTOR_QUERY), any(Value.class));
+		assertFalse(knownIds.isLoaded());
+	}
+
+	/**
+	 * This test verifies that warmup reports not ready when the database cannot be reached.
+	 */
+	@Test
+	public void testWarmupNotReadyWhenDatabaseDown() {
+		when(session.run(anyString())).thenThrow(new RuntimeException("connection refused"));
+		when(session.run(anyString(), any(Value.class))).thenThrow(new RuntimeException("connection refused"));
+
+		WarmupReport report = new Warmup(driver, 2, 0)
+				.addStatements("RETURN 1")
+				.run();
+
+		assertFalse(report.isReady());
+		assertEquals(0, report.getConnectionsEstablished());
+		assertEquals(0, report.getStatementsPrepared());
+	}
+}